@@ -0,0 +1,35 @@
+package com.featureflagx.actuator;
+
+import com.featureflagx.cache.HotFlagCache;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/hotflags}: the most frequently evaluated flags on this node and
+ * whether each is pinned in the in-process cache.
+ */
+@Component
+@Endpoint(id = "hotflags")
+public class HotFlagsEndpoint {
+
+    private final HotFlagCache hotFlagCache;
+
+    public HotFlagsEndpoint(HotFlagCache hotFlagCache) {
+        this.hotFlagCache = hotFlagCache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotFlags() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", hotFlagCache.isEnabled());
+        result.put("minCount", hotFlagCache.getMinCount());
+        result.put("decayIntervalSeconds", hotFlagCache.getDecayInterval().toSeconds());
+        result.put("pinned", hotFlagCache.getPinnedCount());
+        result.put("flags", hotFlagCache.getHotFlags());
+        return result;
+    }
+}
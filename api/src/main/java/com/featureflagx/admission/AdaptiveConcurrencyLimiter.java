@@ -0,0 +1,116 @@
+package com.featureflagx.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency-driven AIMD concurrency limit.
+ *
+ * Completions are grouped into windows of {@value #MIN_WINDOW_SAMPLES} requests, or the current
+ * limit if that is larger, and each window's mean latency is compared with a baseline: the lowest
+ * window mean over the last one to two periods of {@code baselineResetSamples} requests. Single
+ * samples say little, since evaluations take microseconds when pinned and milliseconds when they
+ * go to Redis or the database; a window's mean only rises when requests start queueing behind
+ * Tomcat threads or the Hikari pool. The windowed minimum lets the baseline follow real shifts
+ * (e.g. a slower DB) without resting on one sample.
+ *
+ * A window within {@code tolerance} of the baseline grows the limit by one, if at least half the
+ * limit was in use. A window above it, or one in which a request failed, cuts the limit
+ * multiplicatively.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    static final int MIN_WINDOW_SAMPLES = 50;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double tolerance;
+    private final int baselineResetSamples;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this
+    private long windowSamples;
+    private long windowLatencyNanos;
+    private int windowMaxInFlight;
+    private boolean windowFailed;
+    private double periodMinNanos = Double.POSITIVE_INFINITY;
+    private double previousPeriodMinNanos = Double.POSITIVE_INFINITY;
+    private long periodSamples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double tolerance, int baselineResetSamples) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.tolerance = tolerance;
+        this.baselineResetSamples = baselineResetSamples;
+    }
+
+    /**
+     * @return true if the request may proceed; callers must then call {@link #release}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit and feeds the request's latency into the current window.
+     *
+     * @param failed true if the request failed in a way that indicates overload
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            windowLatencyNanos += latencyNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlightBefore);
+            windowFailed |= failed;
+            double current = limit;
+            if (++windowSamples < Math.max(MIN_WINDOW_SAMPLES, current)) {
+                return;
+            }
+
+            double meanNanos = (double) windowLatencyNanos / windowSamples;
+            double baselineNanos = Math.min(periodMinNanos, previousPeriodMinNanos);
+            if (windowFailed || meanNanos > baselineNanos * tolerance) {
+                limit = Math.max(minLimit, current * backoffRatio);
+            } else if (windowMaxInFlight * 2 >= current) {
+                // Only grow when at least half the limit was in use; otherwise the limit isn't what's holding us back
+                limit = Math.min(maxLimit, current + 1);
+            }
+
+            periodMinNanos = Math.min(periodMinNanos, meanNanos);
+            periodSamples += windowSamples;
+            if (periodSamples >= baselineResetSamples) {
+                previousPeriodMinNanos = periodMinNanos;
+                periodMinNanos = Double.POSITIVE_INFINITY;
+                periodSamples = 0;
+            }
+            windowSamples = 0;
+            windowLatencyNanos = 0;
+            windowMaxInFlight = 0;
+            windowFailed = false;
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
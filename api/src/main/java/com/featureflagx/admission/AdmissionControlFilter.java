@@ -0,0 +1,140 @@
+package com.featureflagx.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sheds load in front of the flag endpoints instead of letting requests queue on Tomcat
+ * threads and the connection pool. Each request class (evaluation, read, mutation) has
+ * its own adaptive concurrency limit and per-client token buckets, so a flood of
+ * evaluations can't starve admin writes. Rejections are immediate and carry Retry-After.
+ *
+ * Clients are identified by their remote address. {@value #CLIENT_ID_HEADER} is honoured only
+ * on requests from a configured trusted proxy: anyone else could send a new ID per request
+ * and never run out of tokens. A policy without a {@link ClientRateLimiter} applies only the
+ * concurrency limit.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    public enum RequestClass {
+        EVALUATION, READ, MUTATION
+    }
+
+    /**
+     * Limits applied to one request class. {@code rateLimiter} may be null.
+     */
+    public static final class Policy {
+        private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+        private final ClientRateLimiter rateLimiter;
+
+        public Policy(AdaptiveConcurrencyLimiter concurrencyLimiter, ClientRateLimiter rateLimiter) {
+            this.concurrencyLimiter = concurrencyLimiter;
+            this.rateLimiter = rateLimiter;
+        }
+
+        public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+            return concurrencyLimiter;
+        }
+    }
+
+    private final Map<RequestClass, Policy> policies;
+    private final Set<String> trustedProxies;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param trustedProxies remote addresses allowed to identify the client with {@value #CLIENT_ID_HEADER}
+     */
+    public AdmissionControlFilter(Map<RequestClass, Policy> policies, Set<String> trustedProxies,
+                                  MeterRegistry meterRegistry) {
+        this.policies = new EnumMap<>(policies);
+        this.trustedProxies = Set.copyOf(trustedProxies);
+        this.meterRegistry = meterRegistry;
+        this.policies.forEach((requestClass, policy) -> {
+            String tag = requestClass.name().toLowerCase();
+            meterRegistry.gauge("featureflagx.admission.limit", Tags.of("class", tag),
+                    policy.concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit);
+            meterRegistry.gauge("featureflagx.admission.inflight", Tags.of("class", tag),
+                    policy.concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight);
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestClass requestClass = classify(request);
+        Policy policy = requestClass != null ? policies.get(requestClass) : null;
+        if (policy == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (policy.rateLimiter != null) {
+            String clientId = clientId(request);
+            long waitNanos = policy.rateLimiter.tryAcquire(clientId, now);
+            response.setIntHeader("X-RateLimit-Limit", policy.rateLimiter.getBurst());
+            response.setIntHeader("X-RateLimit-Remaining", policy.rateLimiter.remaining(clientId));
+            if (waitNanos > 0) {
+                reject(response, requestClass, "rate_limited", HttpStatus.TOO_MANY_REQUESTS, waitNanos);
+                return;
+            }
+        }
+        if (!policy.concurrencyLimiter.tryAcquire()) {
+            reject(response, requestClass, "overloaded", HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            policy.concurrencyLimiter.release(System.nanoTime() - now, failed);
+        }
+    }
+
+    static RequestClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith("/flags")) {
+            return null;
+        }
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return path.startsWith("/flags/evaluate") ? RequestClass.EVALUATION : RequestClass.READ;
+        }
+        return RequestClass.MUTATION;
+    }
+
+    private String clientId(HttpServletRequest request) {
+        String remoteAddress = request.getRemoteAddr();
+        if (!trustedProxies.contains(remoteAddress)) {
+            return remoteAddress;
+        }
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isEmpty() ? clientId : remoteAddress;
+    }
+
+    private void reject(HttpServletResponse response, RequestClass requestClass, String reason,
+                        HttpStatus status, long retryAfterNanos) {
+        meterRegistry.counter("featureflagx.admission.rejected",
+                "class", requestClass.name().toLowerCase(), "reason", reason).increment();
+        long retryAfterSeconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+}
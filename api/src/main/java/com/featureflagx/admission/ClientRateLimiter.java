@@ -0,0 +1,79 @@
+package com.featureflagx.admission;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One {@link TokenBucket} per client, for at most {@code maxClients} clients. Beyond that the
+ * least recently seen client's bucket is dropped in constant time. A client idle long enough
+ * to refill completely loses nothing by this, so eviction only costs accuracy while more than
+ * {@code maxClients} clients are active at once. Buckets are held in access-ordered maps,
+ * striped to keep lock contention low.
+ */
+public class ClientRateLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final int burst;
+    private final double refillPerSecond;
+    private final Map<String, TokenBucket>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public ClientRateLimiter(int burst, double refillPerSecond, int maxClients) {
+        this.burst = burst;
+        this.refillPerSecond = refillPerSecond;
+        int perStripe = Math.max(1, maxClients / STRIPES);
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                    return size() > perStripe;
+                }
+            };
+        }
+    }
+
+    /**
+     * @return 0 if the client may proceed, otherwise the nanoseconds until it may retry
+     */
+    public long tryAcquire(String clientId, long nowNanos) {
+        Map<String, TokenBucket> stripe = stripe(clientId);
+        TokenBucket bucket;
+        synchronized (stripe) {
+            bucket = stripe.computeIfAbsent(clientId, id -> new TokenBucket(burst, refillPerSecond, nowNanos));
+        }
+        return bucket.tryConsume(nowNanos);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int remaining(String clientId) {
+        Map<String, TokenBucket> stripe = stripe(clientId);
+        TokenBucket bucket;
+        synchronized (stripe) {
+            bucket = stripe.get(clientId);
+        }
+        return bucket != null ? bucket.availableTokens() : burst;
+    }
+
+    /**
+     * @return the number of clients with a bucket
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, TokenBucket> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Map<String, TokenBucket> stripe(String clientId) {
+        int h = clientId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,74 @@
+package com.featureflagx.bulk;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Command-line client for {@code POST /import}: streams an NDJSON file (or standard input) to
+ * the API and prints the report as it arrives. Uses only the JDK, so it runs straight from
+ * source without a build:
+ * <pre>
+ * java api/src/main/java/com/featureflagx/bulk/ImportCommand.java http://localhost:8080 tenant.ndjson
+ * </pre>
+ *
+ * Exits with 0 if every line was imported, 1 if any line was rejected or the import failed,
+ * and 2 on a usage error.
+ */
+public final class ImportCommand {
+
+    private static final Pattern TYPE = Pattern.compile("\"type\":\"(\\w+)\"");
+    private static final Pattern ERRORS = Pattern.compile("\"errors\":(\\d+)");
+
+    private ImportCommand() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 2) {
+            System.err.println("Usage: ImportCommand <api-base-url> <file.ndjson | ->");
+            System.exit(2);
+        }
+        HttpRequest.BodyPublisher body = args[1].equals("-")
+                ? HttpRequest.BodyPublishers.ofInputStream(() -> System.in)
+                : HttpRequest.BodyPublishers.ofFile(Path.of(args[1]));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(args[0].replaceAll("/$", "") + "/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(body)
+                .build();
+        HttpResponse<Stream<String>> response;
+        try {
+            response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofLines());
+        } catch (IOException e) {
+            System.err.println("Import failed: " + e);
+            System.exit(1);
+            return;
+        }
+        if (response.statusCode() != 200) {
+            System.err.println("Import failed with HTTP " + response.statusCode());
+            response.body().forEach(System.err::println);
+            System.exit(1);
+        }
+        long errors = -1; // until the summary arrives
+        for (Iterator<String> lines = response.body().iterator(); lines.hasNext(); ) {
+            String line = lines.next();
+            Matcher typeMatcher = TYPE.matcher(line);
+            String type = typeMatcher.find() ? typeMatcher.group(1) : "";
+            (type.equals("error") ? System.err : System.out).println(line);
+            if (type.equals("summary")) {
+                Matcher count = ERRORS.matcher(line);
+                errors = count.find() ? Long.parseLong(count.group(1)) : -1;
+            }
+        }
+        if (errors != 0) {
+            System.err.println(errors < 0 ? "The import ended without a summary" : errors + " lines were rejected");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.featureflagx.bulk;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads newline-delimited JSON one line at a time, so an import holds one record in memory
+ * rather than its whole input. Lines longer than the limit are skipped to their end and
+ * reported rather than buffered. Reading pulls from the request body only as fast as records
+ * are processed, so a fast sender is slowed by TCP flow control instead of filling the heap.
+ */
+public final class NdjsonReader {
+
+    private final InputStream in;
+    private final int maxLineBytes;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private long lineNumber;
+
+    public NdjsonReader(InputStream in, int maxLineBytes) {
+        this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, 65536);
+        this.maxLineBytes = maxLineBytes;
+    }
+
+    /**
+     * @return the next line without its line break, or null at the end of the input
+     * @throws LineTooLongException if the line exceeds the limit; the reader moves on to the next line
+     */
+    public String readLine() throws IOException, LineTooLongException {
+        line.reset();
+        boolean tooLong = false;
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (line.size() < maxLineBytes) {
+                line.write(b);
+            } else {
+                tooLong = true;
+            }
+        }
+        if (b == -1 && line.size() == 0 && !tooLong) {
+            return null;
+        }
+        lineNumber++;
+        if (tooLong) {
+            throw new LineTooLongException("Line longer than " + maxLineBytes + " bytes");
+        }
+        int length = line.size();
+        byte[] bytes = line.toByteArray();
+        if (length > 0 && bytes[length - 1] == '\r') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the 1-based number of the line last returned or rejected
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    public static final class LineTooLongException extends Exception {
+
+        LineTooLongException(String message) {
+            super(message);
+        }
+    }
+}
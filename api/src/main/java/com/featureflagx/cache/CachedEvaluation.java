@@ -0,0 +1,86 @@
+package com.featureflagx.cache;
+
+/**
+ * A flag evaluation as stored in Redis, together with the metadata needed for
+ * probabilistic early expiry (XFetch): how long the value took to compute and
+ * when it logically expires.
+ *
+ * Encoded as {@code "<0|1>:<computeMillis>:<expiresAtMillis>"} so it fits the
+ * string serializer configured on the RedisTemplate.
+ */
+public final class CachedEvaluation {
+
+    private static final char SEPARATOR = ':';
+
+    private final boolean enabled;
+    private final long computeMillis;
+    private final long expiresAtMillis;
+
+    public CachedEvaluation(boolean enabled, long computeMillis, long expiresAtMillis) {
+        this.enabled = enabled;
+        this.computeMillis = computeMillis;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    /**
+     * XFetch: refresh before expiry with a probability that rises as expiry
+     * approaches and scales with how expensive the value is to recompute.
+     *
+     * @param random a uniform sample in (0, 1]
+     */
+    public boolean shouldRefreshEarly(long nowMillis, double beta, double random) {
+        if (expiresAtMillis <= 0) {
+            return false;
+        }
+        double gap = -computeMillis * beta * Math.log(random);
+        return nowMillis + gap >= expiresAtMillis;
+    }
+
+    public String encode() {
+        return (enabled ? "1" : "0") + SEPARATOR + computeMillis + SEPARATOR + expiresAtMillis;
+    }
+
+    /**
+     * Decodes a cached value. Plain {@code "true"}/{@code "false"} entries written
+     * before expiry metadata existed are accepted and never refreshed early.
+     *
+     * @return the decoded entry, or null if the value is absent or unreadable
+     */
+    public static CachedEvaluation decode(Object raw) {
+        if (raw == null) {
+            return null;
+        }
+        if (raw instanceof Boolean) {
+            return new CachedEvaluation((Boolean) raw, 0, 0);
+        }
+        String value = raw.toString();
+        if ("true".equals(value) || "false".equals(value)) {
+            return new CachedEvaluation(Boolean.parseBoolean(value), 0, 0);
+        }
+        int first = value.indexOf(SEPARATOR);
+        int second = value.indexOf(SEPARATOR, first + 1);
+        if (first != 1 || second < 0) {
+            return null;
+        }
+        try {
+            boolean enabled = value.charAt(0) == '1';
+            long computeMillis = Long.parseLong(value.substring(first + 1, second));
+            long expiresAtMillis = Long.parseLong(value.substring(second + 1));
+            return new CachedEvaluation(enabled, computeMillis, expiresAtMillis);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.featureflagx.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fixed-memory frequency estimator. Each key increments one counter per row; the estimate
+ * is the smallest of those counters, which over-counts only when every row collides.
+ * {@link #halve()} ages all counts so the sketch tracks recent rather than all-time
+ * frequency.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int widthMask;
+    private final AtomicIntegerArray counters;
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     * @param depth number of rows (independent hash functions)
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Width and depth must be positive");
+        }
+        int roundedWidth = Integer.highestOneBit(width - 1) << 1;
+        this.widthMask = Math.max(roundedWidth, 1) - 1;
+        this.depth = depth;
+        this.counters = new AtomicIntegerArray(depth * (widthMask + 1));
+    }
+
+    /**
+     * @return the key's estimated count including this increment
+     */
+    public int increment(Object key) {
+        int hash = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = index(row, hash);
+            int count = counters.incrementAndGet(index);
+            if (count < 0) {
+                // Saturate instead of wrapping; decay brings it back down
+                counters.set(index, Integer.MAX_VALUE);
+                count = Integer.MAX_VALUE;
+            }
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+
+    public int estimate(Object key) {
+        int hash = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(index(row, hash)));
+        }
+        return min;
+    }
+
+    /**
+     * Halves every counter. Concurrent increments may be lost, which only makes the sketch
+     * slightly under-count for one decay period.
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+    }
+
+    private int index(int row, int hash) {
+        return row * (widthMask + 1) + (mix(hash + row * 0x9E3779B9) & widthMask);
+    }
+
+    // Murmur3 finalizer, so each row gets a well-spread, different bucket for the same hashCode
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
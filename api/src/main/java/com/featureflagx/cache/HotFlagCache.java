@@ -0,0 +1,213 @@
+package com.featureflagx.cache;
+
+import com.featureflagx.event.FlagChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-process (L1) cache in front of Redis, holding only the flags that are currently hot.
+ *
+ * Every evaluation is counted in a {@link HotKeyTracker}. A flag is pinned while it is in
+ * the top-K and its decayed count is at least {@code minCount}; its cached evaluation is then
+ * served from memory. Pinned entries are evicted on local writes and on
+ * {@link FlagChangedEvent}s from other nodes, and never outlive {@code maxStaleness} in case
+ * a change notification is lost.
+ *
+ * An evaluation read from a lagging replica or before a change committed can arrive after the
+ * change's evictions. Like {@link OffHeapResultCache}, each flag has a generation that every
+ * eviction bumps: callers read it before loading and pass it to {@link #put}, and an entry
+ * whose generation has moved on is neither pinned nor served.
+ */
+@Component
+public class HotFlagCache {
+
+    private static final int GENERATION_SLOTS = 4096;
+
+    private final boolean enabled;
+    private final int minCount;
+    private final long maxStalenessMillis;
+    private final Duration decayInterval;
+    private final HotKeyTracker tracker;
+    private final Map<String, Pinned> pinned = new ConcurrentHashMap<>();
+    // Indexed by key hash: flags sharing a slot unpin each other, which costs hits but never serves a stale entry
+    private final AtomicIntegerArray generations = new AtomicIntegerArray(GENERATION_SLOTS);
+    private ScheduledExecutorService scheduler;
+
+    public HotFlagCache(@Value("${featureflagx.cache.hot-keys.enabled:true}") boolean enabled,
+                        @Value("${featureflagx.cache.hot-keys.top-k:32}") int topK,
+                        @Value("${featureflagx.cache.hot-keys.min-count:200}") int minCount,
+                        @Value("${featureflagx.cache.hot-keys.decay-interval:10s}") Duration decayInterval,
+                        @Value("${featureflagx.cache.hot-keys.max-staleness:30s}") Duration maxStaleness,
+                        @Value("${featureflagx.cache.hot-keys.sketch-width:4096}") int sketchWidth,
+                        @Value("${featureflagx.cache.hot-keys.sketch-depth:4}") int sketchDepth) {
+        this.enabled = enabled;
+        this.minCount = minCount;
+        this.maxStalenessMillis = maxStaleness.toMillis();
+        this.decayInterval = decayInterval;
+        this.tracker = new HotKeyTracker(sketchWidth, sketchDepth, topK);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-flag-decay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = decayInterval.toMillis();
+        scheduler.scheduleAtFixedRate(this::decay, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Counts an evaluation of {@code key} and returns its pinned entry, if any.
+     */
+    public CachedEvaluation get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        tracker.record(key);
+        Pinned entry = pinned.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - entry.pinnedAt > maxStalenessMillis || now >= entry.evaluation.getExpiresAtMillis()
+                || entry.generation != generation(key)) {
+            pinned.remove(key, entry);
+            return null;
+        }
+        return entry.evaluation;
+    }
+
+    /**
+     * @return the flag's current generation; read it before loading an evaluation and pass it to {@link #put}
+     */
+    public int generation(String key) {
+        return generations.get(generationSlot(key));
+    }
+
+    /**
+     * Pins {@code evaluation}, loaded at {@code generation}, if {@code key} is currently hot and
+     * hasn't been evicted since; otherwise does nothing.
+     */
+    public void put(String key, int generation, CachedEvaluation evaluation) {
+        if (enabled && evaluation != null && generation == generation(key) && isHot(key)) {
+            pinned.put(key, new Pinned(evaluation, generation, System.currentTimeMillis()));
+        }
+    }
+
+    public void evict(String key) {
+        // Bumped first: a put that passed its check just before is then caught on the next get
+        generations.incrementAndGet(generationSlot(key));
+        pinned.remove(key);
+    }
+
+    @EventListener
+    public void onFlagChanged(FlagChangedEvent event) {
+        evict(event.getKey());
+    }
+
+    /**
+     * @return the current top-K flags, hottest first
+     */
+    public List<HotFlag> getHotFlags() {
+        List<HotFlag> flags = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : tracker.topKeys()) {
+            flags.add(new HotFlag(entry.getKey(), entry.getValue(), pinned.containsKey(entry.getKey())));
+        }
+        return flags;
+    }
+
+    public int getPinnedCount() {
+        return pinned.size();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMinCount() {
+        return minCount;
+    }
+
+    public Duration getDecayInterval() {
+        return decayInterval;
+    }
+
+    /**
+     * Ages all counts and unpins flags that are no longer hot. Runs every {@code decayInterval}.
+     */
+    public void decay() {
+        tracker.decay();
+        // Unpin flags that cooled down; they go back to being served from Redis
+        pinned.keySet().removeIf(key -> !isHot(key));
+    }
+
+    private boolean isHot(String key) {
+        return tracker.topCount(key) >= minCount;
+    }
+
+    private static int generationSlot(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_SLOTS - 1);
+    }
+
+    private static final class Pinned {
+        final CachedEvaluation evaluation;
+        final int generation;
+        final long pinnedAt;
+
+        Pinned(CachedEvaluation evaluation, int generation, long pinnedAt) {
+            this.evaluation = evaluation;
+            this.generation = generation;
+            this.pinnedAt = pinnedAt;
+        }
+    }
+
+    public static final class HotFlag {
+        private final String key;
+        private final int estimatedCount;
+        private final boolean pinned;
+
+        HotFlag(String key, int estimatedCount, boolean pinned) {
+            this.key = key;
+            this.estimatedCount = estimatedCount;
+            this.pinned = pinned;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public int getEstimatedCount() {
+            return estimatedCount;
+        }
+
+        public boolean isPinned() {
+            return pinned;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.featureflagx.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the top-K most frequently seen keys using a {@link CountMinSketch} for counting
+ * and a small candidate map for the leaders. Keys already in the top-K are updated without
+ * locking; only a newcomer that beats the current minimum takes the lock.
+ */
+public class HotKeyTracker {
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Map<String, Integer> top = new ConcurrentHashMap<>();
+    private volatile int admissionThreshold;
+
+    public HotKeyTracker(int sketchWidth, int sketchDepth, int capacity) {
+        this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Counts one access.
+     *
+     * @return the key's estimated recent count
+     */
+    public int record(String key) {
+        int estimate = sketch.increment(key);
+        if (top.replace(key, estimate) == null && estimate > admissionThreshold) {
+            admit(key, estimate);
+        }
+        return estimate;
+    }
+
+    /**
+     * @return the estimate if the key is currently in the top-K, otherwise 0
+     */
+    public int topCount(String key) {
+        Integer count = top.get(key);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * @return the top-K keys with their estimated counts, highest first
+     */
+    public List<Map.Entry<String, Integer>> topKeys() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(top.entrySet().size());
+        top.forEach((key, count) -> entries.add(Map.entry(key, count)));
+        entries.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()));
+        return entries;
+    }
+
+    /**
+     * Halves all counts and drops top-K entries that have decayed to nothing.
+     */
+    public synchronized void decay() {
+        sketch.halve();
+        top.replaceAll((key, count) -> sketch.estimate(key));
+        top.values().removeIf(count -> count == 0);
+        admissionThreshold = top.size() < capacity ? 0 : minimum();
+    }
+
+    private synchronized void admit(String key, int estimate) {
+        if (top.containsKey(key) || (top.size() >= capacity && estimate <= admissionThreshold)) {
+            return;
+        }
+        top.put(key, estimate);
+        if (top.size() > capacity) {
+            String coldest = null;
+            int coldestCount = Integer.MAX_VALUE;
+            for (Map.Entry<String, Integer> entry : top.entrySet()) {
+                if (entry.getValue() < coldestCount) {
+                    coldest = entry.getKey();
+                    coldestCount = entry.getValue();
+                }
+            }
+            top.remove(coldest);
+        }
+        admissionThreshold = top.size() < capacity ? 0 : minimum();
+    }
+
+    private int minimum() {
+        int min = Integer.MAX_VALUE;
+        for (int count : top.values()) {
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+}
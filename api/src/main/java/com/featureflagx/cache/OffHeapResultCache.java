@@ -0,0 +1,281 @@
+package com.featureflagx.cache;
+
+import com.featureflagx.event.FlagChangedEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-(flag, target) evaluation results held outside the Java heap, so caching millions of
+ * targets adds no GC work.
+ *
+ * The region is a direct (or memory-mapped) buffer of fixed 16-byte entries:
+ * <pre>
+ *   0  long  64-bit hash of (flag key, flag generation, target id); 0 marks a free slot
+ *   8  int   expiry, in seconds since this cache was created
+ *   12 int   bit 0: result, bit 1: CLOCK referenced bit
+ * </pre>
+ * Entries are grouped into 8-way sets chosen by the hash. A full set evicts with CLOCK:
+ * the hand skips (and clears) recently read entries and replaces the first one that hasn't
+ * been read since the hand last passed.
+ *
+ * A flag's generation is bumped whenever it changes, locally or through a
+ * {@link FlagChangedEvent}. This makes all of its old results unreachable without touching
+ * the region; CLOCK reclaims them over time. Callers read the generation before evaluating and
+ * pass it to {@link #put}, so a result computed from state that changed meanwhile is stored
+ * under the old generation, where no lookup finds it. Generations are kept in a fixed array of
+ * counters indexed by flag key hash: flags sharing a counter invalidate each other's results,
+ * which costs hit ratio but never serves a stale result.
+ */
+@Component
+public class OffHeapResultCache implements MeterBinder {
+
+    static final int ENTRY_BYTES = 16;
+    static final int WAYS = 8;
+    private static final int EXPIRY_OFFSET = 8;
+    private static final int META_OFFSET = 12;
+    private static final int RESULT_BIT = 1;
+    private static final int REFERENCED_BIT = 2;
+    private static final int LOCK_STRIPES = 256;
+    private static final int GENERATION_SLOTS = 4096;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final ByteBuffer region;
+    private final int setMask;
+    private final byte[] clockHands;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final long epochMillis = System.currentTimeMillis();
+    // Differs per process, so a reused memory-mapped file never matches stale entries
+    private final long salt = ThreadLocalRandom.current().nextLong();
+    private final AtomicIntegerArray generations = new AtomicIntegerArray(GENERATION_SLOTS);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder occupied = new LongAdder();
+
+    public OffHeapResultCache(@Value("${featureflagx.cache.results.enabled:false}") boolean enabled,
+                              @Value("${featureflagx.cache.results.max-entries:1048576}") long maxEntries,
+                              @Value("${featureflagx.cache.results.ttl:30s}") Duration ttl,
+                              @Value("${featureflagx.cache.results.mapped-file:}") String mappedFile) {
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        if (!enabled) {
+            this.region = null;
+            this.setMask = 0;
+            this.clockHands = new byte[0];
+            return;
+        }
+        long sets = Math.max(1, Long.highestOneBit(Math.max(maxEntries / WAYS, 1)));
+        long bytes = sets * WAYS * ENTRY_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("featureflagx.cache.results.max-entries is too large for one region: " + maxEntries);
+        }
+        this.region = mappedFile.isEmpty() ? ByteBuffer.allocateDirect((int) bytes) : map(Path.of(mappedFile), bytes);
+        this.setMask = (int) sets - 1;
+        this.clockHands = new byte[(int) sets];
+    }
+
+    /**
+     * @return the cached result, or null on a miss (including when the cache is disabled)
+     */
+    public Boolean get(String flagKey, String targetId) {
+        if (!enabled) {
+            return null;
+        }
+        long hash = hash(flagKey, generation(flagKey), targetId);
+        int set = set(hash);
+        int base = set * WAYS * ENTRY_BYTES;
+        int now = secondsSinceEpoch(System.currentTimeMillis());
+        synchronized (lock(set)) {
+            for (int way = 0; way < WAYS; way++) {
+                int offset = base + way * ENTRY_BYTES;
+                if (region.getLong(offset) != hash) {
+                    continue;
+                }
+                if (region.getInt(offset + EXPIRY_OFFSET) <= now) {
+                    region.putLong(offset, 0L);
+                    occupied.decrement();
+                    break;
+                }
+                int meta = region.getInt(offset + META_OFFSET);
+                region.putInt(offset + META_OFFSET, meta | REFERENCED_BIT);
+                hits.increment();
+                return (meta & RESULT_BIT) != 0;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @return the flag's current generation; read it before evaluating and pass it to {@link #put}
+     */
+    public int generation(String flagKey) {
+        return enabled ? generations.get(generationSlot(flagKey)) : 0;
+    }
+
+    /**
+     * Caches a result evaluated at {@code generation}. Dropped if the flag has changed since.
+     */
+    public void put(String flagKey, String targetId, int generation, boolean result) {
+        if (!enabled || generation != generation(flagKey)) {
+            return;
+        }
+        // Hashed with the caller's generation: if the flag changes after the check above, the entry is unreachable
+        long hash = hash(flagKey, generation, targetId);
+        int set = set(hash);
+        int base = set * WAYS * ENTRY_BYTES;
+        long nowMillis = System.currentTimeMillis();
+        int now = secondsSinceEpoch(nowMillis);
+        int expiry = secondsSinceEpoch(nowMillis + ttlMillis);
+        int meta = result ? RESULT_BIT : 0;
+        synchronized (lock(set)) {
+            int free = -1;
+            for (int way = 0; way < WAYS; way++) {
+                int offset = base + way * ENTRY_BYTES;
+                long existing = region.getLong(offset);
+                if (existing == hash) {
+                    write(offset, hash, expiry, meta);
+                    return;
+                }
+                if (free < 0 && (existing == 0L || region.getInt(offset + EXPIRY_OFFSET) <= now)) {
+                    free = offset;
+                }
+            }
+            if (free >= 0) {
+                if (region.getLong(free) == 0L) {
+                    occupied.increment();
+                }
+                write(free, hash, expiry, meta);
+                return;
+            }
+            write(clockVictim(set, base), hash, expiry, meta);
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Makes every cached result for the flag unreachable.
+     */
+    public void invalidate(String flagKey) {
+        if (enabled) {
+            generations.incrementAndGet(generationSlot(flagKey));
+        }
+    }
+
+    @EventListener
+    public void onFlagChanged(FlagChangedEvent event) {
+        invalidate(event.getKey());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getCapacity() {
+        return enabled ? (long) (setMask + 1) * WAYS : 0;
+    }
+
+    public long getSize() {
+        return occupied.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        FunctionCounter.builder("featureflagx.cache.results.requests", hits, LongAdder::sum).tag("result", "hit").register(registry);
+        FunctionCounter.builder("featureflagx.cache.results.requests", misses, LongAdder::sum).tag("result", "miss").register(registry);
+        FunctionCounter.builder("featureflagx.cache.results.evictions", evictions, LongAdder::sum).register(registry);
+        Gauge.builder("featureflagx.cache.results.size", this, OffHeapResultCache::getSize).register(registry);
+    }
+
+    private int clockVictim(int set, int base) {
+        int hand = clockHands[set];
+        while (true) {
+            int offset = base + hand * ENTRY_BYTES;
+            hand = (hand + 1) % WAYS;
+            int meta = region.getInt(offset + META_OFFSET);
+            if ((meta & REFERENCED_BIT) == 0) {
+                clockHands[set] = (byte) hand;
+                return offset;
+            }
+            region.putInt(offset + META_OFFSET, meta & ~REFERENCED_BIT);
+        }
+    }
+
+    private void write(int offset, long hash, int expiry, int meta) {
+        region.putLong(offset, hash);
+        region.putInt(offset + EXPIRY_OFFSET, expiry);
+        region.putInt(offset + META_OFFSET, meta);
+    }
+
+    private static int generationSlot(String flagKey) {
+        int h = flagKey.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_SLOTS - 1);
+    }
+
+    private long hash(String flagKey, int generation, String targetId) {
+        long h = FNV_OFFSET ^ salt;
+        h = fnv(h, flagKey);
+        h = (h ^ generation) * FNV_PRIME;
+        h = fnv(h, targetId);
+        // Finalizer from SplitMix64 so the set index (high bits) is well distributed
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return h != 0L ? h : 1L;
+    }
+
+    private static long fnv(long h, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // Length terminator, so ("ab", "c") and ("a", "bc") hash differently
+        return (h ^ value.length()) * FNV_PRIME;
+    }
+
+    private int set(long hash) {
+        return (int) (hash >>> 32) & setMask;
+    }
+
+    private Object lock(int set) {
+        return locks[set & (LOCK_STRIPES - 1)];
+    }
+
+    private int secondsSinceEpoch(long millis) {
+        return (int) ((millis - epochMillis) / 1000);
+    }
+
+    private static ByteBuffer map(Path file, long bytes) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map result cache file " + file, e);
+        }
+    }
+}
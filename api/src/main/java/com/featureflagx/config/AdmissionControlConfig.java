@@ -0,0 +1,61 @@
+package com.featureflagx.config;
+
+import com.featureflagx.admission.AdaptiveConcurrencyLimiter;
+import com.featureflagx.admission.AdmissionControlFilter;
+import com.featureflagx.admission.AdmissionControlFilter.Policy;
+import com.featureflagx.admission.AdmissionControlFilter.RequestClass;
+import com.featureflagx.admission.ClientRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Configuration
+@ConditionalOnProperty(name = "featureflagx.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    private static final String PREFIX = "featureflagx.admission.";
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            Environment environment, MeterRegistry meterRegistry,
+            @Value("${featureflagx.admission.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${featureflagx.admission.latency-tolerance:2.0}") double latencyTolerance,
+            @Value("${featureflagx.admission.baseline-reset-samples:5000}") int baselineResetSamples,
+            @Value("${featureflagx.admission.max-clients:10000}") int maxClients,
+            @Value("${featureflagx.admission.trusted-proxies:}") String[] trustedProxies) {
+        Set<String> proxies = new HashSet<>(Arrays.asList(trustedProxies));
+        // Without trusted proxies, everyone behind a load balancer, NAT, edge or relay would share one bucket
+        boolean limitClients = !proxies.isEmpty();
+        Map<RequestClass, Policy> policies = new EnumMap<>(RequestClass.class);
+        for (RequestClass requestClass : RequestClass.values()) {
+            String prefix = PREFIX + requestClass.name().toLowerCase() + ".";
+            int maxLimit = environment.getProperty(prefix + "max-concurrency", Integer.class, 200);
+            int minLimit = environment.getProperty(prefix + "min-concurrency", Integer.class, 4);
+            int initialLimit = environment.getProperty(prefix + "initial-concurrency", Integer.class, maxLimit / 2);
+            int burst = environment.getProperty(prefix + "client-burst", Integer.class, 100);
+            double ratePerSecond = environment.getProperty(prefix + "client-rate-per-second", Double.class, 50.0);
+            policies.put(requestClass, new Policy(
+                    new AdaptiveConcurrencyLimiter(Math.max(minLimit, initialLimit), minLimit, maxLimit,
+                            backoffRatio, latencyTolerance, baselineResetSamples),
+                    limitClients ? new ClientRateLimiter(burst, ratePerSecond, maxClients) : null));
+        }
+
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(policies, proxies, meterRegistry));
+        registration.addUrlPatterns("/flags", "/flags/*");
+        // Ahead of everything else so rejected requests cost as little as possible
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 // Basic DataSource configuration is typically handled by Spring Boot auto-configuration
 // based on the properties in application.yml (e.g., spring.datasource.url).
 // If more specific bean definitions for DataSource are needed, they would go here.
+// Read replica routing is set up separately in ReplicaDataSourceConfig.
 
 @Configuration
 @EnableJpaAuditing // If you plan to use @CreatedDate, @LastModifiedDate in your entities
@@ -1,43 +1,134 @@
 package com.featureflagx.config;
 
+import com.featureflagx.event.FlagChangePublisher;
+import com.featureflagx.event.FlagChangeSubscriber;
+import com.featureflagx.event.SegmentChangedEvent;
+import io.lettuce.core.ReadFrom;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
+import org.springframework.data.redis.connection.RedisNode;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStaticMasterReplicaConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Redis connections for one of three topologies, selected by {@code featureflagx.redis.mode}:
+ * <ul>
+ *   <li>{@code standalone} - a single node at {@code spring.redis.host}/{@code port}</li>
+ *   <li>{@code replica} - that node as primary plus the read replicas in {@code featureflagx.redis.replicas}</li>
+ *   <li>{@code cluster} - the Redis Cluster seeded by {@code spring.redis.cluster.nodes}</li>
+ * </ul>
+ * Writes, locks, invalidations and pub/sub use {@link #redisTemplate} on the primary.
+ * Evaluation reads use {@link #readRedisTemplate}, which prefers replicas when there are any.
+ */
 @Configuration
 public class RedisConfig {
 
+    public static final String READ_TEMPLATE = "readRedisTemplate";
+
+    @Value("${featureflagx.redis.mode:standalone}")
+    private String mode;
+
     @Value("${spring.redis.host:redis}") // Default to 'redis' if not specified
     private String redisHost;
 
     @Value("${spring.redis.port:6379}") // Default to 6379 if not specified
     private int redisPort;
 
+    @Value("${featureflagx.redis.replicas:}") // host:port,host:port
+    private List<String> replicaNodes;
+
+    @Value("${spring.redis.cluster.nodes:}")
+    private List<String> clusterNodes;
+
+    @Value("${spring.redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+
+    @Value("${spring.redis.lettuce.pool.max-active:8}")
+    private int poolMaxActive;
+
+    @Value("${spring.redis.lettuce.pool.max-idle:8}")
+    private int poolMaxIdle;
+
+    @Value("${spring.redis.lettuce.pool.min-idle:0}")
+    private int poolMinIdle;
+
+    @Value("${spring.redis.lettuce.pool.max-wait:-1ms}")
+    private Duration poolMaxWait;
+
     @Bean
+    @Primary
     public LettuceConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
+        RedisConfiguration config;
+        switch (mode()) {
+            case "cluster":
+                config = clusterConfiguration();
+                break;
+            case "replica":
+            case "standalone":
+                config = new RedisStandaloneConfiguration(redisHost, redisPort);
+                break;
+            default:
+                throw new IllegalStateException("Unknown featureflagx.redis.mode '" + mode + "'; expected standalone, replica or cluster");
+        }
         // Add password if your Redis instance requires it:
         // config.setPassword(RedisPassword.of("yourpassword"));
-        return new LettuceConnectionFactory(config);
+        // No ReadFrom: a single node is used as-is, and Lettuce's cluster default already reads from primaries
+        return new LettuceConnectionFactory(config, clientConfiguration(null));
+    }
+
+    /**
+     * Separate pool whose reads go to replicas; with no replicas configured it's a second
+     * pool against the same node.
+     */
+    @Bean
+    public LettuceConnectionFactory replicaReadConnectionFactory() {
+        switch (mode()) {
+            case "cluster":
+                return new LettuceConnectionFactory(clusterConfiguration(), clientConfiguration(ReadFrom.REPLICA_PREFERRED));
+            case "replica":
+                RedisStaticMasterReplicaConfiguration masterReplica = new RedisStaticMasterReplicaConfiguration(redisHost, redisPort);
+                for (RedisNode replica : nodes(replicaNodes, "featureflagx.redis.replicas")) {
+                    masterReplica.node(replica.getHost(), replica.getPort());
+                }
+                return new LettuceConnectionFactory(masterReplica, clientConfiguration(ReadFrom.REPLICA_PREFERRED));
+            default:
+                return new LettuceConnectionFactory(new RedisStandaloneConfiguration(redisHost, redisPort), clientConfiguration(null));
+        }
     }
 
     @Bean
+    @Primary
     public RedisTemplate<String, Object> redisTemplate() {
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
-        template.setConnectionFactory(redisConnectionFactory());
-        template.setKeySerializer(new StringRedisSerializer());
-        // For value serializer, you might want to use Jackson2JsonRedisSerializer
-        // if you are storing complex objects, or StringRedisSerializer for simple strings.
-        // template.setValueSerializer(new Jackson2JsonRedisSerializer<>(Object.class));
-        template.setValueSerializer(new StringRedisSerializer()); // Assuming boolean flags are stored as strings or converted
-        template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(new StringRedisSerializer());
-        template.afterPropertiesSet();
-        return template;
+        return stringTemplate(redisConnectionFactory());
+    }
+
+    /**
+     * Reads may lag the primary by the replication delay, so only use this where a
+     * slightly stale cached evaluation is acceptable.
+     */
+    @Bean(READ_TEMPLATE)
+    public RedisTemplate<String, Object> readRedisTemplate(
+            @Qualifier("replicaReadConnectionFactory") LettuceConnectionFactory replicaReadConnectionFactory) {
+        return stringTemplate(replicaReadConnectionFactory);
     }
 
     // Specific template for boolean flags if needed, to ensure type safety
@@ -52,5 +143,75 @@ public class RedisConfig {
         // template.setValueSerializer(new GenericToStringSerializer<>(Boolean.class));
         return template;
     }
-}
 
+    // Delivers flag and segment change notifications from every node as local events
+    @Bean
+    public RedisMessageListenerContainer flagChangeListenerContainer(ApplicationEventPublisher eventPublisher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        FlagChangeSubscriber subscriber = new FlagChangeSubscriber(eventPublisher);
+        container.addMessageListener(subscriber, new ChannelTopic(FlagChangePublisher.CHANNEL));
+        container.addMessageListener(subscriber, new ChannelTopic(SegmentChangedEvent.CHANNEL));
+        return container;
+    }
+
+    private RedisTemplate<String, Object> stringTemplate(LettuceConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        // For value serializer, you might want to use Jackson2JsonRedisSerializer
+        // if you are storing complex objects, or StringRedisSerializer for simple strings.
+        // template.setValueSerializer(new Jackson2JsonRedisSerializer<>(Object.class));
+        template.setValueSerializer(new StringRedisSerializer()); // Assuming boolean flags are stored as strings or converted
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new StringRedisSerializer());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private LettuceClientConfiguration clientConfiguration(ReadFrom readFrom) {
+        // Defining our own connection factories bypasses Spring Boot's, so the pool settings are applied here
+        GenericObjectPoolConfig<Object> pool = new GenericObjectPoolConfig<>();
+        pool.setMaxTotal(poolMaxActive);
+        pool.setMaxIdle(poolMaxIdle);
+        pool.setMinIdle(poolMinIdle);
+        pool.setMaxWait(poolMaxWait);
+        LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder builder =
+                LettucePoolingClientConfiguration.builder().poolConfig(pool);
+        if (readFrom != null) {
+            builder.readFrom(readFrom);
+        }
+        return builder.build();
+    }
+
+    private RedisClusterConfiguration clusterConfiguration() {
+        RedisClusterConfiguration config = new RedisClusterConfiguration();
+        config.setClusterNodes(nodes(clusterNodes, "spring.redis.cluster.nodes"));
+        config.setMaxRedirects(clusterMaxRedirects);
+        return config;
+    }
+
+    private String mode() {
+        return mode.trim().toLowerCase();
+    }
+
+    private static List<RedisNode> nodes(List<String> hostAndPorts, String property) {
+        List<RedisNode> nodes = hostAndPorts.stream()
+                .filter(StringUtils::hasText)
+                .map(RedisConfig::node)
+                .collect(Collectors.toList());
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException(property + " must list at least one host:port");
+        }
+        return nodes;
+    }
+
+    private static RedisNode node(String hostAndPort) {
+        String value = hostAndPort.trim();
+        int separator = value.lastIndexOf(':');
+        if (separator <= 0 || separator == value.length() - 1) {
+            throw new IllegalStateException("Expected host:port but got '" + value + "'");
+        }
+        return new RedisNode(value.substring(0, separator), Integer.parseInt(value.substring(separator + 1)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.featureflagx.config;
+
+import com.featureflagx.wire.FlagBinaryHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // Appended last so JSON remains the default for Accept: */*
+        converters.add(new FlagBinaryHttpMessageConverter());
+    }
+}
@@ -0,0 +1,38 @@
+package com.featureflagx.controller;
+
+import com.featureflagx.dto.WarmupResponse;
+import com.featureflagx.service.CacheWarmupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/admin/cache")
+public class CacheAdminController {
+
+    private final CacheWarmupService cacheWarmupService;
+
+    @Autowired
+    public CacheAdminController(CacheWarmupService cacheWarmupService) {
+        this.cacheWarmupService = cacheWarmupService;
+    }
+
+    @PostMapping("/warmup")
+    public ResponseEntity<WarmupResponse> warmUp() {
+        WarmupResponse result = cacheWarmupService.warmUp();
+        if ("RUNNING".equals(result.getStatus())) {
+            // Another warm-up is in progress; report it rather than starting a second one
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/warmup")
+    public ResponseEntity<WarmupResponse> getWarmupStatus() {
+        return ResponseEntity.ok(cacheWarmupService.getLastResult());
+    }
+}
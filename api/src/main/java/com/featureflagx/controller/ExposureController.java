@@ -0,0 +1,48 @@
+package com.featureflagx.controller;
+
+import com.featureflagx.dto.ExposureRollupResponse;
+import com.featureflagx.exposure.RollupGranularity;
+import com.featureflagx.service.ExposureRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/flags/{key}/exposures")
+public class ExposureController {
+
+    private static final Duration DEFAULT_WINDOW = Duration.ofHours(1);
+
+    private final ExposureRollupService exposureRollupService;
+
+    @Autowired
+    public ExposureController(ExposureRollupService exposureRollupService) {
+        this.exposureRollupService = exposureRollupService;
+    }
+
+    @GetMapping
+    public ResponseEntity<ExposureRollupResponse> getExposures(
+            @PathVariable String key,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "minute") String granularity) {
+        RollupGranularity bucketSize;
+        try {
+            bucketSize = RollupGranularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(DEFAULT_WINDOW);
+        if (!start.isBefore(end)
+                || Duration.between(start, end).dividedBy(bucketSize.getSize()) >= ExposureRollupService.MAX_BUCKETS) {
+            return ResponseEntity.badRequest().build(); // empty window, or too many buckets: use a coarser granularity
+        }
+        return ResponseEntity.ok(exposureRollupService.query(key, bucketSize, start, end));
+    }
+}
@@ -3,13 +3,26 @@ package com.featureflagx.controller;
 import com.featureflagx.dto.FlagRequest;
 import com.featureflagx.dto.FlagResponse;
 import com.featureflagx.model.Flag;
+import com.featureflagx.prerequisite.InvalidPrerequisitesException;
+import com.featureflagx.repository.FlagRepository;
+import com.featureflagx.segment.InvalidSegmentException;
+import com.featureflagx.service.ExposureService;
 import com.featureflagx.service.FlagService;
+import com.featureflagx.wire.FlagWireFormat;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -17,11 +30,18 @@ import java.util.stream.Collectors;
 @RequestMapping("/flags")
 public class FlagController {
 
+    // Set on single-flag evaluations whose result doesn't depend on the target, so SDKs can share it across targets
+    static final String TARGET_INDEPENDENT_HEADER = "X-Target-Independent";
+    static final int DEFAULT_SEARCH_LIMIT = 100;
+    static final int MAX_SEARCH_LIMIT = 1000;
+
     private final FlagService flagService;
+    private final ExposureService exposureService;
 
     @Autowired
-    public FlagController(FlagService flagService) {
+    public FlagController(FlagService flagService, ExposureService exposureService) {
         this.flagService = flagService;
+        this.exposureService = exposureService;
     }
 
     @PostMapping
@@ -29,13 +49,35 @@ public class FlagController {
         if (flagRequest.getKey() == null || flagRequest.getKey().trim().isEmpty()) {
             return ResponseEntity.badRequest().build(); // Or a custom error response
         }
-        Flag createdFlag = flagService.createFlag(flagRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body(FlagResponse.fromFlag(createdFlag));
+        if (FlagService.isReservedKey(flagRequest.getKey())) {
+            return ResponseEntity.badRequest().build(); // GET /flags/{key} would route to the evaluate endpoints instead
+        }
+        try {
+            return flagService.createFlag(flagRequest)
+                    .map(flag -> ResponseEntity.status(HttpStatus.CREATED).body(FlagResponse.fromFlag(flag)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build()); // update it with PUT instead
+        } catch (InvalidPrerequisitesException | InvalidSegmentException e) {
+            return ResponseEntity.badRequest().build(); // malformed prerequisites or segments, a cycle, or an unknown segment
+        } catch (ObjectOptimisticLockingFailureException | DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build(); // created concurrently by another request
+        }
     }
 
     @PutMapping("/{key}")
     public ResponseEntity<FlagResponse> updateFlag(@PathVariable String key, @RequestBody FlagRequest flagRequest) {
-        Optional<Flag> updatedFlagOpt = flagService.updateFlag(key, flagRequest);
+        Optional<Flag> updatedFlagOpt;
+        try {
+            try {
+                updatedFlagOpt = flagService.updateFlag(key, flagRequest);
+            } catch (ObjectOptimisticLockingFailureException e) {
+                // Another update committed first; a PUT replaces the whole flag, so apply it over that one
+                updatedFlagOpt = flagService.updateFlag(key, flagRequest);
+            }
+        } catch (InvalidPrerequisitesException | InvalidSegmentException e) {
+            return ResponseEntity.badRequest().build(); // malformed prerequisites or segments, a cycle, or an unknown segment
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build(); // still racing other updates
+        }
         return updatedFlagOpt
                 .map(flag -> ResponseEntity.ok(FlagResponse.fromFlag(flag)))
                 .orElseGet(() -> ResponseEntity.notFound().build());
@@ -51,28 +93,113 @@ public class FlagController {
     }
 
     @GetMapping("/{key}")
-    public ResponseEntity<FlagResponse> getFlag(@PathVariable String key) {
+    public ResponseEntity<FlagResponse> getFlag(@PathVariable String key, WebRequest request) {
         Optional<Flag> flagOpt = flagService.getFlag(key);
-        return flagOpt
-                .map(flag -> ResponseEntity.ok(FlagResponse.fromFlag(flag)))
-                .orElseGet(() -> ResponseEntity.notFound().build());
+        if (flagOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Flag flag = flagOpt.get();
+        String etag = etag(request, flag.getVersion(), flag.getUpdatedAt() != null ? flag.getUpdatedAt().toEpochMilli() : 0);
+        if (request.checkNotModified(etag)) {
+            // Unchanged since the client's copy: skip DTO mapping and serialization
+            return conditional(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag).build();
+        }
+        return conditional(ResponseEntity.ok(), etag).body(FlagResponse.fromFlag(flag));
     }
 
     @GetMapping
-    public ResponseEntity<List<FlagResponse>> getAllFlags() {
+    public ResponseEntity<List<FlagResponse>> getAllFlags(@RequestParam(required = false) String prefix,
+                                                          @RequestParam(required = false) String tag,
+                                                          @RequestParam(required = false) Boolean enabled,
+                                                          @RequestParam(required = false) String after,
+                                                          @RequestParam(required = false) Integer limit,
+                                                          WebRequest request) {
+        if (prefix != null || tag != null || enabled != null || after != null || limit != null) {
+            return searchFlags(prefix, tag, enabled, after, limit != null ? limit : DEFAULT_SEARCH_LIMIT);
+        }
+        // Fingerprint the flag set with an aggregate query so unchanged polls never load the rows
+        FlagRepository.FlagSetVersion version = flagService.getFlagSetVersion();
+        String etag = etag(request, version.getCount(), version.getVersionSum(),
+                version.getLastUpdatedAt() != null ? version.getLastUpdatedAt().toEpochMilli() : 0);
+        if (request.checkNotModified(etag)) {
+            return conditional(ResponseEntity.status(HttpStatus.NOT_MODIFIED), etag).build();
+        }
         List<Flag> flags = flagService.getAllFlags();
         List<FlagResponse> flagResponses = flags.stream()
                 .map(FlagResponse::fromFlag)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(flagResponses);
+        return conditional(ResponseEntity.ok(), etag).body(flagResponses);
     }
 
     @GetMapping("/evaluate/{key}")
     public ResponseEntity<Boolean> evaluateFlag(@PathVariable String key, @RequestParam(required = false) String targetId) {
-        // targetId is passed to service, though current service logic doesn't use it for evaluation
         boolean isEnabled = flagService.isEnabled(key, targetId);
+        // Non-blocking: queued for the background exposure writer, dropped if the buffer is full
+        exposureService.record(key, targetId, isEnabled);
         // Even if flag doesn't exist, isEnabled returns false, so we don't need specific notFound handling here for evaluation
+        if (flagService.isTargetIndependent(key)) {
+            return ResponseEntity.ok().header(TARGET_INDEPENDENT_HEADER, "true").body(isEnabled);
+        }
         return ResponseEntity.ok(isEnabled);
     }
-}
 
+    @GetMapping("/evaluate")
+    public ResponseEntity<Map<String, Boolean>> evaluateFlags(@RequestParam List<String> keys, @RequestParam(required = false) String targetId) {
+        if (keys.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<String, Boolean> results = flagService.evaluateFlags(keys, targetId);
+        results.forEach((key, enabled) -> exposureService.record(key, targetId, enabled));
+        return ResponseEntity.ok(results);
+    }
+
+    @GetMapping("/evaluate-all")
+    public ResponseEntity<Map<String, Boolean>> evaluateAllFlags(@RequestParam(required = false) String targetId,
+                                                                 @RequestParam(required = false) String prefix) {
+        // No exposures: clients prefetch the whole set, so most of these values are never acted on
+        return ResponseEntity.ok(flagService.evaluateAll(prefix, targetId));
+    }
+
+    // One page of a filtered listing; a Link header carries the query for the next page, if any
+    private ResponseEntity<List<FlagResponse>> searchFlags(String prefix, String tag, Boolean enabled, String after, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        // One extra row tells whether there is a next page without a count query
+        List<Flag> flags = flagService.searchFlags(prefix, tag, enabled, after, limit + 1);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (flags.size() > limit) {
+            flags = flags.subList(0, limit);
+            StringBuilder next = new StringBuilder("/flags?limit=").append(limit);
+            appendParam(next, "prefix", prefix);
+            appendParam(next, "tag", tag);
+            appendParam(next, "enabled", enabled != null ? enabled.toString() : null);
+            appendParam(next, "after", flags.get(limit - 1).getKey());
+            builder.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return builder.body(flags.stream().map(FlagResponse::fromFlag).collect(Collectors.toList()));
+    }
+
+    private static void appendParam(StringBuilder query, String name, String value) {
+        if (value != null) {
+            query.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    // Strong ETag per representation: JSON and binary bodies of the same version get different tags
+    private static String etag(WebRequest request, long... parts) {
+        StringBuilder tag = new StringBuilder("\"");
+        for (long part : parts) {
+            tag.append(Long.toHexString(part)).append('-');
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        tag.append(accept != null && accept.contains(FlagWireFormat.MEDIA_TYPE_VALUE) ? 'b' : 'j');
+        return tag.append('"').toString();
+    }
+
+    private static ResponseEntity.BodyBuilder conditional(ResponseEntity.BodyBuilder builder, String etag) {
+        return builder.eTag(etag)
+                .cacheControl(CacheControl.noCache()) // clients may keep the body but must revalidate
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+}
@@ -0,0 +1,55 @@
+package com.featureflagx.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.featureflagx.dto.ImportEvent;
+import com.featureflagx.service.BulkImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// Outside /flags so a long-running import isn't counted by admission control's latency tracking
+@RestController
+@RequestMapping("/import")
+public class ImportController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final BulkImportService bulkImportService;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ImportController(BulkImportService bulkImportService, ObjectMapper objectMapper) {
+        this.bulkImportService = bulkImportService;
+        this.objectMapper = objectMapper;
+    }
+
+    // Streams the report back while the body is still being read: each event is flushed as it
+    // happens, so clients see progress and errors during the import, not only at the end
+    @PostMapping(consumes = NDJSON)
+    public void importNdjson(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        try {
+            bulkImportService.importNdjson(request.getInputStream(), event -> write(out, event));
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // the client went away; stop reading its input
+        }
+    }
+
+    private void write(OutputStream out, ImportEvent event) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(event));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.featureflagx.controller;
+
+import com.featureflagx.dto.ScheduledChangeRequest;
+import com.featureflagx.dto.ScheduledChangeResponse;
+import com.featureflagx.service.ScheduledChangeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/flags/{key}/schedules")
+public class ScheduledChangeController {
+
+    private final ScheduledChangeService scheduledChangeService;
+
+    @Autowired
+    public ScheduledChangeController(ScheduledChangeService scheduledChangeService) {
+        this.scheduledChangeService = scheduledChangeService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ScheduledChangeResponse> schedule(@PathVariable String key, @RequestBody ScheduledChangeRequest request) {
+        if (request.getFireAt() == null || (request.getEnabled() == null && request.getConfig() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return scheduledChangeService.schedule(key, request)
+                .map(change -> ResponseEntity.status(HttpStatus.CREATED).body(ScheduledChangeResponse.fromScheduledChange(change)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ScheduledChangeResponse>> getSchedules(@PathVariable String key) {
+        return ResponseEntity.ok(scheduledChangeService.getSchedules(key).stream()
+                .map(ScheduledChangeResponse::fromScheduledChange)
+                .collect(Collectors.toList()));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(@PathVariable String key, @PathVariable long id) {
+        if (scheduledChangeService.cancel(key, id)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+}
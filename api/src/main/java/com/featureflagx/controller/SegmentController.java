@@ -0,0 +1,82 @@
+package com.featureflagx.controller;
+
+import com.featureflagx.dto.SegmentMembersRequest;
+import com.featureflagx.dto.SegmentRequest;
+import com.featureflagx.dto.SegmentResponse;
+import com.featureflagx.segment.InvalidSegmentException;
+import com.featureflagx.service.SegmentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/segments")
+public class SegmentController {
+
+    private final SegmentService segmentService;
+
+    @Autowired
+    public SegmentController(SegmentService segmentService) {
+        this.segmentService = segmentService;
+    }
+
+    @PostMapping
+    public ResponseEntity<SegmentResponse> createSegment(@RequestBody SegmentRequest segmentRequest) {
+        if (segmentRequest.getKey() == null || segmentRequest.getKey().trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return segmentService.createSegment(segmentRequest)
+                    .map(segment -> ResponseEntity.status(HttpStatus.CREATED).body(SegmentResponse.fromSegment(segment)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+        } catch (InvalidSegmentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<SegmentResponse>> getAllSegments() {
+        return ResponseEntity.ok(segmentService.getAllSegments().stream()
+                .map(SegmentResponse::fromSegment)
+                .collect(Collectors.toList()));
+    }
+
+    @GetMapping("/{key}")
+    public ResponseEntity<SegmentResponse> getSegment(@PathVariable String key) {
+        return segmentService.getSegment(key)
+                .map(segment -> ResponseEntity.ok(SegmentResponse.fromSegment(segment)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{key}")
+    public ResponseEntity<Void> deleteSegment(@PathVariable String key) {
+        if (segmentService.deleteSegment(key)) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    // Incremental: only the chunks holding these members are rewritten
+    @PatchMapping("/{key}/members")
+    public ResponseEntity<SegmentResponse> updateMembers(@PathVariable String key, @RequestBody SegmentMembersRequest membersRequest) {
+        Optional<SegmentResponse> updated;
+        try {
+            updated = segmentService.updateMembers(key, membersRequest).map(SegmentResponse::fromSegment);
+        } catch (InvalidSegmentException e) {
+            return ResponseEntity.badRequest().build(); // e.g. a non-numeric ID for a NUMERIC segment
+        }
+        return updated.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{key}/members/{member}")
+    public ResponseEntity<Boolean> isMember(@PathVariable String key, @PathVariable String member) {
+        return segmentService.isMember(key, member)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,97 @@
+package com.featureflagx.datasource;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the read replica
+ * and everything else to the primary. Falls back to the primary whenever the
+ * {@link ReplicaLagMonitor} says the replica is behind or a replica connection can't be
+ * obtained.
+ *
+ * The read-only flag is only set once a transaction has begun, after the transaction
+ * manager has asked for its connection, so this must sit behind a
+ * {@link LazyConnectionDataSourceProxy} that defers the real lookup to the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements MeterBinder {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor lagMonitor;
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbackConnections = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCounter(registry, "primary", primaryConnections);
+        bindCounter(registry, "replica", replicaConnections);
+        bindCounter(registry, "fallback", fallbackConnections);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    // Pool metrics and health checks unwrap to the primary's pool
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+    }
+
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (lagMonitor.isReplicaUsable()) {
+                try {
+                    Connection connection = source.connect(replica);
+                    replicaConnections.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    lagMonitor.markUnavailable(e);
+                }
+            }
+            fallbackConnections.increment();
+        } else {
+            primaryConnections.increment();
+        }
+        return source.connect(primary);
+    }
+
+    private static void bindCounter(MeterRegistry registry, String route, LongAdder count) {
+        FunctionCounter.builder("featureflagx.datasource.connections", count, LongAdder::sum)
+                .tag("route", route)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
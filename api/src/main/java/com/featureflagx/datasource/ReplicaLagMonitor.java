@@ -0,0 +1,123 @@
+package com.featureflagx.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically measures how far the read replica is behind the primary. The replica is
+ * only used while it is reachable and its lag is within {@code maxLag}; otherwise
+ * read-only transactions fall back to the primary until a later check succeeds.
+ */
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    /**
+     * Seconds since the last replayed transaction, or 0 when the replica has replayed
+     * everything it has received (an idle primary must not look like lag).
+     */
+    public static final String POSTGRES_LAG_QUERY = "SELECT CASE"
+            + " WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+            + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final Duration checkInterval;
+
+    private volatile boolean usable;
+    private volatile boolean checked;
+    private volatile double lagSeconds = Double.NaN;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkInterval = checkInterval;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("featureflagx.datasource.replica.lag.seconds", this, ReplicaLagMonitor::getLagSeconds)
+                .register(registry);
+        Gauge.builder("featureflagx.datasource.replica.usable", this, monitor -> monitor.isReplicaUsable() ? 1 : 0)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        // Check once up front so the first read-only transactions are routed correctly
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, checkInterval.toMillis(), checkInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void refresh() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            resultSet.next();
+            lagSeconds = resultSet.getDouble(1);
+            setUsable(lagSeconds <= maxLagSeconds, "lag " + lagSeconds + "s");
+        } catch (SQLException | RuntimeException e) {
+            lagSeconds = Double.NaN;
+            setUsable(false, e.getMessage());
+        }
+    }
+
+    /**
+     * Called when getting a replica connection fails, so reads stop trying it until the next
+     * successful check.
+     */
+    public void markUnavailable(Exception cause) {
+        setUsable(false, cause.getMessage());
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    private void setUsable(boolean usable, String reason) {
+        if (!checked || this.usable != usable) {
+            if (usable) {
+                log.info("Read replica available ({}), routing read-only transactions to it", reason);
+            } else {
+                log.warn("Read replica unavailable ({}), routing read-only transactions to the primary", reason);
+            }
+        }
+        this.usable = usable;
+        checked = true;
+    }
+}
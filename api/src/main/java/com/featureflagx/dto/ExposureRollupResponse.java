@@ -0,0 +1,36 @@
+package com.featureflagx.dto;
+
+import com.featureflagx.exposure.RollupGranularity;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.util.List;
+
+@Getter
+@Setter
+public class ExposureRollupResponse {
+    private String flagKey;
+    private RollupGranularity granularity;
+    private Instant from;
+    private Instant to;
+    private Counts total;
+    private List<Bucket> buckets; // only buckets with exposures, oldest first
+
+    @Getter
+    @Setter
+    public static class Counts {
+        private long exposuresOn;
+        private long exposuresOff;
+        // Estimates (about 1.6% standard error); a target seen with both results counts once in uniqueTargets
+        private long uniqueTargetsOn;
+        private long uniqueTargetsOff;
+        private long uniqueTargets;
+    }
+
+    @Getter
+    @Setter
+    public static class Bucket extends Counts {
+        private Instant start;
+    }
+}
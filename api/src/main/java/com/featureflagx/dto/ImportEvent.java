@@ -0,0 +1,44 @@
+package com.featureflagx.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+// One line of an import's NDJSON response: a rejected input line, progress after a written
+// batch, or the final summary. Unused fields are left out of the JSON.
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportEvent {
+
+    public static final String ERROR = "error";
+    public static final String PROGRESS = "progress";
+    public static final String SUMMARY = "summary";
+
+    private String type;
+    private Long line; // for errors, the 1-based input line
+    private String message;
+    private Long lines; // input lines read so far
+    private Long flags; // flags written so far
+    private Long members; // segment members written so far
+    private Long errors; // lines rejected so far
+    private Long durationMs; // in the summary
+
+    public static ImportEvent error(long line, String message) {
+        ImportEvent event = new ImportEvent();
+        event.setType(ERROR);
+        event.setLine(line);
+        event.setMessage(message);
+        return event;
+    }
+
+    public static ImportEvent counts(String type, long lines, long flags, long members, long errors) {
+        ImportEvent event = new ImportEvent();
+        event.setType(type);
+        event.setLines(lines);
+        event.setFlags(flags);
+        event.setMembers(members);
+        event.setErrors(errors);
+        return event;
+    }
+}
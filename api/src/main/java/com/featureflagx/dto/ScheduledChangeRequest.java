@@ -0,0 +1,14 @@
+package com.featureflagx.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class ScheduledChangeRequest {
+    private Instant fireAt;
+    private Boolean enabled; // null keeps the flag's state at fire time
+    private String config; // null keeps the flag's config at fire time
+}
@@ -0,0 +1,33 @@
+package com.featureflagx.dto;
+
+import com.featureflagx.model.ScheduledChange;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class ScheduledChangeResponse {
+    private long id;
+    private String flagKey;
+    private Instant fireAt;
+    private Boolean enabled;
+    private String config;
+    private ScheduledChange.Status status;
+    private Instant createdAt;
+    private Instant completedAt;
+
+    public static ScheduledChangeResponse fromScheduledChange(ScheduledChange change) {
+        ScheduledChangeResponse response = new ScheduledChangeResponse();
+        response.setId(change.getId());
+        response.setFlagKey(change.getFlagKey());
+        response.setFireAt(change.getFireAt());
+        response.setEnabled(change.getEnabled());
+        response.setConfig(change.getConfig());
+        response.setStatus(change.getStatus());
+        response.setCreatedAt(change.getCreatedAt());
+        response.setCompletedAt(change.getCompletedAt());
+        return response;
+    }
+}
@@ -0,0 +1,14 @@
+package com.featureflagx.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class SegmentMembersRequest {
+    private List<String> add = new ArrayList<>();
+    private List<String> remove = new ArrayList<>(); // applied before additions
+}
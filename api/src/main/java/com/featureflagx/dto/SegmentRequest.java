@@ -0,0 +1,14 @@
+package com.featureflagx.dto;
+
+import com.featureflagx.model.Segment;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SegmentRequest {
+    private String key;
+    private Segment.Type type;
+    private long expectedMembers = 1_000_000; // sizes the Bloom filter of STRING segments
+    private double falsePositiveRate = 0.01; // STRING segments only
+}
@@ -0,0 +1,25 @@
+package com.featureflagx.dto;
+
+import com.featureflagx.model.Segment;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class SegmentResponse {
+    private String key;
+    private Segment.Type type;
+    private long memberCount;
+    private Instant updatedAt;
+
+    public static SegmentResponse fromSegment(Segment segment) {
+        SegmentResponse response = new SegmentResponse();
+        response.setKey(segment.getKey());
+        response.setType(segment.getType());
+        response.setMemberCount(segment.getMemberCount());
+        response.setUpdatedAt(segment.getUpdatedAt());
+        return response;
+    }
+}
@@ -0,0 +1,17 @@
+package com.featureflagx.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+public class WarmupResponse {
+    private String status; // NOT_STARTED, RUNNING, COMPLETED or FAILED
+    private long flagsLoaded;
+    private long durationMillis;
+    private double flagsPerSecond;
+    private Instant completedAt;
+    private String error;
+}
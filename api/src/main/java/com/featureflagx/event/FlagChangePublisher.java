@@ -0,0 +1,86 @@
+package com.featureflagx.event;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Broadcasts flag and segment changes to all API nodes over Redis pub/sub. Inside a transaction
+ * the message is sent after commit, so listeners never observe a change before it is readable.
+ */
+@Component
+public class FlagChangePublisher {
+
+    public static final String CHANNEL = "flag-changes";
+
+    private static final Logger log = LoggerFactory.getLogger(FlagChangePublisher.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    public FlagChangePublisher(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void publish(FlagChangedEvent event) {
+        afterCommit(() -> send(CHANNEL, event.encode(), "flag " + event.getKey()));
+    }
+
+    /**
+     * Sends the events in one pipelined round trip, for changes made in bulk.
+     */
+    public void publishAll(List<FlagChangedEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        for (FlagChangedEvent event : events) {
+                            operations.convertAndSend(CHANNEL, event.encode());
+                        }
+                        return null;
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish changes for {} flags", events.size(), e);
+            }
+        });
+    }
+
+    public void publishSegmentChange(SegmentChangedEvent event) {
+        afterCommit(() -> send(SegmentChangedEvent.CHANNEL, event.encode(), "segment " + event.getKey()));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void send(String channel, String message, String subject) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (RuntimeException e) {
+            // The change itself is committed; subscribers fall back to cache TTLs
+            log.warn("Failed to publish change for {}", subject, e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.featureflagx.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Receives flag and segment changes from their Redis channels (including this node's own) and
+ * re-publishes them as local {@link FlagChangedEvent}s and {@link SegmentChangedEvent}s for
+ * {@code @EventListener}s.
+ */
+public class FlagChangeSubscriber implements MessageListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public FlagChangeSubscriber(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        Object event = SegmentChangedEvent.CHANNEL.equals(channel)
+                ? SegmentChangedEvent.decode(body)
+                : FlagChangedEvent.decode(body);
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.featureflagx.event;
+
+/**
+ * A flag was created, updated or deleted on some node. Delivered to every node through
+ * the Redis {@value FlagChangePublisher#CHANNEL} channel and re-published locally as a
+ * Spring application event.
+ */
+public final class FlagChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private static final char SEPARATOR = '|';
+
+    private final String key;
+    private final Type type;
+    private final boolean enabled;
+
+    public FlagChangedEvent(String key, Type type, boolean enabled) {
+        this.key = key;
+        this.type = type;
+        this.enabled = enabled;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Encodes as {@code "<TYPE>|<0|1>|<key>"}; the key goes last so it may contain the separator.
+     */
+    public String encode() {
+        return type.name() + SEPARATOR + (enabled ? '1' : '0') + SEPARATOR + key;
+    }
+
+    /**
+     * @return the decoded event, or null if the message is malformed
+     */
+    public static FlagChangedEvent decode(String message) {
+        int first = message.indexOf(SEPARATOR);
+        if (first < 0 || message.length() < first + 4 || message.charAt(first + 2) != SEPARATOR) {
+            return null;
+        }
+        try {
+            Type type = Type.valueOf(message.substring(0, first));
+            boolean enabled = message.charAt(first + 1) == '1';
+            return new FlagChangedEvent(message.substring(first + 3), type, enabled);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.featureflagx.event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A segment was created, deleted, or had members added or removed on some node. Delivered
+ * to every node through the Redis {@value #CHANNEL} channel. Member changes carry the chunks
+ * they rewrote, so nodes reload only those.
+ */
+public final class SegmentChangedEvent {
+
+    public static final String CHANNEL = "segment-changes";
+
+    public enum Type {
+        CREATED, MEMBERS_CHANGED, DELETED
+    }
+
+    private static final char SEPARATOR = '|';
+
+    private final String key;
+    private final Type type;
+    private final List<Integer> chunkIndexes;
+
+    public SegmentChangedEvent(String key, Type type, Collection<Integer> chunkIndexes) {
+        this.key = key;
+        this.type = type;
+        this.chunkIndexes = List.copyOf(chunkIndexes);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public List<Integer> getChunkIndexes() {
+        return chunkIndexes;
+    }
+
+    /**
+     * Encodes as {@code "<TYPE>|<chunk>,<chunk>,...|<key>"}; the key goes last so it may contain the separator.
+     */
+    public String encode() {
+        StringBuilder message = new StringBuilder(type.name()).append(SEPARATOR);
+        for (int i = 0; i < chunkIndexes.size(); i++) {
+            if (i > 0) {
+                message.append(',');
+            }
+            message.append(chunkIndexes.get(i));
+        }
+        return message.append(SEPARATOR).append(key).toString();
+    }
+
+    /**
+     * @return the decoded event, or null if the message is malformed
+     */
+    public static SegmentChangedEvent decode(String message) {
+        int first = message.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : message.indexOf(SEPARATOR, first + 1);
+        if (second < 0) {
+            return null;
+        }
+        try {
+            Type type = Type.valueOf(message.substring(0, first));
+            List<Integer> chunkIndexes = new ArrayList<>();
+            if (second > first + 1) {
+                for (String index : message.substring(first + 1, second).split(",")) {
+                    chunkIndexes.add(Integer.parseInt(index));
+                }
+            }
+            return new SegmentChangedEvent(message.substring(second + 1), type, chunkIndexes);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.featureflagx.exposure;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Folds exposures into per-bucket, per-flag, per-result counters and sketches of distinct
+ * targets. Holds only what has accumulated since the last {@link #drain()}: counts are deltas
+ * to be added to the stored rollups, and sketches merge idempotently, so draining often keeps
+ * memory bounded by the number of active buckets rather than by traffic.
+ *
+ * Not thread-safe; used from the exposure writer thread only.
+ */
+public final class ExposureAggregator {
+
+    private final int maxRestored;
+    private Map<Key, Rollup> pending = new HashMap<>();
+
+    /**
+     * @param maxRestored how many buckets {@link #restore} may leave pending; each holds a sketch of up to 4 KB
+     */
+    public ExposureAggregator(int maxRestored) {
+        this.maxRestored = maxRestored;
+    }
+
+    public void add(ExposureEvent event) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Key key = new Key(event.getFlagKey(), granularity, granularity.bucketOf(event.getEvaluatedAt()), event.getResult());
+            Rollup rollup = pending.computeIfAbsent(key, Rollup::new);
+            rollup.exposures++;
+            if (event.getTargetId() != null) {
+                rollup.targets.add(event.getTargetId());
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /**
+     * Hands over everything accumulated so far and starts again from empty.
+     */
+    public Collection<Rollup> drain() {
+        Collection<Rollup> drained = pending.values();
+        pending = new HashMap<>();
+        return drained;
+    }
+
+    /**
+     * Puts back rollups that couldn't be stored, to be retried with the next drain. Rollups for
+     * buckets not already pending are dropped once {@code maxRestored} are, so a long storage
+     * outage can't hold every bucket in memory.
+     *
+     * @return how many rollups were dropped
+     */
+    public int restore(Collection<Rollup> rollups) {
+        int dropped = 0;
+        for (Rollup rollup : rollups) {
+            Rollup current = pending.get(rollup.key);
+            if (current == null) {
+                if (pending.size() >= maxRestored) {
+                    dropped++;
+                    continue;
+                }
+                current = new Rollup(rollup.key);
+                pending.put(rollup.key, current);
+            }
+            current.exposures += rollup.exposures;
+            current.targets.merge(rollup.targets);
+        }
+        return dropped;
+    }
+
+    public static final class Key {
+        private final String flagKey;
+        private final RollupGranularity granularity;
+        private final Instant bucketStart;
+        private final boolean result;
+
+        public Key(String flagKey, RollupGranularity granularity, Instant bucketStart, boolean result) {
+            this.flagKey = flagKey;
+            this.granularity = granularity;
+            this.bucketStart = bucketStart;
+            this.result = result;
+        }
+
+        public String getFlagKey() {
+            return flagKey;
+        }
+
+        public RollupGranularity getGranularity() {
+            return granularity;
+        }
+
+        public Instant getBucketStart() {
+            return bucketStart;
+        }
+
+        public boolean getResult() {
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return result == other.result && granularity == other.granularity
+                    && flagKey.equals(other.flagKey) && bucketStart.equals(other.bucketStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(flagKey, granularity, bucketStart, result);
+        }
+    }
+
+    public static final class Rollup {
+        private final Key key;
+        private long exposures;
+        private final HyperLogLog targets = new HyperLogLog();
+
+        private Rollup(Key key) {
+            this.key = key;
+        }
+
+        public Key getKey() {
+            return key;
+        }
+
+        public long getExposures() {
+            return exposures;
+        }
+
+        public HyperLogLog getTargets() {
+            return targets;
+        }
+    }
+}
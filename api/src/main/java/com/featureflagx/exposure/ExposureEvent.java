@@ -0,0 +1,37 @@
+package com.featureflagx.exposure;
+
+import java.time.Instant;
+
+/**
+ * One flag evaluation as recorded for experiment analysis.
+ */
+public final class ExposureEvent {
+
+    private final String flagKey;
+    private final String targetId;
+    private final boolean result;
+    private final Instant evaluatedAt;
+
+    public ExposureEvent(String flagKey, String targetId, boolean result, Instant evaluatedAt) {
+        this.flagKey = flagKey;
+        this.targetId = targetId;
+        this.result = result;
+        this.evaluatedAt = evaluatedAt;
+    }
+
+    public String getFlagKey() {
+        return flagKey;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+
+    public boolean getResult() {
+        return result;
+    }
+
+    public Instant getEvaluatedAt() {
+        return evaluatedAt;
+    }
+}
@@ -0,0 +1,226 @@
+package com.featureflagx.exposure;
+
+import com.featureflagx.segment.BloomBlock;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch of distinct target IDs, with 2^12 registers (about 1.6% standard error).
+ *
+ * Sketches start sparse, holding only the registers that have been set, and switch to a dense
+ * register array once that stops saving space, so the many low-traffic buckets of a rollup
+ * stay small in memory and on disk. {@link #merge} takes the register-wise maximum, which makes
+ * sketches from different nodes and time buckets combine into the sketch of their union.
+ *
+ * Not thread-safe; the exposure aggregator confines each sketch to one thread.
+ */
+public final class HyperLogLog {
+
+    static final int PRECISION = 12;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final int SPARSE_LIMIT = REGISTERS / 16; // dense beyond this many set registers
+
+    private static final byte FORMAT_SPARSE = 1;
+    private static final byte FORMAT_DENSE = 2;
+
+    // Sparse: open-addressing table of (register + 1) << 8 | rank, 0 meaning empty
+    private int[] sparse = new int[16];
+    private int sparseSize;
+    private byte[] dense; // non-null once dense
+
+    public void add(String value) {
+        long hash = BloomBlock.hash(value);
+        int register = (int) (hash >>> (64 - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION) + 1, 64 - PRECISION + 1);
+        set(register, rank);
+    }
+
+    /**
+     * Folds {@code other} into this sketch, making it the sketch of both sets.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.dense != null) {
+            for (int register = 0; register < REGISTERS; register++) {
+                if (other.dense[register] != 0) {
+                    set(register, other.dense[register]);
+                }
+            }
+        } else {
+            for (int entry : other.sparse) {
+                if (entry != 0) {
+                    set((entry >>> 8) - 1, entry & 0xFF);
+                }
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (dense != null) {
+            for (byte rank : dense) {
+                sum += Math.scalb(1.0, -rank);
+                if (rank == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = REGISTERS - sparseSize;
+            sum = zeros;
+            for (int entry : sparse) {
+                if (entry != 0) {
+                    sum += Math.scalb(1.0, -(entry & 0xFF));
+                }
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros); // linear counting for small sets
+        }
+        return Math.round(estimate);
+    }
+
+    public boolean isEmpty() {
+        return dense == null && sparseSize == 0;
+    }
+
+    /**
+     * Compact encoding: set registers as delta-encoded varints while sparse, the raw register
+     * array once dense.
+     */
+    public byte[] encode() {
+        if (dense != null) {
+            byte[] data = new byte[2 + REGISTERS];
+            data[0] = FORMAT_DENSE;
+            data[1] = PRECISION;
+            System.arraycopy(dense, 0, data, 2, REGISTERS);
+            return data;
+        }
+        int[] entries = new int[sparseSize];
+        int count = 0;
+        for (int entry : sparse) {
+            if (entry != 0) {
+                entries[count++] = entry;
+            }
+        }
+        Arrays.sort(entries); // by register, since it is in the high bits
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4 + sparseSize * 3);
+        out.write(FORMAT_SPARSE);
+        out.write(PRECISION);
+        writeVarint(out, count);
+        int previous = 0;
+        for (int i = 0; i < count; i++) {
+            int register = (entries[i] >>> 8) - 1;
+            writeVarint(out, register - previous);
+            out.write(entries[i] & 0xFF);
+            previous = register;
+        }
+        return out.toByteArray();
+    }
+
+    public static HyperLogLog decode(byte[] data) {
+        HyperLogLog sketch = new HyperLogLog();
+        if (data == null || data.length == 0) {
+            return sketch;
+        }
+        if (data.length < 2 || data[1] != PRECISION) {
+            throw new IllegalArgumentException("Unsupported sketch encoding");
+        }
+        if (data[0] == FORMAT_DENSE) {
+            if (data.length != 2 + REGISTERS) {
+                throw new IllegalArgumentException("Truncated dense sketch");
+            }
+            sketch.dense = Arrays.copyOfRange(data, 2, data.length);
+            return sketch;
+        }
+        if (data[0] != FORMAT_SPARSE) {
+            throw new IllegalArgumentException("Unsupported sketch encoding");
+        }
+        int[] position = {2};
+        int count = readVarint(data, position);
+        int register = 0;
+        for (int i = 0; i < count; i++) {
+            register += readVarint(data, position);
+            if (position[0] >= data.length || register >= REGISTERS) {
+                throw new IllegalArgumentException("Truncated sparse sketch");
+            }
+            sketch.set(register, data[position[0]++]);
+        }
+        return sketch;
+    }
+
+    private void set(int register, int rank) {
+        if (dense != null) {
+            if (rank > dense[register]) {
+                dense[register] = (byte) rank;
+            }
+            return;
+        }
+        int mask = sparse.length - 1;
+        for (int slot = (register * 0x9E3779B1) >>> 16 & mask; ; slot = (slot + 1) & mask) {
+            int entry = sparse[slot];
+            if (entry == 0) {
+                sparse[slot] = (register + 1) << 8 | rank;
+                if (++sparseSize > SPARSE_LIMIT) {
+                    toDense();
+                } else if (sparseSize * 2 > sparse.length) {
+                    resize();
+                }
+                return;
+            }
+            if ((entry >>> 8) - 1 == register) {
+                if (rank > (entry & 0xFF)) {
+                    sparse[slot] = (register + 1) << 8 | rank;
+                }
+                return;
+            }
+        }
+    }
+
+    private void resize() {
+        int[] entries = sparse;
+        sparse = new int[entries.length * 2];
+        sparseSize = 0;
+        for (int entry : entries) {
+            if (entry != 0) {
+                set((entry >>> 8) - 1, entry & 0xFF);
+            }
+        }
+    }
+
+    private void toDense() {
+        dense = new byte[REGISTERS];
+        for (int entry : sparse) {
+            if (entry != 0) {
+                dense[(entry >>> 8) - 1] = (byte) (entry & 0xFF);
+            }
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] data, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("Truncated sparse sketch");
+            }
+            int b = data[position[0]++] & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,28 @@
+package com.featureflagx.exposure;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Bucket sizes exposures are rolled up into. Every exposure is counted at each granularity, so
+ * long windows can be answered from hourly rows instead of sixty times as many minute rows.
+ */
+public enum RollupGranularity {
+    MINUTE(Duration.ofMinutes(1)),
+    HOUR(Duration.ofHours(1));
+
+    private final Duration size;
+
+    RollupGranularity(Duration size) {
+        this.size = size;
+    }
+
+    public Duration getSize() {
+        return size;
+    }
+
+    public Instant bucketOf(Instant time) {
+        long millis = size.toMillis();
+        return Instant.ofEpochMilli(Math.floorDiv(time.toEpochMilli(), millis) * millis);
+    }
+}
@@ -0,0 +1,223 @@
+package com.featureflagx.grpc;
+
+import com.featureflagx.event.FlagChangedEvent;
+import com.featureflagx.grpc.proto.BatchEvaluateRequest;
+import com.featureflagx.grpc.proto.BatchEvaluateResponse;
+import com.featureflagx.grpc.proto.EvaluateRequest;
+import com.featureflagx.grpc.proto.EvaluateResponse;
+import com.featureflagx.grpc.proto.FlagChange;
+import com.featureflagx.grpc.proto.FlagEvaluationServiceGrpc;
+import com.featureflagx.grpc.proto.RequestError;
+import com.featureflagx.grpc.proto.SessionRequest;
+import com.featureflagx.grpc.proto.SessionResponse;
+import com.featureflagx.service.ExposureService;
+import com.featureflagx.service.FlagService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * gRPC front end for {@link FlagService}: unary and batch evaluation plus a bidirectional
+ * session that carries evaluations and flag change notifications on one stream.
+ */
+@Component
+public class FlagEvaluationGrpcService extends FlagEvaluationServiceGrpc.FlagEvaluationServiceImplBase {
+
+    private final FlagService flagService;
+    private final ExposureService exposureService;
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public FlagEvaluationGrpcService(FlagService flagService, ExposureService exposureService) {
+        this.flagService = flagService;
+        this.exposureService = exposureService;
+    }
+
+    @Override
+    public void evaluate(EvaluateRequest request, StreamObserver<EvaluateResponse> responseObserver) {
+        Status invalid = validate(request);
+        if (invalid != null) {
+            responseObserver.onError(invalid.asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(evaluate(request));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void batchEvaluate(BatchEvaluateRequest request, StreamObserver<BatchEvaluateResponse> responseObserver) {
+        Status invalid = validate(request);
+        if (invalid != null) {
+            responseObserver.onError(invalid.asRuntimeException());
+            return;
+        }
+        responseObserver.onNext(batchEvaluate(request));
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public StreamObserver<SessionRequest> session(StreamObserver<SessionResponse> responseObserver) {
+        Session session = new Session((ServerCallStreamObserver<SessionResponse>) responseObserver);
+        sessions.add(session);
+        return session;
+    }
+
+    @EventListener
+    public void onFlagChanged(FlagChangedEvent event) {
+        FlagChange change = FlagChange.newBuilder()
+                .setFlagKey(event.getKey())
+                .setType(FlagChange.Type.valueOf(event.getType().name()))
+                .setEnabled(event.isEnabled())
+                .build();
+        for (Session session : sessions) {
+            session.notifyChange(change);
+        }
+    }
+
+    /**
+     * Number of open sessions; exposed for monitoring and tests.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private static Status validate(EvaluateRequest request) {
+        return request.getFlagKey().isEmpty() ? Status.INVALID_ARGUMENT.withDescription("flag_key is required") : null;
+    }
+
+    private static Status validate(BatchEvaluateRequest request) {
+        return request.getFlagKeysCount() == 0 ? Status.INVALID_ARGUMENT.withDescription("flag_keys is required") : null;
+    }
+
+    private static RequestError error(Status status) {
+        return RequestError.newBuilder().setCode(status.getCode().value()).setMessage(status.getDescription()).build();
+    }
+
+    private EvaluateResponse evaluate(EvaluateRequest request) {
+        String targetId = emptyToNull(request.getTargetId());
+        boolean enabled = flagService.isEnabled(request.getFlagKey(), targetId);
+        exposureService.record(request.getFlagKey(), targetId, enabled);
+        return EvaluateResponse.newBuilder().setFlagKey(request.getFlagKey()).setEnabled(enabled).build();
+    }
+
+    private BatchEvaluateResponse batchEvaluate(BatchEvaluateRequest request) {
+        String targetId = emptyToNull(request.getTargetId());
+        Map<String, Boolean> results = flagService.evaluateFlags(request.getFlagKeysList(), targetId);
+        BatchEvaluateResponse.Builder response = BatchEvaluateResponse.newBuilder();
+        results.forEach((key, enabled) -> {
+            exposureService.record(key, targetId, enabled);
+            response.addResults(EvaluateResponse.newBuilder().setFlagKey(key).setEnabled(enabled));
+        });
+        return response.build();
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value; // proto3 strings default to ""
+    }
+
+    /**
+     * One bidirectional session. Requests are validated like the unary calls; an invalid one is
+     * answered with an {@code error} instead of failing the stream. Request handling and change notifications arrive on different
+     * threads, so all writes to the outbound observer are serialized on this object. Change
+     * notifications respect flow control: while the client isn't reading they are coalesced
+     * per flag (latest wins) and flushed when the transport is ready again.
+     */
+    private final class Session implements StreamObserver<SessionRequest> {
+
+        private final ServerCallStreamObserver<SessionResponse> out;
+        private final Map<String, FlagChange> pendingChanges = new LinkedHashMap<>();
+        private volatile Set<String> subscribedKeys; // null = not subscribed, empty = all flags
+        private boolean closed;
+
+        Session(ServerCallStreamObserver<SessionResponse> out) {
+            this.out = out;
+            out.setOnReadyHandler(this::flushChanges);
+            out.setOnCancelHandler(this::close);
+        }
+
+        @Override
+        public void onNext(SessionRequest request) {
+            SessionResponse.Builder response = SessionResponse.newBuilder().setRequestId(request.getRequestId());
+            Status invalid;
+            switch (request.getRequestCase()) {
+                case EVALUATE:
+                    invalid = validate(request.getEvaluate());
+                    send(invalid != null
+                            ? response.setError(error(invalid)).build()
+                            : response.setEvaluation(evaluate(request.getEvaluate())).build());
+                    break;
+                case BATCH_EVALUATE:
+                    invalid = validate(request.getBatchEvaluate());
+                    send(invalid != null
+                            ? response.setError(error(invalid)).build()
+                            : response.setBatchEvaluation(batchEvaluate(request.getBatchEvaluate())).build());
+                    break;
+                case SUBSCRIBE:
+                    List<String> keys = request.getSubscribe().getFlagKeysList();
+                    subscribedKeys = new HashSet<>(keys);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        @Override
+        public void onCompleted() {
+            synchronized (this) {
+                if (!closed) {
+                    out.onCompleted();
+                }
+            }
+            close();
+        }
+
+        void notifyChange(FlagChange change) {
+            Set<String> keys = subscribedKeys;
+            if (keys == null || (!keys.isEmpty() && !keys.contains(change.getFlagKey()))) {
+                return;
+            }
+            synchronized (this) {
+                pendingChanges.remove(change.getFlagKey()); // re-insert so ordering follows the latest change
+                pendingChanges.put(change.getFlagKey(), change);
+            }
+            flushChanges();
+        }
+
+        private synchronized void flushChanges() {
+            while (!closed && !pendingChanges.isEmpty() && out.isReady()) {
+                String key = pendingChanges.keySet().iterator().next();
+                FlagChange change = pendingChanges.remove(key);
+                out.onNext(SessionResponse.newBuilder().setFlagChange(change).build());
+            }
+        }
+
+        private synchronized void send(SessionResponse response) {
+            if (!closed) {
+                out.onNext(response);
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                closed = true;
+                pendingChanges.clear();
+            }
+            sessions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.featureflagx.grpc;
+
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the gRPC server next to the embedded Tomcat. HTTP/2 lets a client multiplex
+ * thousands of concurrent calls over a handful of connections; calls run on a bounded
+ * pool because FlagService blocks on Redis and the database.
+ */
+@Component
+public class GrpcServer implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(GrpcServer.class);
+
+    private final FlagEvaluationGrpcService evaluationService;
+
+    @Value("${featureflagx.grpc.enabled:true}")
+    private boolean enabled;
+
+    @Value("${featureflagx.grpc.port:9090}")
+    private int port;
+
+    @Value("${featureflagx.grpc.executor-threads:32}")
+    private int executorThreads;
+
+    @Value("${featureflagx.grpc.max-concurrent-calls-per-connection:10000}")
+    private int maxConcurrentCallsPerConnection;
+
+    private Server server;
+    private ExecutorService executor;
+
+    @Autowired
+    public GrpcServer(FlagEvaluationGrpcService evaluationService) {
+        this.evaluationService = evaluationService;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || server != null) {
+            return;
+        }
+        executor = Executors.newFixedThreadPool(executorThreads, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "grpc-call-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            server = NettyServerBuilder.forPort(port)
+                    .addService(evaluationService)
+                    .executor(executor)
+                    .maxConcurrentCallsPerConnection(maxConcurrentCallsPerConnection)
+                    .keepAliveTime(30, TimeUnit.SECONDS)
+                    .permitKeepAliveTime(10, TimeUnit.SECONDS)
+                    .permitKeepAliveWithoutCalls(true)
+                    .build()
+                    .start();
+        } catch (IOException e) {
+            executor.shutdownNow();
+            throw new UncheckedIOException("Failed to start gRPC server on port " + port, e);
+        }
+        log.info("gRPC server listening on port {}", server.getPort());
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        server = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return server != null;
+    }
+}
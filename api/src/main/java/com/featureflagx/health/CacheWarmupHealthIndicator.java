@@ -0,0 +1,34 @@
+package com.featureflagx.health;
+
+import com.featureflagx.dto.WarmupResponse;
+import com.featureflagx.service.CacheWarmupService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports DOWN until the startup cache warm-up has finished. Included in the
+ * readiness group so load balancers hold traffic until Redis is populated.
+ */
+@Component("cacheWarmup")
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmupService cacheWarmupService;
+
+    public CacheWarmupHealthIndicator(CacheWarmupService cacheWarmupService) {
+        this.cacheWarmupService = cacheWarmupService;
+    }
+
+    @Override
+    public Health health() {
+        WarmupResponse result = cacheWarmupService.getLastResult();
+        Health.Builder builder = cacheWarmupService.isFinished() ? Health.up() : Health.down();
+        builder.withDetail("status", result.getStatus())
+                .withDetail("flagsLoaded", result.getFlagsLoaded())
+                .withDetail("durationMillis", result.getDurationMillis());
+        if (result.getError() != null) {
+            builder.withDetail("error", result.getError());
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.featureflagx.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Rows are written in bulk by ExposureCopyWriter; the entity exists so the schema is managed
+// alongside the rest of the model and exposures can be queried through JPA for analysis.
+@Entity
+@Table(name = "flag_exposures", indexes = @Index(name = "idx_flag_exposures_flag_time", columnList = "flag_key, evaluated_at"))
+@Getter
+@Setter
+public class Exposure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "flag_key", nullable = false)
+    private String flagKey;
+
+    @Column(name = "target_id")
+    private String targetId;
+
+    @Column(nullable = false)
+    private boolean result;
+
+    @Column(name = "evaluated_at", nullable = false)
+    private Instant evaluatedAt;
+}
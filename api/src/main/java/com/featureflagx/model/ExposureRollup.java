@@ -0,0 +1,51 @@
+package com.featureflagx.model;
+
+import com.featureflagx.exposure.RollupGranularity;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// Exposure counts and distinct targets for one flag result in one time bucket, summed over all
+// nodes. Each node merges its deltas into the row, so a window is read without touching
+// flag_exposures. The unique constraint doubles as the index for range queries.
+@Entity
+@Table(name = "exposure_rollups", uniqueConstraints = @UniqueConstraint(name = "uk_exposure_rollups_bucket",
+        columnNames = {"flag_key", "granularity", "bucket_start", "result"}))
+@Getter
+@Setter
+public class ExposureRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "flag_key", nullable = false)
+    private String flagKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @Column(nullable = false)
+    private boolean result;
+
+    @Column(nullable = false)
+    private long exposures;
+
+    // HyperLogLog of distinct target IDs, encoded by HyperLogLog; bytea on Postgres
+    @Column(nullable = false, length = 4098)
+    private byte[] targets;
+}
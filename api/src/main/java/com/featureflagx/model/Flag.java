@@ -1,13 +1,20 @@
 package com.featureflagx.model;
 
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "flags")
@@ -28,6 +35,18 @@ public class Flag {
     @Column(name = "updated_at")
     private Instant updatedAt;
 
+    // Incremented by JPA on every update; used for ETags. The default lets ddl-auto add it to existing tables.
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
+    // The tags declared in config, copied here on every write so searches by tag can use an index
+    @ElementCollection
+    @CollectionTable(name = "flag_tags", joinColumns = @JoinColumn(name = "flag_key"),
+            indexes = @Index(name = "idx_flag_tags_tag", columnList = "tag, flag_key"))
+    @Column(name = "tag", nullable = false)
+    private Set<String> tags = new HashSet<>();
+
     // Lombok will generate getters and setters
     // Constructors, equals, hashCode, toString can be added if needed or also generated by Lombok
 }
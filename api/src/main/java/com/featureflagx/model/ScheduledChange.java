@@ -0,0 +1,60 @@
+package com.featureflagx.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// A flag update to apply at a given time. Rows stay after they complete as a record of what ran;
+// the status moves away from PENDING exactly once, which is how a single node claims each change.
+@Entity
+@Table(name = "scheduled_changes", indexes = {
+        @Index(name = "idx_scheduled_changes_due", columnList = "status, fire_at"),
+        @Index(name = "idx_scheduled_changes_flag", columnList = "flag_key")
+})
+@Getter
+@Setter
+public class ScheduledChange {
+
+    public enum Status {
+        PENDING,
+        APPLIED,
+        FAILED, // the flag was gone or the new config was rejected
+        CANCELLED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "flag_key", nullable = false)
+    private String flagKey;
+
+    @Column(name = "fire_at", nullable = false)
+    private Instant fireAt;
+
+    // Either may be null to keep the flag's current value
+    private Boolean enabled;
+
+    @Column(columnDefinition = "jsonb")
+    private String config;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
@@ -0,0 +1,54 @@
+package com.featureflagx.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+// A named set of targets that flags can reference. Members live in SegmentChunk rows so that
+// adding or removing a few members rewrites only the chunks they fall into.
+@Entity
+@Table(name = "segments")
+@Getter
+@Setter
+public class Segment {
+
+    public enum Type {
+        NUMERIC, // 32-bit unsigned IDs, stored exactly as compressed bitmaps
+        STRING // arbitrary IDs, stored as a counting Bloom filter (false positives, no false negatives)
+    }
+
+    @Id
+    @Column(name = "key")
+    private String key;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Type type;
+
+    // Bloom filter shape for STRING segments; fixed at creation so members never need rehashing
+    @Column(name = "bloom_blocks", nullable = false)
+    private int bloomBlocks;
+
+    @Column(name = "bloom_hashes", nullable = false)
+    private int bloomHashes;
+
+    // Exact for NUMERIC segments; for STRING segments, adds minus removes
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    // Bumped on every member change; nodes compare it to find segments to reload
+    @Version
+    @Column(nullable = false)
+    private long version;
+}
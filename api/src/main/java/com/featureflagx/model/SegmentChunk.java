@@ -0,0 +1,46 @@
+package com.featureflagx.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+// One independently rewritable slice of a segment: a bitmap container for NUMERIC segments
+// (IDs sharing their upper 16 bits) or a block of Bloom filter counters for STRING segments.
+@Entity
+@Table(name = "segment_chunks")
+@IdClass(SegmentChunk.ChunkId.class)
+@Getter
+@Setter
+public class SegmentChunk {
+
+    @Id
+    @Column(name = "segment_key")
+    private String segmentKey;
+
+    @Id
+    @Column(name = "chunk_index")
+    private int chunkIndex;
+
+    // Encoded by NumericChunk or BloomBlock; bytea on Postgres
+    @Column(nullable = false, length = 16384)
+    private byte[] data;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class ChunkId implements Serializable {
+        private String segmentKey;
+        private int chunkIndex;
+    }
+}
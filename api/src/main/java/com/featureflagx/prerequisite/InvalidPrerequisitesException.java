@@ -0,0 +1,11 @@
+package com.featureflagx.prerequisite;
+
+/**
+ * A flag's prerequisite declaration is malformed or would make the prerequisite graph cyclic.
+ */
+public class InvalidPrerequisitesException extends IllegalArgumentException {
+
+    public InvalidPrerequisitesException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,221 @@
+package com.featureflagx.prerequisite;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, compiled view of the prerequisites declared in flag configs, e.g.
+ * {@code {"prerequisites": ["payments-v2"]}}: a flag is only on if it and all of its
+ * prerequisites (transitively) are on.
+ *
+ * Compiling sorts the graph topologically once, so each flag's evaluation plan (itself
+ * plus every transitive prerequisite, prerequisites first) is precomputed. Flags on a
+ * cycle, or depending on one, can only appear if two writes raced past validation; they
+ * are reported by {@link #isCyclic} and evaluate to off.
+ */
+public final class PrerequisiteGraph {
+
+    public static final String CONFIG_FIELD = "prerequisites";
+
+    public static final PrerequisiteGraph EMPTY = compile(Collections.emptyMap());
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final Map<String, List<String>> prerequisites;
+    private final Map<String, List<String>> dependents;
+    private final Map<String, List<String>> plans;
+    private final Set<String> cyclic;
+    private final List<String> cycle;
+
+    private PrerequisiteGraph(Map<String, List<String>> prerequisites, Map<String, List<String>> dependents,
+                              Map<String, List<String>> plans, Set<String> cyclic, List<String> cycle) {
+        this.prerequisites = prerequisites;
+        this.dependents = dependents;
+        this.plans = plans;
+        this.cyclic = cyclic;
+        this.cycle = cycle;
+    }
+
+    /**
+     * @param declared prerequisite keys by flag key; flags without prerequisites may be omitted
+     */
+    public static PrerequisiteGraph compile(Map<String, List<String>> declared) {
+        Map<String, List<String>> prerequisites = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        declared.forEach((key, keys) -> {
+            if (keys.isEmpty()) {
+                return;
+            }
+            List<String> distinct = List.copyOf(new LinkedHashSet<>(keys));
+            prerequisites.put(key, distinct);
+            for (String prerequisite : distinct) {
+                dependents.computeIfAbsent(prerequisite, k -> new ArrayList<>()).add(key);
+            }
+        });
+
+        // Kahn's algorithm; whatever never reaches in-degree zero is on or behind a cycle
+        Map<String, Integer> pending = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        Set<String> nodes = new LinkedHashSet<>(prerequisites.keySet());
+        nodes.addAll(dependents.keySet());
+        for (String node : nodes) {
+            int count = prerequisites.getOrDefault(node, List.of()).size();
+            pending.put(node, count);
+            if (count == 0) {
+                ready.add(node);
+            }
+        }
+        Map<String, Integer> rank = new HashMap<>();
+        while (!ready.isEmpty()) {
+            String node = ready.poll();
+            rank.put(node, rank.size());
+            for (String dependent : dependents.getOrDefault(node, List.of())) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        Set<String> cyclic = new LinkedHashSet<>(nodes);
+        cyclic.removeAll(rank.keySet());
+
+        Map<String, List<String>> plans = new HashMap<>();
+        for (String key : prerequisites.keySet()) {
+            if (!cyclic.contains(key)) {
+                plans.put(key, plan(key, prerequisites, rank));
+            }
+        }
+        return new PrerequisiteGraph(prerequisites, dependents, plans, Collections.unmodifiableSet(cyclic),
+                findCycle(cyclic, prerequisites));
+    }
+
+    /**
+     * Reads the prerequisite keys from a flag config.
+     *
+     * @throws InvalidPrerequisitesException if {@value #CONFIG_FIELD} is present but not an array of flag keys
+     */
+    public static List<String> parse(String config) {
+        if (config == null || config.isBlank()) {
+            return List.of();
+        }
+        JsonNode root;
+        try {
+            root = OBJECT_MAPPER.readTree(config);
+        } catch (JsonProcessingException e) {
+            return List.of(); // configs are free-form; only a well-formed prerequisites field is interpreted
+        }
+        JsonNode field = root != null && root.isObject() ? root.get(CONFIG_FIELD) : null;
+        if (field == null || field.isNull()) {
+            return List.of();
+        }
+        if (!field.isArray()) {
+            throw new InvalidPrerequisitesException("\"" + CONFIG_FIELD + "\" must be an array of flag keys");
+        }
+        List<String> keys = new ArrayList<>(field.size());
+        for (JsonNode element : field) {
+            if (!element.isTextual() || element.asText().isBlank()) {
+                throw new InvalidPrerequisitesException("\"" + CONFIG_FIELD + "\" must only contain flag keys, found " + element);
+            }
+            keys.add(element.asText());
+        }
+        return keys;
+    }
+
+    public boolean hasPrerequisites(String key) {
+        return prerequisites.containsKey(key);
+    }
+
+    public List<String> prerequisitesOf(String key) {
+        return prerequisites.getOrDefault(key, List.of());
+    }
+
+    public boolean isCyclic(String key) {
+        return cyclic.contains(key);
+    }
+
+    /**
+     * @return one cycle, in dependency order with the first key repeated at the end, or empty if the graph is acyclic
+     */
+    public List<String> getCycle() {
+        return cycle;
+    }
+
+    /**
+     * Every flag needed to evaluate {@code keys}, each once, with prerequisites before the
+     * flags that depend on them. Keys without prerequisites keep their relative order.
+     */
+    public List<String> evaluationOrder(Collection<String> keys) {
+        Set<String> order = new LinkedHashSet<>();
+        for (String key : keys) {
+            // Appending whole plans keeps the order topological: a plan holds all of its prerequisites
+            order.addAll(plans.getOrDefault(key, List.of(key)));
+        }
+        return new ArrayList<>(order);
+    }
+
+    /**
+     * Flags whose result depends on {@code key}, directly or transitively.
+     */
+    public Set<String> dependentsOf(String key) {
+        Set<String> found = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(dependents.getOrDefault(key, List.of()));
+        while (!queue.isEmpty()) {
+            String dependent = queue.poll();
+            if (found.add(dependent)) {
+                queue.addAll(dependents.getOrDefault(dependent, List.of()));
+            }
+        }
+        return found;
+    }
+
+    private static List<String> plan(String key, Map<String, List<String>> prerequisites, Map<String, Integer> rank) {
+        Set<String> closure = new LinkedHashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(key);
+        while (!stack.isEmpty()) {
+            String node = stack.pop();
+            if (closure.add(node)) {
+                prerequisites.getOrDefault(node, List.of()).forEach(stack::push);
+            }
+        }
+        String[] ordered = closure.toArray(new String[0]);
+        Arrays.sort(ordered, Comparator.comparingInt(rank::get));
+        return List.of(ordered);
+    }
+
+    private static List<String> findCycle(Set<String> cyclic, Map<String, List<String>> prerequisites) {
+        if (cyclic.isEmpty()) {
+            return List.of();
+        }
+        // Every node left by Kahn's algorithm has a prerequisite that was also left, so this walk must repeat
+        List<String> path = new ArrayList<>();
+        Map<String, Integer> seenAt = new HashMap<>();
+        String node = cyclic.iterator().next();
+        while (!seenAt.containsKey(node)) {
+            seenAt.put(node, path.size());
+            path.add(node);
+            for (String prerequisite : prerequisites.get(node)) {
+                if (cyclic.contains(prerequisite)) {
+                    node = prerequisite;
+                    break;
+                }
+            }
+        }
+        List<String> cycle = new ArrayList<>(path.subList(seenAt.get(node), path.size()));
+        cycle.add(node);
+        return List.copyOf(cycle);
+    }
+}
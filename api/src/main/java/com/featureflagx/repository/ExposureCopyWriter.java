@@ -0,0 +1,94 @@
+package com.featureflagx.repository;
+
+import com.featureflagx.exposure.ExposureEvent;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Bulk writer for exposure events. Uses Postgres {@code COPY ... FROM STDIN} when the
+ * connection is a Postgres one and falls back to a JDBC batch insert otherwise (e.g. H2).
+ */
+@Repository
+public class ExposureCopyWriter {
+
+    private static final String COPY_SQL =
+            "COPY flag_exposures (flag_key, target_id, result, evaluated_at) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_SQL =
+            "INSERT INTO flag_exposures (flag_key, target_id, result, evaluated_at) VALUES (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public ExposureCopyWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public void write(List<ExposureEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                copy(connection.unwrap(PGConnection.class), events);
+            } else {
+                batchInsert(connection, events);
+            }
+        }
+    }
+
+    private void copy(PGConnection connection, List<ExposureEvent> events) throws SQLException {
+        StringBuilder csv = new StringBuilder(events.size() * 64);
+        for (ExposureEvent event : events) {
+            appendQuoted(csv, event.getFlagKey());
+            csv.append(',');
+            if (event.getTargetId() != null) {
+                appendQuoted(csv, event.getTargetId()); // an unquoted empty field is NULL in CSV mode
+            }
+            csv.append(',').append(event.getResult())
+                    .append(',').append(Timestamp.from(event.getEvaluatedAt()))
+                    .append('\n');
+        }
+        CopyManager copyManager = connection.getCopyAPI();
+        try {
+            copyManager.copyIn(COPY_SQL, new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new SQLException("COPY into flag_exposures failed", e);
+        }
+    }
+
+    private void batchInsert(Connection connection, List<ExposureEvent> events) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (ExposureEvent event : events) {
+                statement.setString(1, event.getFlagKey());
+                statement.setString(2, event.getTargetId());
+                statement.setBoolean(3, event.getResult());
+                statement.setTimestamp(4, Timestamp.from(event.getEvaluatedAt()));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    static void appendQuoted(StringBuilder csv, String value) {
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        csv.append('"');
+    }
+}
@@ -0,0 +1,38 @@
+package com.featureflagx.repository;
+
+import com.featureflagx.exposure.RollupGranularity;
+import com.featureflagx.model.ExposureRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExposureRollupRepository extends JpaRepository<ExposureRollup, Long> {
+
+    // Creates the bucket's row empty unless one exists, so lockBucket always has a row to lock;
+    // nodes racing to create it don't fail on uk_exposure_rollups_bucket
+    @Modifying
+    @Query(value = "insert into exposure_rollups (flag_key, granularity, bucket_start, result, exposures, targets) "
+            + "values (:flagKey, :granularity, :bucketStart, :result, 0, :targets) on conflict do nothing", nativeQuery = true)
+    int insertBucketIfAbsent(@Param("flagKey") String flagKey, @Param("granularity") String granularity,
+                             @Param("bucketStart") Instant bucketStart, @Param("result") boolean result,
+                             @Param("targets") byte[] targets);
+
+    // Serializes the read-merge-write of one bucket across nodes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ExposureRollup r where r.flagKey = :flagKey and r.granularity = :granularity "
+            + "and r.bucketStart = :bucketStart and r.result = :result")
+    Optional<ExposureRollup> lockBucket(@Param("flagKey") String flagKey, @Param("granularity") RollupGranularity granularity,
+                                        @Param("bucketStart") Instant bucketStart, @Param("result") boolean result);
+
+    List<ExposureRollup> findByFlagKeyAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            String flagKey, RollupGranularity granularity, Instant from, Instant to);
+}
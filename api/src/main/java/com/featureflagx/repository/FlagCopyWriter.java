@@ -0,0 +1,139 @@
+package com.featureflagx.repository;
+
+import com.featureflagx.model.Flag;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk writer for imported flags. Each batch, with its tags, is written in one transaction,
+ * using Postgres {@code COPY ... FROM STDIN} on a Postgres connection and JDBC batch inserts
+ * otherwise (e.g. H2). Only inserts: callers filter out keys that already exist.
+ */
+@Repository
+public class FlagCopyWriter {
+
+    private static final String COPY_FLAGS_SQL =
+            "COPY flags (key, enabled, config, updated_at, version) FROM STDIN WITH (FORMAT csv)";
+    private static final String COPY_TAGS_SQL = "COPY flag_tags (flag_key, tag) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_FLAG_SQL =
+            "INSERT INTO flags (key, enabled, config, updated_at, version) VALUES (?, ?, ?, ?, 0)";
+    private static final String INSERT_TAG_SQL = "INSERT INTO flag_tags (flag_key, tag) VALUES (?, ?)";
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public FlagCopyWriter(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public Set<String> findExisting(Collection<String> keys) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        if (keys.isEmpty()) {
+            return existing;
+        }
+        String sql = "SELECT key FROM flags WHERE key IN (" + "?,".repeat(keys.size() - 1) + "?)";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            for (String key : keys) {
+                statement.setString(index++, key);
+            }
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    existing.add(rows.getString(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    public void insert(List<Flag> flags) throws SQLException {
+        if (flags.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (connection.isWrapperFor(PGConnection.class)) {
+                    copy(connection.unwrap(PGConnection.class), flags);
+                } else {
+                    batchInsert(connection, flags);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void copy(PGConnection connection, List<Flag> flags) throws SQLException {
+        StringBuilder flagRows = new StringBuilder(flags.size() * 96);
+        StringBuilder tagRows = new StringBuilder();
+        for (Flag flag : flags) {
+            ExposureCopyWriter.appendQuoted(flagRows, flag.getKey());
+            flagRows.append(',').append(flag.isEnabled()).append(',');
+            if (flag.getConfig() != null) {
+                ExposureCopyWriter.appendQuoted(flagRows, flag.getConfig()); // an unquoted empty field is NULL
+            }
+            flagRows.append(',').append(Timestamp.from(flag.getUpdatedAt())).append(",0\n");
+            for (String tag : flag.getTags()) {
+                ExposureCopyWriter.appendQuoted(tagRows, flag.getKey());
+                tagRows.append(',');
+                ExposureCopyWriter.appendQuoted(tagRows, tag);
+                tagRows.append('\n');
+            }
+        }
+        CopyManager copyManager = connection.getCopyAPI();
+        try {
+            copyManager.copyIn(COPY_FLAGS_SQL, new StringReader(flagRows.toString()));
+            if (tagRows.length() > 0) {
+                copyManager.copyIn(COPY_TAGS_SQL, new StringReader(tagRows.toString()));
+            }
+        } catch (IOException e) {
+            throw new SQLException("COPY into flags failed", e);
+        }
+    }
+
+    private void batchInsert(Connection connection, List<Flag> flags) throws SQLException {
+        try (PreparedStatement flagStatement = connection.prepareStatement(INSERT_FLAG_SQL);
+             PreparedStatement tagStatement = connection.prepareStatement(INSERT_TAG_SQL)) {
+            boolean tagged = false;
+            for (Flag flag : flags) {
+                flagStatement.setString(1, flag.getKey());
+                flagStatement.setBoolean(2, flag.isEnabled());
+                flagStatement.setString(3, flag.getConfig());
+                flagStatement.setTimestamp(4, Timestamp.from(flag.getUpdatedAt()));
+                flagStatement.addBatch();
+                for (String tag : flag.getTags()) {
+                    tagStatement.setString(1, flag.getKey());
+                    tagStatement.setString(2, tag);
+                    tagStatement.addBatch();
+                    tagged = true;
+                }
+            }
+            flagStatement.executeBatch();
+            if (tagged) {
+                tagStatement.executeBatch();
+            }
+        }
+    }
+}
@@ -2,12 +2,64 @@ package com.featureflagx.repository;
 
 import com.featureflagx.model.Flag;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FlagRepository extends JpaRepository<Flag, String> {
     // JpaRepository provides common CRUD operations (save, findById, deleteById, findAll, etc.)
     // Custom query methods can be added here if needed, for example:
     // Optional<Flag> findByKeyAndSomeOtherCriteria(String key, String criteria);
-}
 
+    // Redeclared without readOnly so cache fills outside a read-only service transaction run on the
+    // primary and see the write that just invalidated the cache, not a lagging replica
+    @Override
+    @Transactional
+    Optional<Flag> findById(String key);
+
+    // Streams every flag through a server-side cursor instead of materializing the whole table.
+    // Must be consumed inside a transaction and closed afterwards.
+    @Query("select f from Flag f")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Flag> streamAll();
+
+    // Candidates for the tag backfill: unindexed flags whose config mentions tags, so a startup
+    // after the backfill reads next to nothing. The caller still parses each config.
+    @Query("select f from Flag f where f.tags is empty and cast(f.config as string) like '%\"tags\"%'")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Flag> streamUntagged();
+
+    // Versions as committed on the primary, even when called inside a read-only transaction on a replica
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("select f.key as flagKey, f.version as version from Flag f where f.key in :keys")
+    List<FlagVersion> findVersionsByKeyIn(@Param("keys") Collection<String> keys);
+
+    // Cheap fingerprint of the whole flag set, used to answer conditional GETs on the listing
+    @Query("select count(f) as count, coalesce(sum(f.version), 0) as versionSum, max(f.updatedAt) as lastUpdatedAt from Flag f")
+    FlagSetVersion findFlagSetVersion();
+
+    interface FlagVersion {
+        String getFlagKey();
+
+        long getVersion();
+    }
+
+    interface FlagSetVersion {
+        long getCount();
+
+        long getVersionSum();
+
+        Instant getLastUpdatedAt();
+    }
+}
@@ -0,0 +1,86 @@
+package com.featureflagx.repository;
+
+import com.featureflagx.model.Flag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtered, keyset-paginated flag listing. The query only carries the filters that are set, so
+ * each combination gets a plan for its own index: the key prefix a range scan on
+ * {@code idx_flags_key_pattern} (Postgres) or the primary key, the tag a lookup on
+ * {@code idx_flag_tags_tag}. Paging continues after the last key seen rather than skipping
+ * rows, so a late page costs the same as the first.
+ */
+@Repository
+public class FlagSearchRepository {
+
+    private static final char LIKE_ESCAPE = '!';
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public FlagSearchRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * @param prefix  only keys starting with this, or null for any
+     * @param tag     only flags with this tag, or null for any
+     * @param enabled only flags in this state, or null for either
+     * @param after   only keys after this one, or null to start from the first
+     * @return up to {@code limit} flags in key order
+     */
+    public List<Flag> search(String prefix, String tag, Boolean enabled, String after, int limit) {
+        StringBuilder jpql = new StringBuilder("select f from Flag f");
+        List<String> conditions = new ArrayList<>(4);
+        if (tag != null) {
+            jpql.append(" join f.tags t");
+            conditions.add("t = :tag");
+        }
+        if (prefix != null && !prefix.isEmpty()) {
+            conditions.add("f.key like :pattern escape '" + LIKE_ESCAPE + "'");
+        }
+        if (enabled != null) {
+            conditions.add("f.enabled = :enabled");
+        }
+        if (after != null) {
+            conditions.add("f.key > :after");
+        }
+        if (!conditions.isEmpty()) {
+            jpql.append(" where ").append(String.join(" and ", conditions));
+        }
+        jpql.append(" order by f.key");
+
+        TypedQuery<Flag> query = entityManager.createQuery(jpql.toString(), Flag.class).setMaxResults(limit);
+        if (tag != null) {
+            query.setParameter("tag", tag);
+        }
+        if (prefix != null && !prefix.isEmpty()) {
+            query.setParameter("pattern", escapeLike(prefix) + "%");
+        }
+        if (enabled != null) {
+            query.setParameter("enabled", enabled);
+        }
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        return query.getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
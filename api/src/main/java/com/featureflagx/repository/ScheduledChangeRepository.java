@@ -0,0 +1,26 @@
+package com.featureflagx.repository;
+
+import com.featureflagx.model.ScheduledChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ScheduledChangeRepository extends JpaRepository<ScheduledChange, Long> {
+
+    List<ScheduledChange> findByStatusAndFireAtBefore(ScheduledChange.Status status, Instant before);
+
+    List<ScheduledChange> findByFlagKeyOrderByFireAt(String flagKey);
+
+    // Moves a change from one status to another; of several nodes racing for the same change, exactly one gets 1
+    @Modifying
+    @Query("update ScheduledChange c set c.status = :status, c.completedAt = :completedAt "
+            + "where c.id = :id and c.status = :expected")
+    int transition(@Param("id") long id, @Param("expected") ScheduledChange.Status expected,
+                   @Param("status") ScheduledChange.Status status, @Param("completedAt") Instant completedAt);
+}
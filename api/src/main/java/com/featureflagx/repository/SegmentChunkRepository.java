@@ -0,0 +1,24 @@
+package com.featureflagx.repository;
+
+import com.featureflagx.model.SegmentChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SegmentChunkRepository extends JpaRepository<SegmentChunk, SegmentChunk.ChunkId> {
+
+    List<SegmentChunk> findBySegmentKey(String segmentKey);
+
+    List<SegmentChunk> findBySegmentKeyAndChunkIndexIn(String segmentKey, Collection<Integer> chunkIndexes);
+
+    // Bulk delete; the derived deleteBy would load every chunk first
+    @Modifying
+    @Query("delete from SegmentChunk c where c.segmentKey = :segmentKey")
+    int deleteAllBySegmentKey(@Param("segmentKey") String segmentKey);
+}
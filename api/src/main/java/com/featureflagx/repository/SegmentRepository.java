@@ -0,0 +1,31 @@
+package com.featureflagx.repository;
+
+import com.featureflagx.model.Segment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SegmentRepository extends JpaRepository<Segment, String> {
+
+    // Serializes member updates to one segment, including ones that create new chunk rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Segment s where s.key = :key")
+    Optional<Segment> lockByKey(@Param("key") String key);
+
+    // Lets nodes find changed segments without loading any members
+    @Query("select s.key as key, s.version as version from Segment s")
+    List<SegmentVersion> findVersions();
+
+    interface SegmentVersion {
+        String getKey();
+
+        long getVersion();
+    }
+}
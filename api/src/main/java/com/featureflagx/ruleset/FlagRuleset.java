@@ -0,0 +1,203 @@
+package com.featureflagx.ruleset;
+
+import com.featureflagx.model.Flag;
+import com.featureflagx.prerequisite.InvalidPrerequisitesException;
+import com.featureflagx.prerequisite.PrerequisiteGraph;
+import com.featureflagx.segment.InvalidSegmentException;
+import com.featureflagx.segment.SegmentRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+
+/**
+ * Immutable snapshot of every flag's evaluation inputs: its own on/off state, the segments it
+ * targets and the compiled prerequisite graph. Lets all flags (or all under a key prefix) be
+ * evaluated for a target from memory, without per-flag Redis or database reads.
+ */
+public final class FlagRuleset {
+
+    public static final FlagRuleset EMPTY = compile(Collections.emptyList());
+
+    private static final Logger log = LoggerFactory.getLogger(FlagRuleset.class);
+    private static final byte UNKNOWN = 0;
+    private static final byte ON = 1;
+    private static final byte OFF = 2;
+
+    private final String[] keys; // sorted, so a prefix is a contiguous range
+    private final Map<String, Integer> indexes;
+    private final boolean[] enabled;
+    private final List<String>[] segments;
+    private final int[][] prerequisites; // indexes into keys; -1 for a prerequisite that doesn't exist
+    private final boolean[] targetIndependent;
+    private final Map<String, List<String>> flagsBySegment;
+    private final Map<String, List<String>> declaredPrerequisites;
+    private final PrerequisiteGraph graph;
+
+    @SuppressWarnings("unchecked")
+    private FlagRuleset(List<Flag> flags) {
+        List<Flag> sorted = new ArrayList<>(flags);
+        sorted.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+        int n = sorted.size();
+        keys = new String[n];
+        indexes = new HashMap<>(n * 2);
+        enabled = new boolean[n];
+        segments = new List[n];
+        Map<String, List<String>> declared = new HashMap<>();
+        Map<String, List<String>> bySegment = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Flag flag = sorted.get(i);
+            keys[i] = flag.getKey();
+            indexes.put(flag.getKey(), i);
+            enabled[i] = flag.isEnabled();
+            segments[i] = parseSegments(flag);
+            for (String segment : segments[i]) {
+                bySegment.computeIfAbsent(segment, k -> new ArrayList<>()).add(flag.getKey());
+            }
+            List<String> required = parsePrerequisites(flag);
+            if (!required.isEmpty()) {
+                declared.put(flag.getKey(), required);
+            }
+        }
+        graph = PrerequisiteGraph.compile(declared);
+        prerequisites = new int[n][];
+        for (int i = 0; i < n; i++) {
+            List<String> required = graph.prerequisitesOf(keys[i]);
+            prerequisites[i] = new int[required.size()];
+            for (int p = 0; p < required.size(); p++) {
+                prerequisites[i][p] = indexes.getOrDefault(required.get(p), -1);
+            }
+        }
+        targetIndependent = new boolean[n];
+        byte[] states = new byte[n];
+        for (int i = 0; i < n; i++) {
+            targetIndependent[i] = isTargetIndependent(i, states);
+        }
+        flagsBySegment = bySegment;
+        declaredPrerequisites = declared;
+    }
+
+    public static FlagRuleset compile(Collection<Flag> flags) {
+        return new FlagRuleset(new ArrayList<>(flags));
+    }
+
+    public PrerequisiteGraph getPrerequisites() {
+        return graph;
+    }
+
+    /**
+     * @return each flag's prerequisites as declared in its config, for flags that declare any
+     */
+    public Map<String, List<String>> getDeclaredPrerequisites() {
+        return Collections.unmodifiableMap(declaredPrerequisites);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the segments the flag targets; empty if it isn't segment-targeted or doesn't exist
+     */
+    public List<String> segmentsOf(String flagKey) {
+        Integer index = indexes.get(flagKey);
+        return index != null ? segments[index] : List.of();
+    }
+
+    /**
+     * @return whether the flag evaluates the same for every target: neither it nor any of its
+     *         prerequisites is segment-targeted. False for flags not in this snapshot, which may
+     *         have been created since it was compiled.
+     */
+    public boolean isTargetIndependent(String flagKey) {
+        Integer index = indexes.get(flagKey);
+        return index != null && targetIndependent[index];
+    }
+
+    public List<String> flagsReferencing(String segmentKey) {
+        return flagsBySegment.getOrDefault(segmentKey, List.of());
+    }
+
+    /**
+     * Evaluates every flag whose key starts with {@code prefix}, in key order. Each flag,
+     * including shared prerequisites, is evaluated at most once.
+     *
+     * @param inSegments whether the target is in at least one of the given segments
+     */
+    public Map<String, Boolean> evaluateAll(String prefix, String targetId, BiPredicate<List<String>, String> inSegments) {
+        int from = prefix.isEmpty() ? 0 : lowerBound(prefix);
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(prefix)) {
+            to++;
+        }
+        byte[] states = new byte[keys.length];
+        Map<String, Boolean> results = new LinkedHashMap<>((to - from) * 4 / 3 + 1);
+        for (int i = from; i < to; i++) {
+            results.put(keys[i], evaluate(i, targetId, inSegments, states));
+        }
+        return results;
+    }
+
+    private boolean evaluate(int index, String targetId, BiPredicate<List<String>, String> inSegments, byte[] states) {
+        if (states[index] != UNKNOWN) {
+            return states[index] == ON;
+        }
+        boolean on = enabled[index] && !graph.isCyclic(keys[index])
+                && (segments[index].isEmpty() || (targetId != null && inSegments.test(segments[index], targetId)));
+        // Cyclic flags never get here, so the recursion follows the acyclic part of the graph only
+        for (int p = 0; on && p < prerequisites[index].length; p++) {
+            int prerequisite = prerequisites[index][p];
+            on = prerequisite >= 0 && evaluate(prerequisite, targetId, inSegments, states);
+        }
+        states[index] = on ? ON : OFF;
+        return on;
+    }
+
+    private boolean isTargetIndependent(int index, byte[] states) {
+        if (states[index] != UNKNOWN) {
+            return states[index] == ON;
+        }
+        if (graph.isCyclic(keys[index])) {
+            states[index] = ON; // always off, whatever the target
+            return true;
+        }
+        boolean independent = segments[index].isEmpty();
+        for (int p = 0; independent && p < prerequisites[index].length; p++) {
+            int prerequisite = prerequisites[index][p];
+            independent = prerequisite < 0 || isTargetIndependent(prerequisite, states);
+        }
+        states[index] = independent ? ON : OFF;
+        return independent;
+    }
+
+    private int lowerBound(String prefix) {
+        int index = Arrays.binarySearch(keys, prefix);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static List<String> parseSegments(Flag flag) {
+        try {
+            return SegmentRegistry.parse(flag.getConfig());
+        } catch (InvalidSegmentException e) {
+            log.warn("Ignoring segments of flag {}: {}", flag.getKey(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static List<String> parsePrerequisites(Flag flag) {
+        try {
+            return PrerequisiteGraph.parse(flag.getConfig());
+        } catch (InvalidPrerequisitesException e) {
+            log.warn("Ignoring prerequisites of flag {}: {}", flag.getKey(), e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.featureflagx.ruleset;
+
+import com.featureflagx.cache.OffHeapResultCache;
+import com.featureflagx.event.FlagChangedEvent;
+import com.featureflagx.prerequisite.InvalidPrerequisitesException;
+import com.featureflagx.prerequisite.PrerequisiteGraph;
+import com.featureflagx.repository.FlagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the compiled {@link FlagRuleset} for evaluation and validates prerequisite declarations
+ * on writes.
+ *
+ * The ruleset is built from the database on first use, then rebuilt in the background when a
+ * flag changes (coalescing bursts of changes) and on a fixed interval in case a change
+ * notification is lost, so evaluations never wait on the database for it again.
+ */
+@Component
+public class RulesetRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RulesetRegistry.class);
+
+    private final FlagRepository flagRepository;
+    private final OffHeapResultCache resultCache;
+    private final long refreshIntervalMillis;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final Set<String> changedSinceRebuild = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flag-ruleset");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Snapshot snapshot;
+
+    public RulesetRegistry(FlagRepository flagRepository, OffHeapResultCache resultCache,
+                           @Value("${featureflagx.ruleset.refresh-interval:60s}") Duration refreshInterval) {
+        this.flagRepository = flagRepository;
+        this.resultCache = resultCache;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+    }
+
+    public FlagRuleset current() {
+        return loaded().ruleset;
+    }
+
+    private Snapshot loaded() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // Evaluating against an empty ruleset would turn segment-targeted flags on for everyone
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = compile();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Checks that giving {@code key} this config keeps the prerequisite graph acyclic. Checked
+     * against the in-memory ruleset, so writes don't load every flag inside their transaction.
+     * All flags are only loaded to confirm a cycle, or when the ruleset may lack edges that
+     * other writes added: while their change notifications wait to be rebuilt into it, or when
+     * the flag set's fingerprint no longer matches the one it was compiled from. The latter
+     * catches writes whose notification hasn't arrived yet, on this node or another.
+     *
+     * @throws InvalidPrerequisitesException if the declaration is malformed or would close a cycle
+     */
+    public void validate(String key, String config) {
+        List<String> declared = PrerequisiteGraph.parse(config);
+        if (declared.isEmpty()) {
+            return; // a flag without prerequisites can't close a cycle
+        }
+        if (declared.contains(key)) {
+            throw new InvalidPrerequisitesException("Flag '" + key + "' can't be its own prerequisite");
+        }
+        Snapshot loaded = loaded();
+        List<String> cycle = cycleWith(loaded.ruleset.getDeclaredPrerequisites(), key, declared);
+        if (!cycle.isEmpty() || !changedSinceRebuild.isEmpty()
+                || !sameFlagSet(loaded.version, flagRepository.findFlagSetVersion())) {
+            cycle = cycleWith(compile().ruleset.getDeclaredPrerequisites(), key, declared);
+        }
+        if (!cycle.isEmpty()) {
+            throw new InvalidPrerequisitesException("Prerequisites of '" + key + "' would form a cycle: "
+                    + String.join(" -> ", cycle));
+        }
+    }
+
+    private static boolean sameFlagSet(FlagRepository.FlagSetVersion a, FlagRepository.FlagSetVersion b) {
+        return a != null && b != null && a.getCount() == b.getCount() && a.getVersionSum() == b.getVersionSum()
+                && Objects.equals(a.getLastUpdatedAt(), b.getLastUpdatedAt());
+    }
+
+    private static List<String> cycleWith(Map<String, List<String>> stored, String key, List<String> declared) {
+        Map<String, List<String>> prerequisites = new HashMap<>(stored);
+        prerequisites.put(key, declared);
+        return PrerequisiteGraph.compile(prerequisites).getCycle();
+    }
+
+    /**
+     * @return each flag's declared prerequisites as currently stored, for flags that declare any
+     */
+    public Map<String, List<String>> declaredPrerequisites() {
+        return compile().ruleset.getDeclaredPrerequisites();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::rebuild, 0, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onFlagChanged(FlagChangedEvent event) {
+        // Results of flags that depend on the changed one are stale too
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.ruleset.getPrerequisites().dependentsOf(event.getKey()).forEach(resultCache::invalidate);
+        }
+        changedSinceRebuild.add(event.getKey());
+        if (rebuildQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    void rebuild() {
+        List<String> changed = new ArrayList<>(changedSinceRebuild);
+        changedSinceRebuild.removeAll(changed);
+        try {
+            Snapshot compiled = compile();
+            FlagRuleset rebuilt = compiled.ruleset;
+            List<String> cycle = rebuilt.getPrerequisites().getCycle();
+            if (!cycle.isEmpty()) {
+                log.warn("Prerequisite cycle {}; flags on or behind it evaluate to off", String.join(" -> ", cycle));
+            }
+            snapshot = compiled;
+            // Results computed with the old ruleset while this rebuild ran may have used stale flags
+            for (String key : changed) {
+                resultCache.invalidate(key);
+                rebuilt.getPrerequisites().dependentsOf(key).forEach(resultCache::invalidate);
+            }
+        } catch (RuntimeException e) {
+            // Keep evaluating with the previous ruleset; the next change or refresh retries
+            changedSinceRebuild.addAll(changed);
+            log.warn("Failed to rebuild the flag ruleset", e);
+        }
+    }
+
+    private Snapshot compile() {
+        // Read first: a write committing in between leaves an older fingerprint, which only costs a reload
+        FlagRepository.FlagSetVersion version = flagRepository.findFlagSetVersion();
+        return new Snapshot(FlagRuleset.compile(flagRepository.findAll()), version);
+    }
+
+    private static final class Snapshot {
+        final FlagRuleset ruleset;
+        final FlagRepository.FlagSetVersion version; // of the flags it was compiled from
+
+        Snapshot(FlagRuleset ruleset, FlagRepository.FlagSetVersion version) {
+            this.ruleset = ruleset;
+            this.version = version;
+        }
+    }
+}
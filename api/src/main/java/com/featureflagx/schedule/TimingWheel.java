@@ -0,0 +1,278 @@
+package com.featureflagx.schedule;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hierarchical timing wheel for tasks due at an absolute wall-clock time.
+ *
+ * Level 0 has {@code wheelSize} buckets of {@code tickMillis} each; every further level's tick
+ * is the whole span of the level below, so six levels of 512 one-millisecond buckets cover
+ * decades. Scheduling and cancelling are O(1). Only non-empty buckets sit in a delay queue, so
+ * the driver thread sleeps until the next bucket is due however many tasks are pending; when a
+ * bucket of a coarser level comes due its tasks cascade into finer buckets until they fire.
+ *
+ * Tasks run on the driver thread (or on the caller's, if already due when scheduled) and must
+ * hand anything slow off to another thread.
+ */
+public final class TimingWheel implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    private final int wheelSize;
+    private final LongSupplier clock;
+    private final DelayQueue<Bucket> queue = new DelayQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Level root;
+    private final Thread driver;
+    private volatile boolean closed;
+
+    public TimingWheel(String name, long tickMillis, int wheelSize) {
+        this(name, tickMillis, wheelSize, System::currentTimeMillis);
+    }
+
+    TimingWheel(String name, long tickMillis, int wheelSize, LongSupplier clock) {
+        if (tickMillis < 1 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis must be >= 1 and wheelSize >= 2");
+        }
+        this.wheelSize = wheelSize;
+        this.clock = clock;
+        this.root = new Level(tickMillis, clock.getAsLong());
+        this.driver = new Thread(this::run, name);
+        this.driver.setDaemon(true);
+        this.driver.start();
+    }
+
+    /**
+     * Runs the task at {@code deadlineMillis} (epoch milliseconds), or right away if that has passed.
+     */
+    public Timeout schedule(long deadlineMillis, Runnable task) {
+        Timeout timeout = new Timeout(deadlineMillis, task);
+        size.incrementAndGet();
+        boolean added;
+        synchronized (this) {
+            added = root.add(timeout);
+        }
+        if (!added) {
+            fire(timeout);
+        }
+        return timeout;
+    }
+
+    /**
+     * @return tasks scheduled and neither run nor cancelled yet
+     */
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        driver.interrupt();
+    }
+
+    private void run() {
+        List<Timeout> expired = new ArrayList<>();
+        while (!closed) {
+            Bucket bucket;
+            try {
+                bucket = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            synchronized (this) {
+                while (bucket != null) {
+                    root.advance(bucket.expiration.get());
+                    // Re-adding cascades each task down a level, or reports it due
+                    for (Timeout timeout : bucket.drain()) {
+                        if (!root.add(timeout)) {
+                            expired.add(timeout);
+                        }
+                    }
+                    bucket = queue.poll();
+                }
+            }
+            expired.forEach(this::fire);
+            expired.clear();
+        }
+    }
+
+    private void fire(Timeout timeout) {
+        if (!timeout.claim()) {
+            return; // cancelled
+        }
+        size.decrementAndGet();
+        try {
+            timeout.task.run();
+        } catch (RuntimeException e) {
+            log.error("Scheduled task failed", e);
+        }
+    }
+
+    /**
+     * Handle to a scheduled task.
+     */
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int DONE = 1;
+
+        private final long deadline;
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // Guarded by the wheel's monitor
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * @return false if the task already ran or was cancelled
+         */
+        public boolean cancel() {
+            if (!claim()) {
+                return false;
+            }
+            size.decrementAndGet();
+            // Unlink so the task isn't retained until its bucket comes due; a drained bucket has let go already
+            synchronized (TimingWheel.this) {
+                if (bucket != null) {
+                    bucket.remove(this);
+                }
+            }
+            return true;
+        }
+
+        private boolean claim() {
+            return state.compareAndSet(PENDING, DONE);
+        }
+
+        private boolean isDone() {
+            return state.get() == DONE;
+        }
+    }
+
+    private final class Level {
+        private final long tick;
+        private final long span;
+        private final Bucket[] buckets;
+        private long currentTime; // a multiple of tick
+        private Level overflow;
+
+        Level(long tick, long startMillis) {
+            this.tick = tick;
+            this.span = tick * wheelSize;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket();
+            }
+            this.currentTime = startMillis - Math.floorMod(startMillis, tick);
+        }
+
+        /**
+         * @return false if the task is already due and should run now
+         */
+        boolean add(Timeout timeout) {
+            if (timeout.isDone()) {
+                return true; // cancelled; just drop it
+            }
+            if (timeout.deadline < currentTime + tick) {
+                return false;
+            }
+            if (timeout.deadline < currentTime + span) {
+                long slot = timeout.deadline / tick;
+                Bucket bucket = buckets[(int) Math.floorMod(slot, (long) wheelSize)];
+                bucket.add(timeout);
+                // A bucket is reused once per rotation; it is queued again only when it starts a new one
+                if (bucket.expiration.getAndSet(slot * tick) != slot * tick) {
+                    queue.offer(bucket);
+                }
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(span, currentTime);
+            }
+            return overflow.add(timeout);
+        }
+
+        void advance(long time) {
+            if (time >= currentTime + tick) {
+                currentTime = time - Math.floorMod(time, tick);
+                if (overflow != null) {
+                    overflow.advance(currentTime);
+                }
+            }
+        }
+    }
+
+    private final class Bucket implements Delayed {
+        private final AtomicLong expiration = new AtomicLong(-1);
+        private final Timeout head = new Timeout(0, null); // sentinel of a circular list
+
+        Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        // Callers hold the wheel's monitor
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = head.prev;
+            timeout.next = head;
+            head.prev.next = timeout;
+            head.prev = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        List<Timeout> drain() {
+            List<Timeout> drained = new ArrayList<>();
+            for (Timeout timeout = head.next; timeout != head; ) {
+                Timeout next = timeout.next;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout.bucket = null;
+                drained.add(timeout);
+                timeout = next;
+            }
+            head.prev = head;
+            head.next = head;
+            expiration.set(-1);
+            return drained;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiration.get() - clock.getAsLong(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiration.get(), ((Bucket) other).expiration.get());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.featureflagx.search;
+
+import com.featureflagx.service.FlagService;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Prepares the flag tables for search once the schema is in place.
+ *
+ * On Postgres, the primary key index on {@code flags.key} follows the database collation and
+ * can't serve {@code LIKE 'prefix%'}, so a {@code text_pattern_ops} index is added for prefix
+ * searches; JPA can't declare operator classes, hence the DDL here. Tags declared in configs
+ * written before tags were indexed are then copied into {@code flag_tags}.
+ */
+@Component
+public class FlagSearchIndexes {
+
+    private static final Logger log = LoggerFactory.getLogger(FlagSearchIndexes.class);
+
+    private static final String PREFIX_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_flags_key_pattern ON flags (key text_pattern_ops)";
+
+    private final DataSource dataSource;
+    private final FlagService flagService;
+
+    @Autowired
+    public FlagSearchIndexes(DataSource dataSource, FlagService flagService) {
+        this.dataSource = dataSource;
+        this.flagService = flagService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepare() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(PREFIX_INDEX_SQL);
+                }
+            }
+        } catch (SQLException e) {
+            // Prefix searches still work, through a scan of the flag table
+            log.warn("Failed to create the flag key prefix index", e);
+        }
+        try {
+            int tagged = flagService.backfillTags();
+            if (tagged > 0) {
+                log.info("Indexed the tags of {} existing flags", tagged);
+            }
+        } catch (RuntimeException e) {
+            // Another node starting at the same time may have inserted the same tags first
+            log.warn("Failed to backfill flag tags", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.featureflagx.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads the tags a flag declares in its config, e.g. {@code {"tags": ["checkout", "team-payments"]}}.
+ *
+ * Tags only label flags for search and never affect evaluation, so a malformed tags field is
+ * ignored rather than rejected: entries that aren't non-blank strings, or that are longer than
+ * {@link #MAX_LENGTH}, are skipped.
+ */
+public final class FlagTags {
+
+    public static final String CONFIG_FIELD = "tags";
+    public static final int MAX_LENGTH = 255; // the flag_tags.tag column
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private FlagTags() {
+    }
+
+    public static Set<String> parse(String config) {
+        if (config == null || config.isBlank()) {
+            return Collections.emptySet();
+        }
+        JsonNode root;
+        try {
+            root = OBJECT_MAPPER.readTree(config);
+        } catch (JsonProcessingException e) {
+            return Collections.emptySet();
+        }
+        JsonNode field = root != null && root.isObject() ? root.get(CONFIG_FIELD) : null;
+        if (field == null || !field.isArray()) {
+            return Collections.emptySet();
+        }
+        Set<String> tags = new LinkedHashSet<>();
+        for (JsonNode element : field) {
+            String tag = element.isTextual() ? element.asText().trim() : "";
+            if (!tag.isEmpty() && tag.length() <= MAX_LENGTH) {
+                tags.add(tag);
+            }
+        }
+        return tags;
+    }
+}
@@ -0,0 +1,142 @@
+package com.featureflagx.segment;
+
+/**
+ * One block of a STRING segment's blocked, counting Bloom filter. Each member hashes to a
+ * single block and sets all of its probe positions there, so adding or removing a member
+ * rewrites one small chunk. 4-bit counters (rather than bits) make removal possible; in
+ * memory only the derived bits are kept.
+ *
+ * Removing an ID that was never added can clear positions other members rely on, so
+ * callers should only remove IDs that {@link #mightContain(long, int)}. That check can't
+ * catch false positives, so removal stays best-effort.
+ */
+public final class BloomBlock {
+
+    public static final int COUNTERS = 4096;
+    public static final int WORDS = COUNTERS / 64;
+    private static final int MAX_COUNT = 15; // a saturated counter is never decremented again
+
+    private final byte[] counters; // two 4-bit counters per byte
+
+    private BloomBlock(byte[] counters) {
+        this.counters = counters;
+    }
+
+    public static BloomBlock empty() {
+        return new BloomBlock(new byte[COUNTERS / 2]);
+    }
+
+    public static BloomBlock decode(byte[] data) {
+        return new BloomBlock(data.clone());
+    }
+
+    public byte[] encode() {
+        return counters.clone();
+    }
+
+    /**
+     * Number of blocks and probes per member for the expected size and false-positive rate.
+     */
+    public static int[] shape(long expectedMembers, double falsePositiveRate) {
+        double bitsPerMember = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long blocks = (long) Math.ceil(Math.max(expectedMembers, 1) * bitsPerMember / COUNTERS);
+        int hashes = (int) Math.max(1, Math.round(bitsPerMember * Math.log(2)));
+        if (blocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment too large: " + expectedMembers + " members");
+        }
+        return new int[]{(int) blocks, hashes};
+    }
+
+    public static long hash(String member) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < member.length(); i++) {
+            h = (h ^ member.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    public static int blockOf(long hash, int blocks) {
+        return (int) Long.remainderUnsigned(hash, blocks);
+    }
+
+    public void add(long hash, int hashes) {
+        long probes = mix(hash);
+        for (int i = 0; i < hashes; i++) {
+            int position = position(probes, i);
+            int count = counter(position);
+            if (count < MAX_COUNT) {
+                setCounter(position, count + 1);
+            }
+        }
+    }
+
+    public void remove(long hash, int hashes) {
+        long probes = mix(hash);
+        for (int i = 0; i < hashes; i++) {
+            int position = position(probes, i);
+            int count = counter(position);
+            if (count > 0 && count < MAX_COUNT) {
+                setCounter(position, count - 1);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #mightContain(long[], long, int)}, on the counters.
+     */
+    public boolean mightContain(long hash, int hashes) {
+        long probes = mix(hash);
+        for (int i = 0; i < hashes; i++) {
+            if (counter(position(probes, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long[] toBits() {
+        long[] bits = new long[WORDS];
+        for (int position = 0; position < COUNTERS; position++) {
+            if (counter(position) > 0) {
+                bits[position >>> 6] |= 1L << position;
+            }
+        }
+        return bits;
+    }
+
+    public static boolean mightContain(long[] bits, long hash, int hashes) {
+        long probes = mix(hash);
+        for (int i = 0; i < hashes; i++) {
+            int position = position(probes, i);
+            if ((bits[position >>> 6] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double hashing (Kirsch-Mitzenmacher) over bits independent of those that chose the block
+    private static int position(long probes, int i) {
+        int h1 = (int) probes;
+        int h2 = (int) (probes >>> 32) | 1;
+        return (h1 + i * h2) & (COUNTERS - 1);
+    }
+
+    private int counter(int position) {
+        int b = counters[position >>> 1];
+        return (position & 1) == 0 ? b & 0xF : (b >>> 4) & 0xF;
+    }
+
+    private void setCounter(int position, int count) {
+        int index = position >>> 1;
+        int b = counters[index];
+        counters[index] = (byte) ((position & 1) == 0 ? (b & 0xF0) | count : (b & 0x0F) | (count << 4));
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
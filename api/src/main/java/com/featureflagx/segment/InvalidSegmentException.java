@@ -0,0 +1,11 @@
+package com.featureflagx.segment;
+
+/**
+ * A segment definition, member ID or segment reference in a flag config is invalid.
+ */
+public class InvalidSegmentException extends IllegalArgumentException {
+
+    public InvalidSegmentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,143 @@
+package com.featureflagx.segment;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The members of a NUMERIC segment that share their upper 16 bits, in the container layout
+ * used by Roaring bitmaps: a sorted array of the lower 16 bits while sparse, and a
+ * 65536-bit bitmap once it holds more than {@value #ARRAY_MAX} values (where the bitmap
+ * becomes the smaller of the two). Not thread-safe; published chunks are never mutated.
+ */
+public final class NumericChunk {
+
+    static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+    private static final byte ARRAY = 0;
+    private static final byte BITMAP = 1;
+
+    private char[] values = new char[8]; // array form: sorted, first `cardinality` entries used
+    private long[] words; // bitmap form; null while in array form
+    private int cardinality;
+
+    public static int chunkIndex(long id) {
+        return (int) (id >>> 16);
+    }
+
+    public static int low(long id) {
+        return (int) (id & 0xFFFF);
+    }
+
+    public static NumericChunk decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        NumericChunk chunk = new NumericChunk();
+        if (buffer.get() == BITMAP) {
+            chunk.words = new long[BITMAP_WORDS];
+            buffer.asLongBuffer().get(chunk.words);
+            for (long word : chunk.words) {
+                chunk.cardinality += Long.bitCount(word);
+            }
+        } else {
+            chunk.cardinality = (data.length - 1) / 2;
+            chunk.values = new char[Math.max(chunk.cardinality, 8)];
+            buffer.asCharBuffer().get(chunk.values, 0, chunk.cardinality);
+        }
+        return chunk;
+    }
+
+    public byte[] encode() {
+        if (words != null) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 + BITMAP_WORDS * Long.BYTES).put(BITMAP);
+            buffer.asLongBuffer().put(words);
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + cardinality * Character.BYTES).put(ARRAY);
+        buffer.asCharBuffer().put(values, 0, cardinality);
+        return buffer.array();
+    }
+
+    public boolean contains(int low) {
+        if (words != null) {
+            return (words[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch(values, 0, cardinality, (char) low) >= 0;
+    }
+
+    /**
+     * @return true if the value was not already present
+     */
+    public boolean add(int low) {
+        if (words != null) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | (1L << low);
+            boolean added = before != words[low >>> 6];
+            if (added) {
+                cardinality++;
+            }
+            return added;
+        }
+        int index = Arrays.binarySearch(values, 0, cardinality, (char) low);
+        if (index >= 0) {
+            return false;
+        }
+        if (cardinality == ARRAY_MAX) {
+            toBitmap();
+            return add(low);
+        }
+        int insertAt = -index - 1;
+        if (cardinality == values.length) {
+            values = Arrays.copyOf(values, Math.min(values.length * 2, ARRAY_MAX));
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, cardinality - insertAt);
+        values[insertAt] = (char) low;
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * @return true if the value was present
+     */
+    public boolean remove(int low) {
+        if (words != null) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before & ~(1L << low);
+            boolean removed = before != words[low >>> 6];
+            if (removed && --cardinality <= ARRAY_MAX) {
+                toArray();
+            }
+            return removed;
+        }
+        int index = Arrays.binarySearch(values, 0, cardinality, (char) low);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+        cardinality--;
+        return true;
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    private void toBitmap() {
+        words = new long[BITMAP_WORDS];
+        for (int i = 0; i < cardinality; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        values = null;
+    }
+
+    private void toArray() {
+        values = new char[ARRAY_MAX];
+        int count = 0;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+            long bits = words[word];
+            while (bits != 0) {
+                values[count++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        words = null;
+    }
+}
@@ -0,0 +1,105 @@
+package com.featureflagx.segment;
+
+import com.featureflagx.model.Segment;
+import com.featureflagx.model.SegmentChunk;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * In-memory, read-optimized form of a segment's members. Chunks can be swapped individually
+ * when another node changes a few members, without reloading the rest of the segment.
+ */
+public abstract class SegmentMembership {
+
+    static final SegmentMembership NONE = new Numeric();
+
+    public static SegmentMembership load(Segment segment, List<SegmentChunk> chunks) {
+        SegmentMembership membership = segment.getType() == Segment.Type.NUMERIC
+                ? new Numeric()
+                : new Bloom(segment.getBloomBlocks(), segment.getBloomHashes());
+        for (SegmentChunk chunk : chunks) {
+            membership.replaceChunk(chunk.getChunkIndex(), chunk.getData());
+        }
+        return membership;
+    }
+
+    public abstract boolean contains(String member);
+
+    /**
+     * @param data the chunk's stored form, or null if the chunk no longer exists
+     */
+    public abstract void replaceChunk(int chunkIndex, byte[] data);
+
+    /**
+     * Parses a NUMERIC segment ID without throwing, since evaluation sees arbitrary target IDs.
+     *
+     * @return the ID, or -1 if it isn't a decimal number in [0, 2^32)
+     */
+    public static long parseNumericId(String member) {
+        int length = member.length();
+        if (length == 0 || length > 10) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = 0; i < length; i++) {
+            char c = member.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id <= 0xFFFFFFFFL ? id : -1;
+    }
+
+    private static final class Numeric extends SegmentMembership {
+
+        private final Map<Integer, NumericChunk> chunks = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean contains(String member) {
+            long id = parseNumericId(member);
+            if (id < 0) {
+                return false;
+            }
+            NumericChunk chunk = chunks.get(NumericChunk.chunkIndex(id));
+            return chunk != null && chunk.contains(NumericChunk.low(id));
+        }
+
+        @Override
+        public void replaceChunk(int chunkIndex, byte[] data) {
+            if (data == null) {
+                chunks.remove(chunkIndex);
+            } else {
+                chunks.put(chunkIndex, NumericChunk.decode(data));
+            }
+        }
+    }
+
+    private static final class Bloom extends SegmentMembership {
+
+        private final AtomicReferenceArray<long[]> blocks;
+        private final int hashes;
+
+        Bloom(int blockCount, int hashes) {
+            this.blocks = new AtomicReferenceArray<>(blockCount);
+            this.hashes = hashes;
+        }
+
+        @Override
+        public boolean contains(String member) {
+            long hash = BloomBlock.hash(member);
+            long[] bits = blocks.get(BloomBlock.blockOf(hash, blocks.length()));
+            return bits != null && BloomBlock.mightContain(bits, hash, hashes);
+        }
+
+        @Override
+        public void replaceChunk(int chunkIndex, byte[] data) {
+            if (chunkIndex < blocks.length()) {
+                blocks.set(chunkIndex, data != null ? BloomBlock.decode(data).toBits() : null);
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.featureflagx.segment;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.featureflagx.cache.OffHeapResultCache;
+import com.featureflagx.cache.SingleFlight;
+import com.featureflagx.event.SegmentChangedEvent;
+import com.featureflagx.model.Segment;
+import com.featureflagx.model.SegmentChunk;
+import com.featureflagx.repository.SegmentChunkRepository;
+import com.featureflagx.repository.SegmentRepository;
+import com.featureflagx.ruleset.FlagRuleset;
+import com.featureflagx.ruleset.RulesetRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers "is this target in the segments this flag references?" during evaluation.
+ *
+ * A flag opts into segment targeting with {@code {"segments": ["beta-users", ...]}} in its
+ * config; it is then on only for targets in at least one of them. Flag references come from the
+ * compiled {@link FlagRuleset}; segment members are loaded lazily on first use and shared by
+ * every flag. Member changes from any node replace just the chunks they touched. A periodic
+ * version check reloads segments whose change notification was lost.
+ */
+@Component
+public class SegmentRegistry {
+
+    public static final String CONFIG_FIELD = "segments";
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentRegistry.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final SegmentRepository segmentRepository;
+    private final SegmentChunkRepository chunkRepository;
+    private final OffHeapResultCache resultCache;
+    private final RulesetRegistry rulesetRegistry;
+    private final long refreshIntervalMillis;
+
+    private final Map<String, LoadedSegment> segments = new ConcurrentHashMap<>();
+    private final SingleFlight<String, LoadedSegment> segmentLoads = new SingleFlight<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segment-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SegmentRegistry(SegmentRepository segmentRepository, SegmentChunkRepository chunkRepository,
+                           OffHeapResultCache resultCache, RulesetRegistry rulesetRegistry,
+                           @Value("${featureflagx.segments.refresh-interval:60s}") Duration refreshInterval) {
+        this.segmentRepository = segmentRepository;
+        this.chunkRepository = chunkRepository;
+        this.resultCache = resultCache;
+        this.rulesetRegistry = rulesetRegistry;
+        this.refreshIntervalMillis = refreshInterval.toMillis();
+    }
+
+    /**
+     * @return true if the flag doesn't use segment targeting or the target is in one of its segments
+     */
+    public boolean matches(String flagKey, String targetId) {
+        List<String> referenced = rulesetRegistry.current().segmentsOf(flagKey);
+        return referenced.isEmpty() || (targetId != null && inAny(referenced, targetId));
+    }
+
+    /**
+     * @return true if the target is in at least one of the segments; segments that don't exist have no members
+     */
+    public boolean inAny(List<String> segmentKeys, String targetId) {
+        for (String segmentKey : segmentKeys) {
+            if (membership(segmentKey).contains(targetId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the member is in the segment, or empty if the segment doesn't exist
+     */
+    public Optional<Boolean> contains(String segmentKey, String member) {
+        LoadedSegment segment = load(segmentKey);
+        return segment.exists ? Optional.of(segment.membership.contains(member)) : Optional.empty();
+    }
+
+    /**
+     * Reads the segment keys from a flag config.
+     *
+     * @throws InvalidSegmentException if {@value #CONFIG_FIELD} is present but not an array of segment keys
+     */
+    public static List<String> parse(String config) {
+        if (config == null || config.isBlank()) {
+            return List.of();
+        }
+        JsonNode root;
+        try {
+            root = OBJECT_MAPPER.readTree(config);
+        } catch (JsonProcessingException e) {
+            return List.of(); // configs are free-form; only a well-formed segments field is interpreted
+        }
+        JsonNode field = root != null && root.isObject() ? root.get(CONFIG_FIELD) : null;
+        if (field == null || field.isNull()) {
+            return List.of();
+        }
+        if (!field.isArray()) {
+            throw new InvalidSegmentException("\"" + CONFIG_FIELD + "\" must be an array of segment keys");
+        }
+        List<String> keys = new ArrayList<>(field.size());
+        for (JsonNode element : field) {
+            if (!element.isTextual() || element.asText().isBlank()) {
+                throw new InvalidSegmentException("\"" + CONFIG_FIELD + "\" must only contain segment keys, found " + element);
+            }
+            keys.add(element.asText());
+        }
+        return List.copyOf(keys);
+    }
+
+    /**
+     * @throws InvalidSegmentException if the config's segment references are malformed or name unknown segments
+     */
+    public void validateReferences(String config) {
+        for (String segmentKey : parse(config)) {
+            if (!segmentRepository.existsById(segmentKey)) {
+                throw new InvalidSegmentException("Unknown segment '" + segmentKey + "'");
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    @EventListener
+    public void onSegmentChanged(SegmentChangedEvent event) {
+        String key = event.getKey();
+        LoadedSegment loaded = segments.get(key);
+        if (event.getType() == SegmentChangedEvent.Type.MEMBERS_CHANGED && loaded != null && loaded.exists) {
+            // Reload just the rewritten chunks; chunks that no longer exist are dropped. The version is
+            // read first, so a change committed in between leaves it behind and the refresh reloads.
+            Optional<Segment> segment = segmentRepository.findById(key);
+            if (segment.isEmpty()) {
+                segments.remove(key);
+                invalidateResults(key);
+                return;
+            }
+            Map<Integer, byte[]> data = new HashMap<>();
+            for (SegmentChunk chunk : chunkRepository.findBySegmentKeyAndChunkIndexIn(key, event.getChunkIndexes())) {
+                data.put(chunk.getChunkIndex(), chunk.getData());
+            }
+            for (Integer chunkIndex : event.getChunkIndexes()) {
+                loaded.membership.replaceChunk(chunkIndex, data.get(chunkIndex));
+            }
+            loaded.version = segment.get().getVersion();
+        } else {
+            segments.remove(key);
+        }
+        invalidateResults(key);
+    }
+
+    void refresh() {
+        try {
+            Map<String, Long> versions = new HashMap<>();
+            segmentRepository.findVersions().forEach(v -> versions.put(v.getKey(), v.getVersion()));
+            for (Map.Entry<String, LoadedSegment> entry : segments.entrySet()) {
+                Long version = versions.get(entry.getKey());
+                boolean stale = entry.getValue().exists ? !Long.valueOf(entry.getValue().version).equals(version) : version != null;
+                if (stale) {
+                    log.info("Reloading segment {} after a missed change notification", entry.getKey());
+                    segments.remove(entry.getKey());
+                    invalidateResults(entry.getKey());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to check segment versions", e);
+        }
+    }
+
+    private void invalidateResults(String segmentKey) {
+        FlagRuleset ruleset = rulesetRegistry.current();
+        for (String flagKey : ruleset.flagsReferencing(segmentKey)) {
+            resultCache.invalidate(flagKey);
+            ruleset.getPrerequisites().dependentsOf(flagKey).forEach(resultCache::invalidate);
+        }
+    }
+
+    private SegmentMembership membership(String segmentKey) {
+        return load(segmentKey).membership;
+    }
+
+    private LoadedSegment load(String segmentKey) {
+        LoadedSegment loaded = segments.get(segmentKey);
+        if (loaded != null) {
+            return loaded;
+        }
+        // Concurrent first uses share one load; a large segment is read from the database once per node
+        return segmentLoads.load(segmentKey, () -> {
+            LoadedSegment read = read(segmentKey);
+            LoadedSegment existing = segments.putIfAbsent(segmentKey, read);
+            return existing != null ? existing : read;
+        });
+    }
+
+    private LoadedSegment read(String segmentKey) {
+        Optional<Segment> segment = segmentRepository.findById(segmentKey);
+        if (segment.isEmpty()) {
+            return new LoadedSegment(false, 0, SegmentMembership.NONE);
+        }
+        List<SegmentChunk> chunks = chunkRepository.findBySegmentKey(segmentKey);
+        return new LoadedSegment(true, segment.get().getVersion(), SegmentMembership.load(segment.get(), chunks));
+    }
+
+    private static final class LoadedSegment {
+        final boolean exists;
+        volatile long version;
+        final SegmentMembership membership;
+
+        LoadedSegment(boolean exists, long version, SegmentMembership membership) {
+            this.exists = exists;
+            this.version = version;
+            this.membership = membership;
+        }
+    }
+}
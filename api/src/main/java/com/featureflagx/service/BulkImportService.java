@@ -0,0 +1,386 @@
+package com.featureflagx.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.featureflagx.bulk.NdjsonReader;
+import com.featureflagx.dto.ImportEvent;
+import com.featureflagx.dto.SegmentMembersRequest;
+import com.featureflagx.model.Flag;
+import com.featureflagx.model.Segment;
+import com.featureflagx.prerequisite.PrerequisiteGraph;
+import com.featureflagx.repository.FlagCopyWriter;
+import com.featureflagx.ruleset.RulesetRegistry;
+import com.featureflagx.search.FlagTags;
+import com.featureflagx.segment.InvalidSegmentException;
+import com.featureflagx.segment.SegmentMembership;
+import com.featureflagx.segment.SegmentRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Imports flags and segment members from NDJSON, one record per line:
+ * <pre>
+ * {"type": "flag", "key": "checkout-v2", "enabled": true, "config": {"tags": ["checkout"]}}
+ * {"type": "member", "segment": "beta-users", "member": "12345"}
+ * </pre>
+ *
+ * Records are validated as they are read and written in batches: flags through
+ * {@link FlagCopyWriter}, members through {@link SegmentService#updateMembers}, which rewrites
+ * each chunk a batch touches once. Only the current batches are held in memory. A rejected
+ * line is reported and skipped; it never fails the rest of the import. The import only creates
+ * flags, and segments must already exist.
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_KEY_LENGTH = 255; // the flags.key column
+
+    private final FlagCopyWriter flagWriter;
+    private final FlagService flagService;
+    private final SegmentService segmentService;
+    private final RulesetRegistry rulesetRegistry;
+    private final int flagBatchSize;
+    private final int memberBatchSize;
+    private final int maxLineBytes;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public BulkImportService(FlagCopyWriter flagWriter, FlagService flagService, SegmentService segmentService,
+                             RulesetRegistry rulesetRegistry,
+                             @Value("${featureflagx.import.flag-batch-size:1000}") int flagBatchSize,
+                             @Value("${featureflagx.import.member-batch-size:50000}") int memberBatchSize,
+                             @Value("${featureflagx.import.max-line-bytes:1048576}") int maxLineBytes,
+                             @Value("${featureflagx.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.flagWriter = flagWriter;
+        this.flagService = flagService;
+        this.segmentService = segmentService;
+        this.rulesetRegistry = rulesetRegistry;
+        this.flagBatchSize = flagBatchSize;
+        this.memberBatchSize = memberBatchSize;
+        this.maxLineBytes = maxLineBytes;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Reads {@code in} to the end, writing records as batches fill.
+     *
+     * @param events receives an error event per rejected line (up to the reporting limit; all
+     *               are counted), a progress event after each written batch, and the summary
+     * @return the summary
+     * @throws IOException if reading the input fails; batches written before that stay written
+     */
+    public ImportEvent importNdjson(InputStream in, Consumer<ImportEvent> events) throws IOException {
+        long started = System.nanoTime();
+        Run run = new Run(events);
+        NdjsonReader reader = new NdjsonReader(in, maxLineBytes);
+        while (true) {
+            String line;
+            try {
+                line = reader.readLine();
+            } catch (NdjsonReader.LineTooLongException e) {
+                run.lines = reader.lineNumber();
+                run.reject(reader.lineNumber(), e.getMessage());
+                continue;
+            }
+            if (line == null) {
+                break;
+            }
+            run.lines = reader.lineNumber();
+            if (!line.isBlank()) {
+                run.accept(reader.lineNumber(), line);
+            }
+        }
+        run.flushFlags();
+        run.flushMembers();
+        ImportEvent summary = ImportEvent.counts(ImportEvent.SUMMARY, run.lines, run.flagsWritten, run.membersWritten, run.errors);
+        summary.setDurationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        log.info("Imported {} flags and {} segment members from {} lines, rejecting {}, in {} ms",
+                run.flagsWritten, run.membersWritten, run.lines, run.errors, summary.getDurationMs());
+        events.accept(summary);
+        return summary;
+    }
+
+    private static final class PendingFlag {
+        final long line;
+        final Flag flag;
+        final List<String> prerequisites;
+
+        PendingFlag(long line, Flag flag, List<String> prerequisites) {
+            this.line = line;
+            this.flag = flag;
+            this.prerequisites = prerequisites;
+        }
+    }
+
+    /**
+     * The state of one import: counters and the batches being filled.
+     */
+    private final class Run {
+        private final Consumer<ImportEvent> events;
+        private final Map<String, Segment.Type> segmentTypes = new HashMap<>();
+        private final Map<String, List<String>> declaredPrerequisites; // stored plus imported, to catch cycles
+
+        private final Map<String, PendingFlag> pendingFlags = new LinkedHashMap<>();
+        private final Map<String, List<String>> pendingMembers = new LinkedHashMap<>();
+        private final Map<String, List<Long>> pendingMemberLines = new HashMap<>();
+        private int pendingMemberCount;
+
+        long lines;
+        long flagsWritten;
+        long membersWritten;
+        long errors;
+
+        Run(Consumer<ImportEvent> events) {
+            this.events = events;
+            segmentService.getAllSegments().forEach(segment -> segmentTypes.put(segment.getKey(), segment.getType()));
+            this.declaredPrerequisites = new HashMap<>(rulesetRegistry.declaredPrerequisites());
+        }
+
+        void accept(long line, String text) {
+            JsonNode record;
+            try {
+                record = OBJECT_MAPPER.readTree(text);
+            } catch (JsonProcessingException e) {
+                reject(line, "Malformed JSON: " + e.getOriginalMessage());
+                return;
+            }
+            if (record == null || !record.isObject()) {
+                reject(line, "Expected a JSON object");
+                return;
+            }
+            String type = record.path("type").asText("");
+            switch (type) {
+                case "flag":
+                    acceptFlag(line, record);
+                    break;
+                case "member":
+                    acceptMember(line, record);
+                    break;
+                default:
+                    reject(line, "Unknown record type '" + type + "'; expected flag or member");
+            }
+        }
+
+        private void acceptFlag(long line, JsonNode record) {
+            String key = record.path("key").asText("");
+            if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+                reject(line, "Flag key must be 1 to " + MAX_KEY_LENGTH + " characters");
+                return;
+            }
+            if (FlagService.isReservedKey(key)) {
+                reject(line, "Flag key '" + key + "' is reserved");
+                return;
+            }
+            if (pendingFlags.containsKey(key)) {
+                reject(line, "Flag '" + key + "' appears twice in the import");
+                return;
+            }
+            JsonNode enabled = record.path("enabled");
+            if (!enabled.isMissingNode() && !enabled.isBoolean()) {
+                reject(line, "\"enabled\" must be true or false");
+                return;
+            }
+            String config;
+            List<String> prerequisites;
+            try {
+                config = config(record.path("config"));
+                prerequisites = PrerequisiteGraph.parse(config);
+                for (String segment : SegmentRegistry.parse(config)) {
+                    if (!segmentTypes.containsKey(segment)) {
+                        throw new InvalidSegmentException("Unknown segment '" + segment + "'");
+                    }
+                }
+            } catch (IllegalArgumentException e) { // including InvalidPrerequisitesException and InvalidSegmentException
+                reject(line, e.getMessage());
+                return;
+            }
+            if (prerequisites.contains(key)) {
+                reject(line, "Flag '" + key + "' can't be its own prerequisite");
+                return;
+            }
+            Flag flag = new Flag();
+            flag.setKey(key);
+            flag.setEnabled(enabled.asBoolean(false));
+            flag.setConfig(config);
+            flag.getTags().addAll(FlagTags.parse(config));
+            flag.setUpdatedAt(Instant.now());
+            pendingFlags.put(key, new PendingFlag(line, flag, prerequisites));
+            if (pendingFlags.size() >= flagBatchSize) {
+                flushFlags();
+            }
+        }
+
+        private void acceptMember(long line, JsonNode record) {
+            String segment = record.path("segment").asText("");
+            String member = record.path("member").isValueNode() ? record.path("member").asText() : "";
+            Segment.Type type = segmentTypes.get(segment);
+            if (type == null) {
+                reject(line, "Unknown segment '" + segment + "'");
+                return;
+            }
+            if (member.isEmpty()) {
+                reject(line, "\"member\" is required");
+                return;
+            }
+            if (type == Segment.Type.NUMERIC && SegmentMembership.parseNumericId(member) < 0) {
+                reject(line, "Segment '" + segment + "' only holds IDs in [0, 2^32), got " + member);
+                return;
+            }
+            pendingMembers.computeIfAbsent(segment, k -> new ArrayList<>()).add(member);
+            pendingMemberLines.computeIfAbsent(segment, k -> new ArrayList<>()).add(line);
+            if (++pendingMemberCount >= memberBatchSize) {
+                flushMembers();
+            }
+        }
+
+        void flushFlags() {
+            if (pendingFlags.isEmpty()) {
+                return;
+            }
+            List<PendingFlag> accepted = new ArrayList<>(pendingFlags.size());
+            // Lines not yet rejected or written; the whole batch until the existing keys are known
+            Collection<PendingFlag> unwritten = pendingFlags.values();
+            try {
+                Set<String> existing = flagWriter.findExisting(pendingFlags.keySet());
+                for (PendingFlag pending : pendingFlags.values()) {
+                    if (existing.contains(pending.flag.getKey())) {
+                        reject(pending.line, "Flag '" + pending.flag.getKey() + "' already exists");
+                    } else {
+                        accepted.add(pending);
+                    }
+                }
+                unwritten = accepted;
+                rejectCycles(accepted);
+                List<Flag> flags = new ArrayList<>(accepted.size());
+                accepted.forEach(pending -> flags.add(pending.flag));
+                flagWriter.insert(flags);
+                flagsWritten += flags.size();
+                try {
+                    flagService.flagsImported(flags);
+                } catch (RuntimeException e) {
+                    // Written all the same; cached "off" answers for these keys expire with their TTL
+                    log.warn("Failed to invalidate caches for {} imported flags", flags.size(), e);
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Failed to write a batch of {} imported flags", unwritten.size(), e);
+                for (PendingFlag pending : unwritten) {
+                    declaredPrerequisites.remove(pending.flag.getKey());
+                    reject(pending.line, "Failed to write the batch: " + e.getMessage());
+                }
+            }
+            pendingFlags.clear();
+            progress();
+        }
+
+        /**
+         * Adds the batch's prerequisites to the graph, rejecting flags until no cycle remains.
+         */
+        private void rejectCycles(List<PendingFlag> batch) {
+            boolean declaresAny = false;
+            for (PendingFlag pending : batch) {
+                if (!pending.prerequisites.isEmpty()) {
+                    declaredPrerequisites.put(pending.flag.getKey(), pending.prerequisites);
+                    declaresAny = true;
+                }
+            }
+            while (declaresAny) {
+                List<String> cycle = PrerequisiteGraph.compile(declaredPrerequisites).getCycle();
+                Set<String> onCycle = new LinkedHashSet<>(cycle);
+                PendingFlag closing = null;
+                for (PendingFlag pending : batch) {
+                    if (onCycle.contains(pending.flag.getKey())) {
+                        closing = pending; // the last one read closed the cycle
+                    }
+                }
+                if (closing == null) {
+                    return; // no cycle, or one among stored flags that the import didn't cause
+                }
+                batch.remove(closing);
+                declaredPrerequisites.remove(closing.flag.getKey());
+                reject(closing.line, "Prerequisites of '" + closing.flag.getKey() + "' would form a cycle: "
+                        + String.join(" -> ", cycle));
+            }
+        }
+
+        void flushMembers() {
+            if (pendingMemberCount == 0) {
+                return;
+            }
+            pendingMembers.forEach((segment, members) -> {
+                SegmentMembersRequest request = new SegmentMembersRequest();
+                request.setAdd(members);
+                String failure;
+                try {
+                    failure = segmentService.updateMembers(segment, request).isPresent()
+                            ? null : "Segment '" + segment + "' was deleted during the import";
+                } catch (RuntimeException e) {
+                    log.warn("Failed to write a batch of {} members of segment {}", members.size(), segment, e);
+                    failure = "Failed to write the batch: " + e.getMessage();
+                }
+                if (failure == null) {
+                    membersWritten += members.size();
+                } else {
+                    for (Long line : pendingMemberLines.get(segment)) {
+                        reject(line, failure);
+                    }
+                }
+            });
+            pendingMembers.clear();
+            pendingMemberLines.clear();
+            pendingMemberCount = 0;
+            progress();
+        }
+
+        void reject(long line, String message) {
+            if (errors++ < maxReportedErrors) {
+                events.accept(ImportEvent.error(line, message));
+            }
+        }
+
+        private void progress() {
+            events.accept(ImportEvent.counts(ImportEvent.PROGRESS, lines, flagsWritten, membersWritten, errors));
+        }
+
+        /**
+         * @return the config as a JSON string, or null; given either as an object or as a string holding JSON
+         */
+        private String config(JsonNode node) {
+            if (node.isMissingNode() || node.isNull()) {
+                return null;
+            }
+            if (node.isObject()) {
+                return node.toString();
+            }
+            if (node.isTextual()) {
+                try {
+                    OBJECT_MAPPER.readTree(node.asText()); // stored as jsonb, so it must parse
+                    return node.asText();
+                } catch (JsonProcessingException e) {
+                    throw new IllegalArgumentException("\"config\" is not valid JSON");
+                }
+            }
+            throw new IllegalArgumentException("\"config\" must be an object or a JSON string");
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.featureflagx.service;
+
+import com.featureflagx.dto.WarmupResponse;
+import com.featureflagx.model.Flag;
+import com.featureflagx.repository.FlagRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Preloads every flag into Redis so evaluations after a Redis restart or failover
+ * don't all fall through to Postgres. Runs once in the background when the
+ * application is ready, and on demand through the admin endpoint.
+ */
+@Service
+public class CacheWarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmupService.class);
+
+    private final FlagRepository flagRepository;
+    private final FlagService flagService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${featureflagx.cache.warmup.enabled:true}")
+    private boolean warmupOnStartup = true;
+
+    @Value("${featureflagx.cache.warmup.chunk-size:500}")
+    private int chunkSize = 500;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile WarmupResponse lastResult = status("NOT_STARTED");
+
+    @Autowired
+    public CacheWarmupService(FlagRepository flagRepository, FlagService flagService,
+                              EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.flagRepository = flagRepository;
+        this.flagService = flagService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!warmupOnStartup) {
+            lastResult = status("COMPLETED");
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "cache-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Streams all flags from the database and writes them to Redis in pipelined chunks.
+     *
+     * @return the outcome, or the in-progress status if a warm-up is already running
+     */
+    public WarmupResponse warmUp() {
+        if (!running.compareAndSet(false, true)) {
+            return lastResult;
+        }
+        lastResult = status("RUNNING");
+        long start = System.nanoTime();
+        try {
+            Long loaded = transactionTemplate.execute(tx -> preloadAll());
+            long durationMillis = (System.nanoTime() - start) / 1_000_000;
+            WarmupResponse result = status("COMPLETED");
+            result.setFlagsLoaded(loaded != null ? loaded : 0);
+            result.setDurationMillis(durationMillis);
+            result.setFlagsPerSecond(durationMillis > 0 ? result.getFlagsLoaded() * 1000.0 / durationMillis : result.getFlagsLoaded());
+            result.setCompletedAt(Instant.now());
+            log.info("Cache warm-up loaded {} flags in {} ms ({} flags/s, chunk size {})",
+                    result.getFlagsLoaded(), durationMillis, String.format("%.0f", result.getFlagsPerSecond()), chunkSize);
+            lastResult = result;
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up failed after {} ms", (System.nanoTime() - start) / 1_000_000, e);
+            WarmupResponse result = status("FAILED");
+            result.setCompletedAt(Instant.now());
+            result.setError(e.getMessage());
+            lastResult = result;
+        } finally {
+            running.set(false);
+        }
+        return lastResult;
+    }
+
+    public WarmupResponse getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * True once a warm-up has finished, successfully or not. A failed warm-up doesn't
+     * keep the node out of rotation; evaluations still fall back to the database.
+     */
+    public boolean isFinished() {
+        String state = lastResult.getStatus();
+        return "COMPLETED".equals(state) || "FAILED".equals(state);
+    }
+
+    private long preloadAll() {
+        long loaded = 0;
+        List<Flag> chunk = new ArrayList<>(chunkSize);
+        try (Stream<Flag> flags = flagRepository.streamAll()) {
+            Iterator<Flag> it = flags.iterator();
+            while (it.hasNext()) {
+                chunk.add(it.next());
+                if (chunk.size() >= chunkSize) {
+                    loaded += flush(chunk);
+                }
+            }
+        }
+        return loaded + flush(chunk);
+    }
+
+    private int flush(List<Flag> chunk) {
+        int size = chunk.size();
+        flagService.preloadCache(chunk);
+        chunk.clear();
+        // Detach what we've written so the persistence context doesn't grow with the table
+        entityManager.clear();
+        return size;
+    }
+
+    private static WarmupResponse status(String status) {
+        WarmupResponse response = new WarmupResponse();
+        response.setStatus(status);
+        return response;
+    }
+}
@@ -0,0 +1,130 @@
+package com.featureflagx.service;
+
+import com.featureflagx.dto.ExposureRollupResponse;
+import com.featureflagx.exposure.ExposureAggregator;
+import com.featureflagx.exposure.HyperLogLog;
+import com.featureflagx.exposure.RollupGranularity;
+import com.featureflagx.model.ExposureRollup;
+import com.featureflagx.repository.ExposureRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores exposure rollups and answers windowed queries over them. Nodes merge their deltas
+ * into shared rows, so a query reads one row per bucket and result however many nodes
+ * contributed, and never scans raw exposures.
+ */
+@Service
+public class ExposureRollupService {
+
+    public static final int MAX_BUCKETS = 1440;
+
+    // Every node locks buckets in this order, so concurrent merges can't deadlock
+    private static final Comparator<ExposureAggregator.Rollup> LOCK_ORDER = Comparator
+            .comparing((ExposureAggregator.Rollup rollup) -> rollup.getKey().getFlagKey())
+            .thenComparing(rollup -> rollup.getKey().getGranularity())
+            .thenComparing(rollup -> rollup.getKey().getBucketStart())
+            .thenComparing(rollup -> rollup.getKey().getResult());
+
+    private static final byte[] NO_TARGETS = new HyperLogLog().encode();
+
+    private final ExposureRollupRepository repository;
+
+    @Autowired
+    public ExposureRollupService(ExposureRollupRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Adds the counts and merges the sketches of {@code rollups} into the stored rows.
+     */
+    @Transactional
+    public void merge(Collection<ExposureAggregator.Rollup> rollups) {
+        List<ExposureAggregator.Rollup> ordered = new ArrayList<>(rollups);
+        ordered.sort(LOCK_ORDER);
+        for (ExposureAggregator.Rollup rollup : ordered) {
+            ExposureAggregator.Key key = rollup.getKey();
+            // A missing row can't be locked, so create it first; of nodes racing to, one inserts and the rest skip
+            repository.insertBucketIfAbsent(key.getFlagKey(), key.getGranularity().name(), key.getBucketStart(),
+                    key.getResult(), NO_TARGETS);
+            ExposureRollup row = repository.lockBucket(key.getFlagKey(), key.getGranularity(), key.getBucketStart(), key.getResult())
+                    .orElseThrow(() -> new IllegalStateException("Exposure rollup bucket vanished after insert: "
+                            + key.getFlagKey() + " " + key.getGranularity() + " " + key.getBucketStart()));
+            HyperLogLog targets = HyperLogLog.decode(row.getTargets());
+            targets.merge(rollup.getTargets());
+            row.setExposures(row.getExposures() + rollup.getExposures());
+            row.setTargets(targets.encode());
+            repository.save(row);
+        }
+    }
+
+    /**
+     * Rollups for one flag over {@code [from, to)}, with {@code from} rounded down to a bucket boundary.
+     */
+    @Transactional(readOnly = true)
+    public ExposureRollupResponse query(String flagKey, RollupGranularity granularity, Instant from, Instant to) {
+        Instant start = granularity.bucketOf(from);
+        Map<Instant, Tally> buckets = new LinkedHashMap<>();
+        Tally total = new Tally();
+        for (ExposureRollup row : repository
+                .findByFlagKeyAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                        flagKey, granularity, start, to)) {
+            HyperLogLog targets = HyperLogLog.decode(row.getTargets());
+            buckets.computeIfAbsent(row.getBucketStart(), bucketStart -> new Tally()).add(row.isResult(), row.getExposures(), targets);
+            total.add(row.isResult(), row.getExposures(), targets);
+        }
+
+        ExposureRollupResponse response = new ExposureRollupResponse();
+        response.setFlagKey(flagKey);
+        response.setGranularity(granularity);
+        response.setFrom(start);
+        response.setTo(to);
+        response.setTotal(total.fill(new ExposureRollupResponse.Counts()));
+        List<ExposureRollupResponse.Bucket> bucketResponses = new ArrayList<>(buckets.size());
+        buckets.forEach((bucketStart, tally) -> {
+            ExposureRollupResponse.Bucket bucket = tally.fill(new ExposureRollupResponse.Bucket());
+            bucket.setStart(bucketStart);
+            bucketResponses.add(bucket);
+        });
+        response.setBuckets(bucketResponses);
+        return response;
+    }
+
+    private static final class Tally {
+        private long exposuresOn;
+        private long exposuresOff;
+        private final HyperLogLog targetsOn = new HyperLogLog();
+        private final HyperLogLog targetsOff = new HyperLogLog();
+
+        void add(boolean result, long exposures, HyperLogLog targets) {
+            if (result) {
+                exposuresOn += exposures;
+                targetsOn.merge(targets);
+            } else {
+                exposuresOff += exposures;
+                targetsOff.merge(targets);
+            }
+        }
+
+        <T extends ExposureRollupResponse.Counts> T fill(T counts) {
+            HyperLogLog all = new HyperLogLog();
+            all.merge(targetsOn);
+            all.merge(targetsOff);
+            counts.setExposuresOn(exposuresOn);
+            counts.setExposuresOff(exposuresOff);
+            counts.setUniqueTargetsOn(targetsOn.estimate());
+            counts.setUniqueTargetsOff(targetsOff.estimate());
+            counts.setUniqueTargets(all.estimate());
+            return counts;
+        }
+    }
+}
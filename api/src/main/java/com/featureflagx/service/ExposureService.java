@@ -0,0 +1,196 @@
+package com.featureflagx.service;
+
+import com.featureflagx.exposure.ExposureAggregator;
+import com.featureflagx.exposure.ExposureEvent;
+import com.featureflagx.exposure.ExposureRingBuffer;
+import com.featureflagx.repository.ExposureCopyWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records which target got which result from which flag, off the evaluation path.
+ *
+ * {@link #record} only publishes to a bounded lock-free ring buffer and never blocks:
+ * when the buffer is full the exposure is dropped and counted. A single background
+ * thread drains the buffer and writes batches through {@link ExposureCopyWriter}.
+ *
+ * The same thread folds every exposure into an {@link ExposureAggregator} and merges the
+ * accumulated rollups into storage through {@link ExposureRollupService} at a fixed interval.
+ * Unlike raw batches, rollups that fail to store are kept and retried, up to a configured
+ * number of buckets: they are small, and counts would otherwise be lost for good.
+ */
+@Service
+public class ExposureService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExposureService.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final ExposureCopyWriter writer;
+    private final ExposureRollupService rollupService;
+    private final ExposureAggregator aggregator; // confined to the consumer thread
+    private final boolean rollupsEnabled;
+    private final long rollupFlushIntervalNanos;
+    private final ExposureRingBuffer<ExposureEvent> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean enabled;
+
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter writeFailures;
+    private final Counter rollupFailures;
+    private final Counter rollupsDropped;
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    @Autowired
+    public ExposureService(ExposureCopyWriter writer, ExposureRollupService rollupService, MeterRegistry meterRegistry,
+                           @Value("${featureflagx.exposures.enabled:true}") boolean enabled,
+                           @Value("${featureflagx.exposures.buffer-capacity:65536}") int bufferCapacity,
+                           @Value("${featureflagx.exposures.batch-size:1000}") int batchSize,
+                           @Value("${featureflagx.exposures.flush-interval-ms:200}") long flushIntervalMillis,
+                           @Value("${featureflagx.exposures.rollups.enabled:true}") boolean rollupsEnabled,
+                           @Value("${featureflagx.exposures.rollups.flush-interval:10s}") Duration rollupFlushInterval,
+                           @Value("${featureflagx.exposures.rollups.max-retained:10000}") int maxRetainedRollups) {
+        this.writer = writer;
+        this.rollupService = rollupService;
+        this.aggregator = new ExposureAggregator(maxRetainedRollups);
+        this.rollupsEnabled = rollupsEnabled;
+        this.rollupFlushIntervalNanos = rollupFlushInterval.toNanos();
+        this.enabled = enabled;
+        this.buffer = new ExposureRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.published = meterRegistry.counter("featureflagx.exposures.published");
+        this.dropped = meterRegistry.counter("featureflagx.exposures.dropped");
+        this.written = meterRegistry.counter("featureflagx.exposures.written");
+        this.writeFailures = meterRegistry.counter("featureflagx.exposures.write.failures");
+        this.rollupFailures = meterRegistry.counter("featureflagx.exposures.rollup.failures");
+        this.rollupsDropped = meterRegistry.counter("featureflagx.exposures.rollup.dropped");
+        Gauge.builder("featureflagx.exposures.buffered", buffer, ExposureRingBuffer::size).register(meterRegistry);
+    }
+
+    /**
+     * Queues an exposure for writing. Returns immediately; drops the exposure if the buffer is full.
+     */
+    public void record(String flagKey, String targetId, boolean result) {
+        if (!enabled) {
+            return;
+        }
+        if (buffer.offer(new ExposureEvent(flagKey, targetId, result, Instant.now()))) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        consumer = new Thread(this::consumeLoop, "exposure-writer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    // Drains whatever is left in the buffer on shutdown
+    private void flush() {
+        List<ExposureEvent> batch = new ArrayList<>(batchSize);
+        while (buffer.drain(batch::add, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void consumeLoop() {
+        List<ExposureEvent> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        long lastRollupFlush = lastFlush;
+        while (running) {
+            buffer.drain(batch::add, batchSize - batch.size());
+            boolean due = System.nanoTime() - lastFlush >= flushIntervalNanos;
+            boolean busy = false;
+            if (batch.size() >= batchSize || (due && !batch.isEmpty())) {
+                writeBatch(batch);
+                batch.clear();
+                lastFlush = System.nanoTime();
+                busy = true;
+            }
+            if (System.nanoTime() - lastRollupFlush >= rollupFlushIntervalNanos) {
+                flushRollups(); // checked separately so a steady stream of full batches can't starve it
+                lastRollupFlush = System.nanoTime();
+                busy = true;
+            }
+            if (!busy) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        writeBatch(batch);
+        flush();
+        flushRollups();
+    }
+
+    private void writeBatch(List<ExposureEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        if (rollupsEnabled) {
+            batch.forEach(aggregator::add);
+        }
+        try {
+            writer.write(batch);
+            written.increment(batch.size());
+        } catch (Exception e) {
+            // Exposures are best-effort; a failed batch is counted and discarded rather than retried forever
+            writeFailures.increment(batch.size());
+            log.warn("Failed to write {} exposures", batch.size(), e);
+        }
+    }
+
+    private void flushRollups() {
+        if (aggregator.isEmpty()) {
+            return;
+        }
+        Collection<ExposureAggregator.Rollup> rollups = aggregator.drain();
+        try {
+            rollupService.merge(rollups);
+        } catch (Exception e) {
+            // Counts are deltas and sketches merge idempotently, so retrying the whole set later is safe
+            int droppedRollups = aggregator.restore(rollups);
+            rollupFailures.increment();
+            rollupsDropped.increment(droppedRollups);
+            log.warn("Failed to store {} exposure rollups; retrying with the next flush, dropping {} over the retained limit",
+                    rollups.size(), droppedRollups, e);
+        }
+    }
+}
@@ -1,55 +1,160 @@
 package com.featureflagx.service;
 
+import com.featureflagx.cache.CachedEvaluation;
+import com.featureflagx.cache.HotFlagCache;
+import com.featureflagx.cache.OffHeapResultCache;
+import com.featureflagx.cache.SingleFlight;
+import com.featureflagx.config.RedisConfig;
+import com.featureflagx.event.FlagChangePublisher;
+import com.featureflagx.event.FlagChangedEvent;
 import com.featureflagx.model.Flag;
+import com.featureflagx.prerequisite.PrerequisiteGraph;
 import com.featureflagx.repository.FlagRepository;
+import com.featureflagx.repository.FlagSearchRepository;
+import com.featureflagx.ruleset.RulesetRegistry;
+import com.featureflagx.search.FlagTags;
+import com.featureflagx.segment.SegmentRegistry;
+import com.featureflagx.timing.EvaluationPhase;
+import com.featureflagx.timing.PhaseTimer;
 import com.featureflagx.dto.FlagRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
 
 @Service
 public class FlagService {
 
+    private static final Logger log = LoggerFactory.getLogger(FlagService.class);
+
     private final FlagRepository flagRepository;
+    private final FlagSearchRepository flagSearchRepository;
     private final RedisTemplate<String, Object> redisTemplate; // Using Object value for flexibility, can be Boolean
+    private final RedisTemplate<String, Object> readRedisTemplate; // Evaluation reads; prefers replicas
+    private final FlagChangePublisher changePublisher;
+    private final HotFlagCache hotFlagCache;
+    private final OffHeapResultCache resultCache; // Per-(flag, target) results; a no-op unless enabled
+    private final RulesetRegistry rulesetRegistry;
+    private final SegmentRegistry segmentRegistry;
+
+    private final Duration redisCacheTtl;
 
     private static final String REDIS_KEY_PREFIX = "flag:";
-    private static final Duration REDIS_CACHE_TTL = Duration.ofMinutes(5);
+
+    // Literal paths under /flags that GET /flags/{key} can't reach past, so no flag may take these keys
+    private static final Set<String> RESERVED_KEYS = Set.of("evaluate", "evaluate-all");
+
+    // Cross-node stampede protection: only the holder of this short lock reloads a key from the DB
+    private static final String REDIS_LOCK_PREFIX = "flag-lock:";
+    private static final Duration REDIS_LOCK_TTL = Duration.ofSeconds(2);
+    private static final int LOCK_WAIT_ATTEMPTS = 5;
+    private static final long LOCK_WAIT_MILLIS = 20;
+    // XFetch beta; values above 1.0 favour earlier refreshes
+    private static final double XFETCH_BETA = 1.0;
+    // Nominal recompute cost for preloaded entries so XFetch still refreshes them ahead of expiry
+    private static final long PRELOAD_COMPUTE_MILLIS = 5;
+
+    // Deletes the lock only if we still own it, so an expired lock taken over by another node is left alone
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final SingleFlight<String, Boolean> singleFlight = new SingleFlight<>();
 
     @Autowired
-    public FlagService(FlagRepository flagRepository, RedisTemplate<String, Object> redisTemplate) {
+    public FlagService(FlagRepository flagRepository, FlagSearchRepository flagSearchRepository,
+                       RedisTemplate<String, Object> redisTemplate,
+                       @Qualifier(RedisConfig.READ_TEMPLATE) RedisTemplate<String, Object> readRedisTemplate,
+                       FlagChangePublisher changePublisher, HotFlagCache hotFlagCache,
+                       OffHeapResultCache resultCache, RulesetRegistry rulesetRegistry,
+                       SegmentRegistry segmentRegistry,
+                       @Value("${featureflagx.cache.redis-ttl:5m}") Duration redisCacheTtl) {
         this.flagRepository = flagRepository;
+        this.flagSearchRepository = flagSearchRepository;
         this.redisTemplate = redisTemplate;
+        this.readRedisTemplate = readRedisTemplate;
+        this.changePublisher = changePublisher;
+        this.hotFlagCache = hotFlagCache;
+        this.resultCache = resultCache;
+        this.rulesetRegistry = rulesetRegistry;
+        this.segmentRegistry = segmentRegistry;
+        this.redisCacheTtl = redisCacheTtl;
+    }
+
+    /**
+     * @return whether {@code key} is one of the endpoint paths under {@code /flags}, which a flag
+     *         can't be created with
+     */
+    public static boolean isReservedKey(String key) {
+        return RESERVED_KEYS.contains(key);
     }
 
+    /**
+     * @return the new flag, or empty if a flag with the key already exists; changes to an
+     *         existing flag go through {@link #updateFlag}
+     */
     @Transactional
-    public Flag createFlag(FlagRequest flagRequest) {
+    public Optional<Flag> createFlag(FlagRequest flagRequest) {
+        if (flagRepository.existsById(flagRequest.getKey())) {
+            // Saving a new Flag over the row would fail its optimistic lock check once the row has been updated
+            return Optional.empty();
+        }
+        rulesetRegistry.validate(flagRequest.getKey(), flagRequest.getConfig());
+        segmentRegistry.validateReferences(flagRequest.getConfig());
         Flag flag = new Flag();
         flag.setKey(flagRequest.getKey());
         flag.setEnabled(flagRequest.isEnabled());
         flag.setConfig(flagRequest.getConfig()); // Assuming config is a JSON string
+        flag.getTags().addAll(FlagTags.parse(flagRequest.getConfig()));
         flag.setUpdatedAt(Instant.now());
         Flag savedFlag = flagRepository.save(flag);
         clearCache(savedFlag.getKey());
-        return savedFlag;
+        changePublisher.publish(new FlagChangedEvent(savedFlag.getKey(), FlagChangedEvent.Type.CREATED, savedFlag.isEnabled()));
+        return Optional.of(savedFlag);
     }
 
     @Transactional
     public Optional<Flag> updateFlag(String key, FlagRequest flagRequest) {
         Optional<Flag> existingFlagOpt = flagRepository.findById(key);
         if (existingFlagOpt.isPresent()) {
+            rulesetRegistry.validate(key, flagRequest.getConfig());
+            segmentRegistry.validateReferences(flagRequest.getConfig());
             Flag existingFlag = existingFlagOpt.get();
             existingFlag.setEnabled(flagRequest.isEnabled());
             existingFlag.setConfig(flagRequest.getConfig());
+            Set<String> tags = FlagTags.parse(flagRequest.getConfig());
+            existingFlag.getTags().retainAll(tags); // in place, so only changed tags are written
+            existingFlag.getTags().addAll(tags);
             existingFlag.setUpdatedAt(Instant.now());
             Flag updatedFlag = flagRepository.save(existingFlag);
             clearCache(updatedFlag.getKey());
+            changePublisher.publish(new FlagChangedEvent(updatedFlag.getKey(), FlagChangedEvent.Type.UPDATED, updatedFlag.isEnabled()));
             return Optional.of(updatedFlag);
         }
         return Optional.empty();
@@ -60,41 +165,364 @@ public class FlagService {
         if (flagRepository.existsById(key)) {
             flagRepository.deleteById(key);
             clearCache(key);
+            changePublisher.publish(new FlagChangedEvent(key, FlagChangedEvent.Type.DELETED, false));
             return true;
         }
         return false;
     }
 
+    @Transactional(readOnly = true)
     public Optional<Flag> getFlag(String key) {
         return flagRepository.findById(key);
     }
 
+    @Transactional(readOnly = true)
     public List<Flag> getAllFlags() {
         return flagRepository.findAll();
     }
 
+    /**
+     * Flags matching every filter that is set, in key order, starting after {@code after}.
+     *
+     * @see FlagSearchRepository#search
+     */
+    @Transactional(readOnly = true)
+    public List<Flag> searchFlags(String prefix, String tag, Boolean enabled, String after, int limit) {
+        return flagSearchRepository.search(prefix, tag, enabled, after, limit);
+    }
+
+    /**
+     * Copies the tags declared in config into the tag index for flags that have none there,
+     * i.e. flags written before tags were indexed.
+     *
+     * @return the number of flags that got tags
+     */
+    @Transactional
+    public int backfillTags() {
+        int tagged = 0;
+        try (Stream<Flag> flags = flagRepository.streamUntagged()) {
+            for (Iterator<Flag> it = flags.iterator(); it.hasNext(); ) {
+                Flag flag = it.next();
+                Set<String> tags = FlagTags.parse(flag.getConfig());
+                if (!tags.isEmpty()) {
+                    flag.getTags().addAll(tags);
+                    tagged++;
+                }
+            }
+        }
+        return tagged;
+    }
+
+    /**
+     * Invalidates caches for flags that a bulk import inserted directly, and announces them to
+     * the other nodes. Evaluations of a key before it existed may have cached it as off.
+     */
+    public void flagsImported(List<Flag> flags) {
+        List<String> redisKeys = new ArrayList<>(flags.size());
+        List<FlagChangedEvent> events = new ArrayList<>(flags.size());
+        for (Flag flag : flags) {
+            hotFlagCache.evict(flag.getKey());
+            resultCache.invalidate(flag.getKey());
+            redisKeys.add(REDIS_KEY_PREFIX + flag.getKey());
+            events.add(new FlagChangedEvent(flag.getKey(), FlagChangedEvent.Type.CREATED, flag.isEnabled()));
+        }
+        redisTemplate.delete(redisKeys);
+        changePublisher.publishAll(events);
+    }
+
+    @Transactional(readOnly = true)
+    public FlagRepository.FlagSetVersion getFlagSetVersion() {
+        return flagRepository.findFlagSetVersion();
+    }
+
     public boolean isEnabled(String key, String targetId) {
-        // targetId is not used in this basic version but can be used for more complex evaluation logic
+        // Read before anything else, so a change while evaluating keeps this result out of the result cache
+        int generation = resultCache.generation(key);
+        Boolean targetResult = targetId != null ? resultCache.get(key, targetId) : null;
+        if (targetResult != null) {
+            return targetResult;
+        }
+        PrerequisiteGraph graph = rulesetRegistry.current().getPrerequisites();
+        if (graph.hasPrerequisites(key) || graph.isCyclic(key)) {
+            return rememberForTarget(key, targetId, generation, evaluate(graph, List.of(key), targetId).get(key));
+        }
+        CachedEvaluation pinned = hotFlagCache.get(key);
+        if (pinned != null) {
+            return rememberForTarget(key, targetId, generation, resolve(key, pinned) && segmentRegistry.matches(key, targetId));
+        }
+        int hotGeneration = hotFlagCache.generation(key); // a replica may still return an entry the last change deleted
+        CachedEvaluation cached;
+        try (PhaseTimer ignored = PhaseTimer.start(EvaluationPhase.CACHE, key)) {
+            cached = CachedEvaluation.decode(readRedisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key));
+        }
+        hotFlagCache.put(key, hotGeneration, cached);
+        return rememberForTarget(key, targetId, generation, resolve(key, cached) && segmentRegistry.matches(key, targetId));
+    }
+
+    /**
+     * @return whether {@code key} evaluates the same for every target, so clients may share one
+     *         cached result across targets
+     */
+    public boolean isTargetIndependent(String key) {
+        return rulesetRegistry.current().isTargetIndependent(key);
+    }
+
+    /**
+     * Evaluates several flags with a single Redis round trip for the cached ones that
+     * aren't pinned in memory. Misses go through the same stampede-protected load as {@link #isEnabled}.
+     * Prerequisites are fetched in the same round trip and evaluated once, however many of the keys share them.
+     */
+    public Map<String, Boolean> evaluateFlags(List<String> keys, String targetId) {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        List<String> pendingKeys = new ArrayList<>(keys.size());
+        int[] generations = new int[keys.size()]; // of the pending keys, read before evaluating them
+        for (String key : keys) {
+            int generation = resultCache.generation(key);
+            Boolean targetResult = targetId != null ? resultCache.get(key, targetId) : null;
+            results.put(key, targetResult); // null placeholders keep the requested order
+            if (targetResult == null) {
+                generations[pendingKeys.size()] = generation;
+                pendingKeys.add(key);
+            }
+        }
+        if (pendingKeys.isEmpty()) {
+            return results;
+        }
+        Map<String, Boolean> evaluated = evaluate(rulesetRegistry.current().getPrerequisites(), pendingKeys, targetId);
+        for (int i = 0; i < pendingKeys.size(); i++) {
+            String key = pendingKeys.get(i);
+            results.put(key, rememberForTarget(key, targetId, generations[i], evaluated.get(key)));
+        }
+        return results;
+    }
+
+    /**
+     * Evaluates every flag, or every flag whose key starts with {@code prefix}, for one target
+     * from the compiled ruleset, without per-flag Redis or database reads. Flag states are as of
+     * the last ruleset rebuild, which follows each change within moments.
+     */
+    public Map<String, Boolean> evaluateAll(String prefix, String targetId) {
+        return rulesetRegistry.current().evaluateAll(prefix != null ? prefix : "", targetId, segmentRegistry::inAny);
+    }
+
+    /**
+     * Evaluates the keys and all of their prerequisites in topological order: a flag is on
+     * only if its own state is on, the target is in its segments (if it has any) and every
+     * prerequisite has already evaluated to on.
+     */
+    private Map<String, Boolean> evaluate(PrerequisiteGraph graph, List<String> keys, String targetId) {
+        List<String> order = graph.evaluationOrder(keys);
+        Map<String, Boolean> results = evaluateOwnStates(order);
+        for (String key : order) {
+            boolean enabled = results.get(key) && !graph.isCyclic(key) && segmentRegistry.matches(key, targetId);
+            for (String prerequisite : graph.prerequisitesOf(key)) {
+                if (!enabled) {
+                    break;
+                }
+                enabled = results.get(prerequisite);
+            }
+            results.put(key, enabled);
+        }
+        return results;
+    }
+
+    /**
+     * Each flag's own on/off state, ignoring prerequisites: pinned entries first, the rest with one MGET.
+     */
+    private Map<String, Boolean> evaluateOwnStates(List<String> keys) {
+        Map<String, Boolean> results = new HashMap<>();
+        List<String> unpinnedKeys = new ArrayList<>(keys.size());
+        List<String> redisKeys = new ArrayList<>(keys.size());
+        int[] hotGenerations = new int[keys.size()]; // of the unpinned keys, read before the MGET
+        for (String key : keys) {
+            CachedEvaluation pinned = hotFlagCache.get(key);
+            if (pinned != null) {
+                results.put(key, resolve(key, pinned));
+            } else {
+                hotGenerations[unpinnedKeys.size()] = hotFlagCache.generation(key);
+                unpinnedKeys.add(key);
+                redisKeys.add(REDIS_KEY_PREFIX + key);
+            }
+        }
+        if (redisKeys.isEmpty()) {
+            return results;
+        }
+        List<Object> cachedValues;
+        try (PhaseTimer ignored = PhaseTimer.start(EvaluationPhase.CACHE, null)) {
+            cachedValues = readRedisTemplate.opsForValue().multiGet(redisKeys);
+        }
+        for (int i = 0; i < unpinnedKeys.size(); i++) {
+            String key = unpinnedKeys.get(i);
+            CachedEvaluation cached = CachedEvaluation.decode(cachedValues != null ? cachedValues.get(i) : null);
+            hotFlagCache.put(key, hotGenerations[i], cached);
+            results.put(key, resolve(key, cached));
+        }
+        return results;
+    }
+
+    private boolean rememberForTarget(String key, String targetId, int generation, boolean result) {
+        if (targetId != null) {
+            resultCache.put(key, targetId, generation, result);
+        }
+        return result;
+    }
+
+    private boolean resolve(String key, CachedEvaluation cached) {
+        if (cached == null) {
+            // Concurrent misses on this node share one load
+            return singleFlight.load(key, () -> loadAndCache(key, null));
+        }
+
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        if (cached.shouldRefreshEarly(System.currentTimeMillis(), XFETCH_BETA, random) && !singleFlight.isLoading(key)) {
+            return singleFlight.load(key, () -> loadAndCache(key, cached));
+        }
+        return cached.isEnabled();
+    }
+
+    /**
+     * Reloads a flag from the database under the cross-node lock. When another node
+     * holds the lock, an early refresh keeps serving {@code stale}, and a miss waits
+     * briefly for the other node to fill the cache before falling back to the DB.
+     */
+    private boolean loadAndCache(String key, CachedEvaluation stale) {
         String redisKey = REDIS_KEY_PREFIX + key;
-        Boolean cachedEnabled = (Boolean) redisTemplate.opsForValue().get(redisKey);
+        String lockKey = REDIS_LOCK_PREFIX + key;
+        String token = UUID.randomUUID().toString();
 
-        if (cachedEnabled != null) {
-            return cachedEnabled;
+        Boolean locked;
+        try (PhaseTimer ignored = PhaseTimer.start(EvaluationPhase.LOCK, key)) {
+            locked = redisTemplate.opsForValue().setIfAbsent(lockKey, token, REDIS_LOCK_TTL);
+        }
+        if (!Boolean.TRUE.equals(locked)) {
+            if (stale != null) {
+                return stale.isEnabled();
+            }
+            CachedEvaluation filled;
+            try (PhaseTimer ignored = PhaseTimer.start(EvaluationPhase.LOCK, key)) {
+                filled = awaitFill(redisKey);
+            }
+            if (filled != null) {
+                return filled.isEnabled();
+            }
+            return loadFromDatabase(key);
         }
+        try {
+            return loadFromDatabase(key);
+        } finally {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, Collections.singletonList(lockKey), token);
+        }
+    }
+
+    // Polls the primary: the lock holder's fill may not have reached the replicas yet
+    private CachedEvaluation awaitFill(String redisKey) {
+        for (int attempt = 0; attempt < LOCK_WAIT_ATTEMPTS; attempt++) {
+            try {
+                Thread.sleep(LOCK_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            CachedEvaluation filled = CachedEvaluation.decode(redisTemplate.opsForValue().get(redisKey));
+            if (filled != null) {
+                return filled;
+            }
+        }
+        return null;
+    }
 
-        Optional<Flag> flagOpt = flagRepository.findById(key);
-        if (flagOpt.isPresent()) {
-            boolean enabled = flagOpt.get().isEnabled();
-            redisTemplate.opsForValue().set(redisKey, enabled, REDIS_CACHE_TTL);
-            return enabled;
+    private boolean loadFromDatabase(String key) {
+        int hotGeneration = hotFlagCache.generation(key);
+        long start = System.currentTimeMillis();
+        Optional<Flag> flagOpt;
+        try (PhaseTimer ignored = PhaseTimer.start(EvaluationPhase.DB, key)) {
+            flagOpt = flagRepository.findById(key);
         }
         // Default behavior for non-existent flag: false
         // Cache the miss as well to prevent DB hammering for non-existent flags
-        redisTemplate.opsForValue().set(redisKey, false, REDIS_CACHE_TTL); 
-        return false;
+        boolean enabled = flagOpt.map(Flag::isEnabled).orElse(false);
+        long now = System.currentTimeMillis();
+        CachedEvaluation entry = new CachedEvaluation(enabled, now - start, now + redisCacheTtl.toMillis());
+        try (PhaseTimer ignored = PhaseTimer.start(EvaluationPhase.FILL, key)) {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, entry.encode(), redisCacheTtl);
+            hotFlagCache.put(key, hotGeneration, entry);
+        }
+        return enabled;
     }
 
+    /**
+     * Writes evaluations for the given flags into Redis in a single pipelined round trip.
+     * Used by cache warm-up; entries get the same TTL and encoding as lazily cached ones.
+     * Only missing keys are filled, so an entry cached since the flags were read, possibly for
+     * a newer version of the flag, is never overwritten with the older value.
+     * <p>
+     * That doesn't cover an update whose cache deletion ran between the read and the fill, or
+     * one the replica the flags were read from hadn't applied yet. Updates delete their entry
+     * rather than write it, so the fill would bring the old value back for the full TTL. The
+     * versions are therefore read again from the primary after the fill, and entries of flags
+     * that changed are deleted. An update that commits after that read deletes its entry itself.
+     */
+    public void preloadCache(Collection<Flag> flags) {
+        if (flags.isEmpty()) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + redisCacheTtl.toMillis();
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Flag flag : flags) {
+                    CachedEvaluation entry = new CachedEvaluation(flag.isEnabled(), PRELOAD_COMPUTE_MILLIS, expiresAt);
+                    ops.opsForValue().setIfAbsent(REDIS_KEY_PREFIX + flag.getKey(), entry.encode(), redisCacheTtl);
+                }
+                return null;
+            }
+        });
+
+        List<String> keys = new ArrayList<>(flags.size());
+        flags.forEach(flag -> keys.add(flag.getKey()));
+        Map<String, Long> committed = new HashMap<>();
+        for (FlagRepository.FlagVersion version : flagRepository.findVersionsByKeyIn(keys)) {
+            committed.put(version.getFlagKey(), version.getVersion());
+        }
+        List<String> changed = new ArrayList<>();
+        for (Flag flag : flags) {
+            Long version = committed.get(flag.getKey());
+            if (version == null || version != flag.getVersion()) {
+                changed.add(REDIS_KEY_PREFIX + flag.getKey()); // updated or deleted since it was read
+            }
+        }
+        if (!changed.isEmpty()) {
+            redisTemplate.delete(changed);
+        }
+    }
+
+    /**
+     * Evicts the flag now and again after commit: a miss between the two, on any node, reads the
+     * old row from the database and would otherwise cache it until the entry expires. The second
+     * eviction is registered before the change is published, so it runs first.
+     */
     private void clearCache(String key) {
+        evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    try {
+                        evict(key);
+                    } catch (RuntimeException e) {
+                        // The change is committed; the old value lasts at most until its Redis TTL
+                        log.warn("Failed to clear caches for flag {} after commit", key, e);
+                    }
+                }
+            });
+        }
+    }
+
+    private void evict(String key) {
+        hotFlagCache.evict(key);
+        resultCache.invalidate(key);
         redisTemplate.delete(REDIS_KEY_PREFIX + key);
     }
 }
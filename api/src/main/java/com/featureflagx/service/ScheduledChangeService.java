@@ -0,0 +1,214 @@
+package com.featureflagx.service;
+
+import com.featureflagx.dto.FlagRequest;
+import com.featureflagx.dto.ScheduledChangeRequest;
+import com.featureflagx.model.Flag;
+import com.featureflagx.model.ScheduledChange;
+import com.featureflagx.repository.ScheduledChangeRepository;
+import com.featureflagx.schedule.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies scheduled flag changes through {@link FlagService#updateFlag} at their due time.
+ *
+ * Pending changes live in the {@code scheduled_changes} table. Each node keeps the ones due within
+ * the next two sweep intervals in a {@link TimingWheel}, which fires them to the millisecond; a
+ * sweep every interval picks up changes created on other nodes, overdue ones after a restart and
+ * ones whose node went down. Every node holding a change fires it, and the conditional status
+ * update lets exactly one of them apply it.
+ */
+@Service
+public class ScheduledChangeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledChangeService.class);
+    private static final int MAX_CONFLICT_RETRIES = 3;
+
+    private final ScheduledChangeRepository scheduledChangeRepository;
+    private final FlagService flagService;
+    private final TransactionTemplate transactionTemplate;
+    private final long sweepIntervalMillis;
+
+    private final Map<Long, TimingWheel.Timeout> scheduled = new ConcurrentHashMap<>();
+    private final TimingWheel wheel = new TimingWheel("flag-schedule-wheel", 1, 512);
+    // Updates hit the database, so they run off the wheel's thread
+    private final ExecutorService applier = Executors.newSingleThreadExecutor(daemon("flag-schedule-apply"));
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(daemon("flag-schedule-sweep"));
+
+    @Autowired
+    public ScheduledChangeService(ScheduledChangeRepository scheduledChangeRepository, FlagService flagService,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${featureflagx.schedules.sweep-interval:30s}") Duration sweepInterval) {
+        this.scheduledChangeRepository = scheduledChangeRepository;
+        this.flagService = flagService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sweepIntervalMillis = sweepInterval.toMillis();
+    }
+
+    /**
+     * @return the pending change, or empty if the flag doesn't exist
+     */
+    @Transactional
+    public Optional<ScheduledChange> schedule(String flagKey, ScheduledChangeRequest request) {
+        if (flagService.getFlag(flagKey).isEmpty()) {
+            return Optional.empty();
+        }
+        ScheduledChange change = new ScheduledChange();
+        change.setFlagKey(flagKey);
+        change.setFireAt(request.getFireAt());
+        change.setEnabled(request.getEnabled());
+        change.setConfig(request.getConfig());
+        change.setStatus(ScheduledChange.Status.PENDING);
+        change.setCreatedAt(Instant.now());
+        ScheduledChange saved = scheduledChangeRepository.save(change);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    trackIfDueSoon(saved);
+                }
+            });
+        } else {
+            trackIfDueSoon(saved);
+        }
+        return Optional.of(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScheduledChange> getSchedules(String flagKey) {
+        return scheduledChangeRepository.findByFlagKeyOrderByFireAt(flagKey);
+    }
+
+    /**
+     * @return false if there is no such pending change for the flag
+     */
+    @Transactional
+    public boolean cancel(String flagKey, long id) {
+        Optional<ScheduledChange> change = scheduledChangeRepository.findById(id);
+        if (change.isEmpty() || !change.get().getFlagKey().equals(flagKey)
+                || scheduledChangeRepository.transition(id, ScheduledChange.Status.PENDING,
+                ScheduledChange.Status.CANCELLED, Instant.now()) == 0) {
+            return false;
+        }
+        // Other nodes may still fire it; they'll find it no longer pending
+        TimingWheel.Timeout timeout = scheduled.remove(id);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        sweeper.scheduleWithFixedDelay(this::sweep, 0, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        sweeper.shutdownNow();
+        wheel.close();
+        applier.shutdownNow();
+    }
+
+    void sweep() {
+        try {
+            Instant horizon = Instant.now().plusMillis(2 * sweepIntervalMillis);
+            scheduledChangeRepository.findByStatusAndFireAtBefore(ScheduledChange.Status.PENDING, horizon)
+                    .forEach(this::track);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load due scheduled changes", e);
+        }
+    }
+
+    void apply(long id) {
+        apply(id, 0);
+    }
+
+    private void apply(long id, int conflicts) {
+        scheduled.remove(id);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Optional<ScheduledChange> change = scheduledChangeRepository.findById(id);
+                if (change.isEmpty() || scheduledChangeRepository.transition(id, ScheduledChange.Status.PENDING,
+                        ScheduledChange.Status.APPLIED, Instant.now()) == 0) {
+                    return; // cancelled, or applied by another node
+                }
+                String flagKey = change.get().getFlagKey();
+                Optional<Flag> flag = flagService.getFlag(flagKey);
+                if (flag.isEmpty()) {
+                    log.warn("Scheduled change {} targets deleted flag {}", id, flagKey);
+                    scheduledChangeRepository.transition(id, ScheduledChange.Status.APPLIED, ScheduledChange.Status.FAILED, Instant.now());
+                    return;
+                }
+                FlagRequest request = new FlagRequest();
+                request.setKey(flagKey);
+                request.setEnabled(change.get().getEnabled() != null ? change.get().getEnabled() : flag.get().isEnabled());
+                request.setConfig(change.get().getConfig() != null ? change.get().getConfig() : flag.get().getConfig());
+                flagService.updateFlag(flagKey, request);
+                log.info("Applied scheduled change {} to flag {}", id, flagKey);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            // The flag was updated concurrently; the claim was rolled back too, so the change is still pending
+            if (conflicts < MAX_CONFLICT_RETRIES) {
+                log.info("Scheduled change {} raced another update of its flag; retrying", id);
+                applier.execute(() -> apply(id, conflicts + 1));
+            } else {
+                log.warn("Scheduled change {} kept racing other updates of its flag; the next sweep retries it", id);
+            }
+        } catch (RuntimeException e) {
+            // e.g. the config now references a deleted segment; the claim was rolled back with the update
+            log.warn("Scheduled change {} failed", id, e);
+            try {
+                transactionTemplate.executeWithoutResult(status -> scheduledChangeRepository.transition(
+                        id, ScheduledChange.Status.PENDING, ScheduledChange.Status.FAILED, Instant.now()));
+            } catch (RuntimeException markFailed) {
+                log.warn("Failed to mark scheduled change {} as failed; the next sweep retries it", id, markFailed);
+            }
+        }
+    }
+
+    private void trackIfDueSoon(ScheduledChange change) {
+        // Later changes are picked up by the sweep, so each node only holds what is due soon
+        if (change.getFireAt().toEpochMilli() < System.currentTimeMillis() + 2 * sweepIntervalMillis) {
+            track(change);
+        }
+    }
+
+    private void track(ScheduledChange change) {
+        long id = change.getId();
+        scheduled.computeIfAbsent(id, key -> wheel.schedule(change.getFireAt().toEpochMilli(),
+                () -> applier.execute(() -> apply(id))));
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,210 @@
+package com.featureflagx.service;
+
+import com.featureflagx.dto.SegmentMembersRequest;
+import com.featureflagx.dto.SegmentRequest;
+import com.featureflagx.event.FlagChangePublisher;
+import com.featureflagx.event.SegmentChangedEvent;
+import com.featureflagx.model.Segment;
+import com.featureflagx.model.SegmentChunk;
+import com.featureflagx.repository.SegmentChunkRepository;
+import com.featureflagx.repository.SegmentRepository;
+import com.featureflagx.segment.BloomBlock;
+import com.featureflagx.segment.InvalidSegmentException;
+import com.featureflagx.segment.NumericChunk;
+import com.featureflagx.segment.SegmentMembership;
+import com.featureflagx.segment.SegmentRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Service
+public class SegmentService {
+
+    private final SegmentRepository segmentRepository;
+    private final SegmentChunkRepository chunkRepository;
+    private final SegmentRegistry segmentRegistry;
+    private final FlagChangePublisher changePublisher;
+
+    @Autowired
+    public SegmentService(SegmentRepository segmentRepository, SegmentChunkRepository chunkRepository,
+                          SegmentRegistry segmentRegistry, FlagChangePublisher changePublisher) {
+        this.segmentRepository = segmentRepository;
+        this.chunkRepository = chunkRepository;
+        this.segmentRegistry = segmentRegistry;
+        this.changePublisher = changePublisher;
+    }
+
+    /**
+     * @return the new segment, or empty if one with this key already exists
+     */
+    @Transactional
+    public Optional<Segment> createSegment(SegmentRequest request) {
+        if (request.getType() == null) {
+            throw new InvalidSegmentException("Segment type is required");
+        }
+        if (segmentRepository.existsById(request.getKey())) {
+            // Recreating in place would leave chunks encoded for the old type or Bloom filter shape
+            return Optional.empty();
+        }
+        Segment segment = new Segment();
+        segment.setKey(request.getKey());
+        segment.setType(request.getType());
+        if (request.getType() == Segment.Type.STRING) {
+            if (request.getExpectedMembers() < 1 || request.getFalsePositiveRate() <= 0 || request.getFalsePositiveRate() >= 1) {
+                throw new InvalidSegmentException("expectedMembers must be positive and falsePositiveRate in (0, 1)");
+            }
+            int[] shape = BloomBlock.shape(request.getExpectedMembers(), request.getFalsePositiveRate());
+            segment.setBloomBlocks(shape[0]);
+            segment.setBloomHashes(shape[1]);
+        }
+        segment.setUpdatedAt(Instant.now());
+        Segment saved = segmentRepository.save(segment);
+        changePublisher.publishSegmentChange(new SegmentChangedEvent(saved.getKey(), SegmentChangedEvent.Type.CREATED, List.of()));
+        return Optional.of(saved);
+    }
+
+    @Transactional
+    public boolean deleteSegment(String key) {
+        if (!segmentRepository.existsById(key)) {
+            return false;
+        }
+        chunkRepository.deleteAllBySegmentKey(key);
+        segmentRepository.deleteById(key);
+        changePublisher.publishSegmentChange(new SegmentChangedEvent(key, SegmentChangedEvent.Type.DELETED, List.of()));
+        return true;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Segment> getSegment(String key) {
+        return segmentRepository.findById(key);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Segment> getAllSegments() {
+        return segmentRepository.findAll();
+    }
+
+    /**
+     * Answered from this node's in-memory copy, as evaluation would see it.
+     *
+     * @return empty if the segment doesn't exist
+     */
+    public Optional<Boolean> isMember(String key, String member) {
+        return segmentRegistry.contains(key, member);
+    }
+
+    /**
+     * Applies removals, then additions, rewriting only the chunks they fall into.
+     * <p>
+     * In a STRING segment, removals are best-effort: IDs the filter can't hold are skipped, but one
+     * that was never added and only matches by false positive still clears counters other members
+     * share. Additions are always counted, so re-adding an ID makes the member count overestimate.
+     *
+     * @return the updated segment, or empty if it doesn't exist
+     * @throws InvalidSegmentException if a NUMERIC segment is given a non-numeric or out-of-range ID
+     */
+    @Transactional
+    public Optional<Segment> updateMembers(String key, SegmentMembersRequest request) {
+        Optional<Segment> locked = segmentRepository.lockByKey(key);
+        if (locked.isEmpty()) {
+            return Optional.empty();
+        }
+        Segment segment = locked.get();
+        Map<Integer, List<String>> removals = groupByChunk(segment, request.getRemove());
+        Map<Integer, List<String>> additions = groupByChunk(segment, request.getAdd());
+        Set<Integer> touched = new TreeSet<>(removals.keySet());
+        touched.addAll(additions.keySet());
+        if (touched.isEmpty()) {
+            return Optional.of(segment);
+        }
+
+        Map<Integer, SegmentChunk> existing = new HashMap<>();
+        for (SegmentChunk chunk : chunkRepository.findBySegmentKeyAndChunkIndexIn(key, touched)) {
+            existing.put(chunk.getChunkIndex(), chunk);
+        }
+        long delta = 0;
+        List<SegmentChunk> changed = new ArrayList<>();
+        for (Integer index : touched) {
+            SegmentChunk chunk = existing.get(index);
+            List<String> removed = removals.getOrDefault(index, List.of());
+            List<String> added = additions.getOrDefault(index, List.of());
+            byte[] data;
+            if (segment.getType() == Segment.Type.NUMERIC) {
+                NumericChunk numeric = chunk != null ? NumericChunk.decode(chunk.getData()) : new NumericChunk();
+                for (String member : removed) {
+                    delta -= numeric.remove(NumericChunk.low(SegmentMembership.parseNumericId(member))) ? 1 : 0;
+                }
+                for (String member : added) {
+                    delta += numeric.add(NumericChunk.low(SegmentMembership.parseNumericId(member))) ? 1 : 0;
+                }
+                data = numeric.cardinality() > 0 ? numeric.encode() : null;
+            } else {
+                BloomBlock block = chunk != null ? BloomBlock.decode(chunk.getData()) : BloomBlock.empty();
+                // Skipping IDs the filter can't hold keeps their counters from going below the members that set them
+                for (String member : removed) {
+                    long hash = BloomBlock.hash(member);
+                    if (block.mightContain(hash, segment.getBloomHashes())) {
+                        block.remove(hash, segment.getBloomHashes());
+                        delta--;
+                    }
+                }
+                // Always count additions: one that matches only by false positive still needs counters of its own
+                added.forEach(member -> block.add(BloomBlock.hash(member), segment.getBloomHashes()));
+                delta += added.size();
+                data = block.encode();
+            }
+            if (data == null) {
+                if (chunk != null) {
+                    chunkRepository.delete(chunk);
+                }
+                continue;
+            }
+            if (chunk == null) {
+                chunk = new SegmentChunk();
+                chunk.setSegmentKey(key);
+                chunk.setChunkIndex(index);
+            }
+            chunk.setData(data);
+            changed.add(chunk);
+        }
+        chunkRepository.saveAll(changed);
+        segment.setMemberCount(Math.max(0, segment.getMemberCount() + delta));
+        segment.setUpdatedAt(Instant.now());
+        Segment saved = segmentRepository.save(segment);
+        changePublisher.publishSegmentChange(new SegmentChangedEvent(key, SegmentChangedEvent.Type.MEMBERS_CHANGED, touched));
+        return Optional.of(saved);
+    }
+
+    private static Map<Integer, List<String>> groupByChunk(Segment segment, List<String> members) {
+        Map<Integer, List<String>> byChunk = new HashMap<>();
+        if (members == null) {
+            return byChunk;
+        }
+        for (String member : members) {
+            int index;
+            if (segment.getType() == Segment.Type.NUMERIC) {
+                long id = member != null ? SegmentMembership.parseNumericId(member) : -1;
+                if (id < 0) {
+                    throw new InvalidSegmentException("Segment '" + segment.getKey() + "' only holds IDs in [0, 2^32), got " + member);
+                }
+                index = NumericChunk.chunkIndex(id);
+            } else {
+                if (member == null) {
+                    throw new InvalidSegmentException("Segment members can't be null");
+                }
+                index = BloomBlock.blockOf(BloomBlock.hash(member), segment.getBloomBlocks());
+            }
+            byChunk.computeIfAbsent(index, k -> new ArrayList<>()).add(member);
+        }
+        return byChunk;
+    }
+}
@@ -0,0 +1,29 @@
+package com.featureflagx.timing;
+
+/**
+ * The stages an evaluation request can spend time in. Each has a short name used as the
+ * {@code Server-Timing} metric name and in the JFR event.
+ */
+public enum EvaluationPhase {
+    CACHE("cache", "Redis lookup"),
+    LOCK("lock", "Waiting on another node's cache fill"),
+    DB("db", "Database fallback"),
+    FILL("fill", "Cache fill"),
+    SERIALIZATION("ser", "Response serialization");
+
+    private final String metricName;
+    private final String description;
+
+    EvaluationPhase(String metricName, String description) {
+        this.metricName = metricName;
+        this.description = description;
+    }
+
+    public String getMetricName() {
+        return metricName;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,27 @@
+package com.featureflagx.timing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for one phase of a flag evaluation. Without a recording that enables
+ * it, creating and committing it is close to free, so it stays in production code paths. Stack
+ * traces are off to keep it cheap when it is recorded.
+ */
+@Name("com.featureflagx.EvaluationPhase")
+@Label("Flag Evaluation Phase")
+@Description("Time spent in one phase of a flag evaluation")
+@Category({"FeatureFlagX", "Evaluation"})
+@StackTrace(false)
+class EvaluationPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Flag Key")
+    String flagKey;
+}
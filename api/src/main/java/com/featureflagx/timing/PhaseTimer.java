@@ -0,0 +1,44 @@
+package com.featureflagx.timing;
+
+/**
+ * Times one {@link EvaluationPhase}: the duration is added to the current request's
+ * {@link RequestTimings}, if any, and emitted as an {@link EvaluationPhaseEvent}.
+ *
+ * <pre>
+ * try (PhaseTimer ignored = PhaseTimer.start(EvaluationPhase.DB, key)) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class PhaseTimer implements AutoCloseable {
+
+    private final EvaluationPhase phase;
+    private final String flagKey;
+    private final long startNanos;
+    private final EvaluationPhaseEvent event = new EvaluationPhaseEvent();
+
+    private PhaseTimer(EvaluationPhase phase, String flagKey) {
+        this.phase = phase;
+        this.flagKey = flagKey;
+        event.begin();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @param flagKey the flag being evaluated, or null when the phase covers several
+     */
+    public static PhaseTimer start(EvaluationPhase phase, String flagKey) {
+        return new PhaseTimer(phase, flagKey);
+    }
+
+    @Override
+    public void close() {
+        RequestTimings.add(phase, System.nanoTime() - startNanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.getMetricName();
+            event.flagKey = flagKey;
+            event.commit();
+        }
+    }
+}
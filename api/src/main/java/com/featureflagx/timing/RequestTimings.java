@@ -0,0 +1,92 @@
+package com.featureflagx.timing;
+
+/**
+ * Per-request totals for each {@link EvaluationPhase}, kept on the request thread between
+ * {@link #begin()} and {@link #end()}. Evaluations run synchronously on that thread, so the
+ * service layer can record phases without the request being passed down. Outside a request
+ * (gRPC, background jobs) recording is a no-op apart from the JFR event.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[EvaluationPhase.values().length];
+    private final boolean[] recorded = new boolean[nanos.length];
+    private PhaseTimer serialization;
+
+    private RequestTimings() {
+    }
+
+    public static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Stops collecting on this thread, closing the serialization phase if it was started.
+     */
+    public static void end() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && timings.serialization != null) {
+            timings.serialization.close(); // recorded into this request while it is still current
+            timings.serialization = null;
+        }
+        CURRENT.remove();
+    }
+
+    /**
+     * Marks the start of response serialization; it ends with the request.
+     */
+    public static void startSerialization() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && timings.serialization == null) {
+            timings.serialization = PhaseTimer.start(EvaluationPhase.SERIALIZATION, null);
+        }
+    }
+
+    /**
+     * @return the phases recorded so far on this thread as a {@code Server-Timing} header value,
+     *         with {@code total} measured from {@link #begin()}; null outside a request
+     */
+    public static String serverTiming() {
+        RequestTimings timings = CURRENT.get();
+        return timings == null ? null : timings.toServerTiming(System.nanoTime() - timings.startNanos);
+    }
+
+    static void add(EvaluationPhase phase, long durationNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.nanos[phase.ordinal()] += durationNanos;
+            timings.recorded[phase.ordinal()] = true;
+        }
+    }
+
+    /**
+     * Formats the recorded phases, plus {@code total}, as a {@code Server-Timing} header value,
+     * e.g. {@code cache;dur=0.412, db;dur=2.051, total;dur=3.290}. Durations are in milliseconds.
+     */
+    public String toServerTiming(long totalNanos) {
+        StringBuilder header = new StringBuilder(96);
+        for (EvaluationPhase phase : EvaluationPhase.values()) {
+            if (recorded[phase.ordinal()]) {
+                appendMetric(header, phase.getMetricName(), nanos[phase.ordinal()]).append(", ");
+            }
+        }
+        return appendMetric(header, "total", totalNanos).toString();
+    }
+
+    private static StringBuilder appendMetric(StringBuilder header, String name, long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        header.append(name).append(";dur=").append(micros / 1_000).append('.');
+        long fraction = micros % 1_000;
+        if (fraction < 100) {
+            header.append('0');
+        }
+        if (fraction < 10) {
+            header.append('0');
+        }
+        return header.append(fraction);
+    }
+}
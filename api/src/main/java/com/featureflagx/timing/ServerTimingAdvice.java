@@ -0,0 +1,35 @@
+package com.featureflagx.timing;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Sets the {@code Server-Timing} header just before a response body is written, while headers can
+ * still be sent, then starts the {@link EvaluationPhase#SERIALIZATION} phase; it runs until
+ * {@link ServerTimingFilter} ends the request. A no-op for requests the filter doesn't cover.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        String timing = RequestTimings.serverTiming();
+        if (timing != null) {
+            response.getHeaders().set(ServerTimingFilter.HEADER, timing);
+        }
+        RequestTimings.startSerialization();
+        return body;
+    }
+}
@@ -0,0 +1,31 @@
+package com.featureflagx.timing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Collects the time evaluation requests spend in each {@link EvaluationPhase}, for the
+ * {@code Server-Timing} header that {@link ServerTimingAdvice} adds just before the body is
+ * written, so client-side tracing can tell Redis and the database apart. The body isn't
+ * buffered, so serialization itself only shows up in the JFR event.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTimings.end();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.featureflagx.wire;
+
+import com.featureflagx.dto.FlagResponse;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes evaluation results and flag listings in {@link FlagWireFormat}. Registered after
+ * the default converters so JSON stays the default and this is only chosen when the
+ * client explicitly accepts {@code application/x-featureflagx}.
+ *
+ * Only bodies declared as exactly what the format encodes are claimed: {@code Boolean},
+ * {@link FlagResponse}, {@code List<FlagResponse>} and {@code Map<String, Boolean>}. Any
+ * other response, such as a segment list or an error body, falls back to JSON or 406.
+ */
+public class FlagBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public FlagBinaryHttpMessageConverter() {
+        super(FlagWireFormat.MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        // Without the generic type a List or Map could hold anything
+        return Boolean.class == clazz || FlagResponse.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return canWrite(mediaType) && (type != null ? encodes(ResolvableType.forType(type)) : supports(clazz));
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        // Asked after canWrite has accepted the declared type, which a List or Map class alone can't show
+        return getSupportedMediaTypes();
+    }
+
+    private boolean encodes(ResolvableType type) {
+        Class<?> raw = type.toClass();
+        if (List.class.isAssignableFrom(raw)) {
+            return type.asCollection().getGeneric(0).toClass() == FlagResponse.class;
+        }
+        if (Map.class.isAssignableFrom(raw)) {
+            ResolvableType map = type.asMap();
+            return map.getGeneric(0).toClass() == String.class && map.getGeneric(1).toClass() == Boolean.class;
+        }
+        return supports(raw);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+        return false; // response-only format
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading " + FlagWireFormat.MEDIA_TYPE_VALUE + " is not supported", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading " + FlagWireFormat.MEDIA_TYPE_VALUE + " is not supported", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        // canWrite has checked the declared type, so the casts hold
+        byte[] encoded;
+        if (body instanceof Boolean) {
+            encoded = FlagWireFormat.encodeEvaluation((Boolean) body);
+        } else if (body instanceof FlagResponse) {
+            encoded = FlagWireFormat.encodeFlag((FlagResponse) body);
+        } else if (body instanceof Map) {
+            encoded = FlagWireFormat.encodeBulkEvaluation((Map<String, Boolean>) body);
+        } else if (body instanceof List) {
+            encoded = FlagWireFormat.encodeFlagList((List<FlagResponse>) body);
+        } else {
+            throw new HttpMessageNotWritableException("Cannot write " + body.getClass().getName() + " as " + FlagWireFormat.MEDIA_TYPE_VALUE);
+        }
+        outputMessage.getHeaders().setContentLength(encoded.length);
+        outputMessage.getBody().write(encoded);
+    }
+}
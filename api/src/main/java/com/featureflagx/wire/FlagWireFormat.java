@@ -0,0 +1,233 @@
+package com.featureflagx.wire;
+
+import com.featureflagx.dto.FlagResponse;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding for evaluation and flag listing responses, served when a
+ * client sends {@code Accept: application/x-featureflagx}.
+ *
+ * Every message starts with a version byte and a type byte. Integers are unsigned
+ * LEB128 varints, strings are a varint byte length followed by UTF-8 bytes.
+ * <pre>
+ *   evaluation      : result(1 byte)
+ *   bulk evaluation : count, { key, result(1 byte) }*
+ *   flag            : key, bits(1 byte: 1=enabled 2=config 4=updatedAt), [config], [epochSecond, nanos]
+ *   flag list       : count, flag*
+ * </pre>
+ * The Java SDK and the edge evaluator carry their own codecs for this format; keep them in sync.
+ */
+public final class FlagWireFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/x-featureflagx";
+    public static final MediaType MEDIA_TYPE = MediaType.valueOf(MEDIA_TYPE_VALUE);
+
+    static final byte VERSION = 1;
+    static final byte TYPE_EVALUATION = 1;
+    static final byte TYPE_BULK_EVALUATION = 2;
+    static final byte TYPE_FLAG = 3;
+    static final byte TYPE_FLAG_LIST = 4;
+
+    private static final int BIT_ENABLED = 1;
+    private static final int BIT_CONFIG = 2;
+    private static final int BIT_UPDATED_AT = 4;
+
+    private FlagWireFormat() {
+    }
+
+    public static byte[] encodeEvaluation(boolean enabled) {
+        return new byte[]{VERSION, TYPE_EVALUATION, (byte) (enabled ? 1 : 0)};
+    }
+
+    public static byte[] encodeBulkEvaluation(Map<String, Boolean> results) {
+        Writer out = new Writer(16 + results.size() * 24);
+        out.header(TYPE_BULK_EVALUATION);
+        out.varint(results.size());
+        for (Map.Entry<String, Boolean> entry : results.entrySet()) {
+            out.string(entry.getKey());
+            out.write(Boolean.TRUE.equals(entry.getValue()) ? 1 : 0);
+        }
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeFlag(FlagResponse flag) {
+        Writer out = new Writer(64);
+        out.header(TYPE_FLAG);
+        writeFlag(out, flag);
+        return out.toByteArray();
+    }
+
+    public static byte[] encodeFlagList(List<FlagResponse> flags) {
+        Writer out = new Writer(16 + flags.size() * 64);
+        out.header(TYPE_FLAG_LIST);
+        out.varint(flags.size());
+        for (FlagResponse flag : flags) {
+            writeFlag(out, flag);
+        }
+        return out.toByteArray();
+    }
+
+    public static boolean decodeEvaluation(byte[] data) {
+        Reader in = new Reader(data, TYPE_EVALUATION);
+        return in.read() != 0;
+    }
+
+    public static Map<String, Boolean> decodeBulkEvaluation(byte[] data) {
+        Reader in = new Reader(data, TYPE_BULK_EVALUATION);
+        int count = in.varint();
+        Map<String, Boolean> results = new LinkedHashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            results.put(in.string(), in.read() != 0);
+        }
+        return results;
+    }
+
+    public static FlagResponse decodeFlag(byte[] data) {
+        return readFlag(new Reader(data, TYPE_FLAG));
+    }
+
+    public static List<FlagResponse> decodeFlagList(byte[] data) {
+        Reader in = new Reader(data, TYPE_FLAG_LIST);
+        int count = in.varint();
+        List<FlagResponse> flags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            flags.add(readFlag(in));
+        }
+        return flags;
+    }
+
+    private static void writeFlag(Writer out, FlagResponse flag) {
+        out.string(flag.getKey());
+        int bits = (flag.isEnabled() ? BIT_ENABLED : 0)
+                | (flag.getConfig() != null ? BIT_CONFIG : 0)
+                | (flag.getUpdatedAt() != null ? BIT_UPDATED_AT : 0);
+        out.write(bits);
+        if (flag.getConfig() != null) {
+            out.string(flag.getConfig());
+        }
+        if (flag.getUpdatedAt() != null) {
+            out.varlong(flag.getUpdatedAt().getEpochSecond());
+            out.varint(flag.getUpdatedAt().getNano());
+        }
+    }
+
+    private static FlagResponse readFlag(Reader in) {
+        FlagResponse flag = new FlagResponse();
+        flag.setKey(in.string());
+        int bits = in.read();
+        flag.setEnabled((bits & BIT_ENABLED) != 0);
+        if ((bits & BIT_CONFIG) != 0) {
+            flag.setConfig(in.string());
+        }
+        if ((bits & BIT_UPDATED_AT) != 0) {
+            long seconds = in.varlong();
+            flag.setUpdatedAt(Instant.ofEpochSecond(seconds, in.varint()));
+        }
+        return flag;
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int initialCapacity) {
+            this.buf = new byte[initialCapacity];
+        }
+
+        void header(byte type) {
+            write(VERSION);
+            write(type);
+        }
+
+        void write(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void varint(int value) {
+            varlong(value & 0xFFFFFFFFL);
+        }
+
+        void varlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, byte expectedType) {
+            this.buf = buf;
+            int version = read();
+            int type = read();
+            if (version != VERSION || type != expectedType) {
+                throw new IllegalArgumentException("Unexpected message header: version " + version + ", type " + type);
+            }
+        }
+
+        int read() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        int varint() {
+            return (int) varlong();
+        }
+
+        long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String string() {
+            int length = varint();
+            if (length < 0 || pos + length > buf.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package com.featureflagx;
+
+import com.featureflagx.admission.AdaptiveConcurrencyLimiter;
+import com.featureflagx.admission.AdmissionControlFilter;
+import com.featureflagx.admission.AdmissionControlFilter.Policy;
+import com.featureflagx.admission.AdmissionControlFilter.RequestClass;
+import com.featureflagx.admission.ClientRateLimiter;
+import com.featureflagx.admission.TokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControlTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final String PROXY = "10.0.0.1";
+
+    @Test
+    void tokenBucket_shouldAllowBurstThenReportWaitUntilRefill() {
+        TokenBucket bucket = new TokenBucket(3, 10, 0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryConsume(0));
+        }
+        long wait = bucket.tryConsume(0);
+        assertEquals(100 * MS, wait, MS);
+
+        assertEquals(0, bucket.tryConsume(100 * MS));
+        assertTrue(bucket.tryConsume(100 * MS) > 0);
+    }
+
+    @Test
+    void clientRateLimiter_shouldTrackClientsIndependently() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 100);
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        assertTrue(limiter.tryAcquire("a", 0) > 0);
+        assertEquals(0, limiter.tryAcquire("b", 0));
+    }
+
+    @Test
+    void clientRateLimiter_shouldDropTheLeastRecentlySeenClientsBeyondTheLimit() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 0.001, 16);
+        assertEquals(0, limiter.tryAcquire("a", 0));
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("client-" + i, 0);
+            assertTrue(limiter.size() <= 16);
+        }
+        // a's spent bucket was evicted, so it starts again from a full one
+        assertEquals(0, limiter.tryAcquire("a", 0));
+    }
+
+    @Test
+    void concurrencyLimiter_shouldRejectBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, 2.0, 1000);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(MS, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void concurrencyLimiter_shouldGrowWhileLatencyStaysNearBaseline() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 0.5, 2.0, 1000);
+        for (int i = 0; i < 500; i++) {
+            while (limiter.tryAcquire()) {
+                // fill the limit so it is the bottleneck
+            }
+            limiter.release(MS, false);
+        }
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void concurrencyLimiter_shouldBackOffWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 2, 16, 0.5, 2.0, 1000);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(MS, false);
+        }
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(20 * MS, false);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void concurrencyLimiter_shouldNotCollapseUnderBimodalLatency() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(100, 4, 200, 0.9, 2.0, 5000);
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            while (limiter.getInFlight() < limiter.getLimit() * 0.6 && limiter.tryAcquire()) {
+                // keep 60% of the limit in use, as under steady load
+            }
+            // Pinned hits in tens of microseconds, Redis and database round trips in milliseconds
+            limiter.release(random.nextDouble() < 0.6 ? 50_000 : 3 * MS, false);
+        }
+        assertTrue(limiter.getLimit() >= 100, "limit fell to " + limiter.getLimit());
+    }
+
+    @Test
+    void filter_shouldReturn429WithRetryAfterWhenClientExhaustsBucket() throws Exception {
+        AdmissionControlFilter filter = filter(new ClientRateLimiter(1, 0.5, 100), new ClientRateLimiter(10, 10, 100));
+
+        MockHttpServletResponse first = execute(filter, evaluationRequest("client-1"), new MockFilterChain());
+        assertEquals(200, first.getStatus());
+        assertEquals("1", first.getHeader("X-RateLimit-Limit"));
+
+        MockHttpServletResponse second = execute(filter, evaluationRequest("client-1"), new MockFilterChain());
+        assertEquals(429, second.getStatus());
+        assertEquals("2", second.getHeader("Retry-After"));
+
+        MockHttpServletResponse otherClient = execute(filter, evaluationRequest("client-2"), new MockFilterChain());
+        assertEquals(200, otherClient.getStatus());
+    }
+
+    @Test
+    void filter_shouldIgnoreClientIdsFromUntrustedAddresses() throws Exception {
+        AdmissionControlFilter filter = filter(new ClientRateLimiter(1, 0.5, 100), new ClientRateLimiter(10, 10, 100));
+
+        MockHttpServletRequest first = evaluationRequest("client-1");
+        first.setRemoteAddr("192.0.2.7");
+        assertEquals(200, execute(filter, first, new MockFilterChain()).getStatus());
+
+        // A fresh ID from the same address draws from the same bucket
+        MockHttpServletRequest rotated = evaluationRequest("client-2");
+        rotated.setRemoteAddr("192.0.2.7");
+        assertEquals(429, execute(filter, rotated, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void filter_shouldLimitMutationsSeparatelyFromEvaluations() throws Exception {
+        AdmissionControlFilter filter = filter(new ClientRateLimiter(1, 0.5, 100), new ClientRateLimiter(10, 10, 100));
+
+        execute(filter, evaluationRequest("client-1"), new MockFilterChain());
+        assertEquals(429, execute(filter, evaluationRequest("client-1"), new MockFilterChain()).getStatus());
+
+        MockHttpServletRequest update = new MockHttpServletRequest("PUT", "/flags/my-flag");
+        update.setRemoteAddr(PROXY);
+        update.addHeader(AdmissionControlFilter.CLIENT_ID_HEADER, "client-1");
+        assertEquals(200, execute(filter, update, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void filter_shouldReturn503WhenConcurrencyLimitReached() throws Exception {
+        AdaptiveConcurrencyLimiter evaluationLimiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0.9, 2.0, 1000);
+        AdmissionControlFilter filter = new AdmissionControlFilter(Map.of(
+                RequestClass.EVALUATION, new Policy(evaluationLimiter, new ClientRateLimiter(10, 10, 100))),
+                Set.of(PROXY), new SimpleMeterRegistry());
+
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        FilterChain reentrant = (request, response) ->
+                nested[0] = execute(filter, evaluationRequest("client-2"), new MockFilterChain());
+        assertEquals(200, execute(filter, evaluationRequest("client-1"), reentrant).getStatus());
+
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("1", nested[0].getHeader("Retry-After"));
+        assertEquals(0, evaluationLimiter.getInFlight());
+    }
+
+    @Test
+    void filter_withoutClientRateLimiter_shouldOnlyLimitConcurrency() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(Map.of(
+                RequestClass.EVALUATION, new Policy(new AdaptiveConcurrencyLimiter(10, 1, 10, 0.9, 2.0, 1000), null)),
+                Set.of(), new SimpleMeterRegistry());
+
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletResponse response = execute(filter, evaluationRequest("client-1"), new MockFilterChain());
+            assertEquals(200, response.getStatus());
+            assertNull(response.getHeader("X-RateLimit-Limit"));
+        }
+    }
+
+    @Test
+    void filter_shouldIgnoreRequestsOutsideFlagsApi() throws Exception {
+        AdmissionControlFilter filter = filter(new ClientRateLimiter(1, 0.001, 100), new ClientRateLimiter(1, 0.001, 100));
+        for (int i = 0; i < 3; i++) {
+            MockHttpServletRequest health = new MockHttpServletRequest("GET", "/actuator/health");
+            assertEquals(200, execute(filter, health, new MockFilterChain()).getStatus());
+        }
+    }
+
+    private static AdmissionControlFilter filter(ClientRateLimiter evaluationRates, ClientRateLimiter mutationRates) {
+        return new AdmissionControlFilter(Map.of(
+                RequestClass.EVALUATION, new Policy(new AdaptiveConcurrencyLimiter(10, 1, 10, 0.9, 2.0, 1000), evaluationRates),
+                RequestClass.MUTATION, new Policy(new AdaptiveConcurrencyLimiter(10, 1, 10, 0.9, 2.0, 1000), mutationRates)),
+                Set.of(PROXY), new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletRequest evaluationRequest(String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flags/evaluate/my-flag");
+        request.setRemoteAddr(PROXY);
+        request.addHeader(AdmissionControlFilter.CLIENT_ID_HEADER, clientId);
+        return request;
+    }
+
+    private static MockHttpServletResponse execute(AdmissionControlFilter filter, MockHttpServletRequest request,
+                                                   FilterChain chain) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
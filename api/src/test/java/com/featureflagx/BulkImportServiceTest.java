@@ -0,0 +1,181 @@
+package com.featureflagx;
+
+import com.featureflagx.dto.ImportEvent;
+import com.featureflagx.dto.SegmentMembersRequest;
+import com.featureflagx.model.Flag;
+import com.featureflagx.model.Segment;
+import com.featureflagx.repository.FlagCopyWriter;
+import com.featureflagx.ruleset.RulesetRegistry;
+import com.featureflagx.service.BulkImportService;
+import com.featureflagx.service.FlagService;
+import com.featureflagx.service.SegmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkImportServiceTest {
+
+    @Mock
+    private FlagCopyWriter flagWriter;
+
+    @Mock
+    private FlagService flagService;
+
+    @Mock
+    private SegmentService segmentService;
+
+    @Mock
+    private RulesetRegistry rulesetRegistry;
+
+    private BulkImportService importService;
+    private final List<ImportEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Segment numeric = new Segment();
+        numeric.setKey("beta");
+        numeric.setType(Segment.Type.NUMERIC);
+        when(segmentService.getAllSegments()).thenReturn(List.of(numeric));
+        when(rulesetRegistry.declaredPrerequisites()).thenReturn(Map.of("stored", List.of("payments")));
+        importService = new BulkImportService(flagWriter, flagService, segmentService, rulesetRegistry, 2, 3, 200, 100);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importNdjson_shouldWriteFlagsInBatchesAndReportRejectedLines() throws Exception {
+        when(flagWriter.findExisting(anyCollection())).thenAnswer(invocation ->
+                ((Collection<String>) invocation.getArgument(0)).contains("taken") ? Set.of("taken") : Set.of());
+
+        ImportEvent summary = run(
+                "{\"type\":\"flag\",\"key\":\"a\",\"enabled\":true,\"config\":{\"tags\":[\"checkout\"]}}",
+                "{\"type\":\"flag\",\"key\":\"taken\"}",
+                "",
+                "{\"type\":\"flag\",\"key\":\"b\",\"config\":\"{\\\"segments\\\":[\\\"beta\\\"]}\"}",
+                "{\"type\":\"flag\",\"key\":\"b\"}",
+                "not json",
+                "{\"type\":\"flag\",\"key\":\"c\",\"config\":{\"segments\":[\"nope\"]}}",
+                "{\"type\":\"flag\",\"key\":\"d\",\"config\":\"{broken\"}",
+                "{\"type\":\"segment\"}",
+                "{\"type\":\"flag\",\"key\":\"e\",\"enabled\":\"yes\"}",
+                "{\"type\":\"flag\",\"key\":\"" + "x".repeat(300) + "\"}",
+                "{\"type\":\"flag\",\"key\":\"evaluate\"}");
+
+        ArgumentCaptor<List<Flag>> written = ArgumentCaptor.forClass(List.class);
+        verify(flagWriter, times(2)).insert(written.capture());
+        assertEquals(List.of("a"), keys(written.getAllValues().get(0)));
+        assertEquals(List.of("b"), keys(written.getAllValues().get(1)));
+        assertEquals(Set.of("checkout"), written.getAllValues().get(0).get(0).getTags());
+        assertTrue(written.getAllValues().get(0).get(0).isEnabled());
+        verify(flagService, times(2)).flagsImported(any());
+
+        assertEquals(List.of(2L, 5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L), errorLines());
+        assertEquals(12, summary.getLines());
+        assertEquals(2, summary.getFlags());
+        assertEquals(9, summary.getErrors());
+    }
+
+    @Test
+    void importNdjson_shouldRejectFlagsThatCloseAPrerequisiteCycle() throws Exception {
+        when(flagWriter.findExisting(anyCollection())).thenReturn(Set.of());
+
+        ImportEvent summary = run(
+                "{\"type\":\"flag\",\"key\":\"payments\",\"config\":{\"prerequisites\":[\"checkout\"]}}",
+                "{\"type\":\"flag\",\"key\":\"checkout\",\"config\":{\"prerequisites\":[\"stored\"]}}",
+                "{\"type\":\"flag\",\"key\":\"self\",\"config\":{\"prerequisites\":[\"self\"]}}");
+
+        // stored -> payments -> checkout -> stored: the line that closed the cycle is rejected
+        assertEquals(List.of(2L, 3L), errorLines());
+        assertTrue(events.stream().anyMatch(event -> event.getMessage() != null && event.getMessage().contains("cycle")));
+        assertEquals(1, summary.getFlags());
+    }
+
+    @Test
+    void importNdjson_shouldBatchMembersPerSegment() throws Exception {
+        when(segmentService.updateMembers(eq("beta"), any())).thenReturn(Optional.of(new Segment()));
+
+        ImportEvent summary = run(
+                "{\"type\":\"member\",\"segment\":\"beta\",\"member\":\"1\"}",
+                "{\"type\":\"member\",\"segment\":\"beta\",\"member\":\"user-2\"}",
+                "{\"type\":\"member\",\"segment\":\"gamma\",\"member\":\"3\"}",
+                "{\"type\":\"member\",\"segment\":\"beta\",\"member\":\"4\"}",
+                "{\"type\":\"member\",\"segment\":\"beta\",\"member\":5}",
+                "{\"type\":\"member\",\"segment\":\"beta\",\"member\":\"6\"}",
+                "{\"type\":\"member\",\"segment\":\"beta\",\"member\":\"7\"}");
+
+        ArgumentCaptor<SegmentMembersRequest> requests = ArgumentCaptor.forClass(SegmentMembersRequest.class);
+        verify(segmentService, times(2)).updateMembers(eq("beta"), requests.capture());
+        assertEquals(List.of("1", "4", "5"), requests.getAllValues().get(0).getAdd());
+        assertEquals(List.of("6", "7"), requests.getAllValues().get(1).getAdd());
+        assertEquals(List.of(2L, 3L), errorLines());
+        assertEquals(5, summary.getMembers());
+        assertEquals(2, events.stream().filter(event -> event.getType().equals(ImportEvent.PROGRESS)).count());
+    }
+
+    @Test
+    void importNdjson_whenBatchWriteFails_shouldRejectItsLinesAndContinue() throws Exception {
+        when(flagWriter.findExisting(anyCollection())).thenReturn(Set.of());
+        doThrow(new SQLException("connection reset")).doNothing().when(flagWriter).insert(any());
+
+        ImportEvent summary = run(
+                "{\"type\":\"flag\",\"key\":\"a\"}",
+                "{\"type\":\"flag\",\"key\":\"b\"}",
+                "{\"type\":\"flag\",\"key\":\"c\"}");
+
+        assertEquals(List.of(1L, 2L), errorLines());
+        assertEquals(1, summary.getFlags());
+        verify(flagService, times(1)).flagsImported(any());
+    }
+
+    @Test
+    void importNdjson_whenExistingKeysCantBeRead_shouldRejectTheWholeBatch() throws Exception {
+        when(flagWriter.findExisting(anyCollection()))
+                .thenThrow(new SQLException("connection reset"))
+                .thenReturn(Set.of());
+
+        ImportEvent summary = run(
+                "{\"type\":\"flag\",\"key\":\"a\"}",
+                "{\"type\":\"flag\",\"key\":\"b\"}",
+                "{\"type\":\"flag\",\"key\":\"c\"}");
+
+        assertEquals(List.of(1L, 2L), errorLines());
+        assertEquals(1, summary.getFlags());
+        assertEquals(2, summary.getErrors());
+    }
+
+    private ImportEvent run(String... lines) throws Exception {
+        byte[] input = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return importService.importNdjson(new ByteArrayInputStream(input), events::add);
+    }
+
+    private List<Long> errorLines() {
+        return events.stream()
+                .filter(event -> event.getType().equals(ImportEvent.ERROR))
+                .map(ImportEvent::getLine)
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> keys(List<Flag> flags) {
+        return flags.stream().map(Flag::getKey).collect(Collectors.toList());
+    }
+}
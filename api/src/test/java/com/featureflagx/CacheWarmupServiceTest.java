@@ -0,0 +1,90 @@
+package com.featureflagx;
+
+import com.featureflagx.dto.WarmupResponse;
+import com.featureflagx.model.Flag;
+import com.featureflagx.repository.FlagRepository;
+import com.featureflagx.service.CacheWarmupService;
+import com.featureflagx.service.FlagService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheWarmupServiceTest {
+
+    @Mock
+    private FlagRepository flagRepository;
+
+    @Mock
+    private FlagService flagService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CacheWarmupService cacheWarmupService;
+
+    @BeforeEach
+    void setUp() {
+        cacheWarmupService = new CacheWarmupService(flagRepository, flagService, entityManager, transactionManager);
+        ReflectionTestUtils.setField(cacheWarmupService, "chunkSize", 2);
+    }
+
+    @Test
+    void warmUp_shouldPreloadAllFlagsInChunks() {
+        List<Flag> flags = IntStream.range(0, 5).mapToObj(this::flag).collect(Collectors.toList());
+        when(flagRepository.streamAll()).thenReturn(flags.stream());
+        List<Integer> chunkSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            chunkSizes.add(((Collection<?>) invocation.getArgument(0)).size());
+            return null;
+        }).when(flagService).preloadCache(anyCollection());
+
+        assertFalse(cacheWarmupService.isFinished());
+        WarmupResponse result = cacheWarmupService.warmUp();
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(5, result.getFlagsLoaded());
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+        assertTrue(cacheWarmupService.isFinished());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void warmUp_whenRedisFails_shouldReportFailureAndFinish() {
+        when(flagRepository.streamAll()).thenReturn(List.of(flag(1)).stream());
+        doThrow(new IllegalStateException("redis down")).when(flagService).preloadCache(anyCollection());
+
+        WarmupResponse result = cacheWarmupService.warmUp();
+
+        assertEquals("FAILED", result.getStatus());
+        assertEquals("redis down", result.getError());
+        assertTrue(cacheWarmupService.isFinished());
+    }
+
+    private Flag flag(int i) {
+        Flag flag = new Flag();
+        flag.setKey("warm-" + i);
+        flag.setEnabled(i % 2 == 0);
+        flag.setUpdatedAt(Instant.now());
+        return flag;
+    }
+}
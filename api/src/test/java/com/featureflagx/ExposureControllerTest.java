@@ -0,0 +1,97 @@
+package com.featureflagx;
+
+import com.featureflagx.dto.ExposureRollupResponse;
+import com.featureflagx.exposure.RollupGranularity;
+import com.featureflagx.service.ExposureRollupService;
+import com.featureflagx.wire.FlagWireFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(com.featureflagx.controller.ExposureController.class)
+public class ExposureControllerTest {
+
+    private static final Instant FROM = Instant.parse("2024-03-01T10:00:00Z");
+    private static final Instant TO = Instant.parse("2024-03-01T12:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExposureRollupService exposureRollupService;
+
+    @Test
+    void getExposures_shouldQueryTheWindowAtTheRequestedGranularity() throws Exception {
+        ExposureRollupResponse response = new ExposureRollupResponse();
+        response.setFlagKey("checkout");
+        response.setGranularity(RollupGranularity.HOUR);
+        ExposureRollupResponse.Counts total = new ExposureRollupResponse.Counts();
+        total.setExposuresOn(42);
+        response.setTotal(total);
+        response.setBuckets(List.of());
+        given(exposureRollupService.query("checkout", RollupGranularity.HOUR, FROM, TO)).willReturn(response);
+
+        mockMvc.perform(get("/flags/checkout/exposures")
+                        .param("from", FROM.toString())
+                        .param("to", TO.toString())
+                        .param("granularity", "hour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity", is("HOUR")))
+                .andExpect(jsonPath("$.total.exposuresOn", is(42)));
+    }
+
+    @Test
+    void getExposures_withoutAWindow_shouldQueryTheLastHourByMinute() throws Exception {
+        given(exposureRollupService.query(eq("checkout"), eq(RollupGranularity.MINUTE), any(), any()))
+                .willReturn(new ExposureRollupResponse());
+
+        mockMvc.perform(get("/flags/checkout/exposures"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getExposures_whenOnlyTheBinaryFormatIsAccepted_shouldReturnNotAcceptable() throws Exception {
+        given(exposureRollupService.query(eq("checkout"), eq(RollupGranularity.MINUTE), any(), any()))
+                .willReturn(new ExposureRollupResponse());
+
+        // The flag wire format has no encoding for rollups
+        mockMvc.perform(get("/flags/checkout/exposures").accept(FlagWireFormat.MEDIA_TYPE))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void getExposures_withAnUnknownGranularity_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/flags/checkout/exposures").param("granularity", "day"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exposureRollupService);
+    }
+
+    @Test
+    void getExposures_withAnEmptyOrTooLongWindow_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/flags/checkout/exposures")
+                        .param("from", TO.toString())
+                        .param("to", FROM.toString()))
+                .andExpect(status().isBadRequest());
+        // 1440 minute buckets is one too many
+        mockMvc.perform(get("/flags/checkout/exposures")
+                        .param("from", FROM.toString())
+                        .param("to", FROM.plusSeconds(86_400).toString()))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(exposureRollupService);
+    }
+}
@@ -0,0 +1,127 @@
+package com.featureflagx;
+
+import com.featureflagx.dto.ExposureRollupResponse;
+import com.featureflagx.exposure.ExposureAggregator;
+import com.featureflagx.exposure.ExposureEvent;
+import com.featureflagx.exposure.HyperLogLog;
+import com.featureflagx.exposure.RollupGranularity;
+import com.featureflagx.model.ExposureRollup;
+import com.featureflagx.repository.ExposureRollupRepository;
+import com.featureflagx.service.ExposureRollupService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExposureRollupServiceTest {
+
+    private static final Instant BUCKET = Instant.parse("2024-03-01T10:15:00Z");
+
+    @Mock
+    private ExposureRollupRepository repository;
+
+    @InjectMocks
+    private ExposureRollupService rollupService;
+
+    @Test
+    void merge_shouldCreateMissingRowsThenAddToTheLockedRowsInOrder() {
+        ExposureRollup stored = row(BUCKET, true, 5, "user-1", "user-2");
+        ExposureRollup created = row(BUCKET, false, 0);
+        when(repository.lockBucket("checkout", RollupGranularity.MINUTE, BUCKET, true)).thenReturn(Optional.of(stored));
+        when(repository.lockBucket("checkout", RollupGranularity.MINUTE, BUCKET, false)).thenReturn(Optional.of(created));
+
+        rollupService.merge(minuteRollups(
+                new ExposureEvent("checkout", "user-2", true, BUCKET),
+                new ExposureEvent("checkout", "user-3", true, BUCKET.plusSeconds(30)),
+                new ExposureEvent("checkout", "user-4", false, BUCKET)));
+
+        // The insert is a no-op for rows that exist, and every node locks off before on
+        InOrder order = inOrder(repository);
+        order.verify(repository).insertBucketIfAbsent(eq("checkout"), eq("MINUTE"), eq(BUCKET), eq(false), any());
+        order.verify(repository).lockBucket("checkout", RollupGranularity.MINUTE, BUCKET, false);
+        order.verify(repository).insertBucketIfAbsent(eq("checkout"), eq("MINUTE"), eq(BUCKET), eq(true), any());
+        order.verify(repository).lockBucket("checkout", RollupGranularity.MINUTE, BUCKET, true);
+        assertEquals(7, stored.getExposures());
+        assertEquals(3, HyperLogLog.decode(stored.getTargets()).estimate());
+        assertEquals(1, created.getExposures());
+        assertEquals(1, HyperLogLog.decode(created.getTargets()).estimate());
+        verify(repository).save(stored);
+        verify(repository).save(created);
+    }
+
+    @Test
+    void merge_whenTheRowCantBeLocked_shouldFailSoTheRollupsAreRetried() {
+        when(repository.lockBucket("checkout", RollupGranularity.MINUTE, BUCKET, true)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () ->
+                rollupService.merge(minuteRollups(new ExposureEvent("checkout", "user-1", true, BUCKET))));
+
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void query_shouldSumResultsPerBucketAndOverTheWindow() {
+        Instant next = BUCKET.plusSeconds(60);
+        when(repository.findByFlagKeyAndGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+                "checkout", RollupGranularity.MINUTE, BUCKET, next.plusSeconds(60)))
+                .thenReturn(List.of(
+                        row(BUCKET, true, 3, "user-1", "user-2"),
+                        row(BUCKET, false, 1, "user-3"),
+                        row(next, true, 2, "user-1", "user-3")));
+
+        ExposureRollupResponse response = rollupService.query("checkout", RollupGranularity.MINUTE,
+                BUCKET.plusSeconds(20), next.plusSeconds(60));
+
+        assertEquals(BUCKET, response.getFrom()); // rounded down to the bucket
+        assertEquals(List.of(BUCKET, next),
+                response.getBuckets().stream().map(ExposureRollupResponse.Bucket::getStart).collect(Collectors.toList()));
+        ExposureRollupResponse.Bucket first = response.getBuckets().get(0);
+        assertEquals(3, first.getExposuresOn());
+        assertEquals(1, first.getExposuresOff());
+        assertEquals(3, first.getUniqueTargets());
+        ExposureRollupResponse.Counts total = response.getTotal();
+        assertEquals(5, total.getExposuresOn());
+        assertEquals(1, total.getExposuresOff());
+        assertEquals(3, total.getUniqueTargetsOn());
+        assertEquals(1, total.getUniqueTargetsOff());
+        // user-3 was seen with both results and counts once
+        assertEquals(3, total.getUniqueTargets());
+    }
+
+    private static Collection<ExposureAggregator.Rollup> minuteRollups(ExposureEvent... events) {
+        ExposureAggregator aggregator = new ExposureAggregator(0);
+        for (ExposureEvent event : events) {
+            aggregator.add(event);
+        }
+        return aggregator.drain().stream()
+                .filter(rollup -> rollup.getKey().getGranularity() == RollupGranularity.MINUTE)
+                .collect(Collectors.toList());
+    }
+
+    private static ExposureRollup row(Instant bucketStart, boolean result, long exposures, String... targetIds) {
+        HyperLogLog targets = new HyperLogLog();
+        for (String targetId : targetIds) {
+            targets.add(targetId);
+        }
+        ExposureRollup row = new ExposureRollup();
+        row.setFlagKey("checkout");
+        row.setGranularity(RollupGranularity.MINUTE);
+        row.setBucketStart(bucketStart);
+        row.setResult(result);
+        row.setExposures(exposures);
+        row.setTargets(targets.encode());
+        return row;
+    }
+}
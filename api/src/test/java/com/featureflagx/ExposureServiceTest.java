@@ -0,0 +1,147 @@
+package com.featureflagx;
+
+import com.featureflagx.exposure.ExposureAggregator;
+import com.featureflagx.exposure.ExposureEvent;
+import com.featureflagx.exposure.ExposureRingBuffer;
+import com.featureflagx.exposure.RollupGranularity;
+import com.featureflagx.repository.ExposureCopyWriter;
+import com.featureflagx.service.ExposureRollupService;
+import com.featureflagx.service.ExposureService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ExposureServiceTest {
+
+    @Mock
+    private ExposureCopyWriter writer;
+
+    @Mock
+    private ExposureRollupService rollupService;
+
+    @Test
+    void ringBuffer_shouldRejectWhenFullAndAcceptAfterDrain() {
+        ExposureRingBuffer<Integer> buffer = new ExposureRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, buffer.drain(drained::add, 2));
+        assertEquals(List.of(0, 1), drained);
+        assertTrue(buffer.offer(4));
+        assertTrue(buffer.offer(5));
+        assertFalse(buffer.offer(6));
+    }
+
+    @Test
+    void ringBuffer_shouldNotLoseElementsUnderConcurrentProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 10_000;
+        ExposureRingBuffer<Integer> buffer = new ExposureRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        long[] count = {0};
+        while (count[0] < (long) producers * perProducer) {
+            count[0] += buffer.drain(e -> { }, 256);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, buffer.drain(e -> { }, 256));
+    }
+
+    @Test
+    void aggregator_restore_shouldKeepNoMoreThanTheLimitOfNewBuckets() {
+        ExposureAggregator aggregator = new ExposureAggregator(RollupGranularity.values().length);
+        Instant now = Instant.now();
+        aggregator.add(new ExposureEvent("a", "user-1", true, now));
+        aggregator.add(new ExposureEvent("b", "user-1", true, now));
+        Collection<ExposureAggregator.Rollup> failed = aggregator.drain();
+        aggregator.add(new ExposureEvent("a", "user-2", true, now));
+
+        // a's buckets are pending again and take the new counts; b's are over the limit
+        assertEquals(RollupGranularity.values().length, aggregator.restore(failed));
+
+        Collection<ExposureAggregator.Rollup> retried = aggregator.drain();
+        assertEquals(RollupGranularity.values().length, retried.size());
+        for (ExposureAggregator.Rollup rollup : retried) {
+            assertEquals("a", rollup.getKey().getFlagKey());
+            assertEquals(2, rollup.getExposures());
+            assertEquals(2, rollup.getTargets().estimate());
+        }
+    }
+
+    @Test
+    void record_whenBufferFull_shouldDropAndCount() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExposureService service = new ExposureService(writer, rollupService, registry, true, 2, 10, 200, true, Duration.ofSeconds(10), 10_000);
+
+        service.record("flag", "user-1", true);
+        service.record("flag", "user-2", false);
+        service.record("flag", "user-3", true);
+
+        assertEquals(2.0, registry.counter("featureflagx.exposures.published").count());
+        assertEquals(1.0, registry.counter("featureflagx.exposures.dropped").count());
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stop_shouldWriteBufferedExposures() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExposureService service = new ExposureService(writer, rollupService, registry, true, 16, 10, 60_000, true, Duration.ofMinutes(1), 10_000);
+        List<ExposureEvent> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            written.addAll((List<ExposureEvent>) invocation.getArgument(0));
+            return null;
+        }).when(writer).write(anyList());
+        List<ExposureAggregator.Rollup> rollups = new ArrayList<>();
+        doAnswer(invocation -> {
+            rollups.addAll((Collection<ExposureAggregator.Rollup>) invocation.getArgument(0));
+            return null;
+        }).when(rollupService).merge(anyCollection());
+
+        service.start();
+        service.record("flag", "user-1", true);
+        service.record("flag", null, false);
+        service.stop();
+
+        assertEquals(2, written.size());
+        assertEquals("user-1", written.get(0).getTargetId());
+        assertNull(written.get(1).getTargetId());
+        assertFalse(written.get(1).getResult());
+        assertTrue(written.get(0).getEvaluatedAt().isBefore(Instant.now().plusSeconds(1)));
+        assertEquals(2.0, registry.counter("featureflagx.exposures.written").count());
+        // One rollup per granularity and result
+        assertEquals(2 * RollupGranularity.values().length, rollups.size());
+        assertEquals(1, rollups.stream().filter(rollup -> rollup.getKey().getGranularity() == RollupGranularity.MINUTE
+                && rollup.getKey().getResult()).findFirst().orElseThrow().getTargets().estimate());
+    }
+}
@@ -4,25 +4,38 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.featureflagx.dto.FlagRequest;
 import com.featureflagx.dto.FlagResponse;
 import com.featureflagx.model.Flag;
+import com.featureflagx.prerequisite.InvalidPrerequisitesException;
+import com.featureflagx.repository.FlagRepository;
+import com.featureflagx.service.ExposureService;
 import com.featureflagx.service.FlagService;
+import com.featureflagx.wire.FlagWireFormat;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -38,6 +51,9 @@ public class FlagControllerTest {
     @MockBean
     private FlagService flagService;
 
+    @MockBean
+    private ExposureService exposureService;
+
     @Autowired
     private ObjectMapper objectMapper; // For converting objects to JSON strings
 
@@ -69,7 +85,7 @@ public class FlagControllerTest {
 
     @Test
     void createFlag_shouldReturnCreatedFlag() throws Exception {
-        given(flagService.createFlag(any(FlagRequest.class))).willReturn(flag1);
+        given(flagService.createFlag(any(FlagRequest.class))).willReturn(Optional.of(flag1));
 
         ResultActions response = mockMvc.perform(post("/flags")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -80,6 +96,27 @@ public class FlagControllerTest {
                 .andExpect(jsonPath("$.enabled", is(flag1.isEnabled())));
     }
 
+    @Test
+    void createFlag_whenKeyExists_shouldReturnConflict() throws Exception {
+        given(flagService.createFlag(any(FlagRequest.class))).willReturn(Optional.empty());
+
+        mockMvc.perform(post("/flags")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(flagRequest1)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void createFlag_whenCreatedConcurrently_shouldReturnConflict() throws Exception {
+        given(flagService.createFlag(any(FlagRequest.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Flag.class, FLAG_KEY_1));
+
+        mockMvc.perform(post("/flags")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(flagRequest1)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void createFlag_whenKeyIsNull_shouldReturnBadRequest() throws Exception {
         FlagRequest badRequest = new FlagRequest(); // Key is null
@@ -92,6 +129,33 @@ public class FlagControllerTest {
         response.andExpect(status().isBadRequest());
     }
 
+    @Test
+    void createFlag_whenKeyIsAnEndpointPath_shouldReturnBadRequest() throws Exception {
+        for (String key : List.of("evaluate", "evaluate-all")) {
+            FlagRequest reserved = new FlagRequest();
+            reserved.setKey(key);
+
+            mockMvc.perform(post("/flags")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(reserved)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verifyNoInteractions(flagService);
+    }
+
+    @Test
+    void updateFlag_whenPrerequisitesFormCycle_shouldReturnBadRequest() throws Exception {
+        given(flagService.updateFlag(anyString(), any(FlagRequest.class)))
+                .willThrow(new InvalidPrerequisitesException("cycle"));
+
+        ResultActions response = mockMvc.perform(put("/flags/{key}", FLAG_KEY_1)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(flagRequest1)));
+
+        response.andExpect(status().isBadRequest());
+    }
+
 
     @Test
     void updateFlag_whenFlagExists_shouldReturnUpdatedFlag() throws Exception {
@@ -106,6 +170,31 @@ public class FlagControllerTest {
                 .andExpect(jsonPath("$.enabled", is(flag1.isEnabled())));
     }
 
+    @Test
+    void updateFlag_whenUpdatedConcurrently_shouldRetryOnce() throws Exception {
+        given(flagService.updateFlag(anyString(), any(FlagRequest.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Flag.class, FLAG_KEY_1))
+                .willReturn(Optional.of(flag1));
+
+        mockMvc.perform(put("/flags/{key}", FLAG_KEY_1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(flagRequest1)))
+                .andExpect(status().isOk());
+
+        verify(flagService, times(2)).updateFlag(anyString(), any(FlagRequest.class));
+    }
+
+    @Test
+    void updateFlag_whenRetryAlsoConflicts_shouldReturnConflict() throws Exception {
+        given(flagService.updateFlag(anyString(), any(FlagRequest.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Flag.class, FLAG_KEY_1));
+
+        mockMvc.perform(put("/flags/{key}", FLAG_KEY_1)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(flagRequest1)))
+                .andExpect(status().isConflict());
+    }
+
     @Test
     void updateFlag_whenFlagNotExists_shouldReturnNotFound() throws Exception {
         given(flagService.updateFlag(anyString(), any(FlagRequest.class))).willReturn(Optional.empty());
@@ -158,6 +247,7 @@ public class FlagControllerTest {
     void getAllFlags_shouldReturnListOfFlags() throws Exception {
         List<Flag> flags = Arrays.asList(flag1);
         given(flagService.getAllFlags()).willReturn(flags);
+        given(flagService.getFlagSetVersion()).willReturn(flagSetVersion(1, 0, flag1.getUpdatedAt()));
 
         ResultActions response = mockMvc.perform(get("/flags"));
 
@@ -166,6 +256,41 @@ public class FlagControllerTest {
                 .andExpect(jsonPath("$[0].key", is(flag1.getKey())));
     }
 
+    @Test
+    void getAllFlags_withFilters_shouldReturnPageAndNextLink() throws Exception {
+        Flag flag2 = new Flag();
+        flag2.setKey("test-flag-2");
+        flag2.setEnabled(true);
+        Flag flag3 = new Flag();
+        flag3.setKey("test-flag-3");
+        flag3.setEnabled(true);
+        given(flagService.searchFlags("test-", "checkout", true, null, 3)).willReturn(Arrays.asList(flag1, flag2, flag3));
+
+        ResultActions response = mockMvc.perform(get("/flags")
+                .param("prefix", "test-").param("tag", "checkout").param("enabled", "true").param("limit", "2"));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].key", is("test-flag-2")))
+                .andExpect(header().string("Link",
+                        "</flags?limit=2&prefix=test-&tag=checkout&enabled=true&after=test-flag-2>; rel=\"next\""));
+        verify(flagService, times(0)).getAllFlags();
+    }
+
+    @Test
+    void getAllFlags_withLastPageOrBadLimit_shouldOmitLinkOrReject() throws Exception {
+        given(flagService.searchFlags(null, null, null, FLAG_KEY_1, 101)).willReturn(List.of());
+
+        mockMvc.perform(get("/flags").param("after", FLAG_KEY_1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)))
+                .andExpect(header().doesNotExist("Link"));
+        mockMvc.perform(get("/flags").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/flags").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void evaluateFlag_shouldReturnEvaluationResult() throws Exception {
         given(flagService.isEnabled(FLAG_KEY_1, "user123")).willReturn(true);
@@ -174,7 +299,19 @@ public class FlagControllerTest {
                 .param("targetId", "user123"));
 
         response.andExpect(status().isOk())
-                .andExpect(content().string("true"));
+                .andExpect(content().string("true"))
+                .andExpect(header().doesNotExist("X-Target-Independent"));
+        verify(exposureService).record(FLAG_KEY_1, "user123", true);
+    }
+
+    @Test
+    void evaluateFlag_whenResultIsTheSameForEveryTarget_shouldSaySo() throws Exception {
+        given(flagService.isEnabled(FLAG_KEY_1, "user123")).willReturn(true);
+        given(flagService.isTargetIndependent(FLAG_KEY_1)).willReturn(true);
+
+        mockMvc.perform(get("/flags/evaluate/{key}", FLAG_KEY_1).param("targetId", "user123"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Target-Independent", "true"));
     }
      @Test
     void evaluateFlag_whenTargetIdNotProvided_shouldReturnEvaluationResult() throws Exception {
@@ -185,5 +322,139 @@ public class FlagControllerTest {
         response.andExpect(status().isOk())
                 .andExpect(content().string("true"));
     }
-}
 
+    @Test
+    void evaluateFlag_whenBinaryAccepted_shouldReturnBinaryResult() throws Exception {
+        given(flagService.isEnabled(FLAG_KEY_1, "user123")).willReturn(true);
+
+        byte[] body = mockMvc.perform(get("/flags/evaluate/{key}", FLAG_KEY_1)
+                        .param("targetId", "user123")
+                        .accept(FlagWireFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(FlagWireFormat.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(3, body.length);
+        assertTrue(FlagWireFormat.decodeEvaluation(body));
+    }
+
+    @Test
+    void evaluateFlags_shouldReturnResultPerKey() throws Exception {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        results.put(FLAG_KEY_1, true);
+        results.put("test-flag-2", false);
+        given(flagService.evaluateFlags(Arrays.asList(FLAG_KEY_1, "test-flag-2"), "user123")).willReturn(results);
+
+        mockMvc.perform(get("/flags/evaluate")
+                        .param("keys", FLAG_KEY_1 + ",test-flag-2")
+                        .param("targetId", "user123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + FLAG_KEY_1 + "']", is(true)))
+                .andExpect(jsonPath("$['test-flag-2']", is(false)));
+
+        byte[] body = mockMvc.perform(get("/flags/evaluate")
+                        .param("keys", FLAG_KEY_1 + ",test-flag-2")
+                        .param("targetId", "user123")
+                        .accept(FlagWireFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(results, FlagWireFormat.decodeBulkEvaluation(body));
+    }
+
+    @Test
+    void evaluateAllFlags_shouldReturnPrefixedResultsWithoutRecordingExposures() throws Exception {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        results.put("checkout.new-flow", true);
+        results.put("checkout.one-click", false);
+        given(flagService.evaluateAll("checkout.", "user123")).willReturn(results);
+
+        mockMvc.perform(get("/flags/evaluate-all")
+                        .param("targetId", "user123")
+                        .param("prefix", "checkout."))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['checkout.new-flow']", is(true)))
+                .andExpect(jsonPath("$['checkout.one-click']", is(false)));
+        byte[] body = mockMvc.perform(get("/flags/evaluate-all")
+                        .param("targetId", "user123")
+                        .param("prefix", "checkout.")
+                        .accept(FlagWireFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertEquals(results, FlagWireFormat.decodeBulkEvaluation(body));
+
+        verifyNoInteractions(exposureService);
+    }
+
+    @Test
+    void getAllFlags_whenBinaryAccepted_shouldReturnBinaryListing() throws Exception {
+        given(flagService.getAllFlags()).willReturn(Arrays.asList(flag1));
+        given(flagService.getFlagSetVersion()).willReturn(flagSetVersion(1, 0, flag1.getUpdatedAt()));
+
+        byte[] body = mockMvc.perform(get("/flags").accept(FlagWireFormat.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<FlagResponse> flags = FlagWireFormat.decodeFlagList(body);
+        assertEquals(1, flags.size());
+        assertEquals(FLAG_KEY_1, flags.get(0).getKey());
+        assertEquals(flag1.getConfig(), flags.get(0).getConfig());
+        assertEquals(flag1.getUpdatedAt(), flags.get(0).getUpdatedAt());
+    }
+
+    @Test
+    void getFlag_whenETagMatches_shouldReturnNotModified() throws Exception {
+        given(flagService.getFlag(FLAG_KEY_1)).willReturn(Optional.of(flag1));
+
+        String etag = mockMvc.perform(get("/flags/{key}", FLAG_KEY_1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/flags/{key}", FLAG_KEY_1).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        flag1.setVersion(flag1.getVersion() + 1);
+        mockMvc.perform(get("/flags/{key}", FLAG_KEY_1).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.key", is(FLAG_KEY_1)));
+    }
+
+    @Test
+    void getAllFlags_whenETagMatches_shouldNotLoadFlags() throws Exception {
+        given(flagService.getFlagSetVersion()).willReturn(flagSetVersion(3, 7, flag1.getUpdatedAt()));
+
+        String etag = mockMvc.perform(get("/flags").header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        String binaryEtag = mockMvc.perform(get("/flags").accept(FlagWireFormat.MEDIA_TYPE))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, binaryEtag);
+
+        mockMvc.perform(get("/flags").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verify(flagService, times(2)).getAllFlags(); // the conditional hit never loaded the rows
+    }
+
+    private static FlagRepository.FlagSetVersion flagSetVersion(long count, long versionSum, Instant lastUpdatedAt) {
+        return new FlagRepository.FlagSetVersion() {
+            @Override
+            public long getCount() {
+                return count;
+            }
+
+            @Override
+            public long getVersionSum() {
+                return versionSum;
+            }
+
+            @Override
+            public Instant getLastUpdatedAt() {
+                return lastUpdatedAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,175 @@
+package com.featureflagx;
+
+import com.featureflagx.event.FlagChangedEvent;
+import com.featureflagx.grpc.FlagEvaluationGrpcService;
+import com.featureflagx.grpc.proto.BatchEvaluateRequest;
+import com.featureflagx.grpc.proto.BatchEvaluateResponse;
+import com.featureflagx.grpc.proto.EvaluateRequest;
+import com.featureflagx.grpc.proto.FlagChange;
+import com.featureflagx.grpc.proto.FlagEvaluationServiceGrpc;
+import com.featureflagx.grpc.proto.SessionRequest;
+import com.featureflagx.grpc.proto.SessionResponse;
+import com.featureflagx.grpc.proto.Subscribe;
+import com.featureflagx.service.ExposureService;
+import com.featureflagx.service.FlagService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FlagEvaluationGrpcServiceTest {
+
+    @Mock
+    private FlagService flagService;
+
+    @Mock
+    private ExposureService exposureService;
+
+    private FlagEvaluationGrpcService service;
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new FlagEvaluationGrpcService(flagService, exposureService);
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(service).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void evaluate_shouldDelegateToFlagService() {
+        when(flagService.isEnabled("new-checkout", "user-1")).thenReturn(true);
+
+        boolean enabled = FlagEvaluationServiceGrpc.newBlockingStub(channel)
+                .evaluate(EvaluateRequest.newBuilder().setFlagKey("new-checkout").setTargetId("user-1").build())
+                .getEnabled();
+
+        assertTrue(enabled);
+        verify(exposureService).record("new-checkout", "user-1", true);
+    }
+
+    @Test
+    void evaluate_withoutKey_shouldReturnInvalidArgument() {
+        StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () ->
+                FlagEvaluationServiceGrpc.newBlockingStub(channel).evaluate(EvaluateRequest.getDefaultInstance()));
+        assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+    }
+
+    @Test
+    void batchEvaluate_shouldReturnResultPerKey() {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        results.put("a", true);
+        results.put("b", false);
+        when(flagService.evaluateFlags(Arrays.asList("a", "b"), null)).thenReturn(results);
+
+        BatchEvaluateResponse response = FlagEvaluationServiceGrpc.newBlockingStub(channel)
+                .batchEvaluate(BatchEvaluateRequest.newBuilder().addFlagKeys("a").addFlagKeys("b").build());
+
+        assertEquals(2, response.getResultsCount());
+        assertTrue(response.getResults(0).getEnabled());
+        assertFalse(response.getResults(1).getEnabled());
+    }
+
+    @Test
+    void session_shouldAnswerRequestsAndPushSubscribedChanges() throws Exception {
+        when(flagService.isEnabled("a", null)).thenReturn(true);
+        BlockingQueue<SessionResponse> received = new LinkedBlockingQueue<>();
+        StreamObserver<SessionRequest> requests = FlagEvaluationServiceGrpc.newStub(channel).session(new StreamObserver<SessionResponse>() {
+            @Override
+            public void onNext(SessionResponse value) {
+                received.add(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        requests.onNext(SessionRequest.newBuilder().setRequestId(7)
+                .setEvaluate(EvaluateRequest.newBuilder().setFlagKey("a")).build());
+        SessionResponse evaluation = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(7, evaluation.getRequestId());
+        assertTrue(evaluation.getEvaluation().getEnabled());
+
+        requests.onNext(SessionRequest.newBuilder().setSubscribe(Subscribe.newBuilder().addFlagKeys("a")).build());
+        service.onFlagChanged(new FlagChangedEvent("other", FlagChangedEvent.Type.UPDATED, true));
+        service.onFlagChanged(new FlagChangedEvent("a", FlagChangedEvent.Type.UPDATED, false));
+
+        SessionResponse change = received.poll(5, TimeUnit.SECONDS);
+        assertEquals("a", change.getFlagChange().getFlagKey());
+        assertEquals(FlagChange.Type.UPDATED, change.getFlagChange().getType());
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS)); // "other" was filtered out
+
+        requests.onCompleted();
+        assertEquals(0, service.getSessionCount());
+    }
+
+    @Test
+    void session_withoutKey_shouldAnswerWithErrorAndStayOpen() throws Exception {
+        when(flagService.isEnabled("a", null)).thenReturn(true);
+        BlockingQueue<SessionResponse> received = new LinkedBlockingQueue<>();
+        StreamObserver<SessionRequest> requests = FlagEvaluationServiceGrpc.newStub(channel).session(new StreamObserver<SessionResponse>() {
+            @Override
+            public void onNext(SessionResponse value) {
+                received.add(value);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+
+        requests.onNext(SessionRequest.newBuilder().setRequestId(1).setEvaluate(EvaluateRequest.getDefaultInstance()).build());
+        requests.onNext(SessionRequest.newBuilder().setRequestId(2).setBatchEvaluate(BatchEvaluateRequest.getDefaultInstance()).build());
+        requests.onNext(SessionRequest.newBuilder().setRequestId(3)
+                .setEvaluate(EvaluateRequest.newBuilder().setFlagKey("a")).build());
+
+        SessionResponse missingKey = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(1, missingKey.getRequestId());
+        assertEquals(Status.Code.INVALID_ARGUMENT.value(), missingKey.getError().getCode());
+        assertEquals("flag_key is required", missingKey.getError().getMessage());
+        SessionResponse missingKeys = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(2, missingKeys.getRequestId());
+        assertEquals(Status.Code.INVALID_ARGUMENT.value(), missingKeys.getError().getCode());
+        assertTrue(received.poll(5, TimeUnit.SECONDS).getEvaluation().getEnabled());
+        verify(flagService, never()).isEnabled(eq(""), any());
+        verify(flagService, never()).evaluateFlags(anyList(), any());
+
+        requests.onCompleted();
+    }
+}
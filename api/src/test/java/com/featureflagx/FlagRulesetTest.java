@@ -0,0 +1,87 @@
+package com.featureflagx;
+
+import com.featureflagx.model.Flag;
+import com.featureflagx.ruleset.FlagRuleset;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlagRulesetTest {
+
+    private final FlagRuleset ruleset = FlagRuleset.compile(List.of(
+            flag("checkout.new-flow", true, "{\"prerequisites\": [\"payments-v2\"]}"),
+            flag("checkout.one-click", true, "{\"prerequisites\": [\"checkout.new-flow\", \"missing\"]}"),
+            flag("checkout.beta-banner", true, "{\"segments\": [\"beta-users\"]}"),
+            flag("payments-v2", true, "{\"segments\": [\"beta-users\", \"staff\"]}"),
+            flag("search.v2", false, null)));
+
+    @Test
+    void evaluateAll_shouldApplySegmentsAndPrerequisitesInKeyOrder() {
+        Map<String, Boolean> results = ruleset.evaluateAll("", "user-1",
+                (segments, targetId) -> segments.contains("staff"));
+
+        assertEquals(List.of("checkout.beta-banner", "checkout.new-flow", "checkout.one-click", "payments-v2", "search.v2"),
+                new ArrayList<>(results.keySet()));
+        assertFalse(results.get("checkout.beta-banner"));
+        assertTrue(results.get("payments-v2"));
+        assertTrue(results.get("checkout.new-flow"));
+        assertFalse(results.get("checkout.one-click"), "a missing prerequisite evaluates to off");
+        assertFalse(results.get("search.v2"));
+    }
+
+    @Test
+    void evaluateAll_shouldOnlyEvaluatePrefixButStillFollowPrerequisitesOutsideIt() {
+        List<List<String>> segmentChecks = new ArrayList<>();
+        Map<String, Boolean> results = ruleset.evaluateAll("checkout.", "user-1", (segments, targetId) -> {
+            segmentChecks.add(segments);
+            return true;
+        });
+
+        assertEquals(Set.of("checkout.beta-banner", "checkout.new-flow", "checkout.one-click"), results.keySet());
+        assertTrue(results.get("checkout.new-flow"));
+        assertEquals(2, segmentChecks.size(), "the shared prerequisite is evaluated once");
+        assertEquals(Map.of(), ruleset.evaluateAll("zzz", "user-1", (segments, targetId) -> true));
+    }
+
+    @Test
+    void evaluateAll_withoutTarget_shouldTurnSegmentTargetedFlagsOff() {
+        Map<String, Boolean> results = ruleset.evaluateAll("", null, (segments, targetId) -> fail("no target to look up"));
+
+        assertFalse(results.get("checkout.beta-banner"));
+        assertFalse(results.get("checkout.new-flow"));
+    }
+
+    @Test
+    void compile_shouldIndexSegmentReferences() {
+        assertEquals(List.of("checkout.beta-banner", "payments-v2"), ruleset.flagsReferencing("beta-users"));
+        assertEquals(List.of("beta-users", "staff"), ruleset.segmentsOf("payments-v2"));
+        assertEquals(List.of(), ruleset.segmentsOf("search.v2"));
+        assertEquals(Set.of("checkout.new-flow", "checkout.one-click"), ruleset.getPrerequisites().dependentsOf("payments-v2"));
+    }
+
+    @Test
+    void isTargetIndependent_shouldFollowSegmentsThroughPrerequisites() {
+        assertTrue(ruleset.isTargetIndependent("search.v2"));
+        assertFalse(ruleset.isTargetIndependent("checkout.beta-banner"));
+        assertFalse(ruleset.isTargetIndependent("checkout.one-click"), "payments-v2 is segment-targeted");
+        assertFalse(ruleset.isTargetIndependent("not-compiled-yet"));
+
+        FlagRuleset cyclic = FlagRuleset.compile(List.of(
+                flag("a", true, "{\"prerequisites\": [\"b\"]}"),
+                flag("b", true, "{\"prerequisites\": [\"a\"], \"segments\": [\"staff\"]}")));
+        assertTrue(cyclic.isTargetIndependent("a"), "cyclic flags are off for everyone");
+    }
+
+    private static Flag flag(String key, boolean enabled, String config) {
+        Flag flag = new Flag();
+        flag.setKey(key);
+        flag.setEnabled(enabled);
+        flag.setConfig(config);
+        return flag;
+    }
+}
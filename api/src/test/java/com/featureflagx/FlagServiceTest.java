@@ -1,24 +1,45 @@
 package com.featureflagx;
 
+import com.featureflagx.cache.CachedEvaluation;
+import com.featureflagx.cache.HotFlagCache;
+import com.featureflagx.cache.OffHeapResultCache;
+import com.featureflagx.event.FlagChangePublisher;
+import com.featureflagx.event.FlagChangedEvent;
 import com.featureflagx.model.Flag;
+import com.featureflagx.prerequisite.InvalidPrerequisitesException;
 import com.featureflagx.repository.FlagRepository;
+import com.featureflagx.repository.FlagSearchRepository;
+import com.featureflagx.ruleset.FlagRuleset;
+import com.featureflagx.ruleset.RulesetRegistry;
+import com.featureflagx.segment.SegmentRegistry;
 import com.featureflagx.service.FlagService;
 import com.featureflagx.dto.FlagRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 import java.util.List;
+import java.util.Map;
 import java.util.Arrays;
-
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -28,22 +49,43 @@ public class FlagServiceTest {
     @Mock
     private FlagRepository flagRepository;
 
+    @Mock
+    private FlagSearchRepository flagSearchRepository;
+
     @Mock
     private RedisTemplate<String, Object> redisTemplate;
 
     @Mock
     private ValueOperations<String, Object> valueOperations;
 
-    @InjectMocks
+    @Mock
+    private FlagChangePublisher changePublisher;
+
+    @Mock
+    private HotFlagCache hotFlagCache;
+
+    @Mock
+    private OffHeapResultCache resultCache;
+
+    @Mock
+    private RulesetRegistry rulesetRegistry;
+
+    @Mock
+    private SegmentRegistry segmentRegistry;
+
     private FlagService flagService;
 
     private Flag flag1;
     private FlagRequest flagRequest1;
     private final String FLAG_KEY_1 = "test-flag-1";
     private final String REDIS_PREFIXED_KEY_1 = "flag:" + FLAG_KEY_1;
+    private final String REDIS_LOCK_KEY_1 = "flag-lock:" + FLAG_KEY_1;
 
     @BeforeEach
     void setUp() {
+        flagService = new FlagService(flagRepository, flagSearchRepository, redisTemplate, redisTemplate, changePublisher, hotFlagCache,
+                resultCache, rulesetRegistry, segmentRegistry, Duration.ofMinutes(5));
+
         flag1 = new Flag();
         flag1.setKey(FLAG_KEY_1);
         flag1.setEnabled(true);
@@ -57,18 +99,33 @@ public class FlagServiceTest {
 
         // Mock Redis operations
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        // Mockito would answer false for the Boolean; null is a miss
+        lenient().when(resultCache.get(anyString(), anyString())).thenReturn(null);
+        lenient().when(rulesetRegistry.current()).thenReturn(FlagRuleset.EMPTY);
+        lenient().when(segmentRegistry.matches(anyString(), any())).thenReturn(true);
     }
 
     @Test
     void createFlag_shouldSaveToRepositoryAndClearCache() {
         when(flagRepository.save(any(Flag.class))).thenReturn(flag1);
 
-        Flag result = flagService.createFlag(flagRequest1);
+        Flag result = flagService.createFlag(flagRequest1).orElseThrow();
 
-        assertNotNull(result);
         assertEquals(FLAG_KEY_1, result.getKey());
         verify(flagRepository, times(1)).save(any(Flag.class));
         verify(redisTemplate, times(1)).delete(REDIS_PREFIXED_KEY_1);
+        verify(changePublisher, times(1)).publish(argThat(event ->
+                event.getKey().equals(FLAG_KEY_1) && event.getType() == FlagChangedEvent.Type.CREATED));
+    }
+
+    @Test
+    void createFlag_whenKeyExists_shouldLeaveTheFlagAlone() {
+        when(flagRepository.existsById(FLAG_KEY_1)).thenReturn(true);
+
+        assertTrue(flagService.createFlag(flagRequest1).isEmpty());
+
+        verify(flagRepository, never()).save(any(Flag.class));
+        verifyNoInteractions(changePublisher);
     }
 
     @Test
@@ -96,6 +153,25 @@ public class FlagServiceTest {
         verify(redisTemplate, times(1)).delete(REDIS_PREFIXED_KEY_1);
     }
 
+    @Test
+    void updateFlag_inATransaction_shouldClearTheCacheAgainAfterCommit() {
+        when(flagRepository.findById(FLAG_KEY_1)).thenReturn(Optional.of(flag1));
+        when(flagRepository.save(any(Flag.class))).thenReturn(flag1);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            flagService.updateFlag(FLAG_KEY_1, flagRequest1);
+            verify(redisTemplate, times(1)).delete(REDIS_PREFIXED_KEY_1);
+
+            // A miss before commit re-cached the old row
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate, times(2)).delete(REDIS_PREFIXED_KEY_1);
+        verify(resultCache, times(2)).invalidate(FLAG_KEY_1);
+    }
+
     @Test
     void updateFlag_whenFlagNotExists_shouldReturnEmpty() {
         when(flagRepository.findById("non-existent-key")).thenReturn(Optional.empty());
@@ -106,6 +182,7 @@ public class FlagServiceTest {
         verify(flagRepository, times(1)).findById("non-existent-key");
         verify(flagRepository, never()).save(any(Flag.class));
         verify(redisTemplate, never()).delete(anyString());
+        verify(changePublisher, never()).publish(any());
     }
 
     @Test
@@ -119,6 +196,8 @@ public class FlagServiceTest {
         verify(flagRepository, times(1)).existsById(FLAG_KEY_1);
         verify(flagRepository, times(1)).deleteById(FLAG_KEY_1);
         verify(redisTemplate, times(1)).delete(REDIS_PREFIXED_KEY_1);
+        verify(hotFlagCache).evict(FLAG_KEY_1);
+        verify(changePublisher, times(1)).publish(argThat(event -> event.getType() == FlagChangedEvent.Type.DELETED));
     }
 
     @Test
@@ -162,9 +241,114 @@ public class FlagServiceTest {
         verify(flagRepository, never()).findById(anyString());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void isEnabled_shouldReadFromReplicaTemplateAndWriteToPrimary() {
+        RedisTemplate<String, Object> readRedisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> replicaValueOperations = mock(ValueOperations.class);
+        when(readRedisTemplate.opsForValue()).thenReturn(replicaValueOperations);
+        when(valueOperations.setIfAbsent(eq(REDIS_LOCK_KEY_1), any(), any(Duration.class))).thenReturn(true);
+        when(flagRepository.findById(FLAG_KEY_1)).thenReturn(Optional.of(flag1));
+        FlagService service = new FlagService(flagRepository, flagSearchRepository, redisTemplate, readRedisTemplate, changePublisher, hotFlagCache,
+                resultCache, rulesetRegistry, segmentRegistry, Duration.ofMinutes(5));
+
+        assertTrue(service.isEnabled(FLAG_KEY_1, "user123"));
+
+        verify(replicaValueOperations).get(REDIS_PREFIXED_KEY_1);
+        verify(valueOperations, never()).get(anyString());
+        verify(valueOperations).set(eq(REDIS_PREFIXED_KEY_1), startsWith("1:"), eq(Duration.ofMinutes(5)));
+        verifyNoMoreInteractions(replicaValueOperations);
+    }
+
+    @Test
+    void isEnabled_whenPinned_shouldNotTouchRedis() {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        when(hotFlagCache.get(FLAG_KEY_1)).thenReturn(new CachedEvaluation(true, 5, expiresAt));
+
+        assertTrue(flagService.isEnabled(FLAG_KEY_1, "user123"));
+
+        verifyNoInteractions(valueOperations);
+        verify(flagRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void createFlag_whenPrerequisitesInvalid_shouldNotSave() {
+        doThrow(new InvalidPrerequisitesException("cycle")).when(rulesetRegistry)
+                .validate(FLAG_KEY_1, flagRequest1.getConfig());
+
+        assertThrows(InvalidPrerequisitesException.class, () -> flagService.createFlag(flagRequest1));
+
+        verify(flagRepository, never()).save(any(Flag.class));
+        verifyNoInteractions(changePublisher);
+    }
+
+    @Test
+    void isEnabled_whenPrerequisiteOff_shouldBeOffAndFetchAllStatesInOneRoundTrip() {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        when(rulesetRegistry.current()).thenReturn(ruleset(Map.of(FLAG_KEY_1, List.of("payments-v2"))));
+        when(valueOperations.multiGet(List.of("flag:payments-v2", REDIS_PREFIXED_KEY_1))).thenReturn(Arrays.asList(
+                new CachedEvaluation(false, 5, expiresAt).encode(),
+                new CachedEvaluation(true, 5, expiresAt).encode()));
+
+        assertFalse(flagService.isEnabled(FLAG_KEY_1, "user123"));
+
+        verify(valueOperations, never()).get(anyString());
+        verify(resultCache).put(FLAG_KEY_1, "user123", 0, false);
+    }
+
+    @Test
+    void evaluateFlags_shouldEvaluateSharedPrerequisiteOnce() {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        String on = new CachedEvaluation(true, 5, expiresAt).encode();
+        when(rulesetRegistry.current()).thenReturn(ruleset(Map.of(
+                "new-checkout", List.of("payments-v2"),
+                "one-click", List.of("payments-v2"))));
+        when(valueOperations.multiGet(List.of("flag:payments-v2", "flag:new-checkout", "flag:one-click")))
+                .thenReturn(Arrays.asList(on, on, on));
+
+        Map<String, Boolean> results = flagService.evaluateFlags(List.of("new-checkout", "one-click"), null);
+
+        assertEquals(Map.of("new-checkout", true, "one-click", true), results);
+        assertEquals(List.of("new-checkout", "one-click"), new ArrayList<>(results.keySet()));
+        verify(hotFlagCache, times(1)).get("payments-v2");
+    }
+
+    @Test
+    void isEnabled_whenTargetNotInFlagSegments_shouldBeOff() {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn(new CachedEvaluation(true, 5, expiresAt).encode());
+        when(segmentRegistry.matches(FLAG_KEY_1, "user123")).thenReturn(false);
+
+        assertFalse(flagService.isEnabled(FLAG_KEY_1, "user123"));
+
+        verify(resultCache).put(FLAG_KEY_1, "user123", 0, false);
+    }
+
+    @Test
+    void isEnabled_whenTargetResultCached_shouldSkipFlagCaches() {
+        when(resultCache.get(FLAG_KEY_1, "user123")).thenReturn(false);
+
+        assertFalse(flagService.isEnabled(FLAG_KEY_1, "user123"));
+
+        verifyNoInteractions(hotFlagCache, valueOperations);
+        verify(resultCache, never()).put(anyString(), anyString(), anyInt(), anyBoolean());
+    }
+
+    @Test
+    void isEnabled_whenLoadedFromDb_shouldOfferEntryForPinning() {
+        when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn(null);
+        when(valueOperations.setIfAbsent(eq(REDIS_LOCK_KEY_1), any(), any(Duration.class))).thenReturn(true);
+        when(flagRepository.findById(FLAG_KEY_1)).thenReturn(Optional.of(flag1));
+
+        flagService.isEnabled(FLAG_KEY_1, "user123");
+
+        verify(hotFlagCache).put(eq(FLAG_KEY_1), anyInt(), argThat(entry -> entry != null && entry.isEnabled()));
+    }
+
     @Test
     void isEnabled_whenNotCachedAndFlagExists_shouldFetchFromDbAndCache() {
         when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn(null);
+        when(valueOperations.setIfAbsent(eq(REDIS_LOCK_KEY_1), any(), any(Duration.class))).thenReturn(true);
         when(flagRepository.findById(FLAG_KEY_1)).thenReturn(Optional.of(flag1));
 
         boolean result = flagService.isEnabled(FLAG_KEY_1, "user123");
@@ -172,7 +356,7 @@ public class FlagServiceTest {
         assertTrue(result);
         verify(valueOperations, times(1)).get(REDIS_PREFIXED_KEY_1);
         verify(flagRepository, times(1)).findById(FLAG_KEY_1);
-        verify(valueOperations, times(1)).set(REDIS_PREFIXED_KEY_1, true, Duration.ofMinutes(5));
+        verify(valueOperations, times(1)).set(eq(REDIS_PREFIXED_KEY_1), startsWith("1:"), eq(Duration.ofMinutes(5)));
     }
 
     @Test
@@ -180,6 +364,7 @@ public class FlagServiceTest {
         String nonExistentKey = "non-existent-flag";
         String redisNonExistentKey = "flag:" + nonExistentKey;
         when(valueOperations.get(redisNonExistentKey)).thenReturn(null);
+        when(valueOperations.setIfAbsent(eq("flag-lock:" + nonExistentKey), any(), any(Duration.class))).thenReturn(true);
         when(flagRepository.findById(nonExistentKey)).thenReturn(Optional.empty());
 
         boolean result = flagService.isEnabled(nonExistentKey, "user123");
@@ -187,7 +372,150 @@ public class FlagServiceTest {
         assertFalse(result);
         verify(valueOperations, times(1)).get(redisNonExistentKey);
         verify(flagRepository, times(1)).findById(nonExistentKey);
-        verify(valueOperations, times(1)).set(redisNonExistentKey, false, Duration.ofMinutes(5));
+        verify(valueOperations, times(1)).set(eq(redisNonExistentKey), startsWith("0:"), eq(Duration.ofMinutes(5)));
     }
-}
 
+    @Test
+    void isEnabled_whenCachedEntryFarFromExpiry_shouldNotRefresh() {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn("1:5:" + expiresAt);
+
+        boolean result = flagService.isEnabled(FLAG_KEY_1, "user123");
+
+        assertTrue(result);
+        verify(flagRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void isEnabled_whenCachedEntryAtExpiry_shouldRefreshEarly() {
+        long expiresAt = System.currentTimeMillis() - 1;
+        when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn("0:5:" + expiresAt);
+        when(valueOperations.setIfAbsent(eq(REDIS_LOCK_KEY_1), any(), any(Duration.class))).thenReturn(true);
+        when(flagRepository.findById(FLAG_KEY_1)).thenReturn(Optional.of(flag1));
+
+        boolean result = flagService.isEnabled(FLAG_KEY_1, "user123");
+
+        assertTrue(result);
+        verify(flagRepository, times(1)).findById(FLAG_KEY_1);
+        verify(valueOperations, times(1)).set(eq(REDIS_PREFIXED_KEY_1), startsWith("1:"), eq(Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void isEnabled_whenEarlyRefreshLockHeldElsewhere_shouldServeCachedValue() {
+        long expiresAt = System.currentTimeMillis() - 1;
+        when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn("0:5:" + expiresAt);
+        when(valueOperations.setIfAbsent(eq(REDIS_LOCK_KEY_1), any(), any(Duration.class))).thenReturn(false);
+
+        boolean result = flagService.isEnabled(FLAG_KEY_1, "user123");
+
+        assertFalse(result);
+        verify(flagRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void isEnabled_whenMissLockHeldElsewhere_shouldWaitForOtherNodeToFill() {
+        long expiresAt = System.currentTimeMillis() + Duration.ofMinutes(5).toMillis();
+        when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn(null, "1:5:" + expiresAt);
+        when(valueOperations.setIfAbsent(eq(REDIS_LOCK_KEY_1), any(), any(Duration.class))).thenReturn(false);
+
+        boolean result = flagService.isEnabled(FLAG_KEY_1, "user123");
+
+        assertTrue(result);
+        verify(flagRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void isEnabled_whenConcurrentMisses_shouldLoadFromDbOnce() throws Exception {
+        int callers = 8;
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(valueOperations.get(REDIS_PREFIXED_KEY_1)).thenReturn(null);
+        when(valueOperations.setIfAbsent(eq(REDIS_LOCK_KEY_1), any(), any(Duration.class))).thenReturn(true);
+        when(flagRepository.findById(FLAG_KEY_1)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(flag1);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            results.add(executor.submit(() -> flagService.isEnabled(FLAG_KEY_1, "user123")));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> flagService.isEnabled(FLAG_KEY_1, "user123")));
+            }
+            Thread.sleep(50); // let the followers reach the in-flight load
+            release.countDown();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(flagRepository, times(1)).findById(FLAG_KEY_1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void preloadCache_shouldOnlyFillMissingKeys() {
+        RedisOperations<String, Object> pipeline = mock(RedisOperations.class);
+        when(pipeline.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(pipeline);
+            return List.of();
+        });
+
+        when(flagRepository.findVersionsByKeyIn(List.of(FLAG_KEY_1))).thenReturn(List.of(version(FLAG_KEY_1, 0)));
+
+        flagService.preloadCache(List.of(flag1));
+
+        // A value cached since the flags were read must win over the warm-up's copy
+        verify(valueOperations).setIfAbsent(eq(REDIS_PREFIXED_KEY_1), startsWith("1:"), eq(Duration.ofMinutes(5)));
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+        verify(redisTemplate, never()).delete(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void preloadCache_whenFlagChangedSinceRead_shouldDeleteWhatItFilled() {
+        RedisOperations<String, Object> pipeline = mock(RedisOperations.class);
+        when(pipeline.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            invocation.<SessionCallback<Object>>getArgument(0).execute(pipeline);
+            return List.of();
+        });
+        // The update's own deletion ran before the fill
+        when(flagRepository.findVersionsByKeyIn(List.of(FLAG_KEY_1))).thenReturn(List.of(version(FLAG_KEY_1, 1)));
+
+        flagService.preloadCache(List.of(flag1));
+
+        verify(redisTemplate).delete(List.of(REDIS_PREFIXED_KEY_1));
+    }
+
+    private static FlagRepository.FlagVersion version(String key, long version) {
+        return new FlagRepository.FlagVersion() {
+            @Override
+            public String getFlagKey() {
+                return key;
+            }
+
+            @Override
+            public long getVersion() {
+                return version;
+            }
+        };
+    }
+
+    private static FlagRuleset ruleset(Map<String, List<String>> prerequisites) {
+        List<Flag> flags = new ArrayList<>();
+        prerequisites.forEach((key, required) -> {
+            Flag flag = new Flag();
+            flag.setKey(key);
+            flag.setEnabled(true);
+            flag.setConfig("{\"prerequisites\": [\"" + String.join("\", \"", required) + "\"]}");
+            flags.add(flag);
+        });
+        return FlagRuleset.compile(flags);
+    }
+}
@@ -0,0 +1,146 @@
+package com.featureflagx;
+
+import com.featureflagx.cache.CachedEvaluation;
+import com.featureflagx.cache.CountMinSketch;
+import com.featureflagx.cache.HotFlagCache;
+import com.featureflagx.cache.HotKeyTracker;
+import com.featureflagx.event.FlagChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotFlagCacheTest {
+
+    @Test
+    void sketch_shouldNeverUnderestimateAndHalveOnDecay() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 1000; i++) {
+            sketch.increment("hot");
+        }
+        for (int key = 0; key < 5000; key++) {
+            sketch.increment("cold-" + key);
+        }
+
+        int estimate = sketch.estimate("hot");
+        assertTrue(estimate >= 1000);
+        assertTrue(estimate < 1100, "estimate was " + estimate);
+        assertTrue(sketch.estimate("never-seen") < 10, "unseen keys should only pick up a few collisions");
+
+        sketch.halve();
+        assertEquals(estimate / 2, sketch.estimate("hot"), 1);
+    }
+
+    @Test
+    void tracker_shouldKeepTheMostFrequentKeys() {
+        HotKeyTracker tracker = new HotKeyTracker(1024, 4, 3);
+        for (int round = 0; round < 100; round++) {
+            tracker.record("a");
+            tracker.record("a");
+            tracker.record("a");
+            tracker.record("b");
+            tracker.record("b");
+            tracker.record("c");
+            tracker.record("noise-" + round);
+        }
+
+        List<Map.Entry<String, Integer>> top = tracker.topKeys();
+        assertEquals(List.of("a", "b", "c"), top.stream().map(Map.Entry::getKey).toList());
+        assertTrue(top.get(0).getValue() >= 300);
+        assertEquals(0, tracker.topCount("noise-1"));
+    }
+
+    @Test
+    void tracker_shouldForgetKeysThatGoQuiet() {
+        HotKeyTracker tracker = new HotKeyTracker(1024, 4, 3);
+        tracker.record("once");
+        assertEquals(1, tracker.topCount("once"));
+
+        tracker.decay();
+        assertEquals(0, tracker.topCount("once"));
+        assertTrue(tracker.topKeys().isEmpty());
+    }
+
+    @Test
+    void cache_shouldPinOnlyHotFlags() {
+        HotFlagCache cache = cache(10);
+        CachedEvaluation evaluation = fresh(true);
+
+        cache.get("cold");
+        cache.put("cold", cache.generation("cold"), evaluation);
+        assertNull(cache.get("cold"));
+
+        heat(cache, "hot", 10);
+        cache.put("hot", cache.generation("hot"), evaluation);
+        assertSame(evaluation, cache.get("hot"));
+        assertEquals(1, cache.getPinnedCount());
+        assertTrue(cache.getHotFlags().get(0).isPinned());
+    }
+
+    @Test
+    void cache_shouldEvictOnFlagChange() {
+        HotFlagCache cache = cache(1);
+        heat(cache, "hot", 5);
+        cache.put("hot", cache.generation("hot"), fresh(true));
+
+        cache.onFlagChanged(new FlagChangedEvent("hot", FlagChangedEvent.Type.UPDATED, false));
+
+        assertNull(cache.get("hot"));
+    }
+
+    @Test
+    void cache_shouldDropEntriesLoadedBeforeAnEviction() {
+        HotFlagCache cache = cache(1);
+        heat(cache, "hot", 5);
+        int loadedAt = cache.generation("hot");
+
+        cache.evict("hot"); // the change lands while the old value is being read
+        cache.put("hot", loadedAt, fresh(true));
+
+        assertNull(cache.get("hot"));
+        assertEquals(0, cache.getPinnedCount());
+
+        cache.put("hot", cache.generation("hot"), fresh(false));
+        assertFalse(cache.get("hot").isEnabled());
+    }
+
+    @Test
+    void cache_shouldNotServeExpiredEntries() {
+        HotFlagCache cache = cache(1);
+        heat(cache, "hot", 5);
+        cache.put("hot", cache.generation("hot"), new CachedEvaluation(true, 5, System.currentTimeMillis() - 1));
+
+        assertNull(cache.get("hot"));
+        assertEquals(0, cache.getPinnedCount());
+    }
+
+    @Test
+    void cache_shouldUnpinFlagsThatCoolDown() {
+        HotFlagCache cache = cache(8);
+        heat(cache, "hot", 10);
+        cache.put("hot", cache.generation("hot"), fresh(true));
+        assertEquals(1, cache.getPinnedCount());
+
+        cache.decay(); // 10 -> 5, below the threshold of 8
+
+        assertEquals(0, cache.getPinnedCount());
+        assertNull(cache.get("hot"));
+    }
+
+    private static HotFlagCache cache(int minCount) {
+        return new HotFlagCache(true, 4, minCount, Duration.ofHours(1), Duration.ofMinutes(1), 1024, 4);
+    }
+
+    private static void heat(HotFlagCache cache, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.get(key);
+        }
+    }
+
+    private static CachedEvaluation fresh(boolean enabled) {
+        return new CachedEvaluation(enabled, 5, System.currentTimeMillis() + 60_000);
+    }
+}
@@ -0,0 +1,44 @@
+package com.featureflagx;
+
+import com.featureflagx.exposure.HyperLogLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    void estimate_shouldBeWithinErrorBoundsAndSurviveEncoding() {
+        HyperLogLog small = new HyperLogLog();
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            small.add("user-" + i);
+            small.add("user-" + i); // duplicates don't count
+        }
+        for (int i = 0; i < 100_000; i++) {
+            large.add("user-" + i);
+        }
+
+        assertEquals(100, small.estimate(), 2);
+        assertEquals(100_000, large.estimate(), 100_000 * 0.05);
+        assertTrue(small.encode().length < 400, "sparse while small");
+        assertEquals(small.estimate(), HyperLogLog.decode(small.encode()).estimate());
+        assertEquals(large.estimate(), HyperLogLog.decode(large.encode()).estimate());
+    }
+
+    @Test
+    void merge_shouldEstimateTheUnion() {
+        HyperLogLog nodeA = new HyperLogLog();
+        HyperLogLog nodeB = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) {
+            nodeA.add("user-" + i);
+            nodeB.add("user-" + (i + 20_000)); // 10,000 shared
+        }
+
+        HyperLogLog union = HyperLogLog.decode(nodeA.encode());
+        union.merge(nodeB);
+        union.merge(nodeB); // merging is idempotent
+
+        assertEquals(50_000, union.estimate(), 50_000 * 0.05);
+    }
+}
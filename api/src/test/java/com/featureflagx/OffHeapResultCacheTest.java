@@ -0,0 +1,110 @@
+package com.featureflagx;
+
+import com.featureflagx.cache.OffHeapResultCache;
+import com.featureflagx.event.FlagChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapResultCacheTest {
+
+    private static OffHeapResultCache cache(long maxEntries) {
+        return new OffHeapResultCache(true, maxEntries, Duration.ofMinutes(1), "");
+    }
+
+    @Test
+    void get_shouldReturnResultPerFlagAndTarget() {
+        OffHeapResultCache cache = cache(1024);
+        cache.put("checkout", "user-1", cache.generation("checkout"), true);
+        cache.put("checkout", "user-2", cache.generation("checkout"), false);
+
+        assertEquals(Boolean.TRUE, cache.get("checkout", "user-1"));
+        assertEquals(Boolean.FALSE, cache.get("checkout", "user-2"));
+        assertNull(cache.get("checkout", "user-3"));
+        assertNull(cache.get("search", "user-1"));
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    void invalidate_shouldDropEveryTargetOfTheFlagOnly() {
+        OffHeapResultCache cache = cache(1024);
+        cache.put("checkout", "user-1", cache.generation("checkout"), true);
+        cache.put("search", "user-1", cache.generation("search"), true);
+
+        cache.onFlagChanged(new FlagChangedEvent("checkout", FlagChangedEvent.Type.UPDATED, false));
+
+        assertNull(cache.get("checkout", "user-1"));
+        assertEquals(Boolean.TRUE, cache.get("search", "user-1"));
+    }
+
+    @Test
+    void put_whenTheFlagChangedDuringEvaluation_shouldDropTheResult() {
+        OffHeapResultCache cache = cache(1024);
+        int generation = cache.generation("checkout");
+
+        cache.invalidate("checkout");
+        cache.put("checkout", "user-1", generation, true);
+
+        assertNull(cache.get("checkout", "user-1"));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void get_shouldMissOnceTheEntryExpires() {
+        OffHeapResultCache cache = new OffHeapResultCache(true, 1024, Duration.ZERO, "");
+        cache.put("checkout", "user-1", cache.generation("checkout"), true);
+
+        assertNull(cache.get("checkout", "user-1"));
+    }
+
+    @Test
+    void put_whenFull_shouldEvictEntriesNotReadSinceTheClockHandPassed() {
+        // Eight entries make a single set, so every key competes for the same slots
+        OffHeapResultCache cache = cache(8);
+        assertEquals(8, cache.getCapacity());
+        for (int i = 0; i < 8; i++) {
+            cache.put("flag", "user-" + i, cache.generation("flag"), true);
+        }
+        // Entries start unreferenced; reading the odd ones makes the hand pass over them
+        cache.put("flag", "user-8", cache.generation("flag"), true);
+        for (int i = 1; i < 8; i += 2) {
+            cache.get("flag", "user-" + i);
+        }
+        for (int i = 9; i < 12; i++) {
+            cache.put("flag", "user-" + i, cache.generation("flag"), true);
+        }
+
+        for (int i = 1; i < 8; i += 2) {
+            assertEquals(Boolean.TRUE, cache.get("flag", "user-" + i), "user-" + i + " was read and should survive");
+        }
+        assertEquals(8, cache.getSize());
+    }
+
+    @Test
+    void put_shouldWorkOnAMemoryMappedRegion(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("results.bin");
+        OffHeapResultCache cache = new OffHeapResultCache(true, 64, Duration.ofMinutes(1), file.toString());
+        cache.put("checkout", "user-1", cache.generation("checkout"), true);
+
+        assertEquals(Boolean.TRUE, cache.get("checkout", "user-1"));
+        assertEquals(64L * 16, Files.size(file));
+
+        // A new process reusing the file must not see the previous process's entries
+        OffHeapResultCache reopened = new OffHeapResultCache(true, 64, Duration.ofMinutes(1), file.toString());
+        assertNull(reopened.get("checkout", "user-1"));
+    }
+
+    @Test
+    void disabled_shouldNeverCache() {
+        OffHeapResultCache cache = new OffHeapResultCache(false, 1024, Duration.ofMinutes(1), "");
+        cache.put("checkout", "user-1", cache.generation("checkout"), true);
+
+        assertNull(cache.get("checkout", "user-1"));
+        assertEquals(0, cache.getCapacity());
+    }
+}
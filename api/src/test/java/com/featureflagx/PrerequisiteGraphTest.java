@@ -0,0 +1,56 @@
+package com.featureflagx;
+
+import com.featureflagx.prerequisite.InvalidPrerequisitesException;
+import com.featureflagx.prerequisite.PrerequisiteGraph;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrerequisiteGraphTest {
+
+    @Test
+    void evaluationOrder_shouldPlacePrerequisitesFirstAndEachFlagOnce() {
+        PrerequisiteGraph graph = PrerequisiteGraph.compile(Map.of(
+                "new-checkout", List.of("payments-v2", "cart-v3"),
+                "cart-v3", List.of("payments-v2"),
+                "one-click", List.of("new-checkout")));
+
+        List<String> order = graph.evaluationOrder(List.of("plain", "one-click", "new-checkout"));
+
+        assertEquals(List.of("plain", "payments-v2", "cart-v3", "new-checkout", "one-click"), order);
+        assertTrue(graph.getCycle().isEmpty());
+        assertEquals(Set.of("cart-v3", "new-checkout", "one-click"), graph.dependentsOf("payments-v2"));
+    }
+
+    @Test
+    void compile_shouldReportCycleAndFlagsBehindIt() {
+        PrerequisiteGraph graph = PrerequisiteGraph.compile(Map.of(
+                "a", List.of("b"),
+                "b", List.of("c"),
+                "c", List.of("a"),
+                "d", List.of("c"),
+                "e", List.of("f")));
+
+        List<String> cycle = graph.getCycle();
+        assertEquals(4, cycle.size());
+        assertEquals(cycle.get(0), cycle.get(3));
+        assertEquals(Set.of("a", "b", "c"), Set.copyOf(cycle));
+        assertTrue(graph.isCyclic("d"), "flags depending on a cycle can't be evaluated either");
+        assertFalse(graph.isCyclic("e"));
+        assertEquals(List.of("f", "e"), graph.evaluationOrder(List.of("e")));
+    }
+
+    @Test
+    void parse_shouldReadPrerequisitesAndIgnoreOtherConfig() {
+        assertEquals(List.of("payments-v2"), PrerequisiteGraph.parse("{\"variant\": \"A\", \"prerequisites\": [\"payments-v2\"]}"));
+        assertEquals(List.of(), PrerequisiteGraph.parse("{ \"variant\": \"A\" }"));
+        assertEquals(List.of(), PrerequisiteGraph.parse("not json"));
+        assertEquals(List.of(), PrerequisiteGraph.parse(null));
+        assertThrows(InvalidPrerequisitesException.class, () -> PrerequisiteGraph.parse("{\"prerequisites\": \"payments-v2\"}"));
+        assertThrows(InvalidPrerequisitesException.class, () -> PrerequisiteGraph.parse("{\"prerequisites\": [1]}"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.featureflagx;
+
+import com.featureflagx.datasource.ReadWriteRoutingDataSource;
+import com.featureflagx.datasource.ReplicaLagMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT seconds FROM replica_lag";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate readWriteTransaction;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        DataSource primary = h2("primary-" + suffix);
+        DataSource replica = h2("replica-" + suffix);
+        primaryJdbc = new JdbcTemplate(primary);
+        replicaJdbc = new JdbcTemplate(replica);
+        for (JdbcTemplate side : new JdbcTemplate[]{primaryJdbc, replicaJdbc}) {
+            side.execute("CREATE TABLE origin (name VARCHAR(16))");
+        }
+        primaryJdbc.update("INSERT INTO origin VALUES ('primary')");
+        replicaJdbc.update("INSERT INTO origin VALUES ('replica')");
+        replicaJdbc.execute("CREATE TABLE replica_lag (seconds DOUBLE)");
+        replicaJdbc.update("INSERT INTO replica_lag VALUES (0)");
+
+        lagMonitor = new ReplicaLagMonitor(replica, LAG_QUERY, Duration.ofSeconds(1), Duration.ofHours(1));
+        lagMonitor.refresh();
+        ReadWriteRoutingDataSource readWriteRouting = new ReadWriteRoutingDataSource(primary, replica, lagMonitor);
+        readWriteRouting.bindTo(meterRegistry);
+        DataSource routing = new LazyConnectionDataSourceProxy(readWriteRouting);
+        jdbc = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void readOnlyTransactions_shouldUseReplica() {
+        assertTrue(lagMonitor.isReplicaUsable());
+        assertEquals("replica", readOnlyTransaction.execute(status -> origin()));
+        assertEquals(1.0, connections("replica"));
+    }
+
+    @Test
+    void writesAndNonTransactionalReads_shouldUsePrimary() {
+        assertEquals("primary", readWriteTransaction.execute(status -> origin()));
+        assertEquals("primary", origin());
+
+        readWriteTransaction.executeWithoutResult(status -> jdbc.update("INSERT INTO origin VALUES ('written')"));
+        assertEquals(2, primaryJdbc.queryForObject("SELECT count(*) FROM origin", Integer.class));
+        assertEquals(1, replicaJdbc.queryForObject("SELECT count(*) FROM origin", Integer.class));
+    }
+
+    @Test
+    void readOnlyTransactions_shouldFallBackToPrimaryWhileReplicaLags() {
+        replicaJdbc.update("UPDATE replica_lag SET seconds = 30");
+        lagMonitor.refresh();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals(30.0, lagMonitor.getLagSeconds());
+        assertEquals("primary", readOnlyTransaction.execute(status -> origin()));
+        assertEquals(1.0, connections("fallback"));
+
+        replicaJdbc.update("UPDATE replica_lag SET seconds = 0.2");
+        lagMonitor.refresh();
+        assertEquals("replica", readOnlyTransaction.execute(status -> origin()));
+    }
+
+    @Test
+    void readOnlyTransactions_shouldFallBackToPrimaryWhenReplicaUnreachable() {
+        DataSource unreachable = new DriverManagerDataSource("jdbc:h2:mem:missing-" + UUID.randomUUID() + ";IFEXISTS=TRUE");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(unreachable, LAG_QUERY, Duration.ofSeconds(1), Duration.ofHours(1));
+        monitor.refresh();
+        assertFalse(monitor.isReplicaUsable());
+        assertTrue(Double.isNaN(monitor.getLagSeconds()));
+
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryJdbc.getDataSource(), unreachable, monitor));
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        readOnly.setReadOnly(true);
+        assertEquals("primary", readOnly.execute(status ->
+                new JdbcTemplate(routing).queryForObject("SELECT name FROM origin", String.class)));
+    }
+
+    @Test
+    void connectionsWithCredentials_shouldBeRoutedTheSameWay() throws Exception {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(
+                primaryJdbc.getDataSource(), replicaJdbc.getDataSource(), lagMonitor);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection connection = routing.getConnection("", "")) {
+            assertEquals("replica", new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("SELECT name FROM origin", String.class));
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+        try (Connection connection = routing.getConnection("", "")) {
+            assertEquals("primary", new JdbcTemplate(new SingleConnectionDataSource(connection, true))
+                    .queryForObject("SELECT name FROM origin", String.class));
+        }
+    }
+
+    private double connections(String route) {
+        return meterRegistry.get("featureflagx.datasource.connections").tag("route", route).functionCounter().count();
+    }
+
+    private String origin() {
+        return jdbc.queryForObject("SELECT name FROM origin", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    }
+}
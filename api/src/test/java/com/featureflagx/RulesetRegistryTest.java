@@ -0,0 +1,111 @@
+package com.featureflagx;
+
+import com.featureflagx.cache.OffHeapResultCache;
+import com.featureflagx.model.Flag;
+import com.featureflagx.prerequisite.InvalidPrerequisitesException;
+import com.featureflagx.repository.FlagRepository;
+import com.featureflagx.ruleset.RulesetRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RulesetRegistryTest {
+
+    @Mock
+    private FlagRepository flagRepository;
+
+    @Mock
+    private OffHeapResultCache resultCache;
+
+    private RulesetRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RulesetRegistry(flagRepository, resultCache, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void validate_shouldCheckAgainstTheLoadedRulesetWithoutReloading() {
+        when(flagRepository.findFlagSetVersion()).thenReturn(version(2, 2));
+        when(flagRepository.findAll()).thenReturn(List.of(flag("checkout", "payments"), flag("payments", null)));
+        registry.current();
+
+        registry.validate("search", "{\"prerequisites\": [\"checkout\"]}");
+        registry.validate("payments", "{\"prerequisites\": [\"search\"]}");
+
+        verify(flagRepository, times(1)).findAll();
+    }
+
+    @Test
+    void validate_whenAnotherWriteCommittedSinceTheRuleset_shouldReload() {
+        // payments -> checkout was written (perhaps on another node) but not yet rebuilt into the ruleset
+        when(flagRepository.findFlagSetVersion()).thenReturn(version(2, 2), version(2, 3));
+        when(flagRepository.findAll())
+                .thenReturn(List.of(flag("checkout", null), flag("payments", null)))
+                .thenReturn(List.of(flag("checkout", null), flag("payments", "checkout")));
+        registry.current();
+
+        assertThrows(InvalidPrerequisitesException.class,
+                () -> registry.validate("checkout", "{\"prerequisites\": [\"payments\"]}"));
+        verify(flagRepository, times(2)).findAll();
+    }
+
+    @Test
+    void validate_whenACycleWouldClose_shouldConfirmItAgainstTheDatabase() {
+        when(flagRepository.findAll()).thenReturn(List.of(flag("checkout", "payments"), flag("payments", null)));
+
+        InvalidPrerequisitesException e = assertThrows(InvalidPrerequisitesException.class,
+                () -> registry.validate("payments", "{\"prerequisites\": [\"checkout\"]}"));
+
+        assertTrue(e.getMessage().contains("cycle"));
+        verify(flagRepository, times(2)).findAll();
+    }
+
+    @Test
+    void validate_whenTheRulesetIsStale_shouldAcceptWhatTheDatabaseAllows() {
+        // checkout no longer requires payments, but the ruleset hasn't been rebuilt yet
+        when(flagRepository.findAll())
+                .thenReturn(List.of(flag("checkout", "payments"), flag("payments", null)))
+                .thenReturn(List.of(flag("checkout", null), flag("payments", null)));
+
+        assertDoesNotThrow(() -> registry.validate("payments", "{\"prerequisites\": [\"checkout\"]}"));
+    }
+
+    private static FlagRepository.FlagSetVersion version(long count, long versionSum) {
+        Instant lastUpdatedAt = Instant.EPOCH.plusSeconds(versionSum);
+        return new FlagRepository.FlagSetVersion() {
+            @Override
+            public long getCount() {
+                return count;
+            }
+
+            @Override
+            public long getVersionSum() {
+                return versionSum;
+            }
+
+            @Override
+            public Instant getLastUpdatedAt() {
+                return lastUpdatedAt;
+            }
+        };
+    }
+
+    private static Flag flag(String key, String prerequisite) {
+        Flag flag = new Flag();
+        flag.setKey(key);
+        flag.setEnabled(true);
+        flag.setConfig(prerequisite != null ? "{\"prerequisites\": [\"" + prerequisite + "\"]}" : null);
+        return flag;
+    }
+}
@@ -0,0 +1,142 @@
+package com.featureflagx;
+
+import com.featureflagx.dto.FlagRequest;
+import com.featureflagx.dto.ScheduledChangeRequest;
+import com.featureflagx.model.Flag;
+import com.featureflagx.model.ScheduledChange;
+import com.featureflagx.repository.ScheduledChangeRepository;
+import com.featureflagx.service.FlagService;
+import com.featureflagx.service.ScheduledChangeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ScheduledChangeServiceTest {
+
+    private static final String FLAG_KEY = "new-checkout";
+    private static final long CHANGE_ID = 42;
+
+    @Mock
+    private ScheduledChangeRepository scheduledChangeRepository;
+
+    @Mock
+    private FlagService flagService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ScheduledChangeService scheduledChangeService;
+    private Flag flag;
+
+    @BeforeEach
+    void setUp() {
+        scheduledChangeService = new ScheduledChangeService(scheduledChangeRepository, flagService,
+                transactionManager, Duration.ofSeconds(30));
+        flag = new Flag();
+        flag.setKey(FLAG_KEY);
+        flag.setEnabled(false);
+        flag.setConfig("{\"variant\": \"A\"}");
+        lenient().when(scheduledChangeRepository.save(any(ScheduledChange.class))).thenAnswer(invocation -> {
+            ScheduledChange change = invocation.getArgument(0);
+            change.setId(CHANGE_ID);
+            lenient().when(scheduledChangeRepository.findById(CHANGE_ID)).thenReturn(Optional.of(change));
+            return change;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduledChangeService.stop();
+    }
+
+    @Test
+    void schedule_whenDue_shouldClaimAndApplyKeepingUnsetFields() {
+        when(flagService.getFlag(FLAG_KEY)).thenReturn(Optional.of(flag));
+        when(scheduledChangeRepository.transition(eq(CHANGE_ID), eq(ScheduledChange.Status.PENDING),
+                eq(ScheduledChange.Status.APPLIED), any(Instant.class))).thenReturn(1);
+
+        Optional<ScheduledChange> change = scheduledChangeService.schedule(FLAG_KEY, request(Instant.now().plusMillis(20)));
+
+        assertTrue(change.isPresent());
+        ArgumentCaptor<FlagRequest> applied = ArgumentCaptor.forClass(FlagRequest.class);
+        verify(flagService, timeout(2000)).updateFlag(eq(FLAG_KEY), applied.capture());
+        assertTrue(applied.getValue().isEnabled());
+        assertEquals(flag.getConfig(), applied.getValue().getConfig());
+    }
+
+    @Test
+    void schedule_whenAnotherNodeClaimedTheChange_shouldNotApply() {
+        when(flagService.getFlag(FLAG_KEY)).thenReturn(Optional.of(flag));
+        when(scheduledChangeRepository.transition(eq(CHANGE_ID), eq(ScheduledChange.Status.PENDING),
+                eq(ScheduledChange.Status.APPLIED), any(Instant.class))).thenReturn(0);
+
+        scheduledChangeService.schedule(FLAG_KEY, request(Instant.now()));
+
+        verify(scheduledChangeRepository, timeout(2000)).transition(eq(CHANGE_ID), eq(ScheduledChange.Status.PENDING),
+                eq(ScheduledChange.Status.APPLIED), any(Instant.class));
+        verify(flagService, after(100).never()).updateFlag(anyString(), any(FlagRequest.class));
+    }
+
+    @Test
+    void schedule_whenUpdateRejected_shouldMarkFailed() {
+        when(flagService.getFlag(FLAG_KEY)).thenReturn(Optional.of(flag));
+        when(scheduledChangeRepository.transition(eq(CHANGE_ID), eq(ScheduledChange.Status.PENDING),
+                any(ScheduledChange.Status.class), any(Instant.class))).thenReturn(1);
+        when(flagService.updateFlag(eq(FLAG_KEY), any(FlagRequest.class))).thenThrow(new IllegalArgumentException("bad config"));
+
+        scheduledChangeService.schedule(FLAG_KEY, request(Instant.now()));
+
+        verify(scheduledChangeRepository, timeout(2000)).transition(eq(CHANGE_ID), eq(ScheduledChange.Status.PENDING),
+                eq(ScheduledChange.Status.FAILED), any(Instant.class));
+        verify(transactionManager, timeout(2000)).rollback(any());
+    }
+
+    @Test
+    void schedule_whenUpdateRacesAnother_shouldRetryInsteadOfFailing() {
+        when(flagService.getFlag(FLAG_KEY)).thenReturn(Optional.of(flag));
+        when(scheduledChangeRepository.transition(eq(CHANGE_ID), eq(ScheduledChange.Status.PENDING),
+                eq(ScheduledChange.Status.APPLIED), any(Instant.class))).thenReturn(1);
+        when(flagService.updateFlag(eq(FLAG_KEY), any(FlagRequest.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Flag.class, FLAG_KEY))
+                .thenReturn(Optional.of(flag));
+
+        scheduledChangeService.schedule(FLAG_KEY, request(Instant.now()));
+
+        verify(flagService, timeout(2000).times(2)).updateFlag(eq(FLAG_KEY), any(FlagRequest.class));
+        verify(scheduledChangeRepository, after(100).never()).transition(eq(CHANGE_ID), any(ScheduledChange.Status.class),
+                eq(ScheduledChange.Status.FAILED), any(Instant.class));
+    }
+
+    @Test
+    void schedule_whenFlagMissing_shouldReturnEmpty() {
+        when(flagService.getFlag(FLAG_KEY)).thenReturn(Optional.empty());
+
+        assertTrue(scheduledChangeService.schedule(FLAG_KEY, request(Instant.now())).isEmpty());
+
+        verify(scheduledChangeRepository, never()).save(any(ScheduledChange.class));
+    }
+
+    private static ScheduledChangeRequest request(Instant fireAt) {
+        ScheduledChangeRequest request = new ScheduledChangeRequest();
+        request.setFireAt(fireAt);
+        request.setEnabled(true);
+        return request;
+    }
+}
@@ -0,0 +1,152 @@
+package com.featureflagx;
+
+import com.featureflagx.dto.SegmentMembersRequest;
+import com.featureflagx.event.FlagChangePublisher;
+import com.featureflagx.event.SegmentChangedEvent;
+import com.featureflagx.model.Segment;
+import com.featureflagx.model.SegmentChunk;
+import com.featureflagx.repository.SegmentChunkRepository;
+import com.featureflagx.repository.SegmentRepository;
+import com.featureflagx.segment.BloomBlock;
+import com.featureflagx.segment.InvalidSegmentException;
+import com.featureflagx.segment.NumericChunk;
+import com.featureflagx.segment.SegmentRegistry;
+import com.featureflagx.service.SegmentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SegmentServiceTest {
+
+    @Mock
+    private SegmentRepository segmentRepository;
+
+    @Mock
+    private SegmentChunkRepository chunkRepository;
+
+    @Mock
+    private SegmentRegistry segmentRegistry;
+
+    @Mock
+    private FlagChangePublisher changePublisher;
+
+    @InjectMocks
+    private SegmentService segmentService;
+
+    private Segment segment;
+
+    @BeforeEach
+    void setUp() {
+        segment = new Segment();
+        segment.setKey("beta");
+        segment.setType(Segment.Type.NUMERIC);
+        segment.setMemberCount(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateMembers_shouldRewriteOnlyTouchedChunks() {
+        NumericChunk stored = new NumericChunk();
+        stored.add(5);
+        SegmentChunk existing = new SegmentChunk();
+        existing.setSegmentKey("beta");
+        existing.setChunkIndex(0);
+        existing.setData(stored.encode());
+        when(segmentRepository.lockByKey("beta")).thenReturn(Optional.of(segment));
+        when(chunkRepository.findBySegmentKeyAndChunkIndexIn("beta", Set.of(0, 2))).thenReturn(List.of(existing));
+        when(segmentRepository.save(segment)).thenReturn(segment);
+        SegmentMembersRequest request = new SegmentMembersRequest();
+        request.setAdd(List.of("6", "131072"));
+        request.setRemove(List.of("5"));
+
+        Optional<Segment> updated = segmentService.updateMembers("beta", request);
+
+        assertEquals(2, updated.orElseThrow().getMemberCount());
+        ArgumentCaptor<List<SegmentChunk>> saved = ArgumentCaptor.forClass(List.class);
+        verify(chunkRepository).saveAll(saved.capture());
+        assertEquals(List.of(0, 2), saved.getValue().stream().map(SegmentChunk::getChunkIndex).toList());
+        NumericChunk rewritten = NumericChunk.decode(saved.getValue().get(0).getData());
+        assertTrue(rewritten.contains(6));
+        assertFalse(rewritten.contains(5));
+        verify(changePublisher).publishSegmentChange(argThat(event ->
+                event.getType() == SegmentChangedEvent.Type.MEMBERS_CHANGED && event.getChunkIndexes().equals(List.of(0, 2))));
+    }
+
+    @Test
+    void updateMembers_whenChunkEmptied_shouldDeleteIt() {
+        NumericChunk stored = new NumericChunk();
+        stored.add(5);
+        SegmentChunk existing = new SegmentChunk();
+        existing.setSegmentKey("beta");
+        existing.setChunkIndex(0);
+        existing.setData(stored.encode());
+        when(segmentRepository.lockByKey("beta")).thenReturn(Optional.of(segment));
+        when(chunkRepository.findBySegmentKeyAndChunkIndexIn("beta", Set.of(0))).thenReturn(List.of(existing));
+        when(segmentRepository.save(segment)).thenReturn(segment);
+        SegmentMembersRequest request = new SegmentMembersRequest();
+        request.setRemove(List.of("5"));
+
+        segmentService.updateMembers("beta", request);
+
+        verify(chunkRepository).delete(existing);
+        assertEquals(0, segment.getMemberCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateMembers_onStringSegment_shouldKeepOverlappingMemberWhenAnotherIsRemoved() {
+        segment.setType(Segment.Type.STRING);
+        segment.setBloomBlocks(1);
+        segment.setBloomHashes(1);
+        BloomBlock stored = BloomBlock.empty();
+        stored.add(BloomBlock.hash("user-1"), 1);
+        // An ID that already matches user-1's counter
+        String overlapping = IntStream.range(2, 100_000).mapToObj(i -> "user-" + i)
+                .filter(member -> stored.mightContain(BloomBlock.hash(member), 1))
+                .findFirst().orElseThrow();
+        SegmentChunk existing = new SegmentChunk();
+        existing.setSegmentKey("beta");
+        existing.setChunkIndex(0);
+        existing.setData(stored.encode());
+        when(segmentRepository.lockByKey("beta")).thenReturn(Optional.of(segment));
+        when(chunkRepository.findBySegmentKeyAndChunkIndexIn("beta", Set.of(0))).thenReturn(List.of(existing));
+        when(segmentRepository.save(segment)).thenReturn(segment);
+        SegmentMembersRequest add = new SegmentMembersRequest();
+        add.setAdd(List.of(overlapping));
+        SegmentMembersRequest remove = new SegmentMembersRequest();
+        remove.setRemove(List.of("user-1", "user-never-added"));
+
+        segmentService.updateMembers("beta", add);
+        segmentService.updateMembers("beta", remove);
+
+        assertEquals(1, segment.getMemberCount());
+        ArgumentCaptor<List<SegmentChunk>> saved = ArgumentCaptor.forClass(List.class);
+        verify(chunkRepository, times(2)).saveAll(saved.capture());
+        BloomBlock rewritten = BloomBlock.decode(saved.getValue().get(0).getData());
+        assertTrue(rewritten.mightContain(BloomBlock.hash(overlapping), 1));
+    }
+
+    @Test
+    void updateMembers_whenIdNotNumeric_shouldRejectBeforeWriting() {
+        when(segmentRepository.lockByKey("beta")).thenReturn(Optional.of(segment));
+        SegmentMembersRequest request = new SegmentMembersRequest();
+        request.setAdd(List.of("user-1"));
+
+        assertThrows(InvalidSegmentException.class, () -> segmentService.updateMembers("beta", request));
+
+        verifyNoInteractions(chunkRepository, changePublisher);
+    }
+}
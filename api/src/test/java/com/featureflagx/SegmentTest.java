@@ -0,0 +1,139 @@
+package com.featureflagx;
+
+import com.featureflagx.event.SegmentChangedEvent;
+import com.featureflagx.model.Segment;
+import com.featureflagx.model.SegmentChunk;
+import com.featureflagx.segment.BloomBlock;
+import com.featureflagx.segment.NumericChunk;
+import com.featureflagx.segment.SegmentMembership;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentTest {
+
+    @Test
+    void numericChunk_shouldSwitchBetweenArrayAndBitmapAndRoundTrip() {
+        NumericChunk chunk = new NumericChunk();
+        for (int low = 0; low < 10_000; low += 2) {
+            assertTrue(chunk.add(low));
+        }
+        assertFalse(chunk.add(0));
+        assertEquals(5_000, chunk.cardinality());
+        assertEquals(1 + 8192, chunk.encode().length, "more than 4096 values are stored as a bitmap");
+
+        for (int low = 0; low < 6_000; low += 2) {
+            assertTrue(chunk.remove(low));
+        }
+        assertEquals(2_000, chunk.cardinality());
+        assertEquals(1 + 2 * 2_000, chunk.encode().length, "sparse chunks shrink back to a sorted array");
+
+        NumericChunk decoded = NumericChunk.decode(chunk.encode());
+        assertEquals(2_000, decoded.cardinality());
+        assertTrue(decoded.contains(6_000));
+        assertFalse(decoded.contains(6_001));
+        assertFalse(decoded.contains(10));
+    }
+
+    @Test
+    void numericMembership_shouldFindIdsAcrossChunksAndRejectNonNumericTargets() {
+        Segment segment = new Segment();
+        segment.setKey("beta");
+        segment.setType(Segment.Type.NUMERIC);
+        Map<Integer, NumericChunk> chunks = new HashMap<>();
+        for (long id : new long[]{7, 70_000, 4_294_967_295L}) {
+            chunks.computeIfAbsent(NumericChunk.chunkIndex(id), i -> new NumericChunk()).add(NumericChunk.low(id));
+        }
+        List<SegmentChunk> rows = new ArrayList<>();
+        chunks.forEach((index, chunk) -> rows.add(row(index, chunk.encode())));
+
+        SegmentMembership membership = SegmentMembership.load(segment, rows);
+
+        assertTrue(membership.contains("7"));
+        assertTrue(membership.contains("70000"));
+        assertTrue(membership.contains("4294967295"));
+        assertFalse(membership.contains("8"));
+        assertFalse(membership.contains("4294967296"));
+        assertFalse(membership.contains("user-7"));
+
+        membership.replaceChunk(NumericChunk.chunkIndex(70_000), null);
+        assertFalse(membership.contains("70000"));
+        assertTrue(membership.contains("7"));
+    }
+
+    @Test
+    void bloomMembership_shouldHaveNoFalseNegativesAndBoundedFalsePositives() {
+        int members = 20_000;
+        int[] shape = BloomBlock.shape(members, 0.01);
+        Segment segment = new Segment();
+        segment.setKey("beta");
+        segment.setType(Segment.Type.STRING);
+        segment.setBloomBlocks(shape[0]);
+        segment.setBloomHashes(shape[1]);
+        BloomBlock[] blocks = new BloomBlock[shape[0]];
+        for (int i = 0; i < members; i++) {
+            long hash = BloomBlock.hash("user-" + i);
+            int block = BloomBlock.blockOf(hash, shape[0]);
+            if (blocks[block] == null) {
+                blocks[block] = BloomBlock.empty();
+            }
+            blocks[block].add(hash, shape[1]);
+        }
+        List<SegmentChunk> rows = new ArrayList<>();
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] != null) {
+                rows.add(row(i, blocks[i].encode()));
+            }
+        }
+
+        SegmentMembership membership = SegmentMembership.load(segment, rows);
+
+        for (int i = 0; i < members; i++) {
+            assertTrue(membership.contains("user-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (membership.contains("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "false positive rate too high: " + falsePositives + " in 100000");
+    }
+
+    @Test
+    void bloomBlock_removeShouldUndoAdd() {
+        long hash = BloomBlock.hash("user-1");
+        BloomBlock block = BloomBlock.empty();
+        block.add(hash, 7);
+        assertTrue(BloomBlock.mightContain(BloomBlock.decode(block.encode()).toBits(), hash, 7));
+
+        block.remove(hash, 7);
+        assertFalse(BloomBlock.mightContain(block.toBits(), hash, 7));
+    }
+
+    @Test
+    void changedEvent_shouldRoundTrip() {
+        SegmentChangedEvent event = new SegmentChangedEvent("beta|users", SegmentChangedEvent.Type.MEMBERS_CHANGED, List.of(0, 65_535));
+
+        SegmentChangedEvent decoded = SegmentChangedEvent.decode(event.encode());
+
+        assertEquals("beta|users", decoded.getKey());
+        assertEquals(SegmentChangedEvent.Type.MEMBERS_CHANGED, decoded.getType());
+        assertEquals(List.of(0, 65_535), decoded.getChunkIndexes());
+        assertEquals(List.of(), SegmentChangedEvent.decode("DELETED||beta").getChunkIndexes());
+        assertNull(SegmentChangedEvent.decode("garbage"));
+    }
+
+    private static SegmentChunk row(int index, byte[] data) {
+        SegmentChunk chunk = new SegmentChunk();
+        chunk.setSegmentKey("beta");
+        chunk.setChunkIndex(index);
+        chunk.setData(data);
+        return chunk;
+    }
+}
@@ -0,0 +1,71 @@
+package com.featureflagx;
+
+import com.featureflagx.timing.EvaluationPhase;
+import com.featureflagx.timing.PhaseTimer;
+import com.featureflagx.timing.ServerTimingAdvice;
+import com.featureflagx.timing.ServerTimingFilter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTest {
+
+    @Test
+    void filter_shouldReportRecordedPhasesInServerTimingHeader() throws Exception {
+        HttpServlet handler = new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                PhaseTimer.start(EvaluationPhase.CACHE, "new-checkout").close();
+                PhaseTimer.start(EvaluationPhase.DB, "new-checkout").close();
+                // What a controller returning a body goes through
+                ServletServerHttpResponse body = new ServletServerHttpResponse(response);
+                new ServerTimingAdvice().beforeBodyWrite(true, null, MediaType.APPLICATION_JSON, null, null, body);
+                body.getBody().write("true".getBytes(StandardCharsets.UTF_8));
+                body.flush();
+            }
+        };
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flags/evaluate/new-checkout");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ServerTimingFilter().doFilter(request, response, new MockFilterChain(handler));
+
+        assertTrue(response.getHeader(ServerTimingFilter.HEADER)
+                        .matches("cache;dur=\\d+\\.\\d{3}, db;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"),
+                response.getHeader(ServerTimingFilter.HEADER));
+        assertTrue(response.isCommitted()); // written through, not buffered by the filter
+        assertEquals("true", response.getContentAsString());
+    }
+
+    @Test
+    void phaseTimer_shouldEmitJfrEvent(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("phases.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.featureflagx.EvaluationPhase");
+            recording.start();
+            PhaseTimer.start(EvaluationPhase.FILL, "new-checkout").close();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertTrue(events.stream().anyMatch(event -> "fill".equals(event.getString("phase"))
+                && "new-checkout".equals(event.getString("flagKey"))), events.toString());
+    }
+}
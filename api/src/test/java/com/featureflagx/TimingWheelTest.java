@@ -0,0 +1,86 @@
+package com.featureflagx;
+
+import com.featureflagx.schedule.TimingWheel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+
+    private final TimingWheel wheel = new TimingWheel("test-wheel", 1, 64);
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    void schedule_shouldFireInDeadlineOrderNoEarlierThanDeadline() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        // 64 one-millisecond buckets, so the later deadlines cascade down from the overflow levels
+        long[] delays = {300, 20, 600, 90, 1};
+        List<Long> fired = Collections.synchronizedList(new ArrayList<>());
+        List<Long> lateness = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(delays.length);
+        for (long delay : delays) {
+            long deadline = start + delay;
+            wheel.schedule(deadline, () -> {
+                lateness.add(System.currentTimeMillis() - deadline);
+                fired.add(delay);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 20L, 90L, 300L, 600L), fired);
+        lateness.forEach(ms -> assertTrue(ms >= 0, "fired " + -ms + "ms early"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_whenDeadlinePassed_shouldRunImmediately() {
+        List<String> fired = new ArrayList<>();
+
+        wheel.schedule(System.currentTimeMillis() - 1000, () -> fired.add("overdue"));
+
+        assertEquals(List.of("overdue"), fired);
+    }
+
+    @Test
+    void cancel_shouldPreventFiringAndReleaseTheTask() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 50;
+        CountDownLatch kept = new CountDownLatch(1);
+        List<String> fired = Collections.synchronizedList(new ArrayList<>());
+        TimingWheel.Timeout cancelled = wheel.schedule(deadline, () -> fired.add("cancelled"));
+        wheel.schedule(deadline + 10, () -> {
+            fired.add("kept");
+            kept.countDown();
+        });
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(1, wheel.size());
+        assertTrue(kept.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void schedule_shouldHoldManyPendingTasksCheaply() {
+        long now = System.currentTimeMillis();
+        List<TimingWheel.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++) {
+            timeouts.add(wheel.schedule(now + TimeUnit.HOURS.toMillis(1) + i * 37L, () -> fail("cancelled task ran")));
+        }
+
+        assertEquals(200_000, wheel.size());
+        timeouts.forEach(TimingWheel.Timeout::cancel);
+        assertEquals(0, wheel.size());
+    }
+}
@@ -72,6 +72,25 @@ public class FlagControllerIntegrationTest extends AbstractIntegrationTest {
         assertThat(savedFlag.isEnabled()).isTrue();
     }
 
+    @Test
+    public void testCreateFlagWithExistingKey() {
+        // Given a flag that has been updated, so its row version is past the initial one
+        String flagKey = "conflict-test-feature-" + UUID.randomUUID();
+        FlagRequest request = new FlagRequest();
+        request.setKey(flagKey);
+        request.setEnabled(true);
+        restTemplate.postForEntity(baseUrl, request, FlagResponse.class);
+        request.setEnabled(false);
+        restTemplate.put(baseUrl + "/" + flagKey, request);
+
+        // When
+        ResponseEntity<FlagResponse> response = restTemplate.postForEntity(baseUrl, request, FlagResponse.class);
+
+        // Then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(flagRepository.findById(flagKey)).get().extracting(Flag::isEnabled).isEqualTo(false);
+    }
+
     @Test
     public void testGetFlag() {
         // Given
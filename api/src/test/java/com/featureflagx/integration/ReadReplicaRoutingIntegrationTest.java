@@ -0,0 +1,98 @@
+package com.featureflagx.integration;
+
+import com.featureflagx.datasource.ReadWriteRoutingDataSource;
+import com.featureflagx.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes against two independent Postgres containers standing in for a primary and its
+ * replica, using the real lag query (a server not in recovery reports zero lag).
+ */
+@Testcontainers
+public class ReadReplicaRoutingIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> primaryContainer = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    @Container
+    private static final PostgreSQLContainer<?> replicaContainer = new PostgreSQLContainer<>("postgres:14-alpine");
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = pool(primaryContainer, "primary");
+        replica = pool(replicaContainer, "replica");
+        replica.setReadOnly(true);
+        new JdbcTemplate(primary).execute("CREATE TABLE IF NOT EXISTS origin AS SELECT 'primary'::text AS name");
+        // The replica pool is read-only, so seed it through a separate one
+        try (HikariDataSource setup = pool(replicaContainer, "setup")) {
+            new JdbcTemplate(setup).execute("CREATE TABLE IF NOT EXISTS origin AS SELECT 'replica'::text AS name");
+        }
+
+        lagMonitor = new ReplicaLagMonitor(replica, ReplicaLagMonitor.POSTGRES_LAG_QUERY,
+                Duration.ofSeconds(5), Duration.ofHours(1));
+        lagMonitor.refresh();
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, lagMonitor));
+        jdbc = new JdbcTemplate(routing);
+        readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.close();
+        replica.close();
+    }
+
+    @Test
+    void readOnlyTransactionsShouldUseReplicaAndWritesThePrimary() {
+        assertThat(lagMonitor.isReplicaUsable()).isTrue();
+        assertThat(lagMonitor.getLagSeconds()).isZero();
+        String readOnlyOrigin = readOnlyTransaction.execute(status -> origin());
+        assertThat(readOnlyOrigin).isEqualTo("replica");
+        assertThat(origin()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnlyTransactionsShouldFallBackWhenReplicaPoolCannotConnect() {
+        replica.close();
+        String readOnlyOrigin = readOnlyTransaction.execute(status -> origin());
+        assertThat(readOnlyOrigin).isEqualTo("primary");
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+    }
+
+    private String origin() {
+        return jdbc.queryForObject("SELECT name FROM origin", String.class);
+    }
+
+    private static HikariDataSource pool(PostgreSQLContainer<?> container, String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(container.getJdbcUrl());
+        dataSource.setUsername(container.getUsername());
+        dataSource.setPassword(container.getPassword());
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(2);
+        return dataSource;
+    }
+}
@@ -0,0 +1,114 @@
+package com.featureflagx.integration;
+
+import com.featureflagx.config.RedisConfig;
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.Network;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@link RedisConfig} in replica mode against a primary and a replica container and
+ * checks that writes land on the primary while evaluation reads are served by the replica.
+ */
+@Testcontainers
+@SpringBootTest(classes = RedisConfig.class)
+public class RedisReplicaIntegrationTest {
+
+    private static final DockerImageName REDIS_IMAGE = DockerImageName.parse("redis:7-alpine");
+    private static final Network network = Network.newNetwork();
+
+    @Container
+    private static final RedisContainer primary = new RedisContainer(REDIS_IMAGE)
+            .withNetwork(network)
+            .withNetworkAliases("redis-primary");
+
+    @Container
+    private static final GenericContainer<?> replica = new GenericContainer<>(REDIS_IMAGE)
+            .withNetwork(network)
+            .withCommand("redis-server", "--replicaof", "redis-primary", "6379")
+            .withExposedPorts(6379)
+            .dependsOn(primary);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    @Qualifier(RedisConfig.READ_TEMPLATE)
+    private RedisTemplate<String, Object> readRedisTemplate;
+
+    @DynamicPropertySource
+    static void redisProperties(DynamicPropertyRegistry registry) {
+        registry.add("featureflagx.redis.mode", () -> "replica");
+        registry.add("spring.redis.host", primary::getHost);
+        registry.add("spring.redis.port", primary::getFirstMappedPort);
+        registry.add("featureflagx.redis.replicas", () -> replica.getHost() + ":" + replica.getFirstMappedPort());
+    }
+
+    @BeforeAll
+    static void awaitReplication() throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!info(replica, "replication").contains("master_link_status:up")) {
+            assertThat(System.currentTimeMillis()).as("replica never synced with primary").isLessThan(deadline);
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    void readsShouldBeServedByReplica() throws Exception {
+        String key = "flag:" + UUID.randomUUID();
+        redisTemplate.opsForValue().set(key, "1:5:0");
+        long primaryHitsBefore = keyspaceHits(primary);
+        long replicaHitsBefore = keyspaceHits(replica);
+
+        Object value = null;
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (value == null && System.currentTimeMillis() < deadline) {
+            value = readRedisTemplate.opsForValue().get(key);
+            if (value == null) {
+                Thread.sleep(20);
+            }
+        }
+
+        assertThat(value).isEqualTo("1:5:0");
+        assertThat(keyspaceHits(replica)).isGreaterThan(replicaHitsBefore);
+        assertThat(keyspaceHits(primary)).isEqualTo(primaryHitsBefore);
+    }
+
+    @Test
+    void invalidationsShouldGoToPrimary() throws Exception {
+        String key = "flag:" + UUID.randomUUID();
+        redisTemplate.opsForValue().set(key, "1:5:0");
+
+        assertThat(redisTemplate.delete(key)).isTrue();
+        assertThat(redisTemplate.hasKey(key)).isFalse();
+        // Writing through the read template still reaches the primary rather than the read-only replica
+        readRedisTemplate.opsForValue().set(key, "0:5:0");
+        assertThat(redisTemplate.opsForValue().get(key)).isEqualTo("0:5:0");
+    }
+
+    private static long keyspaceHits(GenericContainer<?> container) throws Exception {
+        Matcher matcher = Pattern.compile("keyspace_hits:(\\d+)").matcher(info(container, "stats"));
+        assertThat(matcher.find()).isTrue();
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static String info(GenericContainer<?> container, String section) throws Exception {
+        return container.execInContainer("redis-cli", "info", section).getStdout();
+    }
+}
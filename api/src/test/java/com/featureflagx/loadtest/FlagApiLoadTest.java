@@ -0,0 +1,119 @@
+package com.featureflagx.loadtest;
+
+import com.featureflagx.dto.FlagRequest;
+import com.featureflagx.dto.FlagResponse;
+import com.featureflagx.integration.AbstractIntegrationTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the API at a fixed arrival rate against the Testcontainers Postgres/Redis setup and
+ * reports latency percentiles up to p99.99.
+ *
+ * Run with {@code mvn test -Pload-test}. Tunable through system properties:
+ * <ul>
+ *   <li>{@code loadtest.rate} - arrivals per second (default 200)</li>
+ *   <li>{@code loadtest.warmup} / {@code loadtest.duration} - e.g. {@code 10s}, {@code 2m} (defaults 10s / 30s)</li>
+ *   <li>{@code loadtest.mix} - operation weights (default {@code evaluate:90,list:5,mutate:5})</li>
+ *   <li>{@code loadtest.flags} / {@code loadtest.targets} - flags seeded and distinct target ids (defaults 100 / 10000)</li>
+ *   <li>{@code loadtest.max-p99-ms} - optional p99 budget; the run fails if it's exceeded</li>
+ *   <li>{@code loadtest.report-dir} - where reports are written (default {@code target/load-test})</li>
+ * </ul>
+ */
+@Tag("load")
+public class FlagApiLoadTest extends AbstractIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void openModelLoad() throws Exception {
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration warmup = parseDuration(System.getProperty("loadtest.warmup", "10s"));
+        Duration duration = parseDuration(System.getProperty("loadtest.duration", "30s"));
+        Map<String, Integer> weights = LoadMix.parseWeights(System.getProperty("loadtest.mix", "evaluate:90,list:5,mutate:5"));
+        int flagCount = Integer.getInteger("loadtest.flags", 100);
+        int targetCount = Integer.getInteger("loadtest.targets", 10_000);
+        Path reportDirectory = Path.of(System.getProperty("loadtest.report-dir", "target/load-test"));
+
+        String baseUrl = "http://localhost:" + port + "/flags";
+        List<String> flagKeys = seedFlags(baseUrl, flagCount);
+        AtomicInteger mutations = new AtomicInteger();
+
+        LoadMix mix = new LoadMix()
+                .add("evaluate", weights.getOrDefault("evaluate", 0), () -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    String key = flagKeys.get(random.nextInt(flagKeys.size()));
+                    return HttpRequest.newBuilder(URI.create(
+                            baseUrl + "/evaluate/" + key + "?targetId=user-" + random.nextInt(targetCount))).GET().build();
+                })
+                .add("list", weights.getOrDefault("list", 0), () ->
+                        HttpRequest.newBuilder(URI.create(baseUrl)).GET().build())
+                .add("mutate", weights.getOrDefault("mutate", 0), () -> {
+                    // Round-robin, so updates of the same flag are a full cycle apart rather than racing into 409s
+                    String key = flagKeys.get(Math.floorMod(mutations.getAndIncrement(), flagKeys.size()));
+                    String body = "{\"key\":\"" + key + "\",\"enabled\":" + ThreadLocalRandom.current().nextBoolean()
+                            + ",\"config\":\"{\\\"version\\\":\\\"1.0\\\"}\"}";
+                    return HttpRequest.newBuilder(URI.create(baseUrl + "/" + key))
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                });
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        LoadGenerator generator = new LoadGenerator(client, mix, rate, 10_000, Duration.ofSeconds(30));
+        LoadReport report = generator.run(warmup, duration);
+
+        report.print(System.out);
+        Path runDirectory = report.write(reportDirectory);
+        System.out.println("Load report written to " + runDirectory.toAbsolutePath());
+
+        LoadReport.OperationResult total = report.getTotal();
+        assertThat(total.getCount()).isPositive();
+        assertThat(total.getErrors()).as("failed requests").isZero();
+        assertThat(total.getUnsent()).as("arrivals dropped because the client fell behind").isZero();
+        String maxP99 = System.getProperty("loadtest.max-p99-ms");
+        if (maxP99 != null) {
+            assertThat(total.percentileMillis(99)).isLessThanOrEqualTo(Double.parseDouble(maxP99));
+        }
+    }
+
+    private List<String> seedFlags(String baseUrl, int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FlagRequest request = new FlagRequest();
+            request.setKey("load-flag-" + i);
+            request.setEnabled(i % 2 == 0);
+            request.setConfig("{\"version\":\"1.0\"}");
+            restTemplate.postForEntity(baseUrl, request, FlagResponse.class);
+            keys.add(request.getKey());
+        }
+        return keys;
+    }
+
+    private static Duration parseDuration(String value) {
+        return Duration.parse("PT" + value.toUpperCase());
+    }
+}
@@ -0,0 +1,150 @@
+package com.featureflagx.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator: requests are issued on a fixed arrival schedule regardless of
+ * how quickly earlier ones complete, the way independent users hit the API.
+ *
+ * Latency is measured from each request's intended start time, not from when it was
+ * actually sent, so a stall that delays the schedule shows up in the percentiles instead
+ * of being hidden by coordinated omission. Service time (send to response) is recorded
+ * separately.
+ */
+public final class LoadGenerator {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final HttpClient client;
+    private final LoadMix mix;
+    private final double ratePerSecond;
+    private final int maxOutstanding;
+    private final Duration requestTimeout;
+
+    public LoadGenerator(HttpClient client, LoadMix mix, double ratePerSecond, int maxOutstanding, Duration requestTimeout) {
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Load mix has no operations");
+        }
+        this.client = client;
+        this.mix = mix;
+        this.ratePerSecond = ratePerSecond;
+        this.maxOutstanding = maxOutstanding;
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Runs the warm-up phase (results discarded) followed by the measured phase, then waits
+     * for outstanding requests to finish.
+     */
+    public LoadReport run(Duration warmup, Duration duration) throws InterruptedException {
+        if (!warmup.isZero()) {
+            runPhase(warmup);
+        }
+        Instant startedAt = Instant.now();
+        Phase phase = runPhase(duration);
+        List<String> names = mix.names();
+        List<LoadReport.OperationResult> results = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            results.add(new LoadReport.OperationResult(names.get(i),
+                    phase.responseTimes[i].getIntervalHistogram(),
+                    phase.serviceTimes[i].getIntervalHistogram(),
+                    phase.errors.get(i), phase.unsent.get(i)));
+        }
+        return new LoadReport(startedAt, ratePerSecond, duration, phase.elapsedNanos, results);
+    }
+
+    private Phase runPhase(Duration duration) throws InterruptedException {
+        Phase phase = new Phase(mix.names().size());
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int operation = mix.pick(ThreadLocalRandom.current().nextDouble());
+            if (phase.outstanding.get() >= maxOutstanding) {
+                // The client can't keep up; count the arrival rather than silently thinning the schedule
+                phase.unsent.incrementAndGet(operation);
+                continue;
+            }
+            issue(phase, operation, intendedStart);
+        }
+        awaitOutstanding(phase);
+        phase.elapsedNanos = System.nanoTime() - start;
+        return phase;
+    }
+
+    private void issue(Phase phase, int operation, long intendedStart) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(mix.request(operation), (name, value) -> true)
+                    .timeout(requestTimeout)
+                    .build();
+        } catch (RuntimeException e) {
+            phase.errors.incrementAndGet(operation);
+            return;
+        }
+        phase.outstanding.incrementAndGet();
+        long sentAt = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    long now = System.nanoTime();
+                    phase.responseTimes[operation].recordValue(clamp(now - intendedStart));
+                    phase.serviceTimes[operation].recordValue(clamp(now - sentAt));
+                    if (failure != null || response.statusCode() >= 400) {
+                        phase.errors.incrementAndGet(operation);
+                    }
+                    phase.outstanding.decrementAndGet();
+                });
+    }
+
+    private void awaitOutstanding(Phase phase) throws InterruptedException {
+        long deadline = System.nanoTime() + requestTimeout.toNanos() + TimeUnit.SECONDS.toNanos(1);
+        while (phase.outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static long clamp(long nanos) {
+        return Math.min(Math.max(nanos, 1), HIGHEST_TRACKABLE_NANOS);
+    }
+
+    private static final class Phase {
+        final Recorder[] responseTimes;
+        final Recorder[] serviceTimes;
+        final AtomicLongArray errors;
+        final AtomicLongArray unsent;
+        final AtomicInteger outstanding = new AtomicInteger();
+        long elapsedNanos;
+
+        Phase(int operations) {
+            responseTimes = new Recorder[operations];
+            serviceTimes = new Recorder[operations];
+            for (int i = 0; i < operations; i++) {
+                responseTimes[i] = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+                serviceTimes[i] = new Recorder(HIGHEST_TRACKABLE_NANOS, 3);
+            }
+            errors = new AtomicLongArray(operations);
+            unsent = new AtomicLongArray(operations);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.featureflagx.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadGeneratorTest {
+
+    private HttpServer server;
+    private final ReentrantLock stall = new ReentrantLock();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ok", exchange -> {
+            stall.lock();
+            stall.unlock();
+            respond(exchange, 200);
+        });
+        server.createContext("/fail", exchange -> respond(exchange, 500));
+        // Single thread: a stall blocks everything behind it, like an exhausted pool
+        server.setExecutor(Executors.newSingleThreadExecutor());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void mix_shouldPickOperationsByWeight() {
+        LoadMix mix = new LoadMix()
+                .add("a", 90, () -> null)
+                .add("skipped", 0, () -> null)
+                .add("b", 10, () -> null);
+        assertEquals(List.of("a", "b"), mix.names());
+        assertEquals(0, mix.pick(0.0));
+        assertEquals(0, mix.pick(0.899));
+        assertEquals(1, mix.pick(0.9));
+        assertEquals(1, mix.pick(0.999));
+    }
+
+    @Test
+    void run_shouldChargeStallsToEveryRequestScheduledDuringThem() throws Exception {
+        LoadMix mix = new LoadMix().add("ok", 1, () -> request("/ok"));
+        LoadGenerator generator = new LoadGenerator(HttpClient.newHttpClient(), mix, 200, 1000, Duration.ofSeconds(5));
+
+        Thread staller = new Thread(() -> {
+            try {
+                Thread.sleep(300);
+                stall.lock();
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                stall.unlock();
+            }
+        });
+        staller.start();
+        LoadReport report = generator.run(Duration.ZERO, Duration.ofSeconds(1));
+        staller.join();
+
+        LoadReport.OperationResult ok = report.getOperations().get(0);
+        assertEquals(200, ok.getCount(), 10);
+        assertEquals(0, ok.getErrors());
+        // ~100 of the ~200 arrivals were scheduled during the 500ms stall, so p50 can't look healthy
+        assertTrue(ok.percentileMillis(50) > 50, "p50 was " + ok.percentileMillis(50));
+        assertTrue(ok.maxMillis() >= 400, "max was " + ok.maxMillis());
+    }
+
+    @Test
+    void report_shouldCountErrorsAndAppendComparableRows(@TempDir Path directory) throws Exception {
+        LoadMix mix = new LoadMix()
+                .add("ok", 1, () -> request("/ok"))
+                .add("fail", 1, () -> request("/fail"));
+        LoadGenerator generator = new LoadGenerator(HttpClient.newHttpClient(), mix, 100, 1000, Duration.ofSeconds(5));
+
+        LoadReport report = generator.run(Duration.ofMillis(100), Duration.ofMillis(500));
+        LoadReport.OperationResult fail = report.getOperations().get(1);
+        assertEquals(fail.getCount(), fail.getErrors());
+        assertEquals(0, report.getOperations().get(0).getErrors());
+        assertEquals(50, report.getTotal().getCount(), 3);
+
+        Path runDirectory = report.write(directory);
+        assertTrue(Files.exists(runDirectory.resolve("ok.hgrm")));
+        assertTrue(Files.exists(runDirectory.resolve("all.service.hgrm")));
+        List<String> lines = Files.readAllLines(directory.resolve("summary.csv"));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("run_id,"));
+        assertTrue(lines.get(3).contains(",all,"));
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        // No keep-alive: a pooled connection the server has just dropped would show up as a spurious error
+        exchange.getResponseHeaders().set("Connection", "close");
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private HttpRequest request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.getAddress().getPort() + path)).build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.featureflagx.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Weighted set of operations the load generator picks from for every arrival.
+ */
+public final class LoadMix {
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Supplier<HttpRequest>> requests = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private int totalWeight;
+
+    public LoadMix add(String name, int weight, Supplier<HttpRequest> request) {
+        if (weight <= 0) {
+            return this;
+        }
+        totalWeight += weight;
+        names.add(name);
+        requests.add(request);
+        cumulativeWeights.add(totalWeight);
+        return this;
+    }
+
+    /**
+     * Parses weights in the form {@code evaluate:90,list:5,mutate:5}.
+     */
+    public static Map<String, Integer> parseWeights(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            if (nameAndWeight.length != 2) {
+                throw new IllegalArgumentException("Expected name:weight but got '" + part + "'");
+            }
+            weights.put(nameAndWeight[0].trim(), Integer.parseInt(nameAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    List<String> names() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @param roll uniformly distributed in [0, 1)
+     * @return index of the chosen operation
+     */
+    int pick(double roll) {
+        int target = (int) (roll * totalWeight);
+        for (int i = 0; i < cumulativeWeights.size(); i++) {
+            if (target < cumulativeWeights.get(i)) {
+                return i;
+            }
+        }
+        return cumulativeWeights.size() - 1;
+    }
+
+    HttpRequest request(int index) {
+        return requests.get(index).get();
+    }
+
+    boolean isEmpty() {
+        return names.isEmpty();
+    }
+}
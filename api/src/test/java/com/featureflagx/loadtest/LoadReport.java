@@ -0,0 +1,188 @@
+package com.featureflagx.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of one measured load run, written in formats that can be compared across runs:
+ * one row per operation appended to {@code summary.csv}, plus full percentile
+ * distributions ({@code .hgrm}) that the HdrHistogram plotter can overlay.
+ */
+public final class LoadReport {
+
+    static final String ALL_OPERATIONS = "all";
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final DateTimeFormatter RUN_ID_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final String CSV_HEADER = "run_id,started_at,target_rate,achieved_rate,operation,count,errors,unsent,"
+            + "p50_ms,p90_ms,p99_ms,p99_9_ms,p99_99_ms,max_ms,service_p99_ms";
+
+    private final Instant startedAt;
+    private final double targetRate;
+    private final Duration duration;
+    private final long elapsedNanos;
+    private final List<OperationResult> operations;
+
+    LoadReport(Instant startedAt, double targetRate, Duration duration, long elapsedNanos, List<OperationResult> operations) {
+        this.startedAt = startedAt;
+        this.targetRate = targetRate;
+        this.duration = duration;
+        this.elapsedNanos = elapsedNanos;
+        this.operations = operations;
+    }
+
+    public List<OperationResult> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @return every operation merged into one result
+     */
+    public OperationResult getTotal() {
+        Histogram responseTimes = operations.get(0).responseTimes.copy();
+        Histogram serviceTimes = operations.get(0).serviceTimes.copy();
+        long errors = 0;
+        long unsent = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            OperationResult operation = operations.get(i);
+            if (i > 0) {
+                responseTimes.add(operation.responseTimes);
+                serviceTimes.add(operation.serviceTimes);
+            }
+            errors += operation.errors;
+            unsent += operation.unsent;
+        }
+        return new OperationResult(ALL_OPERATIONS, responseTimes, serviceTimes, errors, unsent);
+    }
+
+    /**
+     * Completed requests per second over the measured phase, including the drain at the end.
+     */
+    public double getAchievedRate() {
+        return getTotal().getCount() / (elapsedNanos / 1e9);
+    }
+
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "Load run: target %.1f req/s for %ss, achieved %.1f req/s%n",
+                targetRate, duration.toSeconds(), getAchievedRate());
+        out.printf(Locale.ROOT, "%-10s %8s %7s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "unsent", "p50", "p90", "p99", "p99.9", "p99.99", "max");
+        for (OperationResult operation : operations) {
+            printRow(out, operation);
+        }
+        printRow(out, getTotal());
+        out.println("(latencies in ms, measured from intended start time)");
+    }
+
+    /**
+     * Writes the .hgrm distributions to {@code directory/<runId>/} and appends to
+     * {@code directory/summary.csv}.
+     *
+     * @return the run directory
+     */
+    public Path write(Path directory) {
+        String runId = RUN_ID_FORMAT.format(startedAt);
+        Path runDirectory = directory.resolve(runId);
+        try {
+            Files.createDirectories(runDirectory);
+            Path summary = directory.resolve("summary.csv");
+            StringBuilder rows = new StringBuilder();
+            if (!Files.exists(summary)) {
+                rows.append(CSV_HEADER).append('\n');
+            }
+            for (OperationResult operation : operations) {
+                writeDistributions(runDirectory, operation);
+                appendRow(rows, runId, operation);
+            }
+            OperationResult total = getTotal();
+            writeDistributions(runDirectory, total);
+            appendRow(rows, runId, total);
+            Files.write(summary, rows.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write load report to " + directory, e);
+        }
+        return runDirectory;
+    }
+
+    private void writeDistributions(Path runDirectory, OperationResult operation) throws IOException {
+        try (PrintStream out = new PrintStream(
+                Files.newOutputStream(runDirectory.resolve(operation.name + ".hgrm")), false, StandardCharsets.UTF_8)) {
+            operation.responseTimes.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+        try (PrintStream out = new PrintStream(
+                Files.newOutputStream(runDirectory.resolve(operation.name + ".service.hgrm")), false, StandardCharsets.UTF_8)) {
+            operation.serviceTimes.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+
+    private void appendRow(StringBuilder rows, String runId, OperationResult operation) {
+        rows.append(String.format(Locale.ROOT, "%s,%s,%.1f,%.1f,%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                runId, startedAt, targetRate, getAchievedRate(), operation.name,
+                operation.getCount(), operation.errors, operation.unsent,
+                operation.percentileMillis(50), operation.percentileMillis(90), operation.percentileMillis(99),
+                operation.percentileMillis(99.9), operation.percentileMillis(99.99), operation.maxMillis(),
+                operation.serviceTimes.getValueAtPercentile(99) / NANOS_PER_MILLI));
+    }
+
+    private static void printRow(PrintStream out, OperationResult operation) {
+        out.printf(Locale.ROOT, "%-10s %8d %7d %7d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                operation.name, operation.getCount(), operation.errors, operation.unsent,
+                operation.percentileMillis(50), operation.percentileMillis(90), operation.percentileMillis(99),
+                operation.percentileMillis(99.9), operation.percentileMillis(99.99), operation.maxMillis());
+    }
+
+    public static final class OperationResult {
+        private final String name;
+        private final Histogram responseTimes;
+        private final Histogram serviceTimes;
+        private final long errors;
+        private final long unsent;
+
+        OperationResult(String name, Histogram responseTimes, Histogram serviceTimes, long errors, long unsent) {
+            this.name = name;
+            this.responseTimes = responseTimes;
+            this.serviceTimes = serviceTimes;
+            this.errors = errors;
+            this.unsent = unsent;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return responseTimes.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getUnsent() {
+            return unsent;
+        }
+
+        public double percentileMillis(double percentile) {
+            return responseTimes.getValueAtPercentile(percentile) / NANOS_PER_MILLI;
+        }
+
+        public double maxMillis() {
+            return responseTimes.getMaxValue() / NANOS_PER_MILLI;
+        }
+    }
+}
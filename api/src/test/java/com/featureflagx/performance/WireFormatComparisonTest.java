@@ -0,0 +1,102 @@
+package com.featureflagx.performance;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.featureflagx.dto.FlagResponse;
+import com.featureflagx.wire.FlagWireFormat;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares payload size and serialization cost of the binary wire format against JSON.
+ * Needs no containers; timings are printed rather than asserted.
+ */
+public class WireFormatComparisonTest {
+
+    private static final int ITERATIONS = 2_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    public void compareEvaluationPayloads() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(Boolean.TRUE);
+        byte[] binary = FlagWireFormat.encodeEvaluation(true);
+
+        System.out.println("Evaluation: JSON " + json.length + " bytes, binary " + binary.length + " bytes");
+        assertThat(FlagWireFormat.decodeEvaluation(binary)).isTrue();
+    }
+
+    @Test
+    public void compareBulkEvaluationPayloads() throws Exception {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            results.put("checkout-experiment-" + i, i % 3 == 0);
+        }
+
+        byte[] json = objectMapper.writeValueAsBytes(results);
+        byte[] binary = FlagWireFormat.encodeBulkEvaluation(results);
+        report("Bulk evaluation (200 flags)", json.length, binary.length,
+                () -> write(results), () -> FlagWireFormat.encodeBulkEvaluation(results));
+
+        assertThat(binary.length).isLessThan(json.length);
+        assertThat(FlagWireFormat.decodeBulkEvaluation(binary)).isEqualTo(results);
+    }
+
+    @Test
+    public void compareFlagListingPayloads() throws Exception {
+        List<FlagResponse> flags = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            FlagResponse flag = new FlagResponse();
+            flag.setKey("feature-" + i);
+            flag.setEnabled(i % 2 == 0);
+            flag.setConfig("{\"version\":\"1.0\",\"index\":" + i + "}");
+            flag.setUpdatedAt(Instant.now());
+            flags.add(flag);
+        }
+
+        byte[] json = objectMapper.writeValueAsBytes(flags);
+        byte[] binary = FlagWireFormat.encodeFlagList(flags);
+        report("Flag listing (1000 flags)", json.length, binary.length,
+                () -> write(flags), () -> FlagWireFormat.encodeFlagList(flags));
+
+        assertThat(binary.length).isLessThan(json.length);
+        assertThat(FlagWireFormat.decodeFlagList(binary)).hasSize(flags.size());
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void report(String name, int jsonBytes, int binaryBytes, Supplier<byte[]> json, Supplier<byte[]> binary) {
+        long jsonNanos = time(json);
+        long binaryNanos = time(binary);
+        System.out.println(name + ": JSON " + jsonBytes + " bytes / " + jsonNanos / 1000 + " us per op, binary "
+                + binaryBytes + " bytes / " + binaryNanos / 1000 + " us per op");
+    }
+
+    private long time(Supplier<byte[]> encoder) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoder.get(); // warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            encoder.get();
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+}
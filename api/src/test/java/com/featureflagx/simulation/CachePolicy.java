@@ -0,0 +1,146 @@
+package com.featureflagx.simulation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The cache settings one simulated deployment runs with. Defaults match what ships: the Java
+ * SDK's 1000 entries for 5 minutes and {@code featureflagx.cache.redis-ttl} of 5 minutes.
+ */
+public final class CachePolicy {
+
+    static final double DEFAULT_XFETCH_BETA = 1.0; // FlagService's XFETCH_BETA
+
+    private final String name;
+    private final int clients;
+    private final long sdkMaxSize;
+    private final Duration sdkTtl;
+    private final Duration redisTtl;
+    private final long computeMillis;
+    private final double xfetchBeta;
+
+    public CachePolicy(String name, int clients, long sdkMaxSize, Duration sdkTtl, Duration redisTtl,
+                       long computeMillis, double xfetchBeta) {
+        if (clients < 1 || sdkMaxSize < 0 || sdkTtl.isNegative() || redisTtl.isNegative() || computeMillis < 0) {
+            throw new IllegalArgumentException("Invalid settings for policy '" + name + "'");
+        }
+        this.name = name;
+        this.clients = clients;
+        this.sdkMaxSize = sdkMaxSize;
+        this.sdkTtl = sdkTtl;
+        this.redisTtl = redisTtl;
+        this.computeMillis = computeMillis;
+        this.xfetchBeta = xfetchBeta;
+    }
+
+    /**
+     * Parses policies in the form {@code name:setting=value,...}, separated by {@code ;}, e.g.
+     * {@code current:sdk-ttl=5m;short:sdk-ttl=30s,redis-ttl=1m}. Settings left out keep their
+     * defaults:
+     * <ul>
+     *   <li>{@code clients} - SDK instances; evaluations are spread across them by target id (1)</li>
+     *   <li>{@code sdk-size} / {@code sdk-ttl} - the client cache; either set to 0 disables it (1000 / 5m)</li>
+     *   <li>{@code redis-ttl} - lifetime of cached evaluations in Redis (5m)</li>
+     *   <li>{@code compute-ms} - database load time XFetch weighs early refreshes by (5)</li>
+     *   <li>{@code beta} - XFetch beta (1.0)</li>
+     * </ul>
+     */
+    public static List<CachePolicy> parseAll(String spec) {
+        List<CachePolicy> policies = new ArrayList<>();
+        for (String part : spec.split(";")) {
+            if (!part.isBlank()) {
+                policies.add(parse(part.trim()));
+            }
+        }
+        if (policies.isEmpty()) {
+            throw new IllegalArgumentException("No policies in '" + spec + "'");
+        }
+        return policies;
+    }
+
+    static CachePolicy parse(String spec) {
+        int colon = spec.indexOf(':');
+        String name = colon < 0 ? spec : spec.substring(0, colon).trim();
+        int clients = 1;
+        long sdkMaxSize = 1000;
+        Duration sdkTtl = Duration.ofMinutes(5);
+        Duration redisTtl = Duration.ofMinutes(5);
+        long computeMillis = 5;
+        double xfetchBeta = DEFAULT_XFETCH_BETA;
+        if (colon >= 0) {
+            for (String setting : spec.substring(colon + 1).split(",")) {
+                String[] nameAndValue = setting.trim().split("=");
+                if (nameAndValue.length != 2) {
+                    throw new IllegalArgumentException("Expected setting=value but got '" + setting + "'");
+                }
+                String value = nameAndValue[1].trim();
+                switch (nameAndValue[0].trim()) {
+                    case "clients":
+                        clients = Integer.parseInt(value);
+                        break;
+                    case "sdk-size":
+                        sdkMaxSize = Long.parseLong(value);
+                        break;
+                    case "sdk-ttl":
+                        sdkTtl = parseDuration(value);
+                        break;
+                    case "redis-ttl":
+                        redisTtl = parseDuration(value);
+                        break;
+                    case "compute-ms":
+                        computeMillis = Long.parseLong(value);
+                        break;
+                    case "beta":
+                        xfetchBeta = Double.parseDouble(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown setting '" + nameAndValue[0].trim() + "' in policy '" + name + "'");
+                }
+            }
+        }
+        return new CachePolicy(name, clients, sdkMaxSize, sdkTtl, redisTtl, computeMillis, xfetchBeta);
+    }
+
+    private static Duration parseDuration(String value) {
+        return value.equals("0") ? Duration.ZERO : Duration.parse("PT" + value.toUpperCase());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getClients() {
+        return clients;
+    }
+
+    public long getSdkMaxSize() {
+        return sdkMaxSize;
+    }
+
+    public Duration getSdkTtl() {
+        return sdkTtl;
+    }
+
+    public Duration getRedisTtl() {
+        return redisTtl;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+    public double getXfetchBeta() {
+        return xfetchBeta;
+    }
+
+    boolean sdkCacheEnabled() {
+        return sdkMaxSize > 0 && !sdkTtl.isZero();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (clients=" + clients + ", sdk-size=" + sdkMaxSize + ", sdk-ttl=" + sdkTtl
+                + ", redis-ttl=" + redisTtl + ")";
+    }
+}
@@ -0,0 +1,205 @@
+package com.featureflagx.simulation;
+
+import com.featureflagx.cache.CachedEvaluation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays trace events through a model of the evaluation path under one {@link CachePolicy},
+ * on a virtual clock driven by the trace's timestamps:
+ * <ol>
+ *   <li>the Java SDK's cache: a Caffeine cache built like {@code SharedFlagStore}'s, so
+ *       size-based eviction and expiry behave as in the client. Like the client, it keeps one
+ *       entry per (flag, target), or one per flag once the API has answered that the flag is
+ *       target-independent, as declared by the trace. It isn't invalidated when a flag changes;
+ *       entries only expire.</li>
+ *   <li>FlagService's Redis entries, refreshed early by the real {@link CachedEvaluation} XFetch
+ *       check and deleted when the flag changes.</li>
+ *   <li>the database, which always has the latest version.</li>
+ * </ol>
+ * Every flag carries a version that each update bumps; an evaluation is stale when the version
+ * it was answered with is older than the flag's current one. Loads are instantaneous and
+ * single-flighted, so stampedes, the hot-key pin and the per-target result cache aren't modelled.
+ */
+public final class CacheSimulator {
+
+    private final CachePolicy policy;
+    private final Random random;
+    private final List<Cache<SdkKey, Long>> clients = new ArrayList<>();
+    private final Map<String, RedisEntry> redis = new HashMap<>();
+    private final Set<String> targetIndependent = new HashSet<>();
+    private final Map<String, List<Long>> updateTimes = new HashMap<>(); // per flag; index n produced version n + 1
+    private long nowMillis;
+
+    private long evaluations;
+    private long sdkHits;
+    private long upstreamRequests;
+    private long redisHits;
+    private long earlyRefreshes;
+    private long databaseLoads;
+    private long updates;
+    private long staleEvaluations;
+    private long staleMillisTotal;
+    private long maxStaleMillis;
+
+    public CacheSimulator(CachePolicy policy, long seed) {
+        this.policy = policy;
+        this.random = new Random(seed);
+        if (policy.sdkCacheEnabled()) {
+            for (int i = 0; i < policy.getClients(); i++) {
+                clients.add(Caffeine.newBuilder()
+                        .maximumSize(policy.getSdkMaxSize())
+                        .expireAfterWrite(policy.getSdkTtl().toMillis(), TimeUnit.MILLISECONDS)
+                        .ticker(() -> TimeUnit.MILLISECONDS.toNanos(nowMillis))
+                        .executor(Runnable::run) // evict as the clock advances rather than on a pool thread
+                        .build());
+            }
+        }
+    }
+
+    /**
+     * Replays a trace once, feeding every event to one simulator per policy, so each policy sees
+     * the same trace and the trace is read only once.
+     */
+    public static SimulationReport replay(TraceReader reader, String traceName, List<CachePolicy> policies, long seed)
+            throws IOException {
+        Instant startedAt = Instant.now();
+        List<CacheSimulator> simulators = new ArrayList<>(policies.size());
+        for (CachePolicy policy : policies) {
+            simulators.add(new CacheSimulator(policy, seed));
+        }
+        for (TraceEvent event = reader.next(); event != null; event = reader.next()) {
+            for (CacheSimulator simulator : simulators) {
+                simulator.accept(event);
+            }
+        }
+        List<SimulationReport.PolicyResult> results = new ArrayList<>(simulators.size());
+        for (CacheSimulator simulator : simulators) {
+            results.add(simulator.result());
+        }
+        return new SimulationReport(startedAt, traceName, results);
+    }
+
+    public void accept(TraceEvent event) {
+        nowMillis = event.getTimestampMillis();
+        if (event.getType() == TraceEvent.Type.UPDATE) {
+            updateTimes.computeIfAbsent(event.getFlagKey(), key -> new ArrayList<>()).add(nowMillis);
+            redis.remove(event.getFlagKey()); // FlagService.clearCache
+            updates++;
+            return;
+        }
+        if (event.getType() == TraceEvent.Type.INDEPENDENT) {
+            targetIndependent.add(event.getFlagKey());
+            return;
+        }
+        if (event.getType() == TraceEvent.Type.TARGETED) {
+            targetIndependent.remove(event.getFlagKey());
+            return;
+        }
+        evaluations++;
+        long version;
+        if (clients.isEmpty()) {
+            version = evaluateOnServer(event.getFlagKey());
+        } else {
+            version = evaluateThroughSdk(clients.get(clientFor(event.getTargetId())), event);
+        }
+        recordStaleness(event.getFlagKey(), version);
+    }
+
+    /** Same lookup order as {@code FeatureFlagClient.evaluate}. */
+    private long evaluateThroughSdk(Cache<SdkKey, Long> client, TraceEvent event) {
+        SdkKey anyTarget = new SdkKey(event.getFlagKey(), null, true);
+        SdkKey key = new SdkKey(event.getFlagKey(), event.getTargetId(), false);
+        Long cached = client.getIfPresent(anyTarget);
+        if (cached == null) {
+            cached = client.getIfPresent(key);
+        }
+        if (cached != null) {
+            sdkHits++;
+            return cached;
+        }
+        long version = evaluateOnServer(event.getFlagKey());
+        if (targetIndependent.contains(event.getFlagKey())) {
+            client.put(anyTarget, version);
+            client.invalidate(key);
+        } else {
+            client.put(key, version);
+        }
+        return version;
+    }
+
+    private int clientFor(String targetId) {
+        return targetId == null ? 0 : Math.floorMod(targetId.hashCode(), clients.size());
+    }
+
+    private long evaluateOnServer(String flagKey) {
+        upstreamRequests++;
+        RedisEntry entry = redis.get(flagKey);
+        if (entry == null || nowMillis >= entry.evaluation.getExpiresAtMillis()) {
+            return load(flagKey);
+        }
+        redisHits++;
+        double sample = 1.0 - random.nextDouble(); // (0, 1], as in FlagService.resolve
+        if (entry.evaluation.shouldRefreshEarly(nowMillis, policy.getXfetchBeta(), sample)) {
+            earlyRefreshes++;
+            return load(flagKey);
+        }
+        return entry.version;
+    }
+
+    private long load(String flagKey) {
+        databaseLoads++;
+        long version = currentVersion(flagKey);
+        if (!policy.getRedisTtl().isZero()) {
+            CachedEvaluation evaluation = new CachedEvaluation(true, policy.getComputeMillis(),
+                    nowMillis + policy.getRedisTtl().toMillis());
+            redis.put(flagKey, new RedisEntry(evaluation, version));
+        }
+        return version;
+    }
+
+    private void recordStaleness(String flagKey, long servedVersion) {
+        if (servedVersion == currentVersion(flagKey)) {
+            return;
+        }
+        // Stale since the first update the served value missed
+        long staleMillis = nowMillis - updateTimes.get(flagKey).get((int) servedVersion);
+        staleEvaluations++;
+        staleMillisTotal += staleMillis;
+        maxStaleMillis = Math.max(maxStaleMillis, staleMillis);
+    }
+
+    private long currentVersion(String flagKey) {
+        List<Long> times = updateTimes.get(flagKey);
+        return times == null ? 0 : times.size();
+    }
+
+    public SimulationReport.PolicyResult result() {
+        return new SimulationReport.PolicyResult(policy, evaluations, sdkHits, upstreamRequests, redisHits, earlyRefreshes,
+                databaseLoads, updates, staleEvaluations, staleMillisTotal, maxStaleMillis);
+    }
+
+    private record SdkKey(String flagKey, String targetId, boolean anyTarget) {
+    }
+
+    private static final class RedisEntry {
+        private final CachedEvaluation evaluation;
+        private final long version;
+
+        RedisEntry(CachedEvaluation evaluation, long version) {
+            this.evaluation = evaluation;
+            this.version = version;
+        }
+    }
+}
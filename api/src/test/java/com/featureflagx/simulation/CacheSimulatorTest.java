@@ -0,0 +1,114 @@
+package com.featureflagx.simulation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheSimulatorTest {
+
+    // Seconds: a's value is cached for every target at 0, a changes at 10 and its SDK entry expires at 60
+    private static final String TRACE = String.join("\n",
+            "timestamp,event,flag_key,target_id",
+            "0,independent,a,",
+            "0,evaluate,a,user-1",
+            "5000,evaluate,a,user-2",
+            "10000,update,a,",
+            "# the SDK still has the old value until its entry expires",
+            "30000,evaluate,a,user-1",
+            "50000,evaluate,b,",
+            "70000,evaluate,a,user-1",
+            "");
+
+    @Test
+    void replay_shouldCountHitsLoadsAndStalenessPerPolicy() throws Exception {
+        SimulationReport report = replay(TRACE,
+                "minute:sdk-ttl=1m,redis-ttl=5m,compute-ms=0;no-sdk-cache:sdk-ttl=0,compute-ms=0");
+
+        SimulationReport.PolicyResult cached = report.getResults().get(0);
+        assertEquals(5, cached.getEvaluations());
+        assertEquals(2, cached.getSdkHits());
+        assertEquals(3, cached.getUpstreamRequests()); // a at 0, b at 50s, a again once expired at 70s
+        assertEquals(0, cached.getRedisHits()); // the update deleted a's Redis entry
+        assertEquals(3, cached.getDatabaseLoads());
+        assertEquals(1, cached.getStaleEvaluations());
+        assertEquals(20_000, cached.getMaxStaleMillis());
+
+        SimulationReport.PolicyResult uncached = report.getResults().get(1);
+        assertEquals(0, uncached.getSdkHits());
+        assertEquals(5, uncached.getUpstreamRequests());
+        assertEquals(2, uncached.getRedisHits()); // a at 5s and 70s; compute-ms=0 never refreshes early
+        assertEquals(3, uncached.getDatabaseLoads());
+        assertEquals(0, uncached.getStaleEvaluations());
+    }
+
+    @Test
+    void replay_withManyClients_shouldCacheSeparatelyPerClient() throws Exception {
+        StringBuilder trace = new StringBuilder("0,independent,a,\n");
+        for (int i = 0; i < 100; i++) {
+            trace.append(i).append(",evaluate,a,user-").append(i).append('\n');
+        }
+
+        SimulationReport.PolicyResult result = replay(trace.toString(), "four:clients=4").getResults().get(0);
+
+        // Each client misses once; the rest are hits
+        assertEquals(4, result.getUpstreamRequests());
+        assertEquals(96, result.getSdkHits());
+        assertEquals(3, result.getRedisHits());
+    }
+
+    @Test
+    void replay_withTargetedFlag_shouldCachePerTarget() throws Exception {
+        String trace = String.join("\n",
+                "0,independent,shared,",
+                "0,evaluate,shared,user-1",
+                "0,evaluate,targeted,user-1",
+                "1000,evaluate,shared,user-2",
+                "1000,evaluate,targeted,user-2",
+                "2000,evaluate,shared,user-1",
+                "2000,evaluate,targeted,user-1",
+                "3000,evaluate,shared,user-2",
+                "3000,evaluate,targeted,user-2",
+                "");
+
+        SimulationReport.PolicyResult result = replay(trace, "current").getResults().get(0);
+
+        // shared misses once for everyone; targeted (undeclared) misses once per target
+        assertEquals(8, result.getEvaluations());
+        assertEquals(5, result.getSdkHits());
+        assertEquals(3, result.getUpstreamRequests());
+        assertEquals(1, result.getRedisHits()); // targeted for user-2, from user-1's load
+    }
+
+    @Test
+    void traceReader_shouldRejectEventsOutOfOrder() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> replay("2000,evaluate,a,\n1000,evaluate,a,\n", "current"));
+        assertEquals("Trace line 2: timestamp goes backwards; sort the trace by time", e.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> replay("0,delete,a,\n", "current"));
+        assertThrows(IllegalArgumentException.class, () -> CachePolicy.parseAll("x:sdk-tll=1m"));
+    }
+
+    @Test
+    void write_shouldAppendOneRowPerPolicy(@TempDir Path directory) throws Exception {
+        replay(TRACE, "a;b:sdk-ttl=0").write(directory);
+        Path summary = replay(TRACE, "a").write(directory);
+
+        List<String> lines = Files.readAllLines(summary);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("run_id,trace,policy,"));
+        assertTrue(lines.get(2).contains(",test,b,1,1000,0,300000,5,1,0.0000,5,"));
+    }
+
+    private static SimulationReport replay(String trace, String policies) throws Exception {
+        try (TraceReader reader = new TraceReader(new StringReader(trace))) {
+            return CacheSimulator.replay(reader, "test", CachePolicy.parseAll(policies), 42);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.featureflagx.simulation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Results of replaying one trace under several policies: a table for the console, and one row
+ * per policy appended to {@code summary.csv} so runs over different traces can be compared.
+ */
+public final class SimulationReport {
+
+    private static final DateTimeFormatter RUN_ID_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+    private static final String CSV_HEADER = "run_id,trace,policy,clients,sdk_size,sdk_ttl_ms,redis_ttl_ms,"
+            + "evaluations,updates,sdk_hit_ratio,upstream_requests,redis_hit_ratio,early_refreshes,db_loads,"
+            + "stale_ratio,mean_stale_ms,max_stale_ms";
+
+    private final Instant startedAt;
+    private final String trace;
+    private final List<PolicyResult> results;
+
+    SimulationReport(Instant startedAt, String trace, List<PolicyResult> results) {
+        this.startedAt = startedAt;
+        this.trace = trace;
+        this.results = results;
+    }
+
+    public List<PolicyResult> getResults() {
+        return results;
+    }
+
+    public void print(PrintStream out) {
+        PolicyResult first = results.get(0);
+        out.printf(Locale.ROOT, "Replayed %s: %d evaluations, %d updates%n", trace, first.evaluations, first.updates);
+        out.printf(Locale.ROOT, "%-16s %9s %10s %9s %9s %10s %8s %11s %11s%n",
+                "policy", "sdk hit", "upstream", "redis hit", "refresh", "db loads", "stale", "mean stale", "max stale");
+        for (PolicyResult result : results) {
+            out.printf(Locale.ROOT, "%-16s %8.2f%% %10d %8.2f%% %9d %10d %7.3f%% %9.1fs %9.1fs%n",
+                    result.policy.getName(), result.sdkHitRatio() * 100, result.upstreamRequests,
+                    result.redisHitRatio() * 100, result.earlyRefreshes, result.databaseLoads,
+                    result.staleRatio() * 100, result.meanStaleMillis() / 1000.0, result.maxStaleMillis / 1000.0);
+        }
+        out.println("(stale: evaluations answered with a value older than the flag's latest update)");
+    }
+
+    /**
+     * Appends a row per policy to {@code directory/summary.csv}.
+     *
+     * @return the summary file
+     */
+    public Path write(Path directory) {
+        String runId = RUN_ID_FORMAT.format(startedAt);
+        Path summary = directory.resolve("summary.csv");
+        try {
+            Files.createDirectories(directory);
+            StringBuilder rows = new StringBuilder();
+            if (!Files.exists(summary)) {
+                rows.append(CSV_HEADER).append('\n');
+            }
+            for (PolicyResult result : results) {
+                CachePolicy policy = result.policy;
+                rows.append(String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%d,%d,%d,%.4f,%d,%.4f,%d,%d,%.6f,%.1f,%d%n",
+                        runId, trace, policy.getName(), policy.getClients(), policy.getSdkMaxSize(),
+                        policy.getSdkTtl().toMillis(), policy.getRedisTtl().toMillis(),
+                        result.evaluations, result.updates, result.sdkHitRatio(), result.upstreamRequests,
+                        result.redisHitRatio(), result.earlyRefreshes, result.databaseLoads,
+                        result.staleRatio(), result.meanStaleMillis(), result.maxStaleMillis));
+            }
+            Files.write(summary, rows.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write simulation report to " + directory, e);
+        }
+        return summary;
+    }
+
+    public static final class PolicyResult {
+        private final CachePolicy policy;
+        private final long evaluations;
+        private final long sdkHits;
+        private final long upstreamRequests;
+        private final long redisHits;
+        private final long earlyRefreshes;
+        private final long databaseLoads;
+        private final long updates;
+        private final long staleEvaluations;
+        private final long staleMillisTotal;
+        private final long maxStaleMillis;
+
+        PolicyResult(CachePolicy policy, long evaluations, long sdkHits, long upstreamRequests, long redisHits,
+                     long earlyRefreshes, long databaseLoads, long updates, long staleEvaluations,
+                     long staleMillisTotal, long maxStaleMillis) {
+            this.policy = policy;
+            this.evaluations = evaluations;
+            this.sdkHits = sdkHits;
+            this.upstreamRequests = upstreamRequests;
+            this.redisHits = redisHits;
+            this.earlyRefreshes = earlyRefreshes;
+            this.databaseLoads = databaseLoads;
+            this.updates = updates;
+            this.staleEvaluations = staleEvaluations;
+            this.staleMillisTotal = staleMillisTotal;
+            this.maxStaleMillis = maxStaleMillis;
+        }
+
+        public CachePolicy getPolicy() {
+            return policy;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getSdkHits() {
+            return sdkHits;
+        }
+
+        /**
+         * @return evaluations the SDK cache couldn't answer, i.e. requests to the API
+         */
+        public long getUpstreamRequests() {
+            return upstreamRequests;
+        }
+
+        public long getRedisHits() {
+            return redisHits;
+        }
+
+        /**
+         * @return Redis hits that XFetch reloaded ahead of expiry; these are also database loads
+         */
+        public long getEarlyRefreshes() {
+            return earlyRefreshes;
+        }
+
+        public long getDatabaseLoads() {
+            return databaseLoads;
+        }
+
+        public long getStaleEvaluations() {
+            return staleEvaluations;
+        }
+
+        public long getMaxStaleMillis() {
+            return maxStaleMillis;
+        }
+
+        public double sdkHitRatio() {
+            return ratio(sdkHits, evaluations);
+        }
+
+        public double redisHitRatio() {
+            return ratio(redisHits, upstreamRequests);
+        }
+
+        public double staleRatio() {
+            return ratio(staleEvaluations, evaluations);
+        }
+
+        public double meanStaleMillis() {
+            return staleEvaluations == 0 ? 0 : (double) staleMillisTotal / staleEvaluations;
+        }
+
+        private static double ratio(long part, long whole) {
+            return whole == 0 ? 0 : (double) part / whole;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.featureflagx.simulation;
+
+/**
+ * One row of a recorded trace: an evaluation of a flag for a target, a mutation of the flag, or
+ * a declaration of whether the flag evaluates the same for every target.
+ */
+public final class TraceEvent {
+
+    public enum Type {
+        EVALUATE,
+        UPDATE,
+        INDEPENDENT,
+        TARGETED
+    }
+
+    private final long timestampMillis;
+    private final Type type;
+    private final String flagKey;
+    private final String targetId; // null except for evaluations of a known target
+
+    public TraceEvent(long timestampMillis, Type type, String flagKey, String targetId) {
+        this.timestampMillis = timestampMillis;
+        this.type = type;
+        this.flagKey = flagKey;
+        this.targetId = targetId;
+    }
+
+    public static TraceEvent evaluate(long timestampMillis, String flagKey, String targetId) {
+        return new TraceEvent(timestampMillis, Type.EVALUATE, flagKey, targetId);
+    }
+
+    public static TraceEvent update(long timestampMillis, String flagKey) {
+        return new TraceEvent(timestampMillis, Type.UPDATE, flagKey, null);
+    }
+
+    public static TraceEvent independent(long timestampMillis, String flagKey) {
+        return new TraceEvent(timestampMillis, Type.INDEPENDENT, flagKey, null);
+    }
+
+    public static TraceEvent targeted(long timestampMillis, String flagKey) {
+        return new TraceEvent(timestampMillis, Type.TARGETED, flagKey, null);
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getFlagKey() {
+        return flagKey;
+    }
+
+    public String getTargetId() {
+        return targetId;
+    }
+}
@@ -0,0 +1,100 @@
+package com.featureflagx.simulation;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streams a trace in CSV form, one event per line:
+ * <pre>
+ * timestamp,event,flag_key,target_id
+ * 1760781600000,independent,checkout-v2,
+ * 1760781600000,evaluate,checkout-v2,user-17
+ * 1760781600250,update,checkout-v2,
+ * </pre>
+ * {@code independent} and {@code targeted} rows say whether a flag evaluates the same for every
+ * target from then on; flags are targeted until declared otherwise.
+ * Timestamps are epoch milliseconds or ISO-8601 instants and must not go backwards. The header,
+ * blank lines and lines starting with {@code #} are skipped; {@code target_id} may be left out.
+ * Events are read one at a time, so traces larger than the heap can be replayed.
+ */
+public final class TraceReader implements Closeable {
+
+    private final BufferedReader reader;
+    private long lineNumber;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public TraceReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    public static TraceReader open(Path path) throws IOException {
+        return new TraceReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the next event, or null at the end of the trace
+     * @throws IllegalArgumentException if a line is malformed or out of order
+     */
+    public TraceEvent next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || (lineNumber == 1 && line.startsWith("timestamp"))) {
+                continue;
+            }
+            return parse(line);
+        }
+        return null;
+    }
+
+    private TraceEvent parse(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 3 || fields.length > 4 || fields[2].isBlank()) {
+            throw malformed("expected timestamp,event,flag_key[,target_id]");
+        }
+        long timestamp = parseTimestamp(fields[0].trim());
+        if (timestamp < lastTimestamp) {
+            throw malformed("timestamp goes backwards; sort the trace by time");
+        }
+        lastTimestamp = timestamp;
+        String flagKey = fields[2].trim();
+        String targetId = fields.length == 4 && !fields[3].isBlank() ? fields[3].trim() : null;
+        switch (fields[1].trim().toLowerCase()) {
+            case "evaluate":
+                return TraceEvent.evaluate(timestamp, flagKey, targetId);
+            case "update":
+                return TraceEvent.update(timestamp, flagKey);
+            case "independent":
+                return TraceEvent.independent(timestamp, flagKey);
+            case "targeted":
+                return TraceEvent.targeted(timestamp, flagKey);
+            default:
+                throw malformed("unknown event '" + fields[1].trim() + "'");
+        }
+    }
+
+    private long parseTimestamp(String value) {
+        try {
+            return value.chars().allMatch(Character::isDigit) ? Long.parseLong(value) : Instant.parse(value).toEpochMilli();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw malformed("unreadable timestamp '" + value + "'");
+        }
+    }
+
+    private IllegalArgumentException malformed(String reason) {
+        return new IllegalArgumentException("Trace line " + lineNumber + ": " + reason);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
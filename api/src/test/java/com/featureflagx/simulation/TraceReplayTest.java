@@ -0,0 +1,55 @@
+package com.featureflagx.simulation;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Replays a recorded trace under several cache policies and reports hit ratios, upstream
+ * request and database load counts, and staleness for each, so cache sizes and TTLs can be
+ * compared before changing them in production. Runs on a virtual clock: a day of traffic
+ * replays in seconds.
+ *
+ * Run with {@code mvn test -Psimulation -Dsimulation.trace=trace.csv}. Tunable through system properties:
+ * <ul>
+ *   <li>{@code simulation.trace} - the trace to replay, in {@link TraceReader}'s format (required)</li>
+ *   <li>{@code simulation.policies} - the policies to compare, in {@link CachePolicy#parseAll}'s format
+ *       (default: the shipped settings plus shorter and longer SDK and Redis TTLs)</li>
+ *   <li>{@code simulation.seed} - seed for XFetch's random draws (default 42)</li>
+ *   <li>{@code simulation.report-dir} - where reports are written (default {@code target/simulation})</li>
+ * </ul>
+ */
+@Tag("simulation")
+public class TraceReplayTest {
+
+    private static final String DEFAULT_POLICIES = "current;"
+            + "no-sdk-cache:sdk-ttl=0;"
+            + "sdk-30s:sdk-ttl=30s;"
+            + "sdk-1m:sdk-ttl=1m;"
+            + "sdk-size-100:sdk-size=100;"
+            + "redis-1m:redis-ttl=1m;"
+            + "redis-30m:redis-ttl=30m";
+
+    @Test
+    void replayTrace() throws Exception {
+        String trace = System.getProperty("simulation.trace");
+        assertNotNull(trace, "Set -Dsimulation.trace to the trace file to replay");
+        List<CachePolicy> policies = CachePolicy.parseAll(System.getProperty("simulation.policies", DEFAULT_POLICIES));
+        long seed = Long.parseLong(System.getProperty("simulation.seed", "42"));
+        Path reportDirectory = Path.of(System.getProperty("simulation.report-dir", "target/simulation"));
+
+        Path tracePath = Path.of(trace);
+        SimulationReport report;
+        try (TraceReader reader = TraceReader.open(tracePath)) {
+            report = CacheSimulator.replay(reader, tracePath.getFileName().toString(), policies, seed);
+        }
+
+        report.print(System.out);
+        Path summary = report.write(reportDirectory);
+        System.out.println("Simulation report written to " + summary.toAbsolutePath());
+    }
+}
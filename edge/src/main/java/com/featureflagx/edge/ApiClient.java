@@ -0,0 +1,89 @@
+package com.featureflagx.edge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Talks to the main API in its binary encoding: conditional flag listings for snapshots, and
+ * evaluations of segment-targeted flags, which need membership data the edge doesn't hold.
+ *
+ * Uses {@link HttpURLConnection} (with its keep-alive pool) rather than {@code java.net.http};
+ * creating an {@code HttpClient} alone costs several hundred milliseconds of startup.
+ */
+final class ApiClient {
+
+    private final String baseUrl;
+    private final int timeoutMillis;
+    private volatile String etag;
+
+    ApiClient(URI baseUri, Duration timeout) {
+        String base = baseUri.toString();
+        this.baseUrl = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.timeoutMillis = (int) timeout.toMillis();
+    }
+
+    /**
+     * @return a snapshot of the current flags, or null if they haven't changed since the last call
+     */
+    FlagSnapshot fetchSnapshotIfChanged() throws IOException {
+        HttpURLConnection connection = open("/flags");
+        String known = etag;
+        if (known != null) {
+            connection.setRequestProperty("If-None-Match", known);
+        }
+        if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            connection.getInputStream().close();
+            return null;
+        }
+        FlagSnapshot snapshot = FlagSnapshot.fromListing(read(connection), connection.getHeaderField("ETag"));
+        etag = snapshot.etag();
+        return snapshot;
+    }
+
+    boolean evaluate(String key, String targetId) throws IOException {
+        HttpURLConnection connection = open("/flags/evaluate/" + encode(key) + "?targetId=" + encode(targetId));
+        return EdgeWireFormat.decodeEvaluation(read(connection));
+    }
+
+    Map<String, Boolean> evaluate(List<String> keys, String targetId) throws IOException {
+        StringBuilder path = new StringBuilder("/flags/evaluate?targetId=").append(encode(targetId));
+        for (String key : keys) {
+            path.append("&keys=").append(encode(key));
+        }
+        return EdgeWireFormat.decodeBulkEvaluation(read(open(path.toString())));
+    }
+
+    private HttpURLConnection open(String pathAndQuery) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + pathAndQuery).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setRequestProperty("Accept", EdgeWireFormat.MEDIA_TYPE);
+        return connection;
+    }
+
+    private static byte[] read(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_OK) {
+            InputStream error = connection.getErrorStream();
+            if (error != null) {
+                error.close();
+            }
+            throw new IOException("API returned " + status + " for " + connection.getURL());
+        }
+        try (InputStream in = connection.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,102 @@
+package com.featureflagx.edge;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The request and response shapes the edge's handlers work with, so the same handlers serve
+ * TCP through the JDK's {@code HttpServer} and the Unix domain socket through
+ * {@link UnixSocketServer}. Only what the handlers need is modelled: GET-style requests with
+ * no body, and responses with a small, fully buffered body.
+ */
+final class EdgeHttp {
+
+    private EdgeHttp() {
+    }
+
+    interface Handler {
+        Response handle(Request request) throws IOException;
+    }
+
+    static final class Request {
+        final String method;
+        final String path;
+        final String rawQuery;
+        private final Map<String, String> headers; // lower-case names
+
+        Request(String method, String path, String rawQuery, Map<String, String> headers) {
+            this.method = method;
+            this.path = path;
+            this.rawQuery = rawQuery;
+            this.headers = headers;
+        }
+
+        String header(String name) {
+            return headers.get(name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    static final class Response {
+        private static final byte[] EMPTY = new byte[0];
+
+        final int status;
+        final byte[] body;
+        final Map<String, String> headers = new LinkedHashMap<>();
+
+        private Response(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.body = body;
+            if (contentType != null) {
+                headers.put("Content-Type", contentType);
+            }
+            headers.put("Vary", "Accept");
+        }
+
+        static Response of(int status, String contentType, byte[] body) {
+            return new Response(status, contentType, body);
+        }
+
+        static Response status(int status) {
+            return new Response(status, null, EMPTY);
+        }
+
+        Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+    }
+
+    /**
+     * Adapts a handler to the JDK's {@code HttpServer}.
+     */
+    static HttpHandler adapt(Handler handler) {
+        return exchange -> {
+            try (exchange) {
+                Map<String, String> headers = new LinkedHashMap<>();
+                exchange.getRequestHeaders().forEach((name, values) -> {
+                    if (!values.isEmpty()) {
+                        headers.put(name.toLowerCase(Locale.ROOT), String.join(", ", values));
+                    }
+                });
+                send(exchange, handler.handle(new Request(exchange.getRequestMethod(),
+                        exchange.getRequestURI().getPath(), exchange.getRequestURI().getRawQuery(), headers)));
+            }
+        };
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        response.headers.forEach((name, value) -> exchange.getResponseHeaders().set(name, value));
+        exchange.sendResponseHeaders(response.status, response.body.length == 0 ? -1 : response.body.length);
+        if (response.body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response.body);
+            }
+        }
+    }
+}
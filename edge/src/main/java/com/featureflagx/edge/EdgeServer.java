@@ -0,0 +1,148 @@
+package com.featureflagx.edge;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only flag evaluation server for the edge. It runs on the JDK's built-in HTTP server with
+ * no framework, so it starts in a fraction of a second and fits in a small heap (see the
+ * README). Flags come from a snapshot of the main API that {@link SnapshotSync} keeps current.
+ *
+ * Run one per host as a relay, listening on loopback or a Unix domain socket, and the host's
+ * app processes share one upstream sync instead of each polling the API.
+ *
+ * Configured with environment variables:
+ * <pre>
+ *   FEATUREFLAGX_API_URL               main API (or another edge) base URL (default http://localhost:8080)
+ *   FEATUREFLAGX_EDGE_PORT             port to listen on, or -1 for none (default 8090)
+ *   FEATUREFLAGX_EDGE_BIND_ADDRESS     address to listen on (default all interfaces)
+ *   FEATUREFLAGX_EDGE_SOCKET           Unix domain socket path to listen on as well (default none)
+ *   FEATUREFLAGX_EDGE_SYNC_INTERVAL_MS snapshot poll interval (default 1000)
+ *   FEATUREFLAGX_EDGE_THREADS          request threads (default 2 per CPU)
+ * </pre>
+ */
+public final class EdgeServer {
+
+    private static final System.Logger log = System.getLogger(EdgeServer.class.getName());
+
+    private final HttpServer server; // null without a TCP listener
+    private final UnixSocketServer socketServer; // null without a socket
+    private final ExecutorService executor;
+    private final SnapshotSync snapshotSync;
+
+    public EdgeServer(URI apiUri, int port, Duration syncInterval, int threads) throws IOException {
+        this(apiUri, new InetSocketAddress(port), null, syncInterval, threads);
+    }
+
+    /**
+     * @param address    TCP address to listen on, or null for none
+     * @param socketPath Unix domain socket to listen on, or null for none
+     */
+    public EdgeServer(URI apiUri, InetSocketAddress address, Path socketPath, Duration syncInterval, int threads) throws IOException {
+        if (address == null && socketPath == null) {
+            throw new IllegalArgumentException("Nothing to listen on: set a port or a socket path");
+        }
+        ApiClient apiClient = new ApiClient(apiUri, Duration.ofSeconds(2));
+        this.snapshotSync = new SnapshotSync(apiClient, syncInterval.toMillis());
+
+        // Longest prefix wins, as with HttpServer contexts
+        Map<String, EdgeHttp.Handler> routes = new LinkedHashMap<>();
+        routes.put(EvaluationHandler.PATH, new EvaluationHandler(snapshotSync, apiClient));
+        routes.put(SnapshotHandler.PATH, new SnapshotHandler(snapshotSync));
+        // Ready once a snapshot has been loaded; load balancers should only route to ready nodes
+        routes.put("/health", request -> {
+            boolean ready = snapshotSync.current() != null;
+            return EdgeHttp.Response.of(ready ? 200 : 503, "application/json",
+                    (ready ? "{\"status\":\"UP\"}" : "{\"status\":\"SYNCING\"}").getBytes(StandardCharsets.UTF_8));
+        });
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "edge-http-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (address != null) {
+            this.server = HttpServer.create(address, 0);
+            server.setExecutor(executor);
+            routes.forEach((path, handler) -> server.createContext(path, EdgeHttp.adapt(handler)));
+        } else {
+            this.server = null;
+        }
+        this.socketServer = socketPath != null ? new UnixSocketServer(socketPath, route(routes)) : null;
+    }
+
+    public void start() {
+        snapshotSync.start();
+        if (server != null) {
+            server.start();
+        }
+        if (socketServer != null) {
+            socketServer.start();
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (socketServer != null) {
+            socketServer.stop();
+        }
+        snapshotSync.stop();
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the TCP port, or -1 without a TCP listener
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    private static EdgeHttp.Handler route(Map<String, EdgeHttp.Handler> routes) {
+        return request -> {
+            String match = null;
+            for (String path : routes.keySet()) {
+                if (request.path.startsWith(path) && (match == null || path.length() > match.length())) {
+                    match = path;
+                }
+            }
+            return match != null ? routes.get(match).handle(request) : EdgeHttp.Response.status(404);
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        long startedAt = System.nanoTime();
+        URI apiUri = URI.create(env("FEATUREFLAGX_API_URL", "http://localhost:8080"));
+        int port = Integer.parseInt(env("FEATUREFLAGX_EDGE_PORT", "8090"));
+        String bindAddress = env("FEATUREFLAGX_EDGE_BIND_ADDRESS", null);
+        String socket = env("FEATUREFLAGX_EDGE_SOCKET", null);
+        InetSocketAddress address = port < 0 ? null : bindAddress != null ? new InetSocketAddress(bindAddress, port) : new InetSocketAddress(port);
+        Path socketPath = socket != null ? Path.of(socket) : null;
+        EdgeServer edge = new EdgeServer(apiUri, address, socketPath,
+                Duration.ofMillis(Long.parseLong(env("FEATUREFLAGX_EDGE_SYNC_INTERVAL_MS", "1000"))),
+                Integer.parseInt(env("FEATUREFLAGX_EDGE_THREADS", String.valueOf(2 * Runtime.getRuntime().availableProcessors()))));
+        Runtime.getRuntime().addShutdownHook(new Thread(edge::stop, "edge-shutdown"));
+        edge.start();
+        log.log(System.Logger.Level.INFO, "Edge evaluator listening on port {0}, socket {1} for {2} in {3} ms",
+                address != null ? String.valueOf(edge.getPort()) : "none", socketPath != null ? socketPath : "none",
+                apiUri, (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+}
@@ -0,0 +1,166 @@
+package com.featureflagx.edge;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of the API's {@code application/x-featureflagx} encoding the edge speaks: it reads
+ * flag listings and evaluations from the API and writes evaluations to its own clients. Mirrors
+ * {@code com.featureflagx.wire.FlagWireFormat} in the api module; keep the two in sync.
+ */
+final class EdgeWireFormat {
+
+    static final String MEDIA_TYPE = "application/x-featureflagx";
+
+    private static final byte VERSION = 1;
+    private static final byte TYPE_EVALUATION = 1;
+    private static final byte TYPE_BULK_EVALUATION = 2;
+    private static final byte TYPE_FLAG_LIST = 4;
+
+    private static final int BIT_ENABLED = 1;
+    private static final int BIT_CONFIG = 2;
+    private static final int BIT_UPDATED_AT = 4;
+
+    private EdgeWireFormat() {
+    }
+
+    static byte[] encodeEvaluation(boolean enabled) {
+        return new byte[]{VERSION, TYPE_EVALUATION, (byte) (enabled ? 1 : 0)};
+    }
+
+    static byte[] encodeBulkEvaluation(Map<String, Boolean> results) {
+        Writer out = new Writer(16 + results.size() * 24);
+        out.write(VERSION);
+        out.write(TYPE_BULK_EVALUATION);
+        out.varint(results.size());
+        for (Map.Entry<String, Boolean> entry : results.entrySet()) {
+            out.string(entry.getKey());
+            out.write(Boolean.TRUE.equals(entry.getValue()) ? 1 : 0);
+        }
+        return out.toByteArray();
+    }
+
+    static boolean decodeEvaluation(byte[] data) {
+        return new Reader(data, TYPE_EVALUATION).read() != 0;
+    }
+
+    static Map<String, Boolean> decodeBulkEvaluation(byte[] data) {
+        Reader in = new Reader(data, TYPE_BULK_EVALUATION);
+        int count = in.varint();
+        Map<String, Boolean> results = new LinkedHashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            results.put(in.string(), in.read() != 0);
+        }
+        return results;
+    }
+
+    static List<FlagSnapshot.Flag> decodeFlagList(byte[] data) {
+        Reader in = new Reader(data, TYPE_FLAG_LIST);
+        int count = in.varint();
+        List<FlagSnapshot.Flag> flags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String key = in.string();
+            int bits = in.read();
+            String config = (bits & BIT_CONFIG) != 0 ? in.string() : null;
+            if ((bits & BIT_UPDATED_AT) != 0) {
+                in.varlong(); // epoch second
+                in.varint(); // nanos
+            }
+            flags.add(new FlagSnapshot.Flag(key, (bits & BIT_ENABLED) != 0, config));
+        }
+        return flags;
+    }
+
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int initialCapacity) {
+            this.buf = new byte[initialCapacity];
+        }
+
+        void write(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void varint(int value) {
+            long v = value & 0xFFFFFFFFL;
+            ensure(5);
+            while ((v & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, byte expectedType) {
+            this.buf = buf;
+            int version = read();
+            int type = read();
+            if (version != VERSION || type != expectedType) {
+                throw new IllegalArgumentException("Unexpected message header: version " + version + ", type " + type);
+            }
+        }
+
+        int read() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        int varint() {
+            return (int) varlong();
+        }
+
+        long varlong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String string() {
+            int length = varint();
+            if (length < 0 || pos + length > buf.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
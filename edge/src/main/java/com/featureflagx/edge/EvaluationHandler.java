@@ -0,0 +1,119 @@
+package com.featureflagx.edge;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the API's evaluation contract: {@code GET /flags/evaluate/{key}?targetId=} and
+ * {@code GET /flags/evaluate?keys=a,b&targetId=}, as JSON or, for clients that accept it, the
+ * binary encoding. Results come from the snapshot; only segment-targeted flags with a target
+ * go to the API.
+ */
+final class EvaluationHandler implements EdgeHttp.Handler {
+
+    static final String PATH = "/flags/evaluate";
+
+    private static final System.Logger log = System.getLogger(EvaluationHandler.class.getName());
+
+    private final SnapshotSync snapshotSync;
+    private final ApiClient apiClient;
+
+    EvaluationHandler(SnapshotSync snapshotSync, ApiClient apiClient) {
+        this.snapshotSync = snapshotSync;
+        this.apiClient = apiClient;
+    }
+
+    @Override
+    public EdgeHttp.Response handle(EdgeHttp.Request request) {
+        if (!"GET".equals(request.method)) {
+            return EdgeHttp.Response.status(405);
+        }
+        FlagSnapshot snapshot = snapshotSync.current();
+        if (snapshot == null) {
+            return EdgeHttp.Response.status(503); // not synced yet
+        }
+        String path = request.path;
+        Map<String, List<String>> query = parseQuery(request.rawQuery);
+        String targetId = first(query.get("targetId"));
+        String accept = request.header("Accept");
+        boolean binary = accept != null && accept.contains(EdgeWireFormat.MEDIA_TYPE);
+        try {
+            if (path.equals(PATH) || path.equals(PATH + "/")) {
+                return evaluateFlags(snapshot, query.get("keys"), targetId, binary);
+            } else if (path.startsWith(PATH + "/") && path.indexOf('/', PATH.length() + 1) < 0) {
+                boolean enabled = evaluate(snapshot, path.substring(PATH.length() + 1), targetId);
+                return EdgeHttp.Response.of(200, binary ? EdgeWireFormat.MEDIA_TYPE : "application/json",
+                        binary ? EdgeWireFormat.encodeEvaluation(enabled) : Boolean.toString(enabled).getBytes(StandardCharsets.UTF_8));
+            }
+            return EdgeHttp.Response.status(404);
+        } catch (IOException e) {
+            log.log(System.Logger.Level.WARNING, "Failed to evaluate a segment-targeted flag through the API: " + e);
+            return EdgeHttp.Response.status(502);
+        }
+    }
+
+    private boolean evaluate(FlagSnapshot snapshot, String key, String targetId) throws IOException {
+        switch (snapshot.get(key)) {
+            case ON:
+                return true;
+            case TARGETED:
+                return targetId != null && apiClient.evaluate(key, targetId); // no target, no segment match
+            default:
+                return false;
+        }
+    }
+
+    private EdgeHttp.Response evaluateFlags(FlagSnapshot snapshot, List<String> keyParams, String targetId,
+                                            boolean binary) throws IOException {
+        List<String> keys = new ArrayList<>();
+        if (keyParams != null) {
+            for (String param : keyParams) {
+                for (String key : param.split(",")) {
+                    if (!key.isEmpty()) {
+                        keys.add(key);
+                    }
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return EdgeHttp.Response.status(400);
+        }
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        List<String> targeted = new ArrayList<>();
+        for (String key : keys) {
+            FlagSnapshot.Result result = snapshot.get(key);
+            results.put(key, result == FlagSnapshot.Result.ON);
+            if (result == FlagSnapshot.Result.TARGETED && targetId != null) {
+                targeted.add(key);
+            }
+        }
+        if (!targeted.isEmpty()) {
+            results.putAll(apiClient.evaluate(targeted, targetId)); // one round trip for all of them
+        }
+        return EdgeHttp.Response.of(200, binary ? EdgeWireFormat.MEDIA_TYPE : "application/json",
+                binary ? EdgeWireFormat.encodeBulkEvaluation(results) : Json.write(results).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, List<String>> parseQuery(String rawQuery) {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static String first(List<String> values) {
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
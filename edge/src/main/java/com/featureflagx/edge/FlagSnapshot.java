@@ -0,0 +1,162 @@
+package com.featureflagx.edge;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, pre-evaluated copy of the API's flags.
+ *
+ * Each flag's result is resolved once per snapshot with the API's rules: a flag is on only if
+ * it is enabled and every prerequisite is on; flags on or behind a prerequisite cycle and
+ * prerequisites that don't exist are off. Segment membership isn't in the snapshot, so a flag
+ * whose result depends on a segment-targeted flag resolves to {@link Result#TARGETED} and is
+ * evaluated by the API for each target.
+ *
+ * Snapshots taken from the API also keep the listing they were built from, byte for byte, with
+ * its ETag, so the edge can pass it on to edges and SDKs that sync from it (see
+ * {@link SnapshotHandler}).
+ */
+final class FlagSnapshot {
+
+    enum Result {
+        ON,
+        OFF,
+        TARGETED // on only for targets in the flag's (or a prerequisite's) segments
+    }
+
+    static final FlagSnapshot EMPTY = build(Collections.emptyList());
+
+    private static final System.Logger log = System.getLogger(FlagSnapshot.class.getName());
+
+    private final Map<String, Result> results;
+    private final byte[] listing; // null unless built from a listing
+    private final String etag;
+
+    private FlagSnapshot(Map<String, Result> results, byte[] listing, String etag) {
+        this.results = results;
+        this.listing = listing;
+        this.etag = etag;
+    }
+
+    static FlagSnapshot build(Collection<Flag> flags) {
+        return new FlagSnapshot(resolveAll(flags), null, null);
+    }
+
+    /**
+     * Builds a snapshot from the API's binary flag listing and the ETag it was served with.
+     */
+    static FlagSnapshot fromListing(byte[] listing, String etag) {
+        return new FlagSnapshot(resolveAll(EdgeWireFormat.decodeFlagList(listing)), listing, etag);
+    }
+
+    private static Map<String, Result> resolveAll(Collection<Flag> flags) {
+        Map<String, Flag> byKey = new HashMap<>(flags.size() * 2);
+        for (Flag flag : flags) {
+            byKey.put(flag.key, flag);
+        }
+        Map<String, Result> results = new HashMap<>(flags.size() * 2);
+        Map<String, Boolean> visiting = new HashMap<>();
+        for (Flag flag : flags) {
+            resolve(flag.key, byKey, results, visiting);
+        }
+        return results;
+    }
+
+    /**
+     * @return the flag's result; flags that don't exist are off, as in the API
+     */
+    Result get(String key) {
+        return results.getOrDefault(key, Result.OFF);
+    }
+
+    int size() {
+        return results.size();
+    }
+
+    /**
+     * @return the binary listing this snapshot was built from, or null; callers must not modify it
+     */
+    byte[] listing() {
+        return listing;
+    }
+
+    String etag() {
+        return etag;
+    }
+
+    private static Result resolve(String key, Map<String, Flag> flags, Map<String, Result> results, Map<String, Boolean> visiting) {
+        Result known = results.get(key);
+        if (known != null) {
+            return known;
+        }
+        Flag flag = flags.get(key);
+        if (flag == null || visiting.containsKey(key)) {
+            return Result.OFF; // missing, or back at a flag whose evaluation is in progress: a cycle
+        }
+        Result result;
+        if (!flag.enabled) {
+            result = Result.OFF;
+        } else {
+            visiting.put(key, Boolean.TRUE);
+            result = flag.segmented ? Result.TARGETED : Result.ON;
+            for (String prerequisite : flag.prerequisites) {
+                Result required = resolve(prerequisite, flags, results, visiting);
+                if (required == Result.OFF) {
+                    result = Result.OFF;
+                    break;
+                }
+                if (required == Result.TARGETED) {
+                    result = Result.TARGETED;
+                }
+            }
+            visiting.remove(key);
+        }
+        results.put(key, result);
+        return result;
+    }
+
+    static final class Flag {
+        final String key;
+        final boolean enabled;
+        final boolean segmented;
+        final List<String> prerequisites;
+
+        Flag(String key, boolean enabled, String config) {
+            this.key = key;
+            this.enabled = enabled;
+            Map<?, ?> root = parse(key, config);
+            this.segmented = !keys(root.get("segments")).isEmpty();
+            this.prerequisites = keys(root.get("prerequisites"));
+        }
+
+        private static Map<?, ?> parse(String key, String config) {
+            if (config == null || config.isBlank()) {
+                return Map.of();
+            }
+            try {
+                Object root = Json.parse(config);
+                return root instanceof Map ? (Map<?, ?>) root : Map.of();
+            } catch (IllegalArgumentException e) {
+                log.log(System.Logger.Level.DEBUG, "Config of flag {0} isn''t JSON; ignoring it", key);
+                return Map.of(); // configs are free-form, as in the API
+            }
+        }
+
+        private static List<String> keys(Object field) {
+            if (!(field instanceof List)) {
+                return List.of();
+            }
+            List<String> keys = new ArrayList<>();
+            for (Object element : (List<?>) field) {
+                if (element instanceof String) {
+                    keys.add((String) element);
+                }
+            }
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.featureflagx.edge;
+
+/**
+ * Serves {@code GET /flags} from the synced snapshot: the API's own binary listing, with the
+ * API's ETag, so other edges can sync from this one exactly as they would from the API, and a
+ * poll with a current {@code If-None-Match} costs a 304 and no upstream request.
+ *
+ * Only the binary encoding is available, since that's all the edge fetches; JSON requests get
+ * a 406 and should go to the API.
+ */
+final class SnapshotHandler implements EdgeHttp.Handler {
+
+    static final String PATH = "/flags";
+
+    private final SnapshotSync snapshotSync;
+
+    SnapshotHandler(SnapshotSync snapshotSync) {
+        this.snapshotSync = snapshotSync;
+    }
+
+    @Override
+    public EdgeHttp.Response handle(EdgeHttp.Request request) {
+        if (!request.path.equals(PATH) && !request.path.equals(PATH + "/")) {
+            return EdgeHttp.Response.status(404);
+        }
+        if (!"GET".equals(request.method)) {
+            return EdgeHttp.Response.status(405);
+        }
+        String accept = request.header("Accept");
+        if (accept == null || !accept.contains(EdgeWireFormat.MEDIA_TYPE)) {
+            return EdgeHttp.Response.status(406);
+        }
+        FlagSnapshot snapshot = snapshotSync.current();
+        if (snapshot == null || snapshot.listing() == null) {
+            return EdgeHttp.Response.status(503); // not synced yet
+        }
+        String etag = snapshot.etag();
+        EdgeHttp.Response response = etag != null && etag.equals(request.header("If-None-Match"))
+                ? EdgeHttp.Response.status(304)
+                : EdgeHttp.Response.of(200, EdgeWireFormat.MEDIA_TYPE, snapshot.listing());
+        if (etag != null) {
+            response.header("ETag", etag);
+        }
+        return response.header("Cache-Control", "no-cache");
+    }
+}
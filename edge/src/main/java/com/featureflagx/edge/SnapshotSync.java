@@ -0,0 +1,57 @@
+package com.featureflagx.edge;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the current {@link FlagSnapshot} in step with the API by polling its flag listing. Polls
+ * are conditional, so an unchanged flag set costs the API one aggregate query and no body.
+ */
+final class SnapshotSync {
+
+    private static final System.Logger log = System.getLogger(SnapshotSync.class.getName());
+
+    private final ApiClient apiClient;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "edge-snapshot-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile FlagSnapshot snapshot; // null until the first successful sync
+
+    SnapshotSync(ApiClient apiClient, long intervalMillis) {
+        this.apiClient = apiClient;
+        this.intervalMillis = intervalMillis;
+    }
+
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::sync, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return the latest snapshot, or null if the API hasn't been reached yet
+     */
+    FlagSnapshot current() {
+        return snapshot;
+    }
+
+    void sync() {
+        try {
+            FlagSnapshot latest = apiClient.fetchSnapshotIfChanged();
+            if (latest != null) {
+                snapshot = latest;
+                log.log(System.Logger.Level.INFO, "Loaded snapshot of {0} flags", latest.size());
+            }
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next poll retries
+            log.log(System.Logger.Level.WARNING, "Failed to sync flags from the API: " + e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.featureflagx.edge;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/1.1 over a Unix domain socket, for relays that serve the processes on their own host.
+ * The JDK's {@code HttpServer} only listens on TCP, so this is a deliberately small server:
+ * GET requests, keep-alive, buffered responses, one thread per connection. App processes
+ * hold a handful of pooled connections each, so a thread per connection stays cheap, and the
+ * socket file's permissions decide who may connect.
+ */
+final class UnixSocketServer {
+
+    private static final System.Logger log = System.getLogger(UnixSocketServer.class.getName());
+
+    private static final int MAX_LINE = 8192;
+    private static final int MAX_HEADERS = 100;
+
+    private final Path path;
+    private final EdgeHttp.Handler handler;
+    private final ServerSocketChannel channel;
+    private final ExecutorService connections;
+    private final Thread acceptor;
+
+    UnixSocketServer(Path path, EdgeHttp.Handler handler) throws IOException {
+        this.path = path;
+        this.handler = handler;
+        Files.deleteIfExists(path); // left behind by an unclean shutdown; binding would fail
+        this.channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(path));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "edge-uds-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.acceptor = new Thread(this::accept, "edge-uds-acceptor");
+        acceptor.setDaemon(true);
+    }
+
+    void start() {
+        acceptor.start();
+    }
+
+    void stop() {
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.log(System.Logger.Level.WARNING, "Failed to close the socket at " + path + ": " + e);
+        }
+        connections.shutdownNow();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    private void accept() {
+        while (channel.isOpen()) {
+            try {
+                SocketChannel connection = channel.accept();
+                connections.execute(() -> serve(connection));
+            } catch (ClosedChannelException e) {
+                return; // stopped
+            } catch (IOException e) {
+                log.log(System.Logger.Level.WARNING, "Failed to accept a connection on " + path + ": " + e);
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        try (connection;
+             InputStream in = new BufferedInputStream(Channels.newInputStream(connection));
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(connection))) {
+            while (true) {
+                String requestLine = readLine(in);
+                if (requestLine == null) {
+                    return; // client closed the connection
+                }
+                if (requestLine.isEmpty()) {
+                    continue; // tolerate stray line breaks between requests
+                }
+                String[] parts = requestLine.split(" ");
+                Map<String, String> headers = readHeaders(in);
+                if (parts.length != 3 || !parts[2].startsWith("HTTP/1.") || headers == null) {
+                    write(out, EdgeHttp.Response.status(400), false);
+                    return;
+                }
+                String contentLength = headers.get("content-length");
+                if (contentLength != null) {
+                    in.skipNBytes(Long.parseLong(contentLength.trim())); // no handler reads a body
+                }
+                String connectionHeader = headers.getOrDefault("connection", "");
+                boolean keepAlive = parts[2].equals("HTTP/1.1")
+                        ? !connectionHeader.equalsIgnoreCase("close")
+                        : connectionHeader.equalsIgnoreCase("keep-alive");
+                write(out, respond(parts[0], parts[1], headers), keepAlive);
+                if (!keepAlive) {
+                    return;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.log(System.Logger.Level.DEBUG, "Dropped a connection on " + path + ": " + e);
+        }
+    }
+
+    private EdgeHttp.Response respond(String method, String target, Map<String, String> headers) {
+        URI uri;
+        try {
+            uri = new URI(target);
+        } catch (Exception e) {
+            return EdgeHttp.Response.status(400);
+        }
+        try {
+            return handler.handle(new EdgeHttp.Request(method, uri.getPath(), uri.getRawQuery(), headers));
+        } catch (IOException | RuntimeException e) {
+            log.log(System.Logger.Level.WARNING, "Failed to handle " + method + " " + target + ": " + e);
+            return EdgeHttp.Response.status(500);
+        }
+    }
+
+    private static void write(OutputStream out, EdgeHttp.Response response, boolean keepAlive) throws IOException {
+        StringBuilder head = new StringBuilder(128)
+                .append("HTTP/1.1 ").append(response.status).append(' ').append(reason(response.status)).append("\r\n");
+        response.headers.forEach((name, value) -> head.append(name).append(": ").append(value).append("\r\n"));
+        if (response.status != 304) {
+            head.append("Content-Length: ").append(response.body.length).append("\r\n");
+        }
+        if (!keepAlive) {
+            head.append("Connection: close\r\n");
+        }
+        out.write(head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.write(response.body);
+        out.flush();
+    }
+
+    /**
+     * @return the headers with lower-case names, or null if there are too many or a line is malformed
+     */
+    private static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        for (int i = 0; i <= MAX_HEADERS; i++) {
+            String line = readLine(in);
+            if (line == null) {
+                throw new IOException("Connection closed inside the headers");
+            }
+            if (line.isEmpty()) {
+                return headers;
+            }
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                return null;
+            }
+            headers.merge(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim(),
+                    (first, second) -> first + ", " + second);
+        }
+        return null;
+    }
+
+    /**
+     * @return the next line without its line break, or null at the end of the stream
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                return line.toString(StandardCharsets.ISO_8859_1);
+            }
+            if (b != '\r') {
+                if (line.size() >= MAX_LINE) {
+                    throw new IOException("Line longer than " + MAX_LINE + " bytes");
+                }
+                line.write(b);
+            }
+        }
+        return line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String reason(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 304: return "Not Modified";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 406: return "Not Acceptable";
+            case 500: return "Internal Server Error";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            default: return "";
+        }
+    }
+}
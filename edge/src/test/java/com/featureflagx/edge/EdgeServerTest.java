@@ -0,0 +1,230 @@
+package com.featureflagx.edge;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.UnixDomainSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EdgeServerTest {
+
+    private final List<String> apiRequests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpServer api;
+    private EdgeServer edge;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Stands in for the main API: a fixed flag listing, and evaluations for segment-targeted flags
+        api = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        api.createContext("/flags", exchange -> {
+            try (exchange) {
+                apiRequests.add(exchange.getRequestURI().toString());
+                String path = exchange.getRequestURI().getPath();
+                if (path.equals("/flags")) {
+                    if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                        notModified.incrementAndGet();
+                        exchange.sendResponseHeaders(304, -1);
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("ETag", "\"v1\"");
+                    respond(exchange, flagList());
+                } else if (path.equals("/flags/evaluate/beta-banner")) {
+                    respond(exchange, EdgeWireFormat.encodeEvaluation("user-1".equals(query(exchange, "targetId"))));
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+            }
+        });
+        api.start();
+        edge = new EdgeServer(URI.create("http://localhost:" + api.getAddress().getPort()), 0, Duration.ofMillis(50), 2);
+        edge.start();
+        for (int i = 0; i < 100 && get("/health", null).statusCode() != 200; i++) {
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        edge.stop();
+        api.stop(0);
+    }
+
+    @Test
+    void evaluate_shouldServeTheApiContractFromTheSnapshot() throws Exception {
+        assertEquals("true", get("/flags/evaluate/new-checkout", null).body());
+        assertEquals("false", get("/flags/evaluate/old-checkout", null).body());
+        assertEquals("false", get("/flags/evaluate/unknown?targetId=user-1", null).body());
+        assertEquals("{\"new-checkout\":true,\"old-checkout\":false}",
+                get("/flags/evaluate?keys=new-checkout,old-checkout", null).body());
+        assertEquals(400, get("/flags/evaluate", null).statusCode());
+
+        HttpResponse<String> binary = get("/flags/evaluate/new-checkout", EdgeWireFormat.MEDIA_TYPE);
+        assertEquals(EdgeWireFormat.MEDIA_TYPE, binary.headers().firstValue("Content-Type").orElse(null));
+        assertTrue(apiRequests.stream().allMatch(request -> request.equals("/flags")), "evaluated locally");
+    }
+
+    @Test
+    void evaluate_whenSegmentTargeted_shouldAskTheApiOnlyWithATarget() throws Exception {
+        assertEquals("true", get("/flags/evaluate/beta-banner?targetId=user-1", null).body());
+        assertEquals("false", get("/flags/evaluate/beta-banner?targetId=user-2", null).body());
+        assertEquals("false", get("/flags/evaluate/beta-banner", null).body());
+
+        assertEquals(2, apiRequests.stream().filter(request -> request.startsWith("/flags/evaluate/beta-banner")).count());
+    }
+
+    @Test
+    void sync_shouldRevalidateAnUnchangedSnapshot() throws Exception {
+        Thread.sleep(300);
+
+        assertTrue(notModified.get() > 0, "later polls send the ETag back");
+        assertEquals("true", get("/flags/evaluate/new-checkout", null).body());
+    }
+
+    @Test
+    void snapshot_shouldPassOnTheApiListingWithItsETag() throws Exception {
+        HttpResponse<byte[]> listing = client.send(HttpRequest.newBuilder(edgeUri("/flags"))
+                .header("Accept", EdgeWireFormat.MEDIA_TYPE).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, listing.statusCode());
+        assertArrayEquals(flagList(), listing.body());
+        assertEquals("\"v1\"", listing.headers().firstValue("ETag").orElse(null));
+
+        HttpResponse<String> revalidated = client.send(HttpRequest.newBuilder(edgeUri("/flags"))
+                .header("Accept", EdgeWireFormat.MEDIA_TYPE).header("If-None-Match", "\"v1\"").build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, revalidated.statusCode());
+        assertEquals(406, get("/flags", "application/json").statusCode());
+    }
+
+    @Test
+    void relay_shouldServeEdgesThatSyncFromIt() throws Exception {
+        EdgeServer downstream = new EdgeServer(URI.create("http://localhost:" + edge.getPort()), 0, Duration.ofMillis(50), 2);
+        downstream.start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + downstream.getPort() + "/flags/evaluate/new-checkout")).build();
+            String body = null;
+            for (int i = 0; i < 100 && !"true".equals(body); i++) {
+                Thread.sleep(20);
+                body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            }
+            assertEquals("true", body);
+        } finally {
+            downstream.stop();
+        }
+    }
+
+    @Test
+    void unixSocket_shouldServeKeepAliveRequests() throws Exception {
+        Path socket = Files.createTempDirectory("edge").resolve("edge.sock");
+        EdgeServer relay = new EdgeServer(URI.create("http://localhost:" + api.getAddress().getPort()), null, socket,
+                Duration.ofMillis(50), 2);
+        relay.start();
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            assertEquals(-1, relay.getPort());
+            String response = "";
+            for (int i = 0; i < 100 && !response.startsWith("HTTP/1.1 200"); i++) {
+                Thread.sleep(20);
+                response = exchange(channel, "GET /health HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            }
+            assertTrue(response.startsWith("HTTP/1.1 200 OK\r\n"), response);
+
+            // Same connection again
+            String evaluation = exchange(channel, "GET /flags/evaluate?keys=new-checkout,old-checkout HTTP/1.1\r\nHost: localhost\r\n\r\n");
+            assertTrue(evaluation.endsWith("\r\n\r\n{\"new-checkout\":true,\"old-checkout\":false}"), evaluation);
+            assertTrue(exchange(channel, "GET /nope HTTP/1.1\r\n\r\n").startsWith("HTTP/1.1 404"));
+        } finally {
+            relay.stop();
+        }
+        assertFalse(Files.exists(socket), "socket file removed on stop");
+    }
+
+    // Writes one request and reads one response, relying on Content-Length to find its end
+    private static String exchange(SocketChannel channel, String request) throws Exception {
+        channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.ISO_8859_1)));
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (true) {
+            channel.read(buffer);
+            String response = new String(buffer.array(), 0, buffer.position(), StandardCharsets.ISO_8859_1);
+            int headerEnd = response.indexOf("\r\n\r\n");
+            if (headerEnd >= 0) {
+                int length = Integer.parseInt(response.replaceAll("(?s).*Content-Length: (\\d+).*", "$1"));
+                if (response.length() >= headerEnd + 4 + length) {
+                    return response;
+                }
+            }
+        }
+    }
+
+    private URI edgeUri(String path) {
+        return URI.create("http://localhost:" + edge.getPort() + path);
+    }
+
+    private HttpResponse<String> get(String path, String accept) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(edgeUri(path));
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, byte[] body) throws java.io.IOException {
+        exchange.getResponseHeaders().set("Content-Type", EdgeWireFormat.MEDIA_TYPE);
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static String query(com.sun.net.httpserver.HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getQuery();
+        for (String pair : query != null ? query.split("&") : new String[0]) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    // A flag listing in the API's binary encoding
+    private static byte[] flagList() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(1); // version
+        out.write(4); // flag list
+        out.write(3); // count
+        writeFlag(out, "new-checkout", true, null);
+        writeFlag(out, "old-checkout", false, null);
+        writeFlag(out, "beta-banner", true, "{\"segments\": [\"beta-users\"]}");
+        return out.toByteArray();
+    }
+
+    private static void writeFlag(ByteArrayOutputStream out, String key, boolean enabled, String config) {
+        writeString(out, key);
+        out.write((enabled ? 1 : 0) | (config != null ? 2 : 0));
+        if (config != null) {
+            writeString(out, config);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes.length); // all shorter than 128 bytes, so a one-byte varint
+        out.write(bytes, 0, bytes.length);
+    }
+}
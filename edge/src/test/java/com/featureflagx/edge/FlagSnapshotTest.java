@@ -0,0 +1,54 @@
+package com.featureflagx.edge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlagSnapshotTest {
+
+    @Test
+    void build_shouldResolvePrerequisitesLikeTheApi() {
+        FlagSnapshot snapshot = FlagSnapshot.build(List.of(
+                new FlagSnapshot.Flag("payments-v2", true, "{\"variant\": \"A\"}"),
+                new FlagSnapshot.Flag("new-checkout", true, "{\"prerequisites\": [\"payments-v2\"]}"),
+                new FlagSnapshot.Flag("one-click", true, "{\"prerequisites\": [\"new-checkout\", \"legacy-off\"]}"),
+                new FlagSnapshot.Flag("legacy-off", false, null),
+                new FlagSnapshot.Flag("orphan", true, "{\"prerequisites\": [\"missing\"]}"),
+                new FlagSnapshot.Flag("free-form", true, "not json")));
+
+        assertEquals(FlagSnapshot.Result.ON, snapshot.get("payments-v2"));
+        assertEquals(FlagSnapshot.Result.ON, snapshot.get("new-checkout"));
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("one-click"));
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("orphan"));
+        assertEquals(FlagSnapshot.Result.ON, snapshot.get("free-form"));
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("unknown"));
+    }
+
+    @Test
+    void build_shouldTurnFlagsOnOrBehindACycleOff() {
+        FlagSnapshot snapshot = FlagSnapshot.build(List.of(
+                new FlagSnapshot.Flag("a", true, "{\"prerequisites\": [\"b\"]}"),
+                new FlagSnapshot.Flag("b", true, "{\"prerequisites\": [\"a\"]}"),
+                new FlagSnapshot.Flag("c", true, "{\"prerequisites\": [\"a\"]}")));
+
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("a"));
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("b"));
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("c"));
+    }
+
+    @Test
+    void build_shouldDeferSegmentTargetedFlagsAndTheirDependents() {
+        FlagSnapshot snapshot = FlagSnapshot.build(List.of(
+                new FlagSnapshot.Flag("beta-banner", true, "{\"segments\": [\"beta-users\"]}"),
+                new FlagSnapshot.Flag("beta-checkout", true, "{\"prerequisites\": [\"beta-banner\"]}"),
+                new FlagSnapshot.Flag("beta-off", true, "{\"prerequisites\": [\"beta-banner\", \"disabled\"]}"),
+                new FlagSnapshot.Flag("disabled", false, "{\"segments\": [\"beta-users\"]}")));
+
+        assertEquals(FlagSnapshot.Result.TARGETED, snapshot.get("beta-banner"));
+        assertEquals(FlagSnapshot.Result.TARGETED, snapshot.get("beta-checkout"));
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("beta-off"), "an off prerequisite decides without the target");
+        assertEquals(FlagSnapshot.Result.OFF, snapshot.get("disabled"));
+    }
+}
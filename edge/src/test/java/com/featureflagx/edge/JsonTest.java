@@ -0,0 +1,41 @@
+package com.featureflagx.edge;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonTest {
+
+    @Test
+    void parse_shouldReadNestedValues() {
+        Object parsed = Json.parse(" {\"segments\": [\"beta\", \"a\\\"b\\u00e9\"], \"n\": -1.5e2, \"ok\": true, \"none\": null, \"o\": {}} ");
+
+        Map<?, ?> root = (Map<?, ?>) parsed;
+        assertEquals(List.of("beta", "a\"bé"), root.get("segments"));
+        assertEquals(-150.0, root.get("n"));
+        assertEquals(Boolean.TRUE, root.get("ok"));
+        assertTrue(root.containsKey("none"));
+        assertEquals(Map.of(), root.get("o"));
+    }
+
+    @Test
+    void parse_shouldRejectMalformedInput() {
+        for (String malformed : new String[]{"", "{", "{\"a\" 1}", "[1,]", "\"open", "tru", "{} x", "variant=A"}) {
+            assertThrows(IllegalArgumentException.class, () -> Json.parse(malformed), malformed);
+        }
+    }
+
+    @Test
+    void write_shouldEscapeKeys() {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        results.put("plain", true);
+        results.put("quote\"and\\slash\n", false);
+
+        assertEquals("{\"plain\":true,\"quote\\\"and\\\\slash\\n\":false}", Json.write(results));
+        assertEquals(Map.of("plain", true, "quote\"and\\slash\n", false), Json.parse(Json.write(results)));
+    }
+}
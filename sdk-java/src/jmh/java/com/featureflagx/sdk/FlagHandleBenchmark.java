@@ -0,0 +1,68 @@
+package com.featureflagx.sdk;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached evaluation cost of {@link FlagHandle#isEnabled(String)} against
+ * {@link FeatureFlagClient#isEnabled(String, String)}. Run with
+ * {@code mvn -Pbenchmark test-compile exec:java}; the handle should report
+ * {@code gc.alloc.rate.norm} of 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlagHandleBenchmark {
+
+    private MockWebServer server;
+    private FeatureFlagClient client;
+    private FlagHandle handle;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.enqueue(new MockResponse().setBody("true"));
+        server.start();
+        client = new FeatureFlagClient(FeatureFlagClient.Config.builder()
+                .apiBaseUrl(server.url("/").toString().replaceAll("/$", ""))
+                .build());
+        handle = client.flag("new-checkout");
+        handle.isEnabled("user-1"); // the only request; everything below is answered locally
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Benchmark
+    public boolean handle() {
+        return handle.isEnabled("user-1");
+    }
+
+    @Benchmark
+    public boolean client() {
+        return client.isEnabled("new-checkout", "user-1");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(FlagHandleBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
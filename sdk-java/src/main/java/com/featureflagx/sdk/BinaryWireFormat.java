@@ -0,0 +1,80 @@
+package com.featureflagx.sdk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decoder for the API's compact binary response format ({@code application/x-featureflagx}).
+ * Mirrors {@code com.featureflagx.wire.FlagWireFormat} in the api module: a version byte,
+ * a type byte, then LEB128 varints and length-prefixed UTF-8 strings. No JSON library needed.
+ */
+final class BinaryWireFormat {
+
+    static final String MEDIA_TYPE = "application/x-featureflagx";
+
+    private static final int VERSION = 1;
+    private static final int TYPE_EVALUATION = 1;
+    private static final int TYPE_BULK_EVALUATION = 2;
+
+    private BinaryWireFormat() {
+    }
+
+    static boolean decodeEvaluation(byte[] data) {
+        Reader in = new Reader(data, TYPE_EVALUATION);
+        return in.read() != 0;
+    }
+
+    static Map<String, Boolean> decodeBulkEvaluation(byte[] data) {
+        Reader in = new Reader(data, TYPE_BULK_EVALUATION);
+        int count = in.varint();
+        Map<String, Boolean> results = new LinkedHashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            results.put(in.string(), in.read() != 0);
+        }
+        return results;
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf, int expectedType) {
+            this.buf = buf;
+            int version = read();
+            int type = read();
+            if (version != VERSION || type != expectedType) {
+                throw new IllegalArgumentException("Unexpected message header: version " + version + ", type " + type);
+            }
+        }
+
+        int read() {
+            if (pos >= buf.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = read();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        String string() {
+            int length = varint();
+            if (length < 0 || pos + length > buf.length) {
+                throw new IllegalArgumentException("Truncated message");
+            }
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+    }
+}
@@ -1,24 +1,45 @@
 package com.featureflagx.sdk;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.Builder;
 import lombok.Getter;
+import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class FeatureFlagClient {
+/**
+ * Evaluates flags against the FeatureFlagX API.
+ *
+ * Clients are lightweight views: every client in the process with the same {@code apiBaseUrl}
+ * and cache settings shares one result cache, keyed by flag and target, and all clients share
+ * one HTTP connection pool and dispatcher. Creating a client per tenant or library is cheap;
+ * {@link #close()} it when done so the shared cache is dropped once its last client goes away.
+ */
+public class FeatureFlagClient implements Closeable {
+
+    // Sent by the API when a flag evaluates the same for every target
+    static final String TARGET_INDEPENDENT_HEADER = "X-Target-Independent";
 
     private final String apiBaseUrl;
+    private final SharedFlagStore store;
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
-    private final Cache<String, Boolean> flagCache;
+    private final AtomicBoolean closed = new AtomicBoolean();
 
     @Getter
     private final Config config;
@@ -29,29 +50,30 @@ public class FeatureFlagClient {
         private final Duration readTimeout;
         private final long cacheMaxSize;
         private final Duration cacheExpireAfterWrite;
+        private final boolean binaryWireFormat;
 
         @Builder
-        public Config(String apiBaseUrl, Duration connectTimeout, Duration readTimeout, long cacheMaxSize, Duration cacheExpireAfterWrite) {
+        public Config(String apiBaseUrl, Duration connectTimeout, Duration readTimeout, long cacheMaxSize, Duration cacheExpireAfterWrite,
+                      boolean binaryWireFormat) {
             this.apiBaseUrl = apiBaseUrl != null ? apiBaseUrl : "http://localhost:8080"; // Default API URL
             this.connectTimeout = connectTimeout != null ? connectTimeout : Duration.ofSeconds(5);
             this.readTimeout = readTimeout != null ? readTimeout : Duration.ofSeconds(5);
             this.cacheMaxSize = cacheMaxSize > 0 ? cacheMaxSize : 1000; // Default cache size
             this.cacheExpireAfterWrite = cacheExpireAfterWrite != null ? cacheExpireAfterWrite : Duration.ofMinutes(5); // Default cache TTL
+            this.binaryWireFormat = binaryWireFormat; // Request the compact binary encoding instead of JSON
         }
     }
 
     public FeatureFlagClient(Config config) {
         this.config = config;
         this.apiBaseUrl = config.apiBaseUrl;
-        this.httpClient = new OkHttpClient.Builder()
+        this.store = SharedFlagStore.acquire(config.apiBaseUrl, config.cacheMaxSize, config.cacheExpireAfterWrite);
+        // Derived from the shared client: same connection pool and dispatcher, this client's timeouts
+        this.httpClient = store.newHttpClientBuilder()
                 .connectTimeout(config.connectTimeout.toMillis(), TimeUnit.MILLISECONDS)
                 .readTimeout(config.readTimeout.toMillis(), TimeUnit.MILLISECONDS)
                 .build();
-        this.objectMapper = new ObjectMapper();
-        this.flagCache = Caffeine.newBuilder()
-                .maximumSize(config.cacheMaxSize)
-                .expireAfterWrite(config.cacheExpireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
-                .build();
+        this.objectMapper = store.objectMapper();
     }
 
     public boolean isEnabled(String flagKey, String targetId) {
@@ -59,53 +81,197 @@ public class FeatureFlagClient {
     }
 
     public boolean isEnabled(String flagKey, String targetId, boolean defaultValue) {
-        if (flagKey == null || flagKey.trim().isEmpty()) {
+        if (isBlank(flagKey)) {
+            return defaultValue;
+        }
+        try {
+            return evaluate(flagKey, evaluateUrl(flagKey), targetId).orElse(defaultValue);
+        } catch (CompletionException | CancellationException e) {
             return defaultValue;
         }
+    }
+
+    /**
+     * Returns a handle for repeated evaluation of one flag. The handle keeps the last result in a
+     * volatile snapshot, so {@link FlagHandle#isEnabled(String)} allocates nothing until that
+     * result expires or is invalidated, for any target if the flag is target-independent and for
+     * the same target otherwise. Handles are cheap to keep in a static field.
+     */
+    public FlagHandle flag(String flagKey) {
+        return flag(flagKey, false);
+    }
+
+    public FlagHandle flag(String flagKey, boolean defaultValue) {
+        return new FlagHandle(this, store, flagKey, isBlank(flagKey) ? null : evaluateUrl(flagKey), defaultValue);
+    }
+
+    /**
+     * Looks {@code flagKey} for {@code targetId} up in the shared cache, fetching it on a miss.
+     * A result the API reported as target-independent answers every target. Concurrent misses for
+     * the same flag and target, from any client sharing the store, wait on one request. The
+     * request runs on the calling thread, outside the cache's locks, so blocking callers are never
+     * queued behind the shared dispatcher's per-host limit.
+     *
+     * @return the result, {@link SharedFlagStore.Evaluation#FAILED} if the API couldn't evaluate the flag
+     * @throws CompletionException if the evaluation failed without a cacheable result
+     */
+    SharedFlagStore.Evaluation evaluate(String flagKey, String evaluateUrl, String targetId) {
+        CompletableFuture<SharedFlagStore.Evaluation> shared =
+                store.flagCache().getIfPresent(SharedFlagStore.EvaluationKey.anyTarget(flagKey));
+        if (shared != null) {
+            return shared.join();
+        }
+        SharedFlagStore.EvaluationKey key = new SharedFlagStore.EvaluationKey(flagKey, targetId);
+        CompletableFuture<SharedFlagStore.Evaluation> created = new CompletableFuture<>();
+        CompletableFuture<SharedFlagStore.Evaluation> result = store.flagCache().get(key, (k, executor) -> created);
+        if (result == created) {
+            long generation = store.generation();
+            fetch(created, evaluateUrl, targetId);
+            SharedFlagStore.Evaluation evaluation = created.getNow(null);
+            // Share it with every target, unless the flag was invalidated while it was being fetched
+            if (evaluation != null && evaluation.targetIndependent && generation == store.generation()) {
+                store.flagCache().put(SharedFlagStore.EvaluationKey.anyTarget(flagKey), created);
+                store.flagCache().synchronous().invalidate(key);
+            }
+        }
+        return result.join();
+    }
 
-        // Try to get from cache first
-        Boolean cachedValue = flagCache.getIfPresent(flagKey);
-        if (cachedValue != null) {
-            return cachedValue;
+    private String evaluateUrl(String flagKey) {
+        return apiBaseUrl + "/flags/evaluate/" + flagKey;
+    }
+
+    private static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
         }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        // If not in cache, fetch from API
+    // Failures are cached as "no value" so every caller gets its own default
+    private void fetch(CompletableFuture<SharedFlagStore.Evaluation> result, String evaluateUrl, String targetId) {
+        Request request;
         try {
-            String url = String.format("%s/flags/evaluate/%s", apiBaseUrl, flagKey);
-            if (targetId != null && !targetId.trim().isEmpty()) {
-                url += "?targetId=" + targetId;
+            request = newRequest(isBlank(targetId) ? evaluateUrl : evaluateUrl + "?targetId=" + targetId);
+        } catch (IllegalArgumentException e) {
+            result.complete(SharedFlagStore.Evaluation.FAILED);
+            return;
+        }
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                result.complete(SharedFlagStore.Evaluation.FAILED); // cached too, to avoid hammering
+                return;
+            }
+            Boolean enabled;
+            if (config.binaryWireFormat) {
+                enabled = BinaryWireFormat.decodeEvaluation(response.body().bytes());
+            } else {
+                // Assuming the API returns a simple boolean (true/false) as a string or JSON boolean
+                enabled = objectMapper.readValue(response.body().string(), Boolean.class);
+            }
+            result.complete(enabled == null ? SharedFlagStore.Evaluation.FAILED
+                    : SharedFlagStore.Evaluation.of(enabled, "true".equals(response.header(TARGET_INDEPENDENT_HEADER))));
+        } catch (IOException | IllegalArgumentException e) {
+            result.complete(SharedFlagStore.Evaluation.FAILED);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e); // not cached; the next call retries
+        }
+    }
+
+    /**
+     * Evaluates several flags at once. Cached flags are answered locally; the rest are
+     * fetched in a single request to the bulk evaluation endpoint.
+     *
+     * @return a result for every requested key, {@code defaultValue} for those that couldn't be evaluated
+     */
+    public Map<String, Boolean> evaluateFlags(Collection<String> flagKeys, String targetId, boolean defaultValue) {
+        Map<String, Boolean> results = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String flagKey : flagKeys) {
+            if (isBlank(flagKey)) {
+                continue;
+            }
+            SharedFlagStore.Evaluation cachedValue = store.flagCache().synchronous()
+                    .getIfPresent(SharedFlagStore.EvaluationKey.anyTarget(flagKey));
+            if (cachedValue == null) {
+                cachedValue = store.flagCache().synchronous().getIfPresent(new SharedFlagStore.EvaluationKey(flagKey, targetId));
+            }
+            if (cachedValue != null) {
+                results.put(flagKey, cachedValue.orElse(defaultValue));
+            } else {
+                results.put(flagKey, defaultValue); // placeholder keeps the caller's ordering
+                missing.add(flagKey);
             }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
 
-            Request request = new Request.Builder().url(url).get().build();
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (response.isSuccessful() && response.body() != null) {
-                    String responseBody = response.body().string();
-                    // Assuming the API returns a simple boolean (true/false) as a string or JSON boolean
-                    boolean enabled = objectMapper.readValue(responseBody, Boolean.class);
-                    flagCache.put(flagKey, enabled); // Cache the result
-                    return enabled;
+        HttpUrl baseUrl = HttpUrl.parse(apiBaseUrl + "/flags/evaluate");
+        if (baseUrl == null) {
+            return results;
+        }
+        HttpUrl.Builder url = baseUrl.newBuilder().addQueryParameter("keys", String.join(",", missing));
+        if (!isBlank(targetId)) {
+            url.addQueryParameter("targetId", targetId);
+        }
+        try (Response response = httpClient.newCall(newRequest(url.build().toString())).execute()) {
+            if (response.isSuccessful() && response.body() != null) {
+                Map<String, Boolean> fetched;
+                if (config.binaryWireFormat) {
+                    fetched = BinaryWireFormat.decodeBulkEvaluation(response.body().bytes());
                 } else {
-                    // Log error or handle non-successful response
-                    // System.err.println("Failed to evaluate flag " + flagKey + ": " + response.code());
-                    flagCache.put(flagKey, defaultValue); // Cache default value on error to avoid hammering
-                    return defaultValue;
+                    fetched = objectMapper.readValue(response.body().string(),
+                            objectMapper.getTypeFactory().constructMapType(LinkedHashMap.class, String.class, Boolean.class));
+                }
+                for (String flagKey : missing) {
+                    Boolean enabled = fetched.get(flagKey);
+                    if (enabled != null) {
+                        results.put(flagKey, enabled);
+                        store.flagCache().synchronous()
+                                .put(new SharedFlagStore.EvaluationKey(flagKey, targetId), SharedFlagStore.Evaluation.of(enabled, false));
+                    }
                 }
             }
-        } catch (IOException e) {
-            // Log error or handle exception
-            // System.err.println("Error evaluating flag " + flagKey + ": " + e.getMessage());
-            flagCache.put(flagKey, defaultValue); // Cache default value on error
-            return defaultValue;
+        } catch (IOException | IllegalArgumentException e) {
+            // Leave the defaults in place; individual flags are retried on the next call
+        }
+        return results;
+    }
+
+    private Request newRequest(String url) {
+        Request.Builder builder = new Request.Builder().url(url).get();
+        if (config.binaryWireFormat) {
+            builder.header("Accept", BinaryWireFormat.MEDIA_TYPE);
         }
+        return builder.build();
     }
 
+    /** Clears the shared cache, for every client using the same store. */
     public void clearCache() {
-        flagCache.invalidateAll();
+        store.invalidateAll();
     }
 
+    /** Drops one flag from the shared cache, for every client using the same store. */
     public void invalidateFlag(String flagKey) {
         if (flagKey != null) {
-            flagCache.invalidate(flagKey);
+            store.invalidate(flagKey);
+        }
+    }
+
+    /**
+     * Releases this client's reference to the shared store. Idempotent; the connection pool
+     * and dispatcher stay up for other clients.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            store.release();
         }
     }
 }
@@ -0,0 +1,88 @@
+package com.featureflagx.sdk;
+
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A precompiled reference to one flag, obtained from {@link FeatureFlagClient#flag(String)}.
+ *
+ * The key and request URL are resolved once, and the last result is kept in a volatile snapshot
+ * that lives exactly as long as the shared cache entry it was read from. While the snapshot is
+ * valid, {@link #isEnabled(String)} is a volatile read, a clock read and a few comparisons: no
+ * allocation, no cache lookup and no boxing. Invalidating the flag or clearing the cache through
+ * any client sharing the store discards the snapshot on its next read.
+ *
+ * The snapshot answers every target only when the API reported the flag as target-independent.
+ * For segment-targeted flags it only answers the target it was read for; other targets go
+ * through the shared cache, which keeps one result per target.
+ */
+public final class FlagHandle {
+
+    private final FeatureFlagClient client;
+    private final SharedFlagStore store;
+    private final String flagKey;
+    private final String evaluateUrl; // null for a blank key, which always evaluates to the default
+    private final boolean defaultValue;
+    private volatile Snapshot snapshot;
+
+    FlagHandle(FeatureFlagClient client, SharedFlagStore store, String flagKey, String evaluateUrl, boolean defaultValue) {
+        this.client = client;
+        this.store = store;
+        this.flagKey = flagKey;
+        this.evaluateUrl = evaluateUrl;
+        this.defaultValue = defaultValue;
+    }
+
+    public String getKey() {
+        return flagKey;
+    }
+
+    public boolean isEnabled() {
+        return isEnabled(null);
+    }
+
+    public boolean isEnabled(String targetId) {
+        Snapshot current = snapshot;
+        if (current != null && (current.targetIndependent || Objects.equals(current.targetId, targetId))
+                && current.generation == store.generation() && System.nanoTime() - current.expiresAt < 0) {
+            return current.enabled;
+        }
+        return refresh(targetId);
+    }
+
+    private boolean refresh(String targetId) {
+        if (evaluateUrl == null) {
+            return defaultValue;
+        }
+        // Read before evaluating, so an invalidation racing with the fetch leaves the snapshot stale
+        long generation = store.generation();
+        SharedFlagStore.Evaluation result;
+        try {
+            result = client.evaluate(flagKey, evaluateUrl, targetId);
+        } catch (CompletionException | CancellationException e) {
+            return defaultValue; // not cached by the store either; the next call retries
+        }
+        boolean enabled = result.orElse(defaultValue);
+        long remaining = store.remainingNanos(result.targetIndependent
+                ? SharedFlagStore.EvaluationKey.anyTarget(flagKey) : new SharedFlagStore.EvaluationKey(flagKey, targetId));
+        snapshot = new Snapshot(enabled, targetId, result.targetIndependent, generation, System.nanoTime() + remaining);
+        return enabled;
+    }
+
+    private static final class Snapshot {
+        final boolean enabled;
+        final String targetId; // the target it was read for
+        final boolean targetIndependent; // if set, it answers every target
+        final long generation;
+        final long expiresAt; // System.nanoTime() based
+
+        Snapshot(boolean enabled, String targetId, boolean targetIndependent, long generation, long expiresAt) {
+            this.enabled = enabled;
+            this.targetId = targetId;
+            this.targetIndependent = targetIndependent;
+            this.generation = generation;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.featureflagx.sdk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import okhttp3.OkHttpClient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluation state shared by every {@link FeatureFlagClient} in the process that talks to the
+ * same API with the same cache settings: one result cache keyed by flag and target, one
+ * {@link ObjectMapper}, and concurrent misses for a flag and target coalesced into one request.
+ * All stores share a single OkHttp connection pool and dispatcher; clients only layer their own
+ * timeouts on top.
+ *
+ * Stores are reference counted: each client acquires one when it is created and releases it
+ * on {@link FeatureFlagClient#close()}; the last release drops the cache.
+ */
+final class SharedFlagStore {
+
+    // One pool and dispatcher for the whole process; per-client builders derived from it share both
+    private static final OkHttpClient ROOT_HTTP_CLIENT = new OkHttpClient();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Map<Key, SharedFlagStore> STORES = new HashMap<>(); // guarded by itself
+
+    private final Key key;
+    // Evaluation.FAILED remembers a failed evaluation, so each client can substitute its own default
+    private final AsyncCache<EvaluationKey, Evaluation> flagCache;
+    // Bumped on every explicit invalidation so FlagHandle snapshots can tell they are stale
+    private final AtomicLong generation = new AtomicLong();
+    private int references; // guarded by STORES
+
+    private SharedFlagStore(Key key) {
+        this.key = key;
+        this.flagCache = Caffeine.newBuilder()
+                .maximumSize(key.cacheMaxSize)
+                .expireAfterWrite(key.cacheExpireAfterWrite.toMillis(), TimeUnit.MILLISECONDS)
+                .buildAsync();
+    }
+
+    static SharedFlagStore acquire(String apiBaseUrl, long cacheMaxSize, Duration cacheExpireAfterWrite) {
+        Key key = new Key(apiBaseUrl, cacheMaxSize, cacheExpireAfterWrite);
+        synchronized (STORES) {
+            SharedFlagStore store = STORES.get(key);
+            if (store == null) {
+                store = new SharedFlagStore(key);
+                STORES.put(key, store);
+            }
+            store.references++;
+            return store;
+        }
+    }
+
+    void release() {
+        synchronized (STORES) {
+            if (--references == 0) {
+                STORES.remove(key);
+                invalidateAll();
+            }
+        }
+    }
+
+    OkHttpClient.Builder newHttpClientBuilder() {
+        return ROOT_HTTP_CLIENT.newBuilder();
+    }
+
+    ObjectMapper objectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    AsyncCache<EvaluationKey, Evaluation> flagCache() {
+        return flagCache;
+    }
+
+    /** Drops every cached result for {@code flagKey}, whatever the target. */
+    void invalidate(String flagKey) {
+        generation.incrementAndGet();
+        flagCache.synchronous().asMap().keySet().removeIf(key -> key.flagKey.equals(flagKey));
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        flagCache.synchronous().invalidateAll();
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    /** Time left before the cached result for {@code key} expires, or the full TTL if none is cached. */
+    long remainingNanos(EvaluationKey key) {
+        long ttl = this.key.cacheExpireAfterWrite.toNanos();
+        long age = flagCache.synchronous().policy().expireAfterWrite()
+                .map(expiration -> expiration.ageOf(key, TimeUnit.NANOSECONDS).orElse(0L))
+                .orElse(0L);
+        return Math.max(0L, ttl - age);
+    }
+
+    static int storeCount() {
+        synchronized (STORES) {
+            return STORES.size();
+        }
+    }
+
+    /**
+     * A cached result: evaluations can depend on the target through segments, so both are part of
+     * the key. Results the API reports as target-independent are cached once under
+     * {@link #anyTarget(String)} and answer every target.
+     */
+    static final class EvaluationKey {
+        final String flagKey;
+        final String targetId; // null for an anonymous evaluation
+        final boolean anyTarget;
+
+        EvaluationKey(String flagKey, String targetId) {
+            this(flagKey, targetId, false);
+        }
+
+        private EvaluationKey(String flagKey, String targetId, boolean anyTarget) {
+            this.flagKey = flagKey;
+            this.targetId = targetId;
+            this.anyTarget = anyTarget;
+        }
+
+        static EvaluationKey anyTarget(String flagKey) {
+            return new EvaluationKey(flagKey, null, true);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof EvaluationKey)) {
+                return false;
+            }
+            EvaluationKey other = (EvaluationKey) o;
+            return flagKey.equals(other.flagKey) && Objects.equals(targetId, other.targetId) && anyTarget == other.anyTarget;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * flagKey.hashCode() + Objects.hashCode(targetId)) + (anyTarget ? 1 : 0);
+        }
+    }
+
+    /** A cached evaluation result. Immutable and shared: there are only five distinct values. */
+    static final class Evaluation {
+        static final Evaluation FAILED = new Evaluation(null, false);
+        private static final Evaluation ON = new Evaluation(true, false);
+        private static final Evaluation OFF = new Evaluation(false, false);
+        private static final Evaluation ON_FOR_ALL = new Evaluation(true, true);
+        private static final Evaluation OFF_FOR_ALL = new Evaluation(false, true);
+
+        final Boolean enabled; // null if the API couldn't evaluate the flag
+        final boolean targetIndependent;
+
+        private Evaluation(Boolean enabled, boolean targetIndependent) {
+            this.enabled = enabled;
+            this.targetIndependent = targetIndependent;
+        }
+
+        static Evaluation of(boolean enabled, boolean targetIndependent) {
+            if (targetIndependent) {
+                return enabled ? ON_FOR_ALL : OFF_FOR_ALL;
+            }
+            return enabled ? ON : OFF;
+        }
+
+        boolean orElse(boolean defaultValue) {
+            return enabled != null ? enabled : defaultValue;
+        }
+    }
+
+    private static final class Key {
+        final String apiBaseUrl;
+        final long cacheMaxSize;
+        final Duration cacheExpireAfterWrite;
+
+        Key(String apiBaseUrl, long cacheMaxSize, Duration cacheExpireAfterWrite) {
+            this.apiBaseUrl = apiBaseUrl;
+            this.cacheMaxSize = cacheMaxSize;
+            this.cacheExpireAfterWrite = cacheExpireAfterWrite;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return apiBaseUrl.equals(other.apiBaseUrl) && cacheMaxSize == other.cacheMaxSize
+                    && cacheExpireAfterWrite.equals(other.cacheExpireAfterWrite);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(apiBaseUrl, cacheMaxSize, cacheExpireAfterWrite);
+        }
+    }
+}
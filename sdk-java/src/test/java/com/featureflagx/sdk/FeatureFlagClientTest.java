@@ -0,0 +1,184 @@
+package com.featureflagx.sdk;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeatureFlagClientTest {
+
+    private MockWebServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void isEnabled_withBinaryWireFormat_shouldRequestAndDecodeBinary() throws Exception {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", BinaryWireFormat.MEDIA_TYPE)
+                .setBody(new Buffer().write(new byte[]{1, 1, 1})));
+        FeatureFlagClient client = new FeatureFlagClient(config(true));
+
+        assertTrue(client.isEnabled("new-checkout", "user-1"));
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals(BinaryWireFormat.MEDIA_TYPE, request.getHeader("Accept"));
+        assertEquals("/flags/evaluate/new-checkout?targetId=user-1", request.getPath());
+    }
+
+    @Test
+    void evaluateFlags_withBinaryWireFormat_shouldFetchMissesInOneRequest() throws Exception {
+        server.enqueue(new MockResponse().setBody(new Buffer().write(bulkEvaluation("a", true, "b", false))));
+        FeatureFlagClient client = new FeatureFlagClient(config(true));
+
+        Map<String, Boolean> results = client.evaluateFlags(Arrays.asList("a", "b", "c"), "user-1", true);
+
+        assertEquals(Boolean.TRUE, results.get("a"));
+        assertEquals(Boolean.FALSE, results.get("b"));
+        assertEquals(Boolean.TRUE, results.get("c")); // not returned by the API, default applies
+        assertEquals(1, server.getRequestCount());
+        assertEquals("/flags/evaluate?keys=a%2Cb%2Cc&targetId=user-1", server.takeRequest().getPath());
+
+        // Cached results are answered locally
+        assertEquals(Boolean.FALSE, client.evaluateFlags(Arrays.asList("a", "b"), "user-1", true).get("b"));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void evaluateFlags_withJson_shouldDecodeMap() {
+        server.enqueue(new MockResponse()
+                .setHeader("Content-Type", "application/json")
+                .setBody("{\"a\":true,\"b\":false}"));
+        FeatureFlagClient client = new FeatureFlagClient(config(false));
+
+        Map<String, Boolean> results = client.evaluateFlags(Arrays.asList("a", "b"), null, false);
+
+        assertEquals(Boolean.TRUE, results.get("a"));
+        assertEquals(Boolean.FALSE, results.get("b"));
+    }
+
+    @Test
+    void isEnabled_fromClientsSharingAStore_shouldFetchOnce() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        try (FeatureFlagClient first = new FeatureFlagClient(config(false));
+             FeatureFlagClient second = new FeatureFlagClient(config(true))) {
+
+            assertTrue(first.isEnabled("new-checkout", "user-1", true));
+            // The failure is shared, but each client still falls back to its own default
+            assertFalse(second.isEnabled("new-checkout", "user-1", false));
+            assertEquals(1, server.getRequestCount());
+
+            second.invalidateFlag("new-checkout");
+            server.enqueue(new MockResponse().setBody("true"));
+            assertTrue(first.isEnabled("new-checkout", "user-1", false));
+            assertTrue(second.isEnabled("new-checkout", "user-1", false));
+            assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void isEnabled_forDifferentTargets_shouldCacheEachTargetsResult() throws Exception {
+        server.enqueue(new MockResponse().setBody("true"));
+        server.enqueue(new MockResponse().setBody("false"));
+        try (FeatureFlagClient first = new FeatureFlagClient(config(false));
+             FeatureFlagClient second = new FeatureFlagClient(config(false))) {
+
+            assertTrue(first.isEnabled("beta-checkout", "user-1"));
+            // Shares the store, but not user-1's result
+            assertFalse(second.isEnabled("beta-checkout", "user-2"));
+            assertTrue(second.isEnabled("beta-checkout", "user-1"));
+            assertEquals(2, server.getRequestCount());
+            assertEquals("/flags/evaluate/beta-checkout?targetId=user-1", server.takeRequest().getPath());
+            assertEquals("/flags/evaluate/beta-checkout?targetId=user-2", server.takeRequest().getPath());
+
+            first.invalidateFlag("beta-checkout"); // drops the flag for every target
+            server.enqueue(new MockResponse().setBody("false"));
+            assertFalse(second.isEnabled("beta-checkout", "user-1"));
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    void isEnabled_misses_shouldNotQueueBehindTheDispatchersPerHostLimit() throws Exception {
+        int callers = 8; // more than OkHttp's default of 5 async calls per host
+        CountDownLatch inFlight = new CountDownLatch(callers);
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                inFlight.countDown();
+                // Only answers true once every caller's request has reached the server at the same time
+                return new MockResponse().setBody(String.valueOf(inFlight.await(5, TimeUnit.SECONDS)));
+            }
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try (FeatureFlagClient client = new FeatureFlagClient(config(false))) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                String target = "user-" + i;
+                results.add(executor.submit(() -> client.isEnabled("new-checkout", target)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void close_ofLastClient_shouldDropTheSharedStore() {
+        int stores = SharedFlagStore.storeCount();
+        FeatureFlagClient first = new FeatureFlagClient(config(false));
+        FeatureFlagClient second = new FeatureFlagClient(config(false));
+        assertEquals(stores + 1, SharedFlagStore.storeCount());
+
+        first.close();
+        first.close(); // idempotent, must not release the second client's reference
+        assertEquals(stores + 1, SharedFlagStore.storeCount());
+
+        second.close();
+        assertEquals(stores, SharedFlagStore.storeCount());
+    }
+
+    private FeatureFlagClient.Config config(boolean binary) {
+        return FeatureFlagClient.Config.builder()
+                .apiBaseUrl(server.url("/").toString().replaceAll("/$", ""))
+                .binaryWireFormat(binary)
+                .build();
+    }
+
+    private static byte[] bulkEvaluation(Object... keyValues) {
+        Buffer buffer = new Buffer().writeByte(1).writeByte(2).writeByte(keyValues.length / 2);
+        for (int i = 0; i < keyValues.length; i += 2) {
+            byte[] key = ((String) keyValues[i]).getBytes(StandardCharsets.UTF_8);
+            buffer.writeByte(key.length).write(key).writeByte((Boolean) keyValues[i + 1] ? 1 : 0);
+        }
+        return buffer.readByteArray();
+    }
+}
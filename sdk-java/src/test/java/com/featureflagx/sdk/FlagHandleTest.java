@@ -0,0 +1,113 @@
+package com.featureflagx.sdk;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class FlagHandleTest {
+
+    private MockWebServer server;
+    private FeatureFlagClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new FeatureFlagClient(FeatureFlagClient.Config.builder()
+                .apiBaseUrl(server.url("/").toString().replaceAll("/$", ""))
+                .cacheExpireAfterWrite(Duration.ofMinutes(5))
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.shutdown();
+    }
+
+    @Test
+    void isEnabled_forATargetIndependentFlag_shouldFetchOnceAndAnswerEveryTargetFromTheSnapshot() throws Exception {
+        server.enqueue(new MockResponse().setBody("true").setHeader("X-Target-Independent", "true"));
+        FlagHandle handle = client.flag("new-checkout");
+
+        assertTrue(handle.isEnabled("user-1"));
+        assertTrue(handle.isEnabled("user-2"));
+        assertTrue(client.isEnabled("new-checkout", "user-3"));
+        assertEquals(1, server.getRequestCount());
+        assertEquals("/flags/evaluate/new-checkout?targetId=user-1", server.takeRequest().getPath());
+    }
+
+    @Test
+    void isEnabled_forASegmentedFlag_shouldEvaluateEachTarget() throws Exception {
+        server.enqueue(new MockResponse().setBody("true"));
+        server.enqueue(new MockResponse().setBody("false"));
+        FlagHandle handle = client.flag("beta-checkout");
+
+        assertTrue(handle.isEnabled("user-1"));
+        assertFalse(handle.isEnabled("user-2"));
+        // Both results are cached per target; switching back and forth doesn't refetch
+        assertTrue(handle.isEnabled("user-1"));
+        assertFalse(handle.isEnabled("user-2"));
+        assertFalse(client.flag("beta-checkout").isEnabled("user-2"));
+        assertEquals(2, server.getRequestCount());
+        assertEquals("/flags/evaluate/beta-checkout?targetId=user-1", server.takeRequest().getPath());
+        assertEquals("/flags/evaluate/beta-checkout?targetId=user-2", server.takeRequest().getPath());
+    }
+
+    @Test
+    void isEnabled_afterInvalidation_shouldRefetch() {
+        server.enqueue(new MockResponse().setBody("true"));
+        server.enqueue(new MockResponse().setBody("false"));
+        FlagHandle handle = client.flag("new-checkout");
+
+        assertTrue(handle.isEnabled());
+        client.invalidateFlag("new-checkout");
+        assertFalse(handle.isEnabled());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    void isEnabled_onFailureOrBlankKey_shouldReturnTheHandlesDefault() {
+        server.enqueue(new MockResponse().setResponseCode(500));
+
+        assertTrue(client.flag("broken", true).isEnabled());
+        assertFalse(client.flag("broken", false).isEnabled()); // failure is cached, default is per handle
+        assertTrue(client.flag(" ", true).isEnabled());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    void isEnabled_onTheHotPath_shouldNotAllocate() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        server.enqueue(new MockResponse().setBody("true"));
+        FlagHandle handle = client.flag("new-checkout");
+        long thread = Thread.currentThread().getId();
+        int enabled = 0;
+        for (int i = 0; i < 200_000; i++) { // warm up, including JIT compilation
+            enabled += handle.isEnabled("user-1") ? 1 : 0;
+        }
+
+        long before = allocations.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 1_000_000; i++) {
+            enabled += handle.isEnabled("user-1") ? 1 : 0;
+        }
+        long allocated = allocations.getThreadAllocatedBytes(thread) - before;
+
+        assertEquals(1_200_000, enabled);
+        // A single byte per call would be a megabyte; the slack only covers the measurement itself
+        assertTrue(allocated < 1024, "hot path allocated " + allocated + " bytes");
+    }
+}